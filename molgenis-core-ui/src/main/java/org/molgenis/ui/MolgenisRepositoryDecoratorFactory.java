@@ -20,6 +20,8 @@ import org.molgenis.data.validation.EntityAttributesValidator;
 import org.molgenis.data.validation.ExpressionValidator;
 import org.molgenis.data.validation.RepositoryValidationDecorator;
 import org.molgenis.security.owned.OwnedEntityRepositoryDecorator;
+import org.molgenis.security.token.TokenCache;
+import org.molgenis.security.token.TokenCacheInvalidationDecorator;
 import org.molgenis.util.EntityUtils;
 import org.molgenis.util.MySqlRepositoryExceptionTranslatorDecorator;
 
@@ -33,11 +35,12 @@ public class MolgenisRepositoryDecoratorFactory implements RepositoryDecoratorFa
 	private final DataService dataService;
 	private final ExpressionValidator expressionValidator;
 	private final RepositoryDecoratorRegistry repositoryDecoratorRegistry;
+	private final TokenCache tokenCache;
 
 	public MolgenisRepositoryDecoratorFactory(EntityManager entityManager, TransactionLogService transactionLogService,
 			EntityAttributesValidator entityAttributesValidator, IdGenerator idGenerator, AppSettings appSettings,
 			DataService dataService, ExpressionValidator expressionValidator,
-			RepositoryDecoratorRegistry repositoryDecoratorRegistry)
+			RepositoryDecoratorRegistry repositoryDecoratorRegistry, TokenCache tokenCache)
 	{
 		this.entityManager = entityManager;
 		this.transactionLogService = transactionLogService;
@@ -47,6 +50,7 @@ public class MolgenisRepositoryDecoratorFactory implements RepositoryDecoratorFa
 		this.dataService = dataService;
 		this.expressionValidator = expressionValidator;
 		this.repositoryDecoratorRegistry = repositoryDecoratorRegistry;
+		this.tokenCache = tokenCache;
 	}
 
 	@Override
@@ -59,6 +63,11 @@ public class MolgenisRepositoryDecoratorFactory implements RepositoryDecoratorFa
 			decoratedRepository = new MolgenisUserDecorator(decoratedRepository);
 		}
 
+		if (TokenCacheInvalidationDecorator.isTokenCacheDependency(decoratedRepository.getName()))
+		{
+			decoratedRepository = new TokenCacheInvalidationDecorator(decoratedRepository, tokenCache);
+		}
+
 		// 9. Owned decorator
 		if (EntityUtils.doesExtend(decoratedRepository.getEntityMetaData(), OwnedEntityMetaData.ENTITY_NAME))
 		{
@@ -12,72 +12,112 @@ import java.util.Set;
 import org.mapdb.DB;
 import org.mapdb.DBMaker;
 
+/**
+ * Map that can contain a huge amount of data by storing it on disk.
+ * 
+ * Integer and long keys are stored in a primitive hash map. The first {@link #THRESHOLD} entries are always kept in
+ * memory, beyond that the map is moved to disk once the estimated size of all in-memory huge sets and maps together
+ * would exceed a fraction of the maximum heap size.
+ * 
+ * @param <K>
+ * @param <V>
+ */
 public class HugeMap<K, V> implements Map<K, V>, Closeable
 {
-	protected static final int THRESHOLD = 10000;
+	/** Minimum number of entries kept in memory */
+	protected static final int THRESHOLD = HugeSet.THRESHOLD;
+
+	/** Estimated number of bytes of a value object */
+	private static final int BYTES_PER_VALUE = 48;
+
+	/** Estimated number of bytes per entry of a java.util.HashMap including the key and value */
+	private static final int BYTES_PER_OBJECT_ENTRY = 80 + BYTES_PER_VALUE;
+
+	/** Estimated number of bytes per entry of a primitive number map including the value */
+	private static final int BYTES_PER_PRIMITIVE_ENTRY = PrimitiveNumberMap.BYTES_PER_ENTRY + BYTES_PER_VALUE;
+
+	private final MemoryBudget.Reservation memoryReservation;
 	private DB mapDB;
-	private Map<K, V> map;
-	private final Map<K, V> hashMap = new HashMap<>();
+	private Map<K, V> map = new HashMap<>();
+
+	public HugeMap()
+	{
+		this(MemoryBudget.SHARED);
+	}
+
+	HugeMap(MemoryBudget memoryBudget)
+	{
+		this.memoryReservation = new MemoryBudget.Reservation(memoryBudget);
+	}
 
 	@Override
 	public int size()
 	{
-		if (map == null) return hashMap.size();
 		return map.size();
 	}
 
 	@Override
 	public boolean isEmpty()
 	{
-		if (map == null) return hashMap.isEmpty();
 		return map.isEmpty();
 	}
 
 	@Override
 	public boolean containsKey(Object key)
 	{
-		if (map == null) return hashMap.containsKey(key);
 		return map.containsKey(key);
 	}
 
 	@Override
 	public boolean containsValue(Object value)
 	{
-		if (map == null) return hashMap.containsValue(value);
 		return map.containsValue(value);
 	}
 
 	@Override
 	public V get(Object key)
 	{
-		if (map == null) return hashMap.get(key);
 		return map.get(key);
 	}
 
 	@Override
 	public V put(K key, V value)
 	{
-		if (hashMap.size() == THRESHOLD)
+		if (mapDB == null)
 		{
-			File dbFile;
-			try
+			if (map instanceof PrimitiveNumberMap)
 			{
-				dbFile = File.createTempFile("mapdb", "temp");
+				if (!((PrimitiveNumberMap<K, V>) map).isKeyType(key))
+				{
+					// mixed key types, continue with boxed keys
+					map = new HashMap<>(map);
+				}
 			}
-			catch (IOException e)
+			else if (map.isEmpty() && key != null && PrimitiveNumberSet.isSupportedType(key.getClass()))
 			{
-				throw new UncheckedIOException(e);
+				map = new PrimitiveNumberMap<>(key.getClass());
 			}
 
-			mapDB = DBMaker.newFileDB(dbFile).deleteFilesAfterClose().transactionDisable().make();
-			map = mapDB.createHashMap("map").make();
-			map.putAll(hashMap);
-			hashMap.clear();
-		}
-
-		if (map == null)
-		{
-			return hashMap.put(key, value);
+			int bytesPerEntry = map instanceof PrimitiveNumberMap ? BYTES_PER_PRIMITIVE_ENTRY
+					: BYTES_PER_OBJECT_ENTRY;
+			if (!map.containsKey(key) && !HugeSet.reserveMemory(memoryReservation, map.size() + 1, bytesPerEntry))
+			{
+				File dbFile;
+				try
+				{
+					dbFile = File.createTempFile("mapdb", "temp");
+				}
+				catch (IOException e)
+				{
+					throw new UncheckedIOException(e);
+				}
+
+				mapDB = DBMaker.newFileDB(dbFile).deleteFilesAfterClose().transactionDisable().make();
+				Map<K, V> mapDBMap = mapDB.createHashMap("map").make();
+				mapDBMap.putAll(map);
+				map = mapDBMap;
+				memoryReservation.releaseAll();
+			}
 		}
 
 		return map.put(key, value);
@@ -86,7 +126,6 @@ public class HugeMap<K, V> implements Map<K, V>, Closeable
 	@Override
 	public V remove(Object key)
 	{
-		if (map == null) return hashMap.remove(key);
 		return map.remove(key);
 	}
 
@@ -99,40 +138,35 @@ public class HugeMap<K, V> implements Map<K, V>, Closeable
 	@Override
 	public void clear()
 	{
-		if (map == null)
-		{
-			hashMap.clear();
-		}
-		else
+		map.clear();
+		if (mapDB == null)
 		{
-			map.clear();
+			memoryReservation.releaseAll();
 		}
 	}
 
 	@Override
 	public Set<K> keySet()
 	{
-		if (map == null) return hashMap.keySet();
 		return map.keySet();
 	}
 
 	@Override
 	public Collection<V> values()
 	{
-		if (map == null) return hashMap.values();
 		return map.values();
 	}
 
 	@Override
 	public Set<java.util.Map.Entry<K, V>> entrySet()
 	{
-		if (map == null) return hashMap.entrySet();
 		return map.entrySet();
 	}
 
 	@Override
 	public void close() throws IOException
 	{
+		memoryReservation.releaseAll();
 		if (mapDB != null)
 		{
 			mapDB.close();
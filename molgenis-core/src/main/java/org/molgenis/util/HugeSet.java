@@ -15,81 +15,122 @@ import org.mapdb.DBMaker;
 /**
  * Set that can contain a huge amount of data by storing it on disk.
  * 
+ * Integer and long elements are stored in a primitive hash set. The first {@link #THRESHOLD} elements are always kept
+ * in memory, beyond that the set is moved to disk once the estimated size of all in-memory huge sets and maps together
+ * would exceed a fraction of the maximum heap size.
+ * 
  * @param <E>
  */
 public class HugeSet<E> implements Set<E>, Closeable
 {
+	/** Minimum number of elements kept in memory */
 	protected static final int THRESHOLD = 10000;
+
+	/** Estimated number of bytes per element of a java.util.HashSet including the element itself */
+	private static final int BYTES_PER_OBJECT_ELEMENT = 96;
+
+	/** Maximum number of elements kept in memory, regardless of the available memory */
+	static final int MAX_IN_MEMORY_SIZE = 1 << 28;
+
+	private final MemoryBudget.Reservation memoryReservation;
 	private DB mapDB;
-	private Set<E> set;
-	private final HashSet<E> hashSet = new HashSet<>();
+	private Set<E> set = new HashSet<>();
+
+	public HugeSet()
+	{
+		this(MemoryBudget.SHARED);
+	}
+
+	HugeSet(MemoryBudget memoryBudget)
+	{
+		this.memoryReservation = new MemoryBudget.Reservation(memoryBudget);
+	}
+
+	/**
+	 * Returns whether an in-memory collection can grow to the given size, reserves memory for the elements beyond
+	 * {@link #THRESHOLD}
+	 */
+	static boolean reserveMemory(MemoryBudget.Reservation memoryReservation, int size, int bytesPerElement)
+	{
+		if (size <= THRESHOLD) return true;
+		if (size > MAX_IN_MEMORY_SIZE) return false;
+		return memoryReservation.ensure((long) (size - THRESHOLD) * bytesPerElement);
+	}
 
 	@Override
 	public int size()
 	{
-		if (set == null) return hashSet.size();
 		return set.size();
 	}
 
 	@Override
 	public boolean isEmpty()
 	{
-		if (set == null) return hashSet.isEmpty();
 		return set.isEmpty();
 	}
 
 	@Override
 	public boolean contains(Object o)
 	{
-		if (set == null) return hashSet.contains(o);
 		return set.contains(o);
 	}
 
 	@Override
 	public Iterator<E> iterator()
 	{
-		if (set == null) return hashSet.iterator();
 		return set.iterator();
 	}
 
 	@Override
 	public Object[] toArray()
 	{
-		if (set == null) return hashSet.toArray();
 		return set.toArray();
 	}
 
 	@Override
 	public <T> T[] toArray(T[] a)
 	{
-		if (set == null) return hashSet.toArray(a);
 		return set.toArray(a);
 	}
 
 	@Override
 	public boolean add(E obj)
 	{
-		if (hashSet.size() == THRESHOLD)
+		if (mapDB == null)
 		{
-			File dbFile;
-			try
+			if (set instanceof PrimitiveNumberSet)
 			{
-				dbFile = File.createTempFile("mapdb", "temp");
+				if (!((PrimitiveNumberSet<E>) set).isElementType(obj))
+				{
+					// mixed element types, continue with boxed elements
+					set = new HashSet<>(set);
+				}
 			}
-			catch (IOException e)
+			else if (set.isEmpty() && obj != null && PrimitiveNumberSet.isSupportedType(obj.getClass()))
 			{
-				throw new UncheckedIOException(e);
+				set = new PrimitiveNumberSet<>(obj.getClass());
 			}
 
-			mapDB = DBMaker.newFileDB(dbFile).deleteFilesAfterClose().transactionDisable().make();
-			set = mapDB.createHashSet("set").make();
-			set.addAll(hashSet);
-			hashSet.clear();
-		}
-
-		if (set == null)
-		{
-			return hashSet.add(obj);
+			int bytesPerElement = set instanceof PrimitiveNumberSet ? PrimitiveNumberSet.BYTES_PER_ELEMENT
+					: BYTES_PER_OBJECT_ELEMENT;
+			if (!reserveMemory(memoryReservation, set.size() + 1, bytesPerElement))
+			{
+				File dbFile;
+				try
+				{
+					dbFile = File.createTempFile("mapdb", "temp");
+				}
+				catch (IOException e)
+				{
+					throw new UncheckedIOException(e);
+				}
+
+				mapDB = DBMaker.newFileDB(dbFile).deleteFilesAfterClose().transactionDisable().make();
+				Set<E> mapDBSet = mapDB.createHashSet("set").make();
+				mapDBSet.addAll(set);
+				set = mapDBSet;
+				memoryReservation.releaseAll();
+			}
 		}
 
 		return set.add(obj);
@@ -98,14 +139,12 @@ public class HugeSet<E> implements Set<E>, Closeable
 	@Override
 	public boolean remove(Object o)
 	{
-		if (set == null) return hashSet.remove(o);
 		return set.remove(o);
 	}
 
 	@Override
 	public boolean containsAll(Collection<?> c)
 	{
-		if (set == null) return hashSet.containsAll(c);
 		return set.containsAll(c);
 	}
 
@@ -119,33 +158,29 @@ public class HugeSet<E> implements Set<E>, Closeable
 	@Override
 	public boolean retainAll(Collection<?> c)
 	{
-		if (set == null) return hashSet.retainAll(c);
 		return set.retainAll(c);
 	}
 
 	@Override
 	public boolean removeAll(Collection<?> c)
 	{
-		if (set == null) return hashSet.removeAll(c);
 		return set.removeAll(c);
 	}
 
 	@Override
 	public void clear()
 	{
-		if (set == null)
-		{
-			hashSet.clear();
-		}
-		else
+		set.clear();
+		if (mapDB == null)
 		{
-			set.clear();
+			memoryReservation.releaseAll();
 		}
 	}
 
 	@Override
 	public void close() throws IOException
 	{
+		memoryReservation.releaseAll();
 		if (mapDB != null)
 		{
 			mapDB.close();
@@ -0,0 +1,90 @@
+package org.molgenis.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Number of heap bytes that in-memory collections may use together. Collections reserve an estimate of their size
+ * before they grow and release it when they are closed or moved to disk.
+ */
+class MemoryBudget
+{
+	/** Budget shared by all {@link HugeSet} and {@link HugeMap} instances: 1/8 of the maximum heap size */
+	static final MemoryBudget SHARED = new MemoryBudget(Runtime.getRuntime().maxMemory() / 8);
+
+	private final long maxBytes;
+	private final AtomicLong reservedBytes = new AtomicLong();
+
+	MemoryBudget(long maxBytes)
+	{
+		if (maxBytes < 0) throw new IllegalArgumentException("Max bytes must be at least 0");
+		this.maxBytes = maxBytes;
+	}
+
+	/**
+	 * Reserves a number of bytes
+	 *
+	 * @return false if the reservation would exceed the budget, nothing is reserved in that case
+	 */
+	boolean reserve(long bytes)
+	{
+		long reserved;
+		do
+		{
+			reserved = reservedBytes.get();
+			if (reserved + bytes > maxBytes) return false;
+		}
+		while (!reservedBytes.compareAndSet(reserved, reserved + bytes));
+		return true;
+	}
+
+	void release(long bytes)
+	{
+		reservedBytes.addAndGet(-bytes);
+	}
+
+	long getReservedBytes()
+	{
+		return reservedBytes.get();
+	}
+
+	/**
+	 * Part of a budget reserved by one collection, grows in steps to limit contention on the shared budget
+	 */
+	static class Reservation
+	{
+		/** minimum number of bytes that is reserved at once */
+		private static final long MIN_RESERVE_BYTES = 1 << 16;
+
+		private final MemoryBudget budget;
+		private long reservedBytes;
+
+		Reservation(MemoryBudget budget)
+		{
+			this.budget = budget;
+		}
+
+		/**
+		 * Makes sure that the given total number of bytes is reserved for the collection
+		 *
+		 * @return false if the budget is exhausted
+		 */
+		boolean ensure(long bytes)
+		{
+			if (bytes <= reservedBytes) return true;
+			long extraBytes = Math.max(bytes - reservedBytes, MIN_RESERVE_BYTES);
+			if (!budget.reserve(extraBytes))
+			{
+				extraBytes = bytes - reservedBytes;
+				if (!budget.reserve(extraBytes)) return false;
+			}
+			reservedBytes += extraBytes;
+			return true;
+		}
+
+		void releaseAll()
+		{
+			budget.release(reservedBytes);
+			reservedBytes = 0;
+		}
+	}
+}
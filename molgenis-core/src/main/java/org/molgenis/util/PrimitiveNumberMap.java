@@ -0,0 +1,312 @@
+package org.molgenis.util;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Open addressing hash map that stores {@link Integer} or {@link Long} keys as primitive longs instead of boxed
+ * objects.
+ *
+ * @param <K>
+ *            Integer or Long
+ * @param <V>
+ */
+class PrimitiveNumberMap<K, V> extends AbstractMap<K, V>
+{
+	/**
+	 * Estimated number of bytes per entry of the hash table, taking the maximum load factor into account. Excludes the
+	 * size of the value objects.
+	 */
+	static final int BYTES_PER_ENTRY = 40;
+
+	private static final byte FREE = 0;
+	private static final byte FULL = 1;
+	private static final byte REMOVED = 2;
+	private static final int INITIAL_CAPACITY = 16;
+
+	private final Class<?> type;
+	private long[] keys;
+	private Object[] values;
+	private byte[] states;
+	private int size;
+	/** number of full and removed slots */
+	private int used;
+
+	PrimitiveNumberMap(Class<?> type)
+	{
+		if (!PrimitiveNumberSet.isSupportedType(type))
+		{
+			throw new IllegalArgumentException("Unsupported type [" + type + "]");
+		}
+		this.type = type;
+		this.keys = new long[INITIAL_CAPACITY];
+		this.values = new Object[INITIAL_CAPACITY];
+		this.states = new byte[INITIAL_CAPACITY];
+	}
+
+	/**
+	 * Returns whether the given object can be used as key in this map
+	 */
+	boolean isKeyType(Object o)
+	{
+		return o != null && o.getClass() == type;
+	}
+
+	@Override
+	public int size()
+	{
+		return size;
+	}
+
+	@Override
+	public boolean containsKey(Object key)
+	{
+		return isKeyType(key) && indexOf(((Number) key).longValue()) != -1;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public V get(Object key)
+	{
+		if (!isKeyType(key)) return null;
+		int index = indexOf(((Number) key).longValue());
+		return index != -1 ? (V) values[index] : null;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public V put(K key, V value)
+	{
+		if (!isKeyType(key)) throw new IllegalArgumentException("Key is not of type [" + type + "]");
+
+		long primitiveKey = ((Number) key).longValue();
+		int index = indexOf(primitiveKey);
+		if (index != -1)
+		{
+			V previousValue = (V) values[index];
+			values[index] = value;
+			return previousValue;
+		}
+
+		if ((used + 1) * 2 > keys.length)
+		{
+			// grow if more than a quarter of the slots contains entries, otherwise only purge removed slots
+			rehash((size + 1) * 4 > keys.length ? keys.length * 2 : keys.length);
+		}
+
+		int mask = keys.length - 1;
+		int i = PrimitiveNumberSet.hash(primitiveKey) & mask;
+		while (states[i] == FULL)
+		{
+			i = (i + 1) & mask;
+		}
+		if (states[i] == FREE) ++used;
+		keys[i] = primitiveKey;
+		values[i] = value;
+		states[i] = FULL;
+		++size;
+		return null;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public V remove(Object key)
+	{
+		if (!isKeyType(key)) return null;
+
+		int index = indexOf(((Number) key).longValue());
+		if (index == -1) return null;
+		V previousValue = (V) values[index];
+		removeAt(index);
+		return previousValue;
+	}
+
+	@Override
+	public void clear()
+	{
+		keys = new long[INITIAL_CAPACITY];
+		values = new Object[INITIAL_CAPACITY];
+		states = new byte[INITIAL_CAPACITY];
+		size = 0;
+		used = 0;
+	}
+
+	@Override
+	public Set<Map.Entry<K, V>> entrySet()
+	{
+		return new AbstractSet<Map.Entry<K, V>>()
+		{
+			@Override
+			public Iterator<Map.Entry<K, V>> iterator()
+			{
+				return new EntryIterator();
+			}
+
+			@Override
+			public int size()
+			{
+				return size;
+			}
+
+			@Override
+			public void clear()
+			{
+				PrimitiveNumberMap.this.clear();
+			}
+		};
+	}
+
+	private void removeAt(int index)
+	{
+		values[index] = null;
+		states[index] = REMOVED;
+		--size;
+	}
+
+	@SuppressWarnings("unchecked")
+	private K toKey(long key)
+	{
+		Object value;
+		if (type == Integer.class) value = Integer.valueOf((int) key);
+		else value = Long.valueOf(key);
+		return (K) value;
+	}
+
+	private int indexOf(long key)
+	{
+		int mask = keys.length - 1;
+		int i = PrimitiveNumberSet.hash(key) & mask;
+		while (states[i] != FREE)
+		{
+			if (states[i] == FULL && keys[i] == key) return i;
+			i = (i + 1) & mask;
+		}
+		return -1;
+	}
+
+	private void rehash(int capacity)
+	{
+		long[] oldKeys = keys;
+		Object[] oldValues = values;
+		byte[] oldStates = states;
+
+		keys = new long[capacity];
+		values = new Object[capacity];
+		states = new byte[capacity];
+		int mask = capacity - 1;
+		for (int j = 0; j < oldKeys.length; ++j)
+		{
+			if (oldStates[j] == FULL)
+			{
+				int i = PrimitiveNumberSet.hash(oldKeys[j]) & mask;
+				while (states[i] != FREE)
+				{
+					i = (i + 1) & mask;
+				}
+				keys[i] = oldKeys[j];
+				values[i] = oldValues[j];
+				states[i] = FULL;
+			}
+		}
+		used = size;
+	}
+
+	private class EntryIterator implements Iterator<Map.Entry<K, V>>
+	{
+		private int index = nextIndex(0);
+		private int lastIndex = -1;
+
+		@Override
+		public boolean hasNext()
+		{
+			return index < states.length;
+		}
+
+		@Override
+		public Map.Entry<K, V> next()
+		{
+			if (!hasNext()) throw new NoSuchElementException();
+			lastIndex = index;
+			index = nextIndex(index + 1);
+			return new PrimitiveEntry(lastIndex);
+		}
+
+		@Override
+		public void remove()
+		{
+			if (lastIndex == -1) throw new IllegalStateException();
+			removeAt(lastIndex);
+			lastIndex = -1;
+		}
+
+		private int nextIndex(int fromIndex)
+		{
+			int i = fromIndex;
+			while (i < states.length && states[i] != FULL)
+			{
+				++i;
+			}
+			return i;
+		}
+	}
+
+	private class PrimitiveEntry implements Map.Entry<K, V>
+	{
+		private final int index;
+		private final K key;
+
+		PrimitiveEntry(int index)
+		{
+			this.index = index;
+			this.key = toKey(keys[index]);
+		}
+
+		@Override
+		public K getKey()
+		{
+			return key;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public V getValue()
+		{
+			return (V) values[index];
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public V setValue(V value)
+		{
+			V previousValue = (V) values[index];
+			values[index] = value;
+			return previousValue;
+		}
+
+		@Override
+		public boolean equals(Object o)
+		{
+			if (!(o instanceof Map.Entry)) return false;
+			Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+			Object value = getValue();
+			return key.equals(e.getKey()) && (value == null ? e.getValue() == null : value.equals(e.getValue()));
+		}
+
+		@Override
+		public int hashCode()
+		{
+			Object value = getValue();
+			return key.hashCode() ^ (value == null ? 0 : value.hashCode());
+		}
+
+		@Override
+		public String toString()
+		{
+			return key + "=" + getValue();
+		}
+	}
+}
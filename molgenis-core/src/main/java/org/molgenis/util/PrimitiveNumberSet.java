@@ -0,0 +1,206 @@
+package org.molgenis.util;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Open addressing hash set that stores {@link Integer} or {@link Long} elements as primitive longs instead of boxed
+ * objects.
+ *
+ * @param <E>
+ *            Integer or Long
+ */
+class PrimitiveNumberSet<E> extends AbstractSet<E>
+{
+	/** Estimated number of bytes per element, taking the maximum load factor into account */
+	static final int BYTES_PER_ELEMENT = 24;
+
+	private static final byte FREE = 0;
+	private static final byte FULL = 1;
+	private static final byte REMOVED = 2;
+	private static final int INITIAL_CAPACITY = 16;
+
+	private final Class<?> type;
+	private long[] keys;
+	private byte[] states;
+	private int size;
+	/** number of full and removed slots */
+	private int used;
+
+	PrimitiveNumberSet(Class<?> type)
+	{
+		if (!isSupportedType(type)) throw new IllegalArgumentException("Unsupported type [" + type + "]");
+		this.type = type;
+		this.keys = new long[INITIAL_CAPACITY];
+		this.states = new byte[INITIAL_CAPACITY];
+	}
+
+	static boolean isSupportedType(Class<?> type)
+	{
+		return type == Integer.class || type == Long.class;
+	}
+
+	/**
+	 * Returns whether the given object can be stored in this set
+	 */
+	boolean isElementType(Object o)
+	{
+		return o != null && o.getClass() == type;
+	}
+
+	@Override
+	public int size()
+	{
+		return size;
+	}
+
+	@Override
+	public boolean contains(Object o)
+	{
+		return isElementType(o) && indexOf(((Number) o).longValue()) != -1;
+	}
+
+	@Override
+	public boolean add(E e)
+	{
+		if (!isElementType(e)) throw new IllegalArgumentException("Element is not of type [" + type + "]");
+
+		long key = ((Number) e).longValue();
+		if (indexOf(key) != -1) return false;
+
+		if ((used + 1) * 2 > keys.length)
+		{
+			// grow if more than a quarter of the slots contains elements, otherwise only purge removed slots
+			rehash((size + 1) * 4 > keys.length ? keys.length * 2 : keys.length);
+		}
+
+		int mask = keys.length - 1;
+		int i = hash(key) & mask;
+		while (states[i] == FULL)
+		{
+			i = (i + 1) & mask;
+		}
+		if (states[i] == FREE) ++used;
+		keys[i] = key;
+		states[i] = FULL;
+		++size;
+		return true;
+	}
+
+	@Override
+	public boolean remove(Object o)
+	{
+		if (!isElementType(o)) return false;
+
+		int index = indexOf(((Number) o).longValue());
+		if (index == -1) return false;
+		states[index] = REMOVED;
+		--size;
+		return true;
+	}
+
+	@Override
+	public void clear()
+	{
+		keys = new long[INITIAL_CAPACITY];
+		states = new byte[INITIAL_CAPACITY];
+		size = 0;
+		used = 0;
+	}
+
+	@Override
+	public Iterator<E> iterator()
+	{
+		return new Iterator<E>()
+		{
+			private int index = nextIndex(0);
+			private int lastIndex = -1;
+
+			@Override
+			public boolean hasNext()
+			{
+				return index < states.length;
+			}
+
+			@Override
+			public E next()
+			{
+				if (!hasNext()) throw new NoSuchElementException();
+				lastIndex = index;
+				index = nextIndex(index + 1);
+				return toElement(keys[lastIndex]);
+			}
+
+			@Override
+			public void remove()
+			{
+				if (lastIndex == -1) throw new IllegalStateException();
+				states[lastIndex] = REMOVED;
+				--size;
+				lastIndex = -1;
+			}
+
+			private int nextIndex(int fromIndex)
+			{
+				int i = fromIndex;
+				while (i < states.length && states[i] != FULL)
+				{
+					++i;
+				}
+				return i;
+			}
+		};
+	}
+
+	@SuppressWarnings("unchecked")
+	private E toElement(long key)
+	{
+		Object value;
+		if (type == Integer.class) value = Integer.valueOf((int) key);
+		else value = Long.valueOf(key);
+		return (E) value;
+	}
+
+	private int indexOf(long key)
+	{
+		int mask = keys.length - 1;
+		int i = hash(key) & mask;
+		while (states[i] != FREE)
+		{
+			if (states[i] == FULL && keys[i] == key) return i;
+			i = (i + 1) & mask;
+		}
+		return -1;
+	}
+
+	private void rehash(int capacity)
+	{
+		long[] oldKeys = keys;
+		byte[] oldStates = states;
+
+		keys = new long[capacity];
+		states = new byte[capacity];
+		int mask = capacity - 1;
+		for (int j = 0; j < oldKeys.length; ++j)
+		{
+			if (oldStates[j] == FULL)
+			{
+				int i = hash(oldKeys[j]) & mask;
+				while (states[i] != FREE)
+				{
+					i = (i + 1) & mask;
+				}
+				keys[i] = oldKeys[j];
+				states[i] = FULL;
+			}
+		}
+		used = size;
+	}
+
+	static int hash(long key)
+	{
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+}
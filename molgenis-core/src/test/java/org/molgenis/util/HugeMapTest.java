@@ -191,6 +191,46 @@ public class HugeMapTest
 		assertEquals(hugeMap.values().size(), HugeMap.THRESHOLD);
 	}
 
+	@Test
+	public void putLongs() throws IOException
+	{
+		try (HugeMap<Long, String> longMap = new HugeMap<>())
+		{
+			IntStream.range(0, HugeMap.THRESHOLD).forEach(i -> longMap.put(Long.valueOf(i), Integer.toString(i)));
+			assertEquals(longMap.size(), HugeMap.THRESHOLD);
+			assertEquals(longMap.get(2l), "2");
+			assertNull(longMap.get(2));
+			assertEquals(longMap.put(2l, "two"), "2");
+			assertEquals(longMap.get(2l), "two");
+		}
+	}
+
+	@Test
+	public void putMixedTypes() throws IOException
+	{
+		try (HugeMap<Object, String> objectMap = new HugeMap<>())
+		{
+			objectMap.put(1, "1");
+			objectMap.put("2", "2");
+			assertEquals(objectMap.size(), 2);
+			assertEquals(objectMap.get(1), "1");
+			assertEquals(objectMap.get("2"), "2");
+		}
+	}
+
+	@Test
+	public void putMemoryBudgetExhausted() throws IOException
+	{
+		MemoryBudget memoryBudget = new MemoryBudget(0);
+		try (HugeMap<Long, String> longMap = new HugeMap<>(memoryBudget))
+		{
+			IntStream.range(0, HugeMap.THRESHOLD + 1).forEach(i -> longMap.put(Long.valueOf(i), Integer.toString(i)));
+			assertEquals(longMap.size(), HugeMap.THRESHOLD + 1);
+			assertEquals(longMap.get(Long.valueOf(HugeMap.THRESHOLD)), Integer.toString(HugeMap.THRESHOLD));
+			assertEquals(memoryBudget.getReservedBytes(), 0);
+		}
+	}
+
 	private void fillToThreshold()
 	{
 		IntStream.range(0, HugeMap.THRESHOLD).mapToObj(Integer::toString).forEach(s -> hugeMap.put(s, s));
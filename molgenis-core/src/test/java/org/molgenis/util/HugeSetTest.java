@@ -201,6 +201,56 @@ public class HugeSetTest
 		assertEquals(hugeSet.toArray().length, HugeSet.THRESHOLD);
 	}
 
+	@Test
+	public void addIntegers() throws IOException
+	{
+		try (HugeSet<Integer> integerSet = new HugeSet<>())
+		{
+			IntStream.range(0, HugeSet.THRESHOLD).forEach(integerSet::add);
+			assertEquals(integerSet.size(), HugeSet.THRESHOLD);
+			assertTrue(integerSet.contains(2));
+			assertFalse(integerSet.contains(2l));
+			assertFalse(integerSet.contains(HugeSet.THRESHOLD));
+		}
+	}
+
+	@Test
+	public void addMixedTypes() throws IOException
+	{
+		try (HugeSet<Object> objectSet = new HugeSet<>())
+		{
+			objectSet.add(1);
+			objectSet.add(2l);
+			objectSet.add("3");
+			assertEquals(objectSet.size(), 3);
+			assertTrue(objectSet.contains(1));
+			assertTrue(objectSet.contains(2l));
+			assertTrue(objectSet.contains("3"));
+			assertFalse(objectSet.contains(2));
+		}
+	}
+
+	@Test
+	public void addSharedMemoryBudget() throws IOException
+	{
+		// budget for 100 elements beyond the threshold, shared by two sets
+		MemoryBudget memoryBudget = new MemoryBudget(100 * PrimitiveNumberSet.BYTES_PER_ELEMENT);
+		try (HugeSet<Integer> set1 = new HugeSet<>(memoryBudget); HugeSet<Integer> set2 = new HugeSet<>(memoryBudget))
+		{
+			IntStream.range(0, HugeSet.THRESHOLD + 100).forEach(set1::add);
+			assertEquals(memoryBudget.getReservedBytes(), 100 * PrimitiveNumberSet.BYTES_PER_ELEMENT);
+
+			// second set is moved to disk once it exceeds the threshold
+			IntStream.range(0, HugeSet.THRESHOLD + 100).forEach(set2::add);
+			assertEquals(set2.size(), HugeSet.THRESHOLD + 100);
+			assertTrue(set2.contains(HugeSet.THRESHOLD + 99));
+			assertEquals(memoryBudget.getReservedBytes(), 100 * PrimitiveNumberSet.BYTES_PER_ELEMENT);
+
+			set1.close();
+			assertEquals(memoryBudget.getReservedBytes(), 0);
+		}
+	}
+
 	private void fillToThreshold()
 	{
 		IntStream.range(0, HugeSet.THRESHOLD).mapToObj(Integer::toString).forEach(hugeSet::add);
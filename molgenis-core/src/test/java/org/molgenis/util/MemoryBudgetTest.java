@@ -0,0 +1,44 @@
+package org.molgenis.util;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import org.testng.annotations.Test;
+
+public class MemoryBudgetTest
+{
+	@Test
+	public void reserve()
+	{
+		MemoryBudget memoryBudget = new MemoryBudget(100);
+		assertTrue(memoryBudget.reserve(60));
+		assertFalse(memoryBudget.reserve(50));
+		assertTrue(memoryBudget.reserve(40));
+		assertEquals(memoryBudget.getReservedBytes(), 100);
+		memoryBudget.release(60);
+		assertEquals(memoryBudget.getReservedBytes(), 40);
+	}
+
+	@Test
+	public void reservation()
+	{
+		MemoryBudget memoryBudget = new MemoryBudget(1 << 20);
+		MemoryBudget.Reservation reservation = new MemoryBudget.Reservation(memoryBudget);
+		assertTrue(reservation.ensure(10));
+		// reserves a larger block than requested
+		long reservedBytes = memoryBudget.getReservedBytes();
+		assertTrue(reservedBytes >= 10);
+		assertTrue(reservation.ensure(reservedBytes));
+		assertEquals(memoryBudget.getReservedBytes(), reservedBytes);
+		assertFalse(reservation.ensure((1 << 20) + 1));
+		reservation.releaseAll();
+		assertEquals(memoryBudget.getReservedBytes(), 0);
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void memoryBudgetNegative()
+	{
+		new MemoryBudget(-1);
+	}
+}
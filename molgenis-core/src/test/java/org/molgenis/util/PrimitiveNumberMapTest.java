@@ -0,0 +1,61 @@
+package org.molgenis.util;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import org.testng.annotations.Test;
+
+public class PrimitiveNumberMapTest
+{
+	@Test
+	public void put()
+	{
+		PrimitiveNumberMap<Integer, String> map = new PrimitiveNumberMap<>(Integer.class);
+		assertNull(map.put(1, "1"));
+		assertEquals(map.put(1, "one"), "1");
+		assertEquals(map.get(1), "one");
+		assertNull(map.get(1l));
+		assertEquals(map.size(), 1);
+	}
+
+	@Test
+	public void putRemoveMany()
+	{
+		PrimitiveNumberMap<Long, Integer> map = new PrimitiveNumberMap<>(Long.class);
+		IntStream.range(0, 100000).forEach(i -> map.put(Long.valueOf(i), i));
+		assertEquals(map.size(), 100000);
+		IntStream.range(0, 50000).forEach(i -> assertEquals(map.remove(Long.valueOf(i)), Integer.valueOf(i)));
+		assertEquals(map.size(), 50000);
+		assertFalse(map.containsKey(1l));
+		assertTrue(map.containsKey(50001l));
+		assertEquals(map.get(50001l), Integer.valueOf(50001));
+	}
+
+	@Test
+	public void entrySet()
+	{
+		PrimitiveNumberMap<Integer, String> map = new PrimitiveNumberMap<>(Integer.class);
+		IntStream.range(0, 10).forEach(i -> map.put(i, Integer.toString(i)));
+
+		Map<Integer, String> expectedMap = new HashMap<>();
+		IntStream.range(0, 10).forEach(i -> expectedMap.put(i, Integer.toString(i)));
+		assertEquals(map, expectedMap);
+
+		for (Iterator<Map.Entry<Integer, String>> it = map.entrySet().iterator(); it.hasNext();)
+		{
+			Map.Entry<Integer, String> entry = it.next();
+			if (entry.getKey() % 2 == 0) it.remove();
+			else entry.setValue("odd");
+		}
+		assertEquals(map.size(), 5);
+		assertEquals(map.get(1), "odd");
+		assertNull(map.get(2));
+	}
+}
@@ -0,0 +1,77 @@
+package org.molgenis.util;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import org.testng.annotations.Test;
+
+public class PrimitiveNumberSetTest
+{
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void primitiveNumberSetUnsupportedType()
+	{
+		new PrimitiveNumberSet<String>(String.class);
+	}
+
+	@Test
+	public void add()
+	{
+		PrimitiveNumberSet<Integer> set = new PrimitiveNumberSet<>(Integer.class);
+		assertTrue(set.add(1));
+		assertFalse(set.add(1));
+		assertEquals(set.size(), 1);
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void addOtherType()
+	{
+		new PrimitiveNumberSet<Object>(Integer.class).add(1l);
+	}
+
+	@Test
+	public void addRemoveMany()
+	{
+		PrimitiveNumberSet<Long> set = new PrimitiveNumberSet<>(Long.class);
+		IntStream.range(-50000, 50000).forEach(i -> set.add(Long.valueOf(i)));
+		assertEquals(set.size(), 100000);
+		IntStream.range(-50000, 0).forEach(i -> assertTrue(set.remove(Long.valueOf(i))));
+		assertEquals(set.size(), 50000);
+		IntStream.range(-50000, 0).forEach(i -> assertFalse(set.contains(Long.valueOf(i))));
+		IntStream.range(0, 50000).forEach(i -> assertTrue(set.contains(Long.valueOf(i))));
+	}
+
+	@Test
+	public void iterator()
+	{
+		PrimitiveNumberSet<Integer> set = new PrimitiveNumberSet<>(Integer.class);
+		IntStream.range(0, 100).forEach(set::add);
+
+		Set<Integer> values = new HashSet<>();
+		for (Iterator<Integer> it = set.iterator(); it.hasNext();)
+		{
+			Integer value = it.next();
+			values.add(value);
+			if (value % 2 == 0) it.remove();
+		}
+		assertEquals(values.size(), 100);
+		assertEquals(set.size(), 50);
+		assertFalse(set.contains(2));
+		assertTrue(set.contains(3));
+	}
+
+	@Test
+	public void clear()
+	{
+		PrimitiveNumberSet<Integer> set = new PrimitiveNumberSet<>(Integer.class);
+		IntStream.range(0, 100).forEach(set::add);
+		set.clear();
+		assertTrue(set.isEmpty());
+		assertFalse(set.contains(1));
+	}
+}
@@ -1,6 +1,8 @@
 package org.molgenis.data.annotation;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
@@ -8,63 +10,68 @@ import org.molgenis.data.Entity;
 import org.molgenis.security.core.runas.RunAsSystem;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.google.common.collect.Iterators;
+
 public abstract class AbstractRepositoryEntityAnnotator extends AbstractRepositoryAnnotator
 {
+	/**
+	 * Number of source entities that are annotated at once
+	 */
+	private static final int BATCH_SIZE = 1000;
+
 	@Override
 	@Transactional
 	@RunAsSystem
 	public Iterator<Entity> annotate(final Iterable<Entity> sourceIterable)
 	{
-		Iterator<Entity> source = sourceIterable.iterator();
+		Iterator<List<Entity>> sourceBatches = Iterators.partition(sourceIterable.iterator(), BATCH_SIZE);
 		return new Iterator<Entity>()
 		{
-			int current = 0;
-			int size = 0;
-			List<Entity> results;
-			Entity result;
+			Iterator<Entity> results = Collections.emptyIterator();
 
 			@Override
 			public boolean hasNext()
 			{
-				return current < size || source.hasNext();
+				return results.hasNext() || sourceBatches.hasNext();
 			}
 
 			@Override
 			public Entity next()
 			{
-				Entity sourceEntity = null;
-				if (current >= size)
+				if (!results.hasNext())
 				{
-					if (source.hasNext())
+					List<Entity> sourceEntities = sourceBatches.next();
+					List<List<Entity>> batchResults;
+					try
 					{
-						try
-						{
-							sourceEntity = source.next();
-							results = annotateEntity(sourceEntity);
-						}
-						catch (IOException e)
+						batchResults = annotateEntities(sourceEntities);
+					}
+					catch (IOException e)
+					{
+						throw new RuntimeException(e);
+					}
+					catch (InterruptedException e)
+					{
+						throw new RuntimeException(e);
+					}
+
+					// entities without annotation results are returned as is
+					List<Entity> annotatedEntities = new ArrayList<>();
+					for (int i = 0; i < sourceEntities.size(); ++i)
+					{
+						List<Entity> entityResults = batchResults.get(i);
+						if (entityResults.size() > 0)
 						{
-							throw new RuntimeException(e);
+							annotatedEntities.addAll(entityResults);
 						}
-						catch (InterruptedException e)
+						else
 						{
-							throw new RuntimeException(e);
+							annotatedEntities.add(sourceEntities.get(i));
 						}
-
-						size = results.size();
 					}
-					current = 0;
-				}
-				if (results.size() > 0)
-				{
-					result = results.get(current);
-				}
-				else
-				{
-					result = sourceEntity;
+					results = annotatedEntities.iterator();
 				}
-				++current;
-				return result;
+				return results.next();
 			}
 
 			@Override
@@ -75,6 +82,21 @@ public abstract class AbstractRepositoryEntityAnnotator extends AbstractReposito
 		};
 	}
 
+	/**
+	 * Annotates a batch of entities, by default the entities are annotated one by one
+	 * 
+	 * @return the annotation results for each entity, in the order of the entities
+	 */
+	public List<List<Entity>> annotateEntities(List<Entity> entities) throws IOException, InterruptedException
+	{
+		List<List<Entity>> results = new ArrayList<>(entities.size());
+		for (Entity entity : entities)
+		{
+			results.add(annotateEntity(entity));
+		}
+		return results;
+	}
+
 	public abstract List<Entity> annotateEntity(Entity entity) throws IOException, InterruptedException;
 
 }
@@ -1,30 +1,78 @@
 package org.molgenis.data.annotation;
 
+import org.molgenis.MolgenisFieldTypes.FieldTypeEnum;
+import org.molgenis.data.AttributeMetaData;
 import org.molgenis.data.DataService;
 import org.molgenis.data.Entity;
 import org.molgenis.data.EntityMetaData;
+import org.molgenis.data.MolgenisDataException;
 import org.molgenis.data.Repository;
 import org.molgenis.data.RepositoryCapability;
 import org.molgenis.data.annotation.utils.AnnotatorUtils;
 import org.molgenis.data.support.DefaultAttributeMetaData;
 import org.molgenis.data.support.DefaultEntityMetaData;
+import org.molgenis.data.support.MapEntity;
 import org.molgenis.security.core.runas.RunAsSystemProxy;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.google.common.collect.Iterators;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.stream.Collectors;
+
+import javax.annotation.PreDestroy;
 
+/**
+ * Annotates the entities of a writable repository with one or more annotators.
+ *
+ * The repository is read once in chunks. If all annotators are {@link RepositoryAnnotator#isThreadSafe() thread-safe},
+ * each chunk is annotated by all annotators on worker threads and annotators that don't depend on each other's output
+ * annotate the chunk in parallel. Otherwise the chunks are annotated on the calling thread, in the transaction of the
+ * caller. The results of the annotators are merged and every annotated entity is written back once.
+ */
 @Component
 public class CrudRepositoryAnnotator
 {
 	private static final int BATCH_SIZE = 1000;
 
+	/**
+	 * Maximum number of annotated chunks per thread that are waiting to be written to the repository
+	 */
+	private static final int MAX_CHUNKS_IN_FLIGHT_PER_THREAD = 2;
+
 	private final DataService dataService;
 
+	private int chunkSize = BATCH_SIZE;
+
+	private volatile int numberOfThreads = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * Bounded executor, shared by all annotation runs, for annotating chunks with thread-safe annotators
+	 */
+	private final ThreadPoolExecutor executorService = (ThreadPoolExecutor) Executors.newFixedThreadPool(
+			numberOfThreads, new ThreadFactoryBuilder().setNameFormat("annotator-%d").setDaemon(true).build());
+
 	@Autowired
 	public CrudRepositoryAnnotator(DataService dataService)
 	{
@@ -32,14 +80,78 @@ public class CrudRepositoryAnnotator
 	}
 
 	/**
+	 * Sets the number of entities that are read, annotated and written at once, defaults to 1000
+	 */
+	public void setChunkSize(int chunkSize)
+	{
+		if (chunkSize < 1)
+		{
+			throw new IllegalArgumentException("Chunk size must be at least 1");
+		}
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * Sets the number of threads that annotate chunks of entities with thread-safe annotators, defaults to the number
+	 * of available processors
+	 */
+	public synchronized void setNumberOfThreads(int numberOfThreads)
+	{
+		if (numberOfThreads < 1)
+		{
+			throw new IllegalArgumentException("Number of threads must be at least 1");
+		}
+		// the core pool size may not exceed the maximum pool size
+		if (numberOfThreads > executorService.getMaximumPoolSize())
+		{
+			executorService.setMaximumPoolSize(numberOfThreads);
+			executorService.setCorePoolSize(numberOfThreads);
+		}
+		else
+		{
+			executorService.setCorePoolSize(numberOfThreads);
+			executorService.setMaximumPoolSize(numberOfThreads);
+		}
+		this.numberOfThreads = numberOfThreads;
+	}
+
+	@PreDestroy
+	public void shutdown()
+	{
+		executorService.shutdownNow();
+	}
+
+	/**
+	 * Annotates a repository with multiple annotators in a single pass over the repository.
+	 *
 	 * @param annotators
+	 *            annotators in dependency order, see {@link org.molgenis.data.support.AnnotatorDependencyOrderResolver}
 	 * @param repo
 	 */
+	@Transactional
 	public void annotate(List<RepositoryAnnotator> annotators, Repository repo) throws IOException
 	{
-		for (RepositoryAnnotator annotator : annotators)
+		if (!repo.getCapabilities().contains(RepositoryCapability.WRITABLE))
 		{
-			repo = annotate(annotator, repo);
+			throw new UnsupportedOperationException("Currently only writable repositories can be annotated");
+		}
+		try
+		{
+			for (RepositoryAnnotator annotator : annotators)
+			{
+				EntityMetaData entityMetaData = dataService.getMeta().getEntityMetaData(repo.getName());
+				DefaultAttributeMetaData compoundAttributeMetaData = AnnotatorUtils.getCompoundResultAttribute(
+						annotator, entityMetaData);
+
+				RunAsSystemProxy.runAsSystem(() -> addAnnotatorMetadataToRepositories(entityMetaData,
+						compoundAttributeMetaData));
+			}
+
+			iterateOverEntitiesAndAnnotate(repo, annotators);
+		}
+		catch (Exception e)
+		{
+			throw new RuntimeException(e);
 		}
 	}
 
@@ -50,56 +162,197 @@ public class CrudRepositoryAnnotator
 	@Transactional
 	public Repository annotate(RepositoryAnnotator annotator, Repository repository) throws IOException
 	{
-		if (!repository.getCapabilities().contains(RepositoryCapability.WRITABLE))
+		annotate(Collections.singletonList(annotator), repository);
+		return repository;
+	}
+
+	/**
+	 * Iterates over all the entities within a repository and annotates them with all annotators. Chunks are annotated
+	 * on the worker threads if all annotators are thread-safe and written to the repository in source order on the
+	 * calling thread.
+	 */
+	private void iterateOverEntitiesAndAnnotate(Repository repository, List<RepositoryAnnotator> annotators)
+	{
+		EntityMetaData entityMetaData = dataService.getMeta().getEntityMetaData(repository.getName());
+		List<List<RepositoryAnnotator>> stages = getStages(annotators);
+
+		boolean threadSafe = annotators.stream().allMatch(RepositoryAnnotator::isThreadSafe);
+		ExecutorService chunkExecutorService = threadSafe ? executorService : MoreExecutors.sameThreadExecutor();
+		int maxChunksInFlight = threadSafe ? MAX_CHUNKS_IN_FLIGHT_PER_THREAD * numberOfThreads : 1;
+		SecurityContext securityContext = SecurityContextHolder.getContext();
+		Deque<CompletableFuture<List<Entity>>> annotatedChunks = new ArrayDeque<>();
+		try
 		{
-			throw new UnsupportedOperationException("Currently only writable repositories can be annotated");
+			Iterator<List<Entity>> chunks = Iterators.partition(repository.iterator(), chunkSize);
+			while (chunks.hasNext())
+			{
+				List<Entity> entities = chunks.next().stream().map(entity -> new MapEntity(entity, entityMetaData))
+						.collect(Collectors.toList());
+
+				CompletableFuture<List<Entity>> annotatedChunk = CompletableFuture.completedFuture(entities);
+				for (List<RepositoryAnnotator> stage : stages)
+				{
+					annotatedChunk = annotatedChunk.thenCompose(stageEntities -> annotateStage(stage, stageEntities,
+							entityMetaData, chunkExecutorService, securityContext));
+				}
+				annotatedChunks.add(annotatedChunk);
+
+				if (annotatedChunks.size() >= maxChunksInFlight)
+				{
+					processBatch(annotatedChunks.poll(), repository);
+				}
+			}
+
+			while (!annotatedChunks.isEmpty())
+			{
+				processBatch(annotatedChunks.poll(), repository);
+			}
 		}
-		try
+		finally
 		{
-			EntityMetaData entityMetaData = dataService.getMeta().getEntityMetaData(repository.getName());
-			DefaultAttributeMetaData compoundAttributeMetaData = AnnotatorUtils.getCompoundResultAttribute(annotator,
-					entityMetaData);
+			annotatedChunks.forEach(annotatedChunk -> annotatedChunk.cancel(true));
+		}
+	}
 
-			RunAsSystemProxy
-					.runAsSystem(() -> addAnnotatorMetadataToRepositories(entityMetaData, compoundAttributeMetaData));
+	/**
+	 * Groups annotators in stages: an annotator that requires an attribute produced by another annotator is placed in
+	 * a later stage than that annotator, annotators in the same stage are independent.
+	 */
+	private static List<List<RepositoryAnnotator>> getStages(List<RepositoryAnnotator> annotators)
+	{
+		List<List<RepositoryAnnotator>> stages = new ArrayList<>();
+		Map<String, Integer> outputAttributeStages = new LinkedHashMap<>();
+		for (RepositoryAnnotator annotator : annotators)
+		{
+			int stage = 0;
+			for (AttributeMetaData requiredAttribute : annotator.getRequiredAttributes())
+			{
+				Integer requiredAttributeStage = outputAttributeStages.get(requiredAttribute.getName());
+				if (requiredAttributeStage != null)
+				{
+					stage = Math.max(stage, requiredAttributeStage + 1);
+				}
+			}
 
-			Repository crudRepository = iterateOverEntitiesAndAnnotate(repository, annotator);
-			return crudRepository;
+			if (stage == stages.size())
+			{
+				stages.add(new ArrayList<>());
+			}
+			stages.get(stage).add(annotator);
+			for (String outputAttributeName : getOutputAttributeNames(annotator))
+			{
+				outputAttributeStages.put(outputAttributeName, stage);
+			}
 		}
-		catch (Exception e)
+		return stages;
+	}
+
+	/**
+	 * Annotates a chunk of entities with the independent annotators of a stage in parallel and merges their results
+	 * into the entities.
+	 */
+	private static CompletableFuture<List<Entity>> annotateStage(List<RepositoryAnnotator> stage,
+			List<Entity> entities, EntityMetaData entityMetaData, ExecutorService executorService,
+			SecurityContext securityContext)
+	{
+		List<CompletableFuture<List<Entity>>> annotatorResults = new ArrayList<>();
+		for (RepositoryAnnotator annotator : stage)
 		{
-			throw new RuntimeException(e);
+			annotatorResults.add(CompletableFuture.supplyAsync(() -> {
+				SecurityContext originalContext = SecurityContextHolder.getContext();
+				try
+				{
+					SecurityContextHolder.setContext(securityContext);
+					return annotateChunk(annotator, entities, entityMetaData);
+				}
+				finally
+				{
+					SecurityContextHolder.setContext(originalContext);
+				}
+			}, executorService));
 		}
+
+		return CompletableFuture.allOf(annotatorResults.toArray(new CompletableFuture<?>[annotatorResults.size()]))
+				.thenApply(allAnnotated -> {
+					for (int i = 0; i < stage.size(); ++i)
+					{
+						mergeResults(stage.get(i), annotatorResults.get(i).join(), entities);
+					}
+					return entities;
+				});
 	}
 
 	/**
-	 * Iterates over all the entities within a repository and annotates.
+	 * Annotates copies of the entities so that annotators in the same stage don't modify the same entities
 	 */
-	private Repository iterateOverEntitiesAndAnnotate(Repository repository, RepositoryAnnotator annotator)
+	private static List<Entity> annotateChunk(RepositoryAnnotator annotator, List<Entity> entities,
+			EntityMetaData entityMetaData)
 	{
-		Iterator<Entity> it = annotator.annotate(repository);
+		List<Entity> entityCopies = entities.stream().map(entity -> new MapEntity(entity, entityMetaData))
+				.collect(Collectors.toList());
+		List<Entity> results = new ArrayList<>();
+		annotator.annotate(entityCopies).forEachRemaining(results::add);
+		return results;
+	}
 
-		List<Entity> batch = new ArrayList<>();
-		while (it.hasNext())
+	/**
+	 * Copies the output attribute values of the annotator results to the entities with the same id
+	 */
+	private static void mergeResults(RepositoryAnnotator annotator, List<Entity> results, List<Entity> entities)
+	{
+		Map<Object, Entity> entitiesById = new LinkedHashMap<>();
+		entities.forEach(entity -> entitiesById.put(entity.getIdValue(), entity));
+
+		Set<String> outputAttributeNames = getOutputAttributeNames(annotator);
+		for (Entity result : results)
 		{
-			batch.add(it.next());
-			if (batch.size() == BATCH_SIZE)
+			Entity entity = entitiesById.get(result.getIdValue());
+			if (entity != null)
 			{
-				processBatch(batch, repository);
-				batch.clear();
+				outputAttributeNames.forEach(attributeName -> entity.set(attributeName, result.get(attributeName)));
 			}
 		}
+	}
+
+	private static Set<String> getOutputAttributeNames(RepositoryAnnotator annotator)
+	{
+		Set<String> outputAttributeNames = new HashSet<>();
+		annotator.getOutputMetaData().forEach(attr -> addAtomicAttributeNames(attr, outputAttributeNames));
+		return outputAttributeNames;
+	}
 
-		if (!batch.isEmpty())
+	private static void addAtomicAttributeNames(AttributeMetaData attr, Set<String> attributeNames)
+	{
+		if (attr.getDataType().getEnumType() == FieldTypeEnum.COMPOUND)
 		{
-			processBatch(batch, repository);
+			attr.getAttributeParts().forEach(attrPart -> addAtomicAttributeNames(attrPart, attributeNames));
+		}
+		else
+		{
+			attributeNames.add(attr.getName());
 		}
-
-		return repository;
 	}
 
-	private void processBatch(List<Entity> batch, Repository repository)
+	private void processBatch(CompletableFuture<List<Entity>> annotatedChunk, Repository repository)
 	{
+		List<Entity> batch;
+		try
+		{
+			batch = annotatedChunk.get();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new MolgenisDataException(e);
+		}
+		catch (ExecutionException e)
+		{
+			if (e.getCause() instanceof RuntimeException)
+			{
+				throw (RuntimeException) e.getCause();
+			}
+			throw new MolgenisDataException(e.getCause());
+		}
 		repository.update(batch.stream());
 	}
 
@@ -121,4 +374,4 @@ public class CrudRepositoryAnnotator
 		}
 	}
 
-}
\ No newline at end of file
+}
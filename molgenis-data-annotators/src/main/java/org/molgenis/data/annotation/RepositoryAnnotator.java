@@ -70,5 +70,17 @@ public interface RepositoryAnnotator
 		return getInfo() == null ? "no description" : getInfo().getDescription();
 	}
 
+	/**
+	 * Returns whether the annotator can annotate batches of entities concurrently on other threads than the calling
+	 * thread. These threads don't take part in the transaction of the calling thread, so a thread-safe annotator does
+	 * not query the {@link org.molgenis.data.DataService}.
+	 * 
+	 * @return false by default
+	 */
+	default boolean isThreadSafe()
+	{
+		return false;
+	}
+
 
 }
@@ -6,15 +6,27 @@ import static java.util.Arrays.asList;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 import org.molgenis.data.AttributeMetaData;
 import org.molgenis.data.Entity;
+import org.molgenis.data.MolgenisDataException;
 import org.molgenis.data.annotation.RepositoryAnnotator;
 import org.molgenis.data.annotation.entity.AnnotatorInfo;
 import org.molgenis.data.support.DefaultAttributeMetaData;
@@ -27,6 +39,10 @@ import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.AnnotationConfigApplicationContext;
 import org.springframework.core.env.JOptCommandLinePropertySource;
 
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.MoreExecutors;
+
 import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.Logger;
 import ch.qos.logback.classic.LoggerContext;
@@ -36,6 +52,7 @@ import ch.qos.logback.core.ConsoleAppender;
 import joptsimple.OptionException;
 import joptsimple.OptionParser;
 import joptsimple.OptionSet;
+import net.sf.samtools.util.BlockCompressedOutputStream;
 
 /**
  * 
@@ -45,6 +62,10 @@ import joptsimple.OptionSet;
  */
 public class CmdLineAnnotator
 {
+	private static final int CHUNK_SIZE = 1000;
+	private static final int MAX_CHUNKS_IN_FLIGHT_PER_THREAD = 2;
+	private static final int PROGRESS_INTERVAL = 100000;
+
 	@Autowired
 	private ApplicationContext applicationContext;
 
@@ -87,6 +108,8 @@ public class CmdLineAnnotator
 					+ "java -jar CmdLineAnnotator.jar -a [Annotator]\n\n"
 					+ "To select only a few columns from an annotation source instead of everything, use:\n"
 					+ "java -jar CmdLineAnnotator.jar -a [Annotator] -s [Annotation source file] <column1> <column2>\n\n"
+					+ "To annotate with multiple annotators in one pass, use:\n"
+					+ "java -jar CmdLineAnnotator.jar -a [Annotator1],[Annotator2] -s [Source file1],[Source file2] -i [input] -o [output]\n\n"
 					+ "----------------------------------------------------\n");
 
 			System.out.println("List of available annotators per category:\n\n"
@@ -95,29 +118,46 @@ public class CmdLineAnnotator
 			return;
 		}
 
-		String annotatorName = (String) options.valueOf("annotator");
-		if (!annotatorNames.contains(annotatorName))
+		List<String> selectedAnnotatorNames = options.valuesOf("annotator").stream().map(Object::toString)
+				.collect(Collectors.toList());
+		for (String annotatorName : selectedAnnotatorNames)
 		{
-			System.out.println("Annotator must be one of the following: " + annotatorNames.toString());
-			return;
+			if (!annotatorNames.contains(annotatorName))
+			{
+				System.out.println("Annotator must be one of the following: " + annotatorNames.toString());
+				return;
+			}
 		}
 
 		Map<String, RepositoryAnnotator> annotators = applicationContext.getBeansOfType(RepositoryAnnotator.class);
-		RepositoryAnnotator annotator = annotators.get(annotatorName);
-		if (annotator == null) throw new Exception("Annotator unknown: " + annotatorName);
+		List<RepositoryAnnotator> selectedAnnotators = new ArrayList<>();
+		for (String annotatorName : selectedAnnotatorNames)
+		{
+			RepositoryAnnotator annotator = annotators.get(annotatorName);
+			if (annotator == null) throw new Exception("Annotator unknown: " + annotatorName);
+			selectedAnnotators.add(annotator);
+		}
 
 		if (!options.has("input"))
 		{
-			printInfo(annotator.getInfo());
+			selectedAnnotators.forEach(annotator -> printInfo(annotator.getInfo()));
 			return;
 		}
 
-		File annotationSourceFile = (File) options.valueOf("source");
-		if (!annotationSourceFile.exists())
+		List<?> annotationSourceFiles = options.valuesOf("source");
+		if (annotationSourceFiles.size() != selectedAnnotators.size())
 		{
-			System.out.println("Annotation source file or directory not found at " + annotationSourceFile);
+			System.out.println("Specify one source file or directory for each annotator, in the same order");
 			return;
 		}
+		for (Object annotationSourceFile : annotationSourceFiles)
+		{
+			if (!((File) annotationSourceFile).exists())
+			{
+				System.out.println("Annotation source file or directory not found at " + annotationSourceFile);
+				return;
+			}
+		}
 
 		File inputVcfFile = (File) options.valueOf("input");
 		if (!inputVcfFile.exists())
@@ -147,8 +187,19 @@ public class CmdLineAnnotator
 			}
 		}
 
-		annotator.getCmdLineAnnotatorSettingsConfigurer().addSettings(annotationSourceFile.getAbsolutePath());
-		annotate(annotator, inputVcfFile, outputVCFFile, options);
+		int numberOfThreads = (Integer) options.valueOf("threads");
+		if (numberOfThreads < 1)
+		{
+			System.out.println("Number of threads must be at least 1");
+			return;
+		}
+
+		for (int i = 0; i < selectedAnnotators.size(); ++i)
+		{
+			selectedAnnotators.get(i).getCmdLineAnnotatorSettingsConfigurer()
+					.addSettings(((File) annotationSourceFiles.get(i)).getAbsolutePath());
+		}
+		annotate(selectedAnnotators, inputVcfFile, outputVCFFile, options);
 	}
 
 	public static void main(String[] args) throws Exception
@@ -186,16 +237,22 @@ public class CmdLineAnnotator
 	{
 		OptionParser parser = new OptionParser();
 		parser.acceptsAll(asList("i", "input"), "Input VCF file").withRequiredArg().ofType(File.class);
-		parser.acceptsAll(asList("a", "annotator"), "Annotator name").requiredIf("input").withRequiredArg();
-		parser.acceptsAll(asList("s", "source"), "Source file for the annotator").requiredIf("input").withRequiredArg()
-				.ofType(File.class);
-		parser.acceptsAll(asList("o", "output"), "Output VCF file").requiredIf("input").withRequiredArg()
-				.ofType(File.class);
+		parser.acceptsAll(asList("a", "annotator"),
+				"Annotator name, or a comma separated list of annotator names that are applied in the given order")
+				.requiredIf("input").withRequiredArg().withValuesSeparatedBy(',');
+		parser.acceptsAll(asList("s", "source"),
+				"Source file for the annotator, or a comma separated list with a source file for each annotator")
+				.requiredIf("input").withRequiredArg().withValuesSeparatedBy(',').ofType(File.class);
+		parser.acceptsAll(asList("o", "output"), "Output VCF file, block gzipped if the file name ends with .gz")
+				.requiredIf("input").withRequiredArg().ofType(File.class);
 		parser.acceptsAll(asList("v", "validate"), "Use VCF validator on the output file");
 		parser.acceptsAll(asList("t", "vcf-validator-location"),
 				"Location of the vcf-validator executable from the vcf-tools suite").withRequiredArg()
 				.ofType(String.class).defaultsTo(System.getProperty("user.home") + File.separator + ".molgenis"
 						+ File.separator + "vcf-tools" + File.separator + "bin" + File.separator + "vcf-validator");
+		parser.acceptsAll(asList("n", "threads"),
+				"Number of threads used to annotate the input, if all annotators are thread-safe").withRequiredArg()
+				.ofType(Integer.class).defaultsTo(Runtime.getRuntime().availableProcessors());
 		parser.acceptsAll(asList("h", "help"), "Prints this help text");
 		parser.acceptsAll(asList("r", "replace"),
 				"Enables output file override, replacing a file with the same name as the argument for the -o option");
@@ -216,12 +273,38 @@ public class CmdLineAnnotator
 	 */
 	public void annotate(RepositoryAnnotator annotator, File inputVcfFile, File outputVCFFile, OptionSet options)
 			throws Exception
+	{
+		annotate(Collections.singletonList(annotator), inputVcfFile, outputVCFFile, options);
+	}
+
+	/**
+	 * Annotate VCF file with one or more annotators. Chunks of records are annotated on a pool of worker threads if
+	 * all annotators are thread-safe and written to the output in the order of the input file.
+	 * 
+	 * @param annotators
+	 *            , the annotators to apply in the given order, an annotator can use the output of the annotators before
+	 *            it
+	 * @param inputVcfFile
+	 * @param outputVCFFile
+	 *            , block gzipped if the file name ends with .gz
+	 * @param options
+	 *            , the attributes of the annotators to include in the output vcf, if empty outputs all
+	 * @throws Exception
+	 */
+	public void annotate(List<RepositoryAnnotator> annotators, File inputVcfFile, File outputVCFFile,
+			OptionSet options) throws Exception
 	{
 		List<String> attributesToInclude = options.nonOptionArguments().stream().map(Object::toString)
 				.collect(Collectors.toList());
+		Integer threads = (Integer) options.valueOf("threads");
+		int numberOfThreads = threads != null ? threads : 1;
+
+		List<AttributeMetaData> outputMetaData = new ArrayList<>();
+		annotators.forEach(annotator -> outputMetaData.addAll(annotator.getOutputMetaData()));
 
-		BufferedWriter outputVCFWriter = new BufferedWriter(
-				new OutputStreamWriter(new FileOutputStream(outputVCFFile), UTF_8));
+		OutputStream outputStream = outputVCFFile.getName().endsWith(".gz")
+				? new BlockCompressedOutputStream(outputVCFFile) : new FileOutputStream(outputVCFFile);
+		BufferedWriter outputVCFWriter = new BufferedWriter(new OutputStreamWriter(outputStream, UTF_8));
 		VcfRepository vcfRepo = new VcfRepository(inputVcfFile, this.getClass().getName());
 
 		try
@@ -229,8 +312,8 @@ public class CmdLineAnnotator
 			if (!attributesToInclude.isEmpty())
 			{
 				// Check attribute names
-				List<String> outputAttributeNames = VcfUtils.getAtomicAttributesFromList(annotator.getOutputMetaData())
-						.stream().map((attr) -> attr.getName()).collect(Collectors.toList());
+				List<String> outputAttributeNames = VcfUtils.getAtomicAttributesFromList(outputMetaData).stream()
+						.map((attr) -> attr.getName()).collect(Collectors.toList());
 
 				boolean stop = false;
 				for (Object attrName : attributesToInclude)
@@ -248,13 +331,13 @@ public class CmdLineAnnotator
 						.forEach((attr) -> attributesToInclude.add(attr.getName()));
 			}
 
-			VcfUtils.checkPreviouslyAnnotatedAndAddMetadata(inputVcfFile, outputVCFWriter,
-					annotator.getOutputMetaData(), attributesToInclude);
+			VcfUtils.checkPreviouslyAnnotatedAndAddMetadata(inputVcfFile, outputVCFWriter, outputMetaData,
+					attributesToInclude);
 			System.out.println("Now starting to process the data.");
 
 			DefaultEntityMetaData emd = (DefaultEntityMetaData) vcfRepo.getEntityMetaData();
 			DefaultAttributeMetaData infoAttribute = (DefaultAttributeMetaData) emd.getAttribute(VcfRepository.INFO);
-			for (AttributeMetaData attribute : annotator.getOutputMetaData())
+			for (AttributeMetaData attribute : outputMetaData)
 			{
 				for (AttributeMetaData atomicAttribute : attribute.getAttributeParts())
 				{
@@ -262,13 +345,7 @@ public class CmdLineAnnotator
 				}
 			}
 
-			Iterator<Entity> annotatedRecords = annotator.annotate(vcfRepo);
-			while (annotatedRecords.hasNext())
-			{
-				Entity annotatedRecord = annotatedRecords.next();
-				VcfUtils.writeToVcf(annotatedRecord, attributesToInclude, outputVCFWriter);
-				outputVCFWriter.newLine();
-			}
+			annotateRecords(annotators, vcfRepo, attributesToInclude, outputVCFWriter, numberOfThreads);
 		}
 		finally
 		{
@@ -284,6 +361,124 @@ public class CmdLineAnnotator
 		System.out.println("All done!");
 	}
 
+	/**
+	 * Annotates chunks of records on the worker threads and writes them in input order on the calling thread, with a
+	 * bounded number of chunks in flight. If not all annotators are {@link RepositoryAnnotator#isThreadSafe()
+	 * thread-safe} the chunks are annotated one at a time on the calling thread.
+	 */
+	private void annotateRecords(List<RepositoryAnnotator> annotators, VcfRepository vcfRepo,
+			List<String> attributesToInclude, BufferedWriter outputVCFWriter, int numberOfThreads) throws IOException
+	{
+		long startTime = System.currentTimeMillis();
+		long nrRecords = 0;
+		long nextProgressReport = PROGRESS_INTERVAL;
+
+		boolean threadSafe = annotators.stream().allMatch(RepositoryAnnotator::isThreadSafe);
+		if (!threadSafe && numberOfThreads > 1)
+		{
+			System.out.println("Not all annotators are thread-safe, annotating on a single thread");
+			numberOfThreads = 1;
+		}
+		ExecutorService executorService = threadSafe ? Executors.newFixedThreadPool(numberOfThreads) : MoreExecutors
+				.sameThreadExecutor();
+		int maxChunksInFlight = threadSafe ? MAX_CHUNKS_IN_FLIGHT_PER_THREAD * numberOfThreads : 1;
+		Deque<Future<List<String>>> annotatedChunks = new ArrayDeque<>();
+		try
+		{
+			Iterator<List<Entity>> chunks = Iterators.partition(vcfRepo.iterator(), CHUNK_SIZE);
+			while (chunks.hasNext() || !annotatedChunks.isEmpty())
+			{
+				if (chunks.hasNext())
+				{
+					List<Entity> records = chunks.next();
+					annotatedChunks.add(
+							executorService.submit(() -> annotateChunk(annotators, records, attributesToInclude)));
+					if (annotatedChunks.size() < maxChunksInFlight) continue;
+				}
+
+				nrRecords += writeChunk(annotatedChunks.poll(), outputVCFWriter);
+				if (nrRecords >= nextProgressReport)
+				{
+					System.out.println("Annotated " + nrRecords + " records ("
+							+ getThroughput(nrRecords, startTime) + " records/s)");
+					nextProgressReport += PROGRESS_INTERVAL;
+				}
+			}
+		}
+		finally
+		{
+			annotatedChunks.forEach(annotatedChunk -> annotatedChunk.cancel(true));
+			executorService.shutdownNow();
+		}
+		System.out.println("Annotated " + nrRecords + " records in "
+				+ (System.currentTimeMillis() - startTime) / 1000 + "s (" + getThroughput(nrRecords, startTime)
+				+ " records/s) using " + numberOfThreads + " threads");
+	}
+
+	/**
+	 * Applies the annotators to a chunk of records and returns the annotated records as VCF lines
+	 */
+	private List<String> annotateChunk(List<RepositoryAnnotator> annotators, List<Entity> records,
+			List<String> attributesToInclude) throws IOException
+	{
+		Iterable<Entity> annotatedRecords = records;
+		for (RepositoryAnnotator annotator : annotators)
+		{
+			annotatedRecords = Lists.newArrayList(annotator.annotate(annotatedRecords));
+		}
+
+		List<String> lines = new ArrayList<>(records.size());
+		for (Entity annotatedRecord : annotatedRecords)
+		{
+			StringWriter stringWriter = new StringWriter();
+			try (BufferedWriter writer = new BufferedWriter(stringWriter))
+			{
+				VcfUtils.writeToVcf(annotatedRecord, attributesToInclude, writer);
+			}
+			lines.add(stringWriter.toString());
+		}
+		return lines;
+	}
+
+	/**
+	 * Writes an annotated chunk to the output
+	 * 
+	 * @return number of written records
+	 */
+	private int writeChunk(Future<List<String>> annotatedChunk, BufferedWriter outputVCFWriter) throws IOException
+	{
+		List<String> lines;
+		try
+		{
+			lines = annotatedChunk.get();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new MolgenisDataException(e);
+		}
+		catch (ExecutionException e)
+		{
+			if (e.getCause() instanceof RuntimeException)
+			{
+				throw (RuntimeException) e.getCause();
+			}
+			throw new MolgenisDataException(e.getCause());
+		}
+
+		for (String line : lines)
+		{
+			outputVCFWriter.write(line);
+			outputVCFWriter.newLine();
+		}
+		return lines.size();
+	}
+
+	private static long getThroughput(long nrRecords, long startTime)
+	{
+		return nrRecords * 1000 / Math.max(System.currentTimeMillis() - startTime, 1);
+	}
+
 	private void printInfo(AnnotatorInfo info)
 	{
 		System.out.println("*********************************************");
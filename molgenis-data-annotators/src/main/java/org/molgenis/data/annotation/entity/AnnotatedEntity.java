@@ -0,0 +1,79 @@
+package org.molgenis.data.annotation.entity;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Map;
+
+import org.molgenis.data.AttributeMetaData;
+import org.molgenis.data.Entity;
+import org.molgenis.data.EntityMetaData;
+import org.molgenis.data.support.AbstractEntity;
+import org.springframework.util.LinkedCaseInsensitiveMap;
+
+import com.google.common.collect.Iterables;
+
+/**
+ * Annotation result that adds the output attributes of an annotator to the annotated entity without copying it. Values
+ * are read from the annotated entity unless they have been set on this entity, the annotated entity is never changed.
+ */
+public class AnnotatedEntity extends AbstractEntity
+{
+	private static final long serialVersionUID = 1L;
+
+	private final Entity entity;
+	private final EntityMetaData entityMetaData;
+	private final Map<String, Object> values = new LinkedCaseInsensitiveMap<>();
+
+	/**
+	 * @param entity
+	 *            the annotated entity
+	 * @param entityMetaData
+	 *            metadata of the annotated entity including the output attributes
+	 */
+	public AnnotatedEntity(Entity entity, EntityMetaData entityMetaData)
+	{
+		this.entity = requireNonNull(entity);
+		this.entityMetaData = requireNonNull(entityMetaData);
+	}
+
+	@Override
+	public EntityMetaData getEntityMetaData()
+	{
+		return entityMetaData;
+	}
+
+	@Override
+	public Iterable<String> getAttributeNames()
+	{
+		return Iterables.transform(entityMetaData.getAttributes(), AttributeMetaData::getName);
+	}
+
+	@Override
+	public Object getIdValue()
+	{
+		AttributeMetaData idAttribute = entityMetaData.getIdAttribute();
+		return idAttribute != null ? get(idAttribute.getName()) : null;
+	}
+
+	@Override
+	public Object get(String attributeName)
+	{
+		if (values.containsKey(attributeName)) return values.get(attributeName);
+		return entity.get(attributeName);
+	}
+
+	@Override
+	public void set(String attributeName, Object value)
+	{
+		values.put(attributeName, value);
+	}
+
+	@Override
+	public void set(Entity other)
+	{
+		for (String attributeName : other.getAttributeNames())
+		{
+			set(attributeName, other.get(attributeName));
+		}
+	}
+}
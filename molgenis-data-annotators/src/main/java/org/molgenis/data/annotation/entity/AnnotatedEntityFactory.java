@@ -0,0 +1,65 @@
+package org.molgenis.data.annotation.entity;
+
+import java.util.List;
+
+import org.molgenis.data.AttributeMetaData;
+import org.molgenis.data.Entity;
+import org.molgenis.data.EntityMetaData;
+import org.molgenis.data.support.DefaultEntityMetaData;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Creates the {@link AnnotatedEntity} results of an annotator. The metadata of the results is created once for every
+ * input {@link EntityMetaData} instance and shared by all results. Thread-safe.
+ */
+public class AnnotatedEntityFactory
+{
+	private final List<AttributeMetaData> outputAttributes;
+	private final LoadingCache<EntityMetaData, EntityMetaData> entityMetaDataCache;
+
+	/**
+	 * @param outputAttributes
+	 *            the attributes that the annotator adds to the annotated entities
+	 */
+	public AnnotatedEntityFactory(List<AttributeMetaData> outputAttributes)
+	{
+		this.outputAttributes = ImmutableList.copyOf(outputAttributes);
+		// weak keys are compared by identity, metadata that is no longer used by the input entities can be collected
+		this.entityMetaDataCache = CacheBuilder.newBuilder().weakKeys()
+				.build(new CacheLoader<EntityMetaData, EntityMetaData>()
+				{
+					@Override
+					public EntityMetaData load(EntityMetaData entityMetaData)
+					{
+						return createEntityMetaData(entityMetaData);
+					}
+				});
+	}
+
+	/**
+	 * Returns the metadata of the input entity metadata extended with the output attributes
+	 */
+	public EntityMetaData getEntityMetaData(EntityMetaData entityMetaData)
+	{
+		return entityMetaDataCache.getUnchecked(entityMetaData);
+	}
+
+	/**
+	 * Creates an empty annotation result for the entity
+	 */
+	public Entity create(Entity entity)
+	{
+		return new AnnotatedEntity(entity, getEntityMetaData(entity.getEntityMetaData()));
+	}
+
+	private EntityMetaData createEntityMetaData(EntityMetaData entityMetaData)
+	{
+		DefaultEntityMetaData annotatedEntityMetaData = new DefaultEntityMetaData(entityMetaData);
+		outputAttributes.forEach(annotatedEntityMetaData::addAttributeMetaData);
+		return annotatedEntityMetaData;
+	}
+}
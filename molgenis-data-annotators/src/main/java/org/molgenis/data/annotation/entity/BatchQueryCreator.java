@@ -0,0 +1,31 @@
+package org.molgenis.data.annotation.entity;
+
+import java.util.Collection;
+
+import org.molgenis.data.Entity;
+import org.molgenis.data.Query;
+
+/**
+ * A {@link QueryCreator} that can also create a single query for a batch of entities, so that the annotator's source
+ * repository is queried once per batch instead of once per entity.
+ */
+public interface BatchQueryCreator extends QueryCreator
+{
+	/**
+	 * Returns the lookup key of an entity. Rows in the source repository that match an annotated entity have the same
+	 * lookup key as the annotated entity.
+	 *
+	 * @param entity
+	 *            annotated entity or row from the source repository
+	 * @return the lookup key or null if the entity can't be looked up in a batch
+	 */
+	Object getKey(Entity entity);
+
+	/**
+	 * Creates a query that finds the rows for multiple lookup keys.
+	 *
+	 * @param keys
+	 *            lookup keys returned by {@link #getKey(Entity)}
+	 */
+	Query createQuery(Collection<Object> keys);
+}
@@ -1,5 +1,6 @@
 package org.molgenis.data.annotation.entity;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import org.molgenis.data.AttributeMetaData;
@@ -23,6 +24,24 @@ public interface EntityAnnotator extends Annotator
 	 */
 	Iterable<Entity> annotateEntity(Entity sourceEntity);
 
+	/**
+	 * Annotates a batch of entities. Annotators that can look up the annotations for multiple entities at once
+	 * override this method, by default the entities are annotated one by one.
+	 * 
+	 * @param sourceEntities
+	 *            the entities to annotate
+	 * @return {@link List} with the annotated data for each entity, in the order of the entities
+	 */
+	default List<Iterable<Entity>> annotateEntities(List<Entity> sourceEntities)
+	{
+		List<Iterable<Entity>> results = new ArrayList<>(sourceEntities.size());
+		for (Entity sourceEntity : sourceEntities)
+		{
+			results.add(annotateEntity(sourceEntity));
+		}
+		return results;
+	}
+
 	/**
 	 * @return the {@link List<AttributeMetaData>} that must be present in the source entity.
 	 */
@@ -35,4 +54,13 @@ public interface EntityAnnotator extends Annotator
 	boolean sourceExists();
 
 	public CmdLineAnnotatorSettingsConfigurer getCmdLineAnnotatorSettingsConfigurer();
+
+	/**
+	 * @return Indication if entities can be annotated concurrently on multiple threads, see
+	 *         {@link org.molgenis.data.annotation.RepositoryAnnotator#isThreadSafe()}
+	 */
+	default boolean isThreadSafe()
+	{
+		return false;
+	}
 }
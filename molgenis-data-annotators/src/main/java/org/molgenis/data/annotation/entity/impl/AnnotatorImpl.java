@@ -58,6 +58,15 @@ public class AnnotatorImpl extends QueryAnnotatorImpl implements EntityAnnotator
 		return entity.get(attr.getName());
 	}
 
+	/**
+	 * Thread-safe if the source is a file based resource, the query creators and result filters are stateless
+	 */
+	@Override
+	public boolean isThreadSafe()
+	{
+		return isResourceSource();
+	}
+
 	@Override
 	public List<AttributeMetaData> getRequiredAttributes()
 	{
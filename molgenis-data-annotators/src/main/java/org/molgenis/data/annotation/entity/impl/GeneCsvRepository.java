@@ -1,33 +1,32 @@
 package org.molgenis.data.annotation.entity.impl;
 
 import java.io.File;
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.Map;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
-import java.util.stream.Stream;
 
 import org.molgenis.data.Entity;
 import org.molgenis.data.EntityMetaData;
 import org.molgenis.data.MolgenisDataException;
-import org.molgenis.data.Query;
-import org.molgenis.data.QueryRule.Operator;
 import org.molgenis.data.RepositoryCapability;
+import org.molgenis.data.annotation.resources.impl.IndexedFileRepository;
 import org.molgenis.data.csv.CsvRepository;
-import org.molgenis.data.support.AbstractRepository;
 
-public class GeneCsvRepository extends AbstractRepository
+/**
+ * Gene CSV file, indexed on the gene attribute
+ */
+public class GeneCsvRepository extends IndexedFileRepository
 {
 	private final CsvRepository repository;
-	private final Map<Object, Entity> index = new HashMap<Object, Entity>();
 	private final String sourceAttributeName;
-	private final String targetAttributeName;
 
 	public GeneCsvRepository(File file, String sourceAttributeName, String targetAttributeName, char separator)
 	{
+		super(file, Collections.singletonMap(targetAttributeName, sourceAttributeName));
 		this.repository = new CsvRepository(file, null, separator);
 		this.sourceAttributeName = sourceAttributeName;
-		this.targetAttributeName = targetAttributeName;
 	}
 
 	@Override
@@ -43,38 +42,14 @@ public class GeneCsvRepository extends AbstractRepository
 	}
 
 	@Override
-	public Iterator<Entity> iterator()
+	protected List<Entity> readEntities(File file) throws IOException
 	{
-		return repository.iterator();
-	}
-
-	@Override
-	public Stream<Entity> findAll(Query q)
-	{
-		if (q.getRules().isEmpty()) return getIndex().values().stream();
-		if ((q.getRules().size() != 1) || (q.getRules().get(0).getOperator() != Operator.EQUALS)
-				|| !targetAttributeName.equals(q.getRules().get(0).getField()))
-		{
-			throw new MolgenisDataException(
-					"The only query allowed on this Repository is '" + targetAttributeName + " EQUALS'");
-		}
-
-		Entity result = getIndex().get(q.getRules().get(0).getValue());
-		return result == null ? Stream.empty() : Stream.of(result);
-	}
-
-	private Map<Object, Entity> getIndex()
-	{
-		if (index.isEmpty())
-		{
-			forEach(e -> {
-				Object key = e.get(sourceAttributeName);
-				if (key == null) throw new MolgenisDataException(
-						"Missing value for attribute [" + sourceAttributeName + "] in entity [" + e + "]");
-				index.put(key, e);
-			});
-		}
-
-		return index;
+		List<Entity> entities = new ArrayList<>();
+		repository.forEach(e -> {
+			if (e.get(sourceAttributeName) == null) throw new MolgenisDataException(
+					"Missing value for attribute [" + sourceAttributeName + "] in entity [" + e + "]");
+			entities.add(e);
+		});
+		return entities;
 	}
 }
@@ -1,11 +1,15 @@
 package org.molgenis.data.annotation.entity.impl;
 
 import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toList;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 import org.molgenis.MolgenisFieldTypes.FieldTypeEnum;
 import org.molgenis.data.AttributeMetaData;
@@ -13,13 +17,13 @@ import org.molgenis.data.DataService;
 import org.molgenis.data.Entity;
 import org.molgenis.data.Query;
 import org.molgenis.data.annotation.CmdLineAnnotatorSettingsConfigurer;
+import org.molgenis.data.annotation.entity.AnnotatedEntityFactory;
 import org.molgenis.data.annotation.entity.AnnotatorInfo;
+import org.molgenis.data.annotation.entity.BatchQueryCreator;
 import org.molgenis.data.annotation.entity.EntityAnnotator;
 import org.molgenis.data.annotation.entity.QueryCreator;
 import org.molgenis.data.annotation.resources.Resources;
 import org.molgenis.data.support.DefaultAttributeMetaData;
-import org.molgenis.data.support.DefaultEntityMetaData;
-import org.molgenis.data.support.MapEntity;
 
 /**
  * Base class for any {@link EntityAnnotator} that uses a {@link QueryCreator} to query the {@link DataService} or
@@ -37,6 +41,7 @@ public abstract class QueryAnnotatorImpl implements EntityAnnotator
 	private final String sourceRepositoryName;
 	private final AnnotatorInfo info;
 	private final CmdLineAnnotatorSettingsConfigurer cmdLineAnnotatorSettingsConfigurer;
+	private final AnnotatedEntityFactory annotatedEntityFactory;
 
 	public QueryAnnotatorImpl(String sourceRepositoryName, AnnotatorInfo info, QueryCreator queryCreator,
 			DataService dataService, Resources resources,
@@ -48,6 +53,7 @@ public abstract class QueryAnnotatorImpl implements EntityAnnotator
 		this.queryCreator = requireNonNull(queryCreator);
 		this.info = info;
 		this.cmdLineAnnotatorSettingsConfigurer = cmdLineAnnotatorSettingsConfigurer;
+		this.annotatedEntityFactory = new AnnotatedEntityFactory(info.getOutputAttributes());
 	}
 
 	@Override
@@ -100,13 +106,74 @@ public abstract class QueryAnnotatorImpl implements EntityAnnotator
 				}
 			};
 		}
-		DefaultEntityMetaData meta = new DefaultEntityMetaData(entity.getEntityMetaData());
-		info.getOutputAttributes().forEach(meta::addAttributeMetaData);
-		Entity resultEntity = new MapEntity(entity, meta);
-		processQueryResults(entity, annotatationSourceEntities, resultEntity);
+		return annotateEntity(entity, annotatationSourceEntities);
+	}
+
+	/**
+	 * Annotates a batch of entities. If the {@link QueryCreator} supports batches and the source repository is queried
+	 * through the {@link DataService}, the source rows for all entities are found with a single query and distributed
+	 * over the entities by their lookup key.
+	 */
+	@Override
+	public List<Iterable<Entity>> annotateEntities(List<Entity> entities)
+	{
+		if (!(queryCreator instanceof BatchQueryCreator) || !isDataServiceSource())
+		{
+			return EntityAnnotator.super.annotateEntities(entities);
+		}
+		BatchQueryCreator batchQueryCreator = (BatchQueryCreator) queryCreator;
+
+		List<Object> keys = entities.stream().map(batchQueryCreator::getKey).collect(toList());
+		List<Object> distinctKeys = keys.stream().filter(Objects::nonNull).distinct().collect(toList());
+		Map<Object, List<Entity>> annotationSourceEntitiesByKey = new HashMap<>();
+		if (!distinctKeys.isEmpty())
+		{
+			dataService.findAll(sourceRepositoryName, batchQueryCreator.createQuery(distinctKeys)).forEach(
+					sourceEntity -> annotationSourceEntitiesByKey.computeIfAbsent(
+							batchQueryCreator.getKey(sourceEntity), key -> new ArrayList<>()).add(sourceEntity));
+		}
+
+		List<Iterable<Entity>> results = new ArrayList<>(entities.size());
+		for (int i = 0; i < entities.size(); ++i)
+		{
+			Object key = keys.get(i);
+			if (key != null)
+			{
+				results.add(annotateEntity(entities.get(i),
+						annotationSourceEntitiesByKey.getOrDefault(key, Collections.emptyList())));
+			}
+			else
+			{
+				results.add(annotateEntity(entities.get(i)));
+			}
+		}
+		return results;
+	}
+
+	private List<Entity> annotateEntity(Entity entity, Iterable<Entity> annotationSourceEntities)
+	{
+		Entity resultEntity = annotatedEntityFactory.create(entity);
+		processQueryResults(entity, annotationSourceEntities, resultEntity);
 		return Collections.singletonList(resultEntity);
 	}
 
+	/**
+	 * Returns whether the source repository is queried through the {@link DataService} instead of a file based
+	 * {@link Resources} resource
+	 */
+	private boolean isDataServiceSource()
+	{
+		return !isResourceSource() && dataService.hasRepository(sourceRepositoryName);
+	}
+
+	/**
+	 * Returns whether the source repository is a file based {@link Resources} resource
+	 */
+	protected boolean isResourceSource()
+	{
+		return resources.getResourcesNames().contains(sourceRepositoryName);
+	}
+
 	@Override
 	public CmdLineAnnotatorSettingsConfigurer getCmdLineAnnotatorSettingsConfigurer()
 	{
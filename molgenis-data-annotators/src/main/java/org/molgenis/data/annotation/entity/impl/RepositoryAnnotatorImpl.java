@@ -53,6 +53,23 @@ public class RepositoryAnnotatorImpl extends AbstractRepositoryEntityAnnotator
 		return Lists.newArrayList(entityAnnotator.annotateEntity(entity));
 	}
 
+	@Override
+	public List<List<Entity>> annotateEntities(List<Entity> entities)
+	{
+		List<List<Entity>> results = new ArrayList<>(entities.size());
+		for (Iterable<Entity> entityResults : entityAnnotator.annotateEntities(entities))
+		{
+			results.add(Lists.newArrayList(entityResults));
+		}
+		return results;
+	}
+
+	@Override
+	public boolean isThreadSafe()
+	{
+		return entityAnnotator.isThreadSafe();
+	}
+
 	@Override
 	public AnnotatorInfo getInfo()
 	{
@@ -5,6 +5,7 @@ import static org.molgenis.MolgenisFieldTypes.FieldTypeEnum.TEXT;
 
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
+import java.io.Closeable;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -17,7 +18,16 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import javax.annotation.PreDestroy;
 
 import org.apache.commons.io.IOUtils;
 import org.molgenis.MolgenisFieldTypes;
@@ -28,6 +38,7 @@ import org.molgenis.data.MolgenisDataException;
 import org.molgenis.data.annotation.AbstractRepositoryAnnotator;
 import org.molgenis.data.annotation.CmdLineAnnotatorSettingsConfigurer;
 import org.molgenis.data.annotation.RepositoryAnnotator;
+import org.molgenis.data.annotation.entity.AnnotatedEntityFactory;
 import org.molgenis.data.annotation.entity.AnnotatorInfo;
 import org.molgenis.data.annotation.entity.AnnotatorInfo.Status;
 import org.molgenis.data.annotation.entity.AnnotatorInfo.Type;
@@ -36,8 +47,6 @@ import org.molgenis.data.annotation.utils.JarRunner;
 import org.molgenis.data.annotation.utils.JarRunnerImpl;
 import org.molgenis.data.annotator.websettings.SnpEffAnnotatorSettings;
 import org.molgenis.data.support.DefaultAttributeMetaData;
-import org.molgenis.data.support.DefaultEntityMetaData;
-import org.molgenis.data.support.MapEntity;
 import org.molgenis.data.vcf.VcfRepository;
 import org.molgenis.security.core.runas.RunAsSystemProxy;
 import org.slf4j.Logger;
@@ -47,6 +56,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import com.google.common.collect.Iterators;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 /**
  * SnpEff annotator
@@ -157,12 +167,21 @@ public class SnpEffAnnotator
 	public static class SnpEffRepositoryAnnotator extends AbstractRepositoryAnnotator
 	{
 		private static final String CHARSET = "UTF-8";
+		private static final int CHUNK_SIZE = 1000;
+		/**
+		 * Maximum time to annotate a chunk, includes the time SnpEff needs to load its database at startup
+		 */
+		private static final long DEFAULT_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(10);
 		private String snpEffPath;
 		private final Entity pluginSettings;
 		private final AnnotatorInfo info = AnnotatorInfo.create(Status.READY, Type.EFFECT_PREDICTION, NAME,
 				"Genetic variant annotation and effect prediction toolbox. It annotates and predicts the effects of variants on genes (such as amino acid changes). ",
 				getOutputMetaData());
+		private final AnnotatedEntityFactory annotatedEntityFactory = new AnnotatedEntityFactory(
+				info.getOutputAttributes());
 		private final JarRunner jarRunner;
+		private SnpEffProcess snpEffProcess;
+		private long timeoutMillis = DEFAULT_TIMEOUT_MILLIS;
 
 		public SnpEffRepositoryAnnotator(Entity pluginSettings, JarRunner jarRunner)
 		{
@@ -170,6 +189,19 @@ public class SnpEffAnnotator
 			this.jarRunner = jarRunner;
 		}
 
+		/**
+		 * Sets the maximum time SnpEff may take to annotate a chunk of variants, defaults to 10 minutes. The process is
+		 * killed when it times out and a new process is started for the next chunk.
+		 */
+		void setTimeout(long timeout, TimeUnit unit)
+		{
+			if (timeout <= 0)
+			{
+				throw new IllegalArgumentException("Timeout must be positive");
+			}
+			this.timeoutMillis = unit.toMillis(timeout);
+		}
+
 		@Override
 		public AnnotatorInfo getInfo()
 		{
@@ -179,19 +211,73 @@ public class SnpEffAnnotator
 		@Override
 		public Iterator<Entity> annotate(Iterable<Entity> source)
 		{
-			File inputVcf = null;
-			try
+			// variants are piped through a running SnpEff process in chunks, results of a chunk are available as soon
+			// as SnpEff has annotated it
+			Iterator<List<Entity>> chunks = Iterators.partition(source.iterator(), CHUNK_SIZE);
+			return Iterators.concat(Iterators.transform(chunks, this::annotateChunk));
+		}
+
+		private Iterator<Entity> annotateChunk(List<Entity> entities)
+		{
+			List<String> inputLines = entities.stream().map(this::toVcfLine).collect(Collectors.toList());
+			List<String> outputLines = getSnpEffProcess().annotate(inputLines, timeoutMillis);
+
+			List<Entity> results = new ArrayList<>(entities.size());
+			for (int i = 0; i < entities.size(); ++i)
 			{
-				inputVcf = getInputVcfTempFile(source);
+				Entity copy = annotatedEntityFactory.create(entities.get(i));
+				parseOutputLineToEntity(outputLines.get(i), copy);
+				results.add(copy);
 			}
-			catch (IOException e)
+			return results.iterator();
+		}
+
+		/**
+		 * Returns the SnpEff process shared by all annotation runs, starts a new one if it is not running
+		 */
+		private synchronized SnpEffProcess getSnpEffProcess()
+		{
+			if (snpEffProcess == null || !snpEffProcess.isAlive())
 			{
-				throw new MolgenisDataException("Exception running SnpEff", e);
+				if (snpEffProcess != null) snpEffProcess.close();
 
+				String path = getSnpEffPath();
+				if (path == null) throw new MolgenisDataException("SnpEff jar not found");
+				try
+				{
+					LOG.info("Starting SnpEff process");
+					snpEffProcess = new SnpEffProcess(jarRunner.startJar(getParams(path)));
+				}
+				catch (IOException e)
+				{
+					throw new MolgenisDataException("Exception running SnpEff", e);
+				}
 			}
-			return annotateRepository(source, inputVcf);
+			return snpEffProcess;
+		}
+
+		@PreDestroy
+		public synchronized void shutdown()
+		{
+			if (snpEffProcess != null)
+			{
+				snpEffProcess.close();
+				snpEffProcess = null;
+			}
+		}
+
+		private List<String> getParams(String path)
+		{
+			return Arrays.asList("-Xmx2g", path, "hg19", "-noStats", "-noLog", "-lof", "-canon", "-ud", "0",
+					"-spliceSiteSize", "5");
 		}
 
+		/**
+		 * Annotates the variants of a VCF file with a separate SnpEff run
+		 *
+		 * @deprecated use {@link #annotate(Iterable)}, which streams the variants through a running SnpEff process
+		 */
+		@Deprecated
 		public Iterator<Entity> annotateRepository(Iterable<Entity> source, final File inputVcf)
 		{
 			try
@@ -200,9 +286,7 @@ public class SnpEffAnnotator
 				Iterator<Entity> it = source.iterator();
 				if (!it.hasNext()) return Iterators.emptyIterator();
 
-				List<String> params = Arrays.asList("-Xmx2g", getSnpEffPath(), "hg19", "-noStats", "-noLog", "-lof",
-						"-canon", "-ud", "0", "-spliceSiteSize", "5");
-				File outputVcf = jarRunner.runJar(NAME, params, inputVcf);
+				File outputVcf = jarRunner.runJar(NAME, getParams(getSnpEffPath()), inputVcf);
 				// When vcf reader/writer can handle samples and SnpEff annotations just return a VcfRepository (with
 				// inputVcf as input)
 				// iterator here
@@ -227,10 +311,7 @@ public class SnpEffAnnotator
 					@Override
 					public Entity next()
 					{
-						Entity entity = it.next();
-						DefaultEntityMetaData meta = new DefaultEntityMetaData(entity.getEntityMetaData());
-						info.getOutputAttributes().forEach(meta::addAttributeMetaData);
-						Entity copy = new MapEntity(entity, meta);
+						Entity copy = annotatedEntityFactory.create(it.next());
 						try
 						{
 							String line = readLine(reader);
@@ -267,6 +348,12 @@ public class SnpEffAnnotator
 			return line;
 		}
 
+		/**
+		 * Writes the variants to a temporary VCF file for {@link #annotateRepository(Iterable, File)}
+		 *
+		 * @deprecated use {@link #annotate(Iterable)}, which doesn't need a temporary file
+		 */
+		@Deprecated
 		public File getInputVcfTempFile(Iterable<Entity> source) throws IOException
 		{
 			File vcf = File.createTempFile(NAME, ".vcf");
@@ -275,22 +362,27 @@ public class SnpEffAnnotator
 
 				for (Entity entity : source)
 				{
-					StringBuilder builder = new StringBuilder();
-					builder.append(entity.getString(VcfRepository.CHROM));
-					builder.append("\t");
-					builder.append(entity.getString(VcfRepository.POS));
-					builder.append("\t.\t");
-					builder.append(entity.getString(VcfRepository.REF));
-					builder.append("\t");
-					builder.append(entity.getString(VcfRepository.ALT));
-					builder.append("\n");
-					bw.write(builder.toString());
+					bw.write(toVcfLine(entity));
+					bw.write("\n");
 				}
 			}
 
 			return vcf;
 		}
 
+		private String toVcfLine(Entity entity)
+		{
+			StringBuilder builder = new StringBuilder();
+			builder.append(entity.getString(VcfRepository.CHROM));
+			builder.append("\t");
+			builder.append(entity.getString(VcfRepository.POS));
+			builder.append("\t.\t");
+			builder.append(entity.getString(VcfRepository.REF));
+			builder.append("\t");
+			builder.append(entity.getString(VcfRepository.ALT));
+			return builder.toString();
+		}
+
 		// FIXME: can be multiple? even when using canonical!
 		// e.g.
 		// ANN=G|intron_variant|MODIFIER|LOC101926913|LOC101926913|transcript|NR_110185.1|Noncoding|5/5|n.376+9526G>C||||||,G|non_coding_exon_variant|MODIFIER|LINC01124|LINC01124|transcript|NR_027433.1|Noncoding|1/1|n.590G>C||||||;
@@ -518,4 +610,113 @@ public class SnpEffAnnotator
 		}
 	}
 
+	/**
+	 * Long-lived SnpEff process that reads variants from stdin and writes the annotated variants to stdout. Chunks of
+	 * variants are annotated one at a time.
+	 */
+	private static class SnpEffProcess implements Closeable
+	{
+		private static final String CHARSET = "UTF-8";
+
+		private final Process process;
+		private final BufferedWriter writer;
+		private final BufferedReader reader;
+		private final ExecutorService ioExecutor;
+		private volatile boolean closed;
+
+		SnpEffProcess(Process process) throws IOException
+		{
+			this.process = process;
+			this.writer = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), CHARSET));
+			this.reader = new BufferedReader(new InputStreamReader(process.getInputStream(), CHARSET));
+			this.ioExecutor = Executors.newFixedThreadPool(2,
+					new ThreadFactoryBuilder().setNameFormat("snpEff-io-%d").setDaemon(true).build());
+		}
+
+		boolean isAlive()
+		{
+			return !closed && process.isAlive();
+		}
+
+		/**
+		 * Writes the VCF lines to SnpEff and returns the annotated lines in the same order. The process is stopped if
+		 * annotation fails or doesn't finish within the timeout.
+		 */
+		synchronized List<String> annotate(List<String> vcfLines, long timeoutMillis)
+		{
+			long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+
+			// write on another thread so that SnpEff doesn't block on a full stdout pipe while input is being written
+			Future<?> writeResult = ioExecutor.submit(() -> {
+				for (String vcfLine : vcfLines)
+				{
+					writer.write(vcfLine);
+					writer.write("\n");
+				}
+				writer.flush();
+				return null;
+			});
+			// read on another thread so that a hanging SnpEff can't block the caller forever
+			Future<List<String>> readResult = ioExecutor.submit(() -> readLines(vcfLines.size()));
+
+			try
+			{
+				List<String> outputLines = readResult.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+				writeResult.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+				return outputLines;
+			}
+			catch (TimeoutException e)
+			{
+				LOG.warn("SnpEff did not respond within {} ms, stopping process", timeoutMillis);
+				process.destroyForcibly();
+				close();
+				throw new MolgenisDataException("SnpEff did not annotate the variants within " + timeoutMillis + " ms");
+			}
+			catch (InterruptedException e)
+			{
+				close();
+				Thread.currentThread().interrupt();
+				throw new MolgenisDataException("Interrupted while running SnpEff", e);
+			}
+			catch (ExecutionException e)
+			{
+				close();
+				if (e.getCause() instanceof IOException) throw new UncheckedIOException((IOException) e.getCause());
+				if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+				throw new MolgenisDataException("Exception running SnpEff", e.getCause());
+			}
+			catch (RuntimeException e)
+			{
+				close();
+				throw e;
+			}
+		}
+
+		private List<String> readLines(int nrLines) throws IOException
+		{
+			List<String> outputLines = new ArrayList<>(nrLines);
+			while (outputLines.size() < nrLines)
+			{
+				String line = reader.readLine();
+				if (line == null)
+				{
+					throw new MolgenisDataException("SnpEff stopped before all variants were annotated");
+				}
+				if (!line.startsWith("#")) outputLines.add(line);
+			}
+			return outputLines;
+		}
+
+		@Override
+		public void close()
+		{
+			closed = true;
+			// stop the process first, so that blocked reads and writes on its streams return
+			process.destroy();
+			ioExecutor.shutdownNow();
+			IOUtils.closeQuietly(writer);
+			IOUtils.closeQuietly(reader);
+		}
+	}
+
 }
@@ -1,6 +1,7 @@
 package org.molgenis.data.annotation.query;
 
 import static org.molgenis.data.support.QueryImpl.EQ;
+import static org.molgenis.data.support.QueryImpl.IN;
 
 import java.util.Arrays;
 import java.util.Collection;
@@ -8,12 +9,12 @@ import java.util.Collection;
 import org.molgenis.data.AttributeMetaData;
 import org.molgenis.data.Entity;
 import org.molgenis.data.Query;
-import org.molgenis.data.annotation.entity.QueryCreator;
+import org.molgenis.data.annotation.entity.BatchQueryCreator;
 
 /**
  * Create a query that finds rows that match gene name
  */
-public class AttributeEqualsQueryCreator implements QueryCreator
+public class AttributeEqualsQueryCreator implements BatchQueryCreator
 {
 	private final AttributeMetaData attribute;
 
@@ -35,4 +36,15 @@ public class AttributeEqualsQueryCreator implements QueryCreator
 		return EQ(attribute.getName(), value);
 	}
 
+	@Override
+	public Object getKey(Entity entity)
+	{
+		return entity.getString(attribute.getName());
+	}
+
+	@Override
+	public Query createQuery(Collection<Object> keys)
+	{
+		return IN(attribute.getName(), keys);
+	}
 }
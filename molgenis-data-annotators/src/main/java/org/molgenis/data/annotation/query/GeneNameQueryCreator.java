@@ -1,6 +1,7 @@
 package org.molgenis.data.annotation.query;
 
 import static org.molgenis.data.support.QueryImpl.EQ;
+import static org.molgenis.data.support.QueryImpl.IN;
 
 import java.util.Collection;
 import java.util.Collections;
@@ -8,11 +9,11 @@ import java.util.Collections;
 import org.molgenis.data.AttributeMetaData;
 import org.molgenis.data.Entity;
 import org.molgenis.data.Query;
-import org.molgenis.data.annotation.entity.QueryCreator;
+import org.molgenis.data.annotation.entity.BatchQueryCreator;
 import org.molgenis.data.annotation.entity.impl.SnpEffAnnotator;
 import org.molgenis.data.support.DefaultAttributeMetaData;
 
-public class GeneNameQueryCreator implements QueryCreator
+public class GeneNameQueryCreator implements BatchQueryCreator
 {
 	@Override
 	public Collection<AttributeMetaData> getRequiredAttributes()
@@ -26,4 +27,16 @@ public class GeneNameQueryCreator implements QueryCreator
 		Object value = entity.get(SnpEffAnnotator.GENE_NAME);
 		return EQ(SnpEffAnnotator.GENE_NAME, value);
 	}
+
+	@Override
+	public Object getKey(Entity entity)
+	{
+		return entity.getString(SnpEffAnnotator.GENE_NAME);
+	}
+
+	@Override
+	public Query createQuery(Collection<Object> keys)
+	{
+		return IN(SnpEffAnnotator.GENE_NAME, keys);
+	}
 }
\ No newline at end of file
@@ -1,20 +1,25 @@
 package org.molgenis.data.annotation.query;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 
 import org.molgenis.data.AttributeMetaData;
 import org.molgenis.data.Entity;
 import org.molgenis.data.Query;
+import org.molgenis.data.annotation.entity.BatchQueryCreator;
 import org.molgenis.data.annotation.impl.datastructures.Locus;
-import org.molgenis.data.annotation.entity.QueryCreator;
 import org.molgenis.data.support.QueryImpl;
 import org.molgenis.data.vcf.VcfRepository;
 
 /**
  * Creates a Locus query that finds rows that match chromosome/position
  */
-public class LocusQueryCreator implements QueryCreator
+public class LocusQueryCreator implements BatchQueryCreator
 {
 	@Override
 	public Query createQuery(Entity entity)
@@ -30,6 +35,42 @@ public class LocusQueryCreator implements QueryCreator
 		return QueryImpl.EQ(VcfRepository.CHROM, locus.getChrom()).and().eq(VcfRepository.POS, locus.getPos());
 	}
 
+	@Override
+	public Object getKey(Entity entity)
+	{
+		String chromosome = entity.getString(VcfRepository.CHROM);
+		Long position = entity.getLong(VcfRepository.POS);
+		return chromosome != null && position != null ? Arrays.asList(chromosome, position) : null;
+	}
+
+	/**
+	 * Creates a query that finds rows that match one of the chromosome/position keys, positions are grouped by
+	 * chromosome: (CHROM = c1 AND POS IN (...)) OR (CHROM = c2 AND POS IN (...))
+	 */
+	@Override
+	public Query createQuery(Collection<Object> keys)
+	{
+		Map<Object, List<Object>> positionsByChromosome = new LinkedHashMap<>();
+		for (Object key : keys)
+		{
+			List<?> locus = (List<?>) key;
+			positionsByChromosome.computeIfAbsent(locus.get(0), chromosome -> new ArrayList<>()).add(locus.get(1));
+		}
+
+		Query q = new QueryImpl();
+		boolean first = true;
+		for (Entry<Object, List<Object>> entry : positionsByChromosome.entrySet())
+		{
+			if (!first)
+			{
+				q.or();
+			}
+			q.nest().eq(VcfRepository.CHROM, entry.getKey()).and().in(VcfRepository.POS, entry.getValue()).unnest();
+			first = false;
+		}
+		return q;
+	}
+
 	@Override
 	public Collection<AttributeMetaData> getRequiredAttributes()
 	{
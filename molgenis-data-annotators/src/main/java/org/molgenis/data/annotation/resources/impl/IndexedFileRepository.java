@@ -0,0 +1,173 @@
+package org.molgenis.data.annotation.resources.impl;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.molgenis.data.Entity;
+import org.molgenis.data.MolgenisDataException;
+import org.molgenis.data.Query;
+import org.molgenis.data.QueryRule;
+import org.molgenis.data.QueryRule.Operator;
+import org.molgenis.data.RepositoryCapability;
+import org.molgenis.data.support.AbstractRepository;
+
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Base class for file based annotation resources that are small enough to be kept in memory, such as gene and
+ * phenotype tables.
+ *
+ * The file is read once and hash indexes are built on the lookup attributes, so that EQUALS and IN queries on these
+ * attributes don't scan all rows. The file is read again when its modification time changes. Thread-safe.
+ */
+public abstract class IndexedFileRepository extends AbstractRepository
+{
+	private final File file;
+	private final Map<String, String> indexedAttributeNames;
+	private volatile Index index;
+
+	/**
+	 * @param file
+	 *            the resource file
+	 * @param indexedAttributeNames
+	 *            maps the fields that can be queried to the names of the entity attributes they look up
+	 */
+	protected IndexedFileRepository(File file, Map<String, String> indexedAttributeNames)
+	{
+		this.file = requireNonNull(file);
+		this.indexedAttributeNames = ImmutableMap.copyOf(indexedAttributeNames);
+	}
+
+	/**
+	 * Reads all entities from the resource file
+	 */
+	protected abstract List<Entity> readEntities(File file) throws IOException;
+
+	@Override
+	public Set<RepositoryCapability> getCapabilities()
+	{
+		return Collections.emptySet();
+	}
+
+	@Override
+	public Iterator<Entity> iterator()
+	{
+		return getIndex().entities.iterator();
+	}
+
+	@Override
+	public long count()
+	{
+		return getIndex().entities.size();
+	}
+
+	@Override
+	public long count(Query q)
+	{
+		return findAll(q).count();
+	}
+
+	@Override
+	public Stream<Entity> findAll(Query q)
+	{
+		Index currentIndex = getIndex();
+		if (q.getRules().isEmpty()) return currentIndex.entities.stream();
+
+		QueryRule rule = q.getRules().get(0);
+		String attributeName = indexedAttributeNames.get(rule.getField());
+		if ((q.getRules().size() != 1) || attributeName == null
+				|| (rule.getOperator() != Operator.EQUALS && rule.getOperator() != Operator.IN))
+		{
+			throw new MolgenisDataException("The only queries allowed on this Repository are EQUALS and IN on "
+					+ indexedAttributeNames.keySet());
+		}
+
+		Map<Object, List<Entity>> attributeIndex = currentIndex.attributeIndexes.get(attributeName);
+		if (rule.getOperator() == Operator.EQUALS)
+		{
+			return attributeIndex.getOrDefault(rule.getValue(), Collections.emptyList()).stream();
+		}
+
+		// values that occur more than once in the IN query return their entities once
+		Set<Object> values = new LinkedHashSet<>();
+		((Iterable<?>) rule.getValue()).forEach(values::add);
+		return values.stream().flatMap(value -> attributeIndex.getOrDefault(value, Collections.emptyList()).stream());
+	}
+
+	private Index getIndex()
+	{
+		long lastModified = file.lastModified();
+		Index currentIndex = index;
+		if (currentIndex == null || currentIndex.lastModified != lastModified)
+		{
+			synchronized (this)
+			{
+				currentIndex = index;
+				if (currentIndex == null || currentIndex.lastModified != lastModified)
+				{
+					currentIndex = createIndex(lastModified);
+					index = currentIndex;
+				}
+			}
+		}
+		return currentIndex;
+	}
+
+	private Index createIndex(long lastModified)
+	{
+		List<Entity> entities;
+		try
+		{
+			entities = Collections.unmodifiableList(readEntities(file));
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+
+		Map<String, Map<Object, List<Entity>>> attributeIndexes = new HashMap<>();
+		for (String attributeName : new LinkedHashSet<>(indexedAttributeNames.values()))
+		{
+			Map<Object, List<Entity>> attributeIndex = new HashMap<>();
+			for (Entity entity : entities)
+			{
+				Object value = entity.get(attributeName);
+				if (value != null)
+				{
+					attributeIndex.computeIfAbsent(value, key -> new ArrayList<>(1)).add(entity);
+				}
+			}
+			attributeIndexes.put(attributeName, attributeIndex);
+		}
+		return new Index(lastModified, entities, attributeIndexes);
+	}
+
+	/**
+	 * Entities read from the file with their indexes, replaced as a whole when the file changes
+	 */
+	private static class Index
+	{
+		final long lastModified;
+		final List<Entity> entities;
+		final Map<String, Map<Object, List<Entity>>> attributeIndexes;
+
+		Index(long lastModified, List<Entity> entities, Map<String, Map<Object, List<Entity>>> attributeIndexes)
+		{
+			this.lastModified = lastModified;
+			this.entities = entities;
+			this.attributeIndexes = attributeIndexes;
+		}
+	}
+}
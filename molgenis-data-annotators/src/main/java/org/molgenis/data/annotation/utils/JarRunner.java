@@ -11,4 +11,9 @@ public interface JarRunner
 {
 
 	public File runJar(String outputFileName, List<String> params, File input) throws IOException, InterruptedException;
+
+	/**
+	 * Starts a long-lived jar process that reads its input from stdin and writes its output to stdout
+	 */
+	public Process startJar(List<String> params) throws IOException;
 }
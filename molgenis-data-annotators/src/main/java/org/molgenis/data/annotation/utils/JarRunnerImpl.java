@@ -28,4 +28,19 @@ public class JarRunnerImpl implements JarRunner
 		p.waitFor();
 		return outputVcf;
 	}
+
+	@Override
+	public Process startJar(List<String> params) throws IOException
+	{
+		List<String> command = new ArrayList<>();
+		command.add("java");
+		command.add("-jar");
+		command.addAll(params);
+		ProcessBuilder pb = new ProcessBuilder(command);
+
+		// Error logging to standard logging.
+		pb.redirectError(ProcessBuilder.Redirect.INHERIT);
+
+		return pb.start();
+	}
 }
@@ -0,0 +1,293 @@
+package org.molgenis.data.annotator.tabix;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutionException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+/**
+ * Thread-safe random access to the decompressed blocks of a BGZF compressed file.
+ *
+ * The file is memory-mapped where possible. Decompressed blocks are kept in a bounded LRU cache that is shared by all
+ * BGZF files, so that readers on different threads don't decompress the same blocks over and over again.
+ */
+class BgzfFile
+{
+	/**
+	 * Maximum total size of the decompressed blocks in the block cache
+	 */
+	private static final long MAX_CACHED_BLOCK_BYTES = 64L * 1024 * 1024;
+
+	/**
+	 * Maximum size of a BGZF block
+	 */
+	private static final int MAX_BLOCK_SIZE = 65536;
+
+	/**
+	 * Size of the memory-mapped segments of the file, segments overlap with the maximum size of a block so that every
+	 * block is contained in the segment in which it starts
+	 */
+	private static final long SEGMENT_SIZE = 1L << 30;
+
+	private static final int BLOCK_HEADER_LENGTH = 12;
+	private static final int BLOCK_FOOTER_LENGTH = 8;
+
+	private static final LoadingCache<File, BgzfFile> FILES = CacheBuilder.newBuilder().weakValues()
+			.build(new CacheLoader<File, BgzfFile>()
+			{
+				@Override
+				public BgzfFile load(File file) throws IOException
+				{
+					return new BgzfFile(file);
+				}
+			});
+
+	private static final Cache<BlockKey, Block> BLOCKS = CacheBuilder.newBuilder()
+			.maximumWeight(MAX_CACHED_BLOCK_BYTES).<BlockKey, Block> weigher((key, block) -> block.data.length + 64)
+			.build();
+
+	private final File file;
+	private final long lastModified;
+	private final long length;
+	private final ByteBuffer[] segments;
+
+	private BgzfFile(File file) throws IOException
+	{
+		this.file = file;
+		lastModified = file.lastModified();
+
+		ByteBuffer[] mappedSegments;
+		// mappings stay valid after closing the file
+		try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r"))
+		{
+			FileChannel channel = randomAccessFile.getChannel();
+			length = channel.size();
+			try
+			{
+				mappedSegments = new ByteBuffer[(int) ((length + SEGMENT_SIZE - 1) / SEGMENT_SIZE)];
+				for (int i = 0; i < mappedSegments.length; ++i)
+				{
+					long position = i * SEGMENT_SIZE;
+					long size = Math.min(SEGMENT_SIZE + MAX_BLOCK_SIZE, length - position);
+					mappedSegments[i] = channel.map(MapMode.READ_ONLY, position, size);
+				}
+			}
+			catch (IOException e)
+			{
+				// not enough address space, read blocks from the file instead
+				mappedSegments = null;
+			}
+		}
+		segments = mappedSegments;
+	}
+
+	/**
+	 * Returns the {@link BgzfFile} for a file, readers of the same file share the same instance as long as the file is
+	 * not modified
+	 */
+	static BgzfFile get(File file) throws IOException
+	{
+		File canonicalFile = file.getCanonicalFile();
+		try
+		{
+			BgzfFile bgzfFile = FILES.get(canonicalFile);
+			if (bgzfFile.isModified())
+			{
+				FILES.asMap().remove(canonicalFile, bgzfFile);
+				bgzfFile = FILES.get(canonicalFile);
+			}
+			return bgzfFile;
+		}
+		catch (ExecutionException e)
+		{
+			throw (IOException) e.getCause();
+		}
+	}
+
+	private boolean isModified()
+	{
+		return file.lastModified() != lastModified || file.length() != length;
+	}
+
+	/**
+	 * Returns the block at an address in the file
+	 *
+	 * @param address
+	 *            file offset of the block
+	 * @return the block or null if the address is at or beyond the end of the file
+	 */
+	Block getBlock(long address) throws IOException
+	{
+		if (address >= length)
+		{
+			return null;
+		}
+		try
+		{
+			return BLOCKS.get(new BlockKey(this, address), () -> readBlock(address));
+		}
+		catch (ExecutionException | UncheckedExecutionException e)
+		{
+			if (e.getCause() instanceof IOException)
+			{
+				throw (IOException) e.getCause();
+			}
+			throw new IOException(e.getCause());
+		}
+	}
+
+	private Block readBlock(long address) throws IOException
+	{
+		ByteBuffer buffer = read(address, (int) Math.min(MAX_BLOCK_SIZE, length - address));
+		if (buffer.remaining() < BLOCK_HEADER_LENGTH || (buffer.get(0) & 0xff) != 31
+				|| (buffer.get(1) & 0xff) != 139)
+		{
+			throw new IOException("Invalid BGZF block at offset " + address);
+		}
+
+		// find the block size in the BC subfield of the extra field
+		int extraLength = getUnsignedShort(buffer, 10);
+		int blockSize = -1;
+		int subfieldOffset = BLOCK_HEADER_LENGTH;
+		while (subfieldOffset + 4 <= BLOCK_HEADER_LENGTH + extraLength)
+		{
+			if (buffer.get(subfieldOffset) == 'B' && buffer.get(subfieldOffset + 1) == 'C')
+			{
+				blockSize = getUnsignedShort(buffer, subfieldOffset + 4) + 1;
+			}
+			subfieldOffset += 4 + getUnsignedShort(buffer, subfieldOffset + 2);
+		}
+		if (blockSize == -1 || blockSize > buffer.remaining())
+		{
+			throw new IOException("Invalid BGZF block at offset " + address);
+		}
+
+		int compressedOffset = BLOCK_HEADER_LENGTH + extraLength;
+		int compressedLength = blockSize - compressedOffset - BLOCK_FOOTER_LENGTH;
+		byte[] compressed = new byte[compressedLength];
+		buffer.position(compressedOffset);
+		buffer.get(compressed);
+		byte[] data = new byte[buffer.getInt(blockSize - 4) & 0x7fffffff];
+
+		Inflater inflater = new Inflater(true);
+		try
+		{
+			inflater.setInput(compressed);
+			int nrInflated = 0;
+			while (nrInflated < data.length && !inflater.finished())
+			{
+				int n = inflater.inflate(data, nrInflated, data.length - nrInflated);
+				if (n == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+				{
+					break;
+				}
+				nrInflated += n;
+			}
+			if (nrInflated != data.length)
+			{
+				throw new IOException("Invalid BGZF block at offset " + address);
+			}
+		}
+		catch (DataFormatException e)
+		{
+			throw new IOException("Invalid BGZF block at offset " + address, e);
+		}
+		finally
+		{
+			inflater.end();
+		}
+		return new Block(data, blockSize);
+	}
+
+	/**
+	 * Reads bytes from the file into a little-endian buffer
+	 */
+	private ByteBuffer read(long position, int size) throws IOException
+	{
+		ByteBuffer buffer;
+		if (segments != null)
+		{
+			// duplicate so that concurrent readers don't share the buffer position
+			buffer = segments[(int) (position / SEGMENT_SIZE)].duplicate();
+			buffer.position((int) (position % SEGMENT_SIZE));
+			buffer.limit(buffer.position() + size);
+			buffer = buffer.slice();
+		}
+		else
+		{
+			buffer = ByteBuffer.allocate(size);
+			try (FileChannel fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+			{
+				while (buffer.hasRemaining())
+				{
+					if (fileChannel.read(buffer, position + buffer.position()) == -1)
+					{
+						break;
+					}
+				}
+			}
+			buffer.flip();
+		}
+		return buffer.order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	private static int getUnsignedShort(ByteBuffer buffer, int index)
+	{
+		return buffer.getShort(index) & 0xffff;
+	}
+
+	/**
+	 * Decompressed BGZF block
+	 */
+	static class Block
+	{
+		final byte[] data;
+		final int compressedSize;
+
+		Block(byte[] data, int compressedSize)
+		{
+			this.data = data;
+			this.compressedSize = compressedSize;
+		}
+	}
+
+	private static class BlockKey
+	{
+		private final BgzfFile file;
+		private final long address;
+
+		BlockKey(BgzfFile file, long address)
+		{
+			this.file = file;
+			this.address = address;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return 31 * System.identityHashCode(file) + (int) (address ^ (address >>> 32));
+		}
+
+		@Override
+		public boolean equals(Object obj)
+		{
+			if (this == obj) return true;
+			if (!(obj instanceof BlockKey)) return false;
+			BlockKey other = (BlockKey) obj;
+			return file == other.file && address == other.address;
+		}
+	}
+}
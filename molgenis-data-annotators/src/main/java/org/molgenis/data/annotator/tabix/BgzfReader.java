@@ -0,0 +1,114 @@
+package org.molgenis.data.annotator.tabix;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.util.Objects.requireNonNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * Reads lines from a {@link BgzfFile} at virtual file offsets. Blocks are read from the block cache of the file, so
+ * readers of the same file on different threads share decompressed blocks.
+ *
+ * Not thread-safe, use a reader per thread.
+ */
+class BgzfReader
+{
+	private final BgzfFile file;
+
+	private long blockAddress;
+	private BgzfFile.Block block;
+	private int offset;
+
+	BgzfReader(BgzfFile file)
+	{
+		this.file = requireNonNull(file);
+	}
+
+	/**
+	 * Moves the reader to a virtual file offset
+	 *
+	 * @param virtualOffset
+	 *            block address in the upper 48 bits and offset in the decompressed block in the lower 16 bits
+	 */
+	void seek(long virtualOffset) throws IOException
+	{
+		long seekBlockAddress = virtualOffset >>> 16;
+		int seekOffset = (int) (virtualOffset & 0xffff);
+		if (block == null || seekBlockAddress != blockAddress)
+		{
+			block = file.getBlock(seekBlockAddress);
+			blockAddress = seekBlockAddress;
+		}
+		if (block == null ? seekOffset != 0 : seekOffset > block.data.length)
+		{
+			throw new IOException("Invalid virtual file offset " + virtualOffset);
+		}
+		offset = seekOffset;
+	}
+
+	/**
+	 * Returns the virtual file offset of the reader, the end of a block is reported as the start of the next block
+	 */
+	long getFilePointer()
+	{
+		if (block != null && offset == block.data.length)
+		{
+			return (blockAddress + block.compressedSize) << 16;
+		}
+		return (blockAddress << 16) | offset;
+	}
+
+	/**
+	 * Reads the next line without the line terminator
+	 *
+	 * @return the line or null if the end of the file is reached, the last line of the file does not need a line
+	 *         terminator
+	 */
+	String readLine() throws IOException
+	{
+		ByteArrayOutputStream lineStart = null;
+		while (true)
+		{
+			if (block == null)
+			{
+				return lineStart != null && lineStart.size() > 0 ? new String(lineStart.toByteArray(), ISO_8859_1)
+						: null;
+			}
+
+			byte[] data = block.data;
+			int end = offset;
+			while (end < data.length && data[end] != '\n')
+			{
+				++end;
+			}
+
+			if (end < data.length)
+			{
+				String line;
+				if (lineStart == null)
+				{
+					line = new String(data, offset, end - offset, ISO_8859_1);
+				}
+				else
+				{
+					lineStart.write(data, offset, end - offset);
+					line = new String(lineStart.toByteArray(), ISO_8859_1);
+				}
+				offset = end + 1;
+				return line;
+			}
+
+			// line continues in the next block
+			if (lineStart == null)
+			{
+				lineStart = new ByteArrayOutputStream();
+			}
+			lineStart.write(data, offset, data.length - offset);
+			long nextBlockAddress = blockAddress + block.compressedSize;
+			block = file.getBlock(nextBlockAddress);
+			blockAddress = nextBlockAddress;
+			offset = 0;
+		}
+	}
+}
@@ -0,0 +1,161 @@
+package org.molgenis.data.annotator.tabix;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Looks up the lines at a position in a tabix file.
+ *
+ * Positions are looked up with a tabix query per position, until positions are requested in sorted order. Sorted
+ * lookups are merge-joined with a forward cursor over the file, so that consecutive positions in the same BGZF block
+ * are read without seeking. The cursor only seeks when the chromosome changes, when the cursor reaches the end of the
+ * queried region or when the tabix index shows that the records up to the requested position can be skipped.
+ *
+ * Not thread-safe.
+ */
+class TabixCursor
+{
+	/**
+	 * Number of consecutive position-sorted lookups after which the cursor switches from a query per position to
+	 * merge-joining
+	 */
+	static final int SORTED_LOOKUPS_BEFORE_MERGE_JOIN = 16;
+
+	/**
+	 * Size of the region that is queried when the cursor seeks
+	 */
+	private static final int SEEK_REGION_SIZE = 1 << 20;
+
+	private final TabixReader reader;
+
+	private String previousChromosome;
+	private long previousPosition;
+	private int nrSortedLookups;
+
+	// merge-join state
+	private int chromosomeId = -1;
+	private int regionEnd;
+	private TabixReader.Iterator iterator;
+	private String nextLine;
+	private int nextLinePosition;
+	private long linesPosition;
+	private List<String> lines;
+
+	TabixCursor(TabixReader reader)
+	{
+		this.reader = requireNonNull(reader);
+	}
+
+	/**
+	 * Returns the lines at a position. Lines that start before the position but overlap it may be returned as well.
+	 *
+	 * @param chromosome
+	 *            name of the chromosome
+	 * @param position
+	 *            position
+	 * @return lines at the position
+	 * @throws IOException
+	 *             if reading from the tabix file fails
+	 */
+	List<String> getLines(String chromosome, long position) throws IOException
+	{
+		boolean sorted = chromosome.equals(previousChromosome) ? position >= previousPosition
+				: previousChromosome != null;
+		nrSortedLookups = sorted ? nrSortedLookups + 1 : 0;
+		previousChromosome = chromosome;
+		previousPosition = position;
+
+		if (nrSortedLookups < SORTED_LOOKUPS_BEFORE_MERGE_JOIN)
+		{
+			reset();
+			return query(chromosome, position);
+		}
+		return mergeJoin(chromosome, position);
+	}
+
+	private List<String> query(String chromosome, long position) throws IOException
+	{
+		TabixReader.Iterator queryIterator = reader.query(String.format("%s:%s-%2$s", chromosome, position));
+		List<String> queryLines = new ArrayList<>();
+		if (queryIterator != null)
+		{
+			for (String line = queryIterator.next(); line != null; line = queryIterator.next())
+			{
+				queryLines.add(line);
+			}
+		}
+		return queryLines;
+	}
+
+	private List<String> mergeJoin(String chromosome, long position) throws IOException
+	{
+		int lookupChromosomeId = reader.getChromosomeId(chromosome);
+		if (lookupChromosomeId == -1)
+		{
+			reset();
+			return Collections.emptyList();
+		}
+		if (lookupChromosomeId == chromosomeId && lines != null && position == linesPosition)
+		{
+			// multiple input variants at the same position
+			return lines;
+		}
+
+		int beginPosition = (int) position - 1;
+		if (lookupChromosomeId != chromosomeId || beginPosition >= regionEnd
+				|| (nextLine == null || nextLinePosition < position) && iterator != null
+						&& reader.isSeekCheaper(iterator, lookupChromosomeId, beginPosition))
+		{
+			seek(lookupChromosomeId, beginPosition);
+		}
+
+		List<String> positionLines = new ArrayList<>();
+		while (true)
+		{
+			if (nextLine == null)
+			{
+				nextLine = iterator != null ? iterator.next() : null;
+				if (nextLine == null)
+				{
+					// no more lines in the queried region
+					break;
+				}
+				nextLinePosition = reader.getBeginPosition(nextLine);
+			}
+			if (nextLinePosition > position)
+			{
+				break;
+			}
+			if (nextLinePosition == position)
+			{
+				positionLines.add(nextLine);
+			}
+			nextLine = null;
+		}
+
+		linesPosition = position;
+		lines = Collections.unmodifiableList(positionLines);
+		return lines;
+	}
+
+	private void seek(int seekChromosomeId, int beginPosition)
+	{
+		chromosomeId = seekChromosomeId;
+		regionEnd = (int) Math.min((long) beginPosition + SEEK_REGION_SIZE, Integer.MAX_VALUE);
+		iterator = reader.query(seekChromosomeId, beginPosition, regionEnd);
+		nextLine = null;
+		lines = null;
+	}
+
+	private void reset()
+	{
+		chromosomeId = -1;
+		iterator = null;
+		nextLine = null;
+		lines = null;
+	}
+}
@@ -41,7 +41,7 @@ import net.sf.samtools.util.BlockCompressedInputStream;
 public class TabixReader
 {
 	public String filename;
-	public BlockCompressedInputStream blockCompressedInputStream;
+	private final BgzfFile bgzfFile;
 
 	private int mPreset;
 	private int mSc;
@@ -72,7 +72,7 @@ public class TabixReader
 	public TabixReader(String filename) throws IOException
 	{
 		this.filename = filename;
-		this.blockCompressedInputStream = new BlockCompressedInputStream(new File(filename));
+		this.bgzfFile = BgzfFile.get(new File(filename));
 		readIndex(filename);
 	}
 
@@ -229,11 +229,13 @@ public class TabixReader
 	}
 
 	/**
-	 * Read one line from the data file.
+	 * Creates a reader for the lines of the data file, positioned at the start of the file
 	 */
-	public String readLine() throws IOException
+	BgzfReader createLineReader() throws IOException
 	{
-		return readLine(blockCompressedInputStream);
+		BgzfReader bgzfReader = new BgzfReader(bgzfFile);
+		bgzfReader.seek(0);
+		return bgzfReader;
 	}
 
 	private int chr2tid(final String chr)
@@ -242,6 +244,46 @@ public class TabixReader
 		else return -1;
 	}
 
+	/**
+	 * Returns the internal id of a chromosome
+	 *
+	 * @param chromosome
+	 *            Name of the chromosome
+	 * @return internal chromosome id, -1 if the chromosome is not in the index
+	 */
+	int getChromosomeId(final String chromosome)
+	{
+		return chr2tid(chromosome);
+	}
+
+	/**
+	 * Returns the value of the begin position column of a line from the data file
+	 */
+	int getBeginPosition(final String line)
+	{
+		TIntv intv = getIntv(line);
+		return (mPreset & 0x10000) != 0 ? intv.beginPosition : intv.beginPosition + 1;
+	}
+
+	/**
+	 * Returns whether, according to the linear index, the records overlapping a position start in a later BGZF block
+	 * than the block the iterator is reading, so that seeking to the position is cheaper than reading on.
+	 *
+	 * @param iterator
+	 *            Iterator over the records of the chromosome
+	 * @param internalChromosomeID
+	 *            Internal id of the chromosome
+	 * @param beginPosition
+	 *            Zero-based position
+	 */
+	boolean isSeekCheaper(final Iterator iterator, final int internalChromosomeID, final int beginPosition)
+	{
+		long[] linearIndex = mIndex[internalChromosomeID].l;
+		if (iterator.curr_off == 0 || iterator.isEndOfFile || linearIndex.length == 0) return false;
+		long minOffset = linearIndex[Math.min(beginPosition >> TAD_LIDX_SHIFT, linearIndex.length - 1)];
+		return (iterator.curr_off >>> 16) < (minOffset >>> 16);
+	}
+
 	/**
 	 * Parse a region in the format of "chr1", "chr1:100" or "chr1:100-1000"
 	 *
@@ -338,11 +380,16 @@ public class TabixReader
 		return intv;
 	}
 
+	/**
+	 * Iterates over the lines of a query. Each iterator reads with its own {@link BgzfReader}, so iterators of the same
+	 * reader can be used concurrently on different threads.
+	 */
 	public class Iterator
 	{
 		private int i;
 		private final int internalChromosomeID, beginPosition, endPosition;
 		private final TPair64[] off;
+		private final BgzfReader bgzfReader;
 		private long curr_off;
 		private boolean isEndOfFile;
 
@@ -355,6 +402,7 @@ public class TabixReader
 			internalChromosomeID = _tid;
 			beginPosition = _beg;
 			endPosition = _end;
+			bgzfReader = new BgzfReader(bgzfFile);
 		}
 
 		public String next() throws IOException
@@ -362,40 +410,32 @@ public class TabixReader
 			if (isEndOfFile) return null;
 			for (;;)
 			{
-				synchronized (blockCompressedInputStream)
-				{
-					if (curr_off == 0 || !less64(curr_off, off[i].v))
-					{ // then jump to the next chunk
-						if (i == off.length - 1) break; // no more chunks
-						if (i >= 0) assert (curr_off == off[i].v); // otherwise bug
-						if (i < 0 || off[i].v != off[i + 1].u)
-						{ // not adjacent chunks; then seek
-							blockCompressedInputStream.seek(off[i + 1].u);
-							curr_off = blockCompressedInputStream.getFilePointer();
-						}
-						++i;
-					}
-					else
-					{
-						blockCompressedInputStream.seek(curr_off);
+				if (curr_off == 0 || !less64(curr_off, off[i].v))
+				{ // then jump to the next chunk
+					if (i == off.length - 1) break; // no more chunks
+					if (i >= 0) assert (curr_off == off[i].v); // otherwise bug
+					if (i < 0 || off[i].v != off[i + 1].u)
+					{ // not adjacent chunks; then seek
+						bgzfReader.seek(off[i + 1].u);
+						curr_off = bgzfReader.getFilePointer();
 					}
-					String s;
-					if ((s = readLine(blockCompressedInputStream)) != null)
-					{
-						TIntv intv;
-						char[] str = s.toCharArray();
-						curr_off = blockCompressedInputStream.getFilePointer();
-						if (str.length == 0 || str[0] == mMeta) continue;
-						intv = getIntv(s);
-						if (intv.internalChromosomeID != internalChromosomeID || intv.beginPosition >= endPosition) break; // no
-						// need
-						// to
-						// proceed
-						else if (intv.end > beginPosition && intv.beginPosition < endPosition) return s; // overlap;
-						// return
-					}
-					else break; // end of file
+					++i;
+				}
+				String s;
+				if ((s = bgzfReader.readLine()) != null)
+				{
+					TIntv intv;
+					curr_off = bgzfReader.getFilePointer();
+					if (s.isEmpty() || s.charAt(0) == mMeta) continue;
+					intv = getIntv(s);
+					if (intv.internalChromosomeID != internalChromosomeID || intv.beginPosition >= endPosition) break; // no
+					// need
+					// to
+					// proceed
+					else if (intv.end > beginPosition && intv.beginPosition < endPosition) return s; // overlap;
+					// return
 				}
+				else break; // end of file
 			}
 			isEndOfFile = true;
 			return null;
@@ -25,6 +25,9 @@ import org.molgenis.data.support.MapEntity;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableList.Builder;
 
@@ -35,6 +38,8 @@ public class TabixRepository extends AbstractRepository
 	private static final Logger LOG = LoggerFactory.getLogger(TabixRepository.class);
 
 	private TabixReader reader;
+	/** Cursors of the querying threads, discarded when this repository is closed */
+	private final LoadingCache<Thread, TabixCursor> tabixCursors;
 	private EntityMetaData entityMetaData;
 	private final String chromosomeAttributeName;
 	private final String positionAttributeName;
@@ -59,6 +64,7 @@ public class TabixRepository extends AbstractRepository
 	{
 		this.entityMetaData = entityMetaData;
 		this.reader = new TabixReader(file.getAbsolutePath());
+		this.tabixCursors = createTabixCursors(reader);
 		this.chromosomeAttributeName = requireNonNull(chromosomeAttributeName);
 		this.positionAttributeName = requireNonNull(positionAttributeName);
 	}
@@ -67,11 +73,18 @@ public class TabixRepository extends AbstractRepository
 			String positionAttributeName)
 	{
 		this.reader = requireNonNull(reader);
+		this.tabixCursors = createTabixCursors(reader);
 		this.entityMetaData = requireNonNull(entityMetaData);
 		this.chromosomeAttributeName = requireNonNull(chromosomeAttributeName);
 		this.positionAttributeName = requireNonNull(positionAttributeName);
 	}
 
+	private static LoadingCache<Thread, TabixCursor> createTabixCursors(TabixReader tabixReader)
+	{
+		return CacheBuilder.newBuilder().weakKeys()
+				.build(CacheLoader.from((Thread thread) -> new TabixCursor(tabixReader)));
+	}
+
 	public static CSVParser getCsvParser()
 	{
 		return new CSVParser('\t');
@@ -107,7 +120,8 @@ public class TabixRepository extends AbstractRepository
 	}
 
 	/**
-	 * Queries the tabix reader.
+	 * Queries the tabix reader. Position-sorted queries are merge-joined with the tabix file, see {@link TabixCursor}.
+	 * Each thread queries with its own cursor, so that annotators can query concurrently.
 	 * 
 	 * @param chrom
 	 *            name of the chromosome
@@ -115,34 +129,24 @@ public class TabixRepository extends AbstractRepository
 	 *            position
 	 * @return {@link ImmutableList} of entities found
 	 */
-	private synchronized ImmutableList<Entity> query(String chrom, long pos)
+	private ImmutableList<Entity> query(String chrom, long pos)
 	{
 		String queryString = String.format("%s:%s-%2$s", chrom, pos);
 		LOG.debug("query({})", queryString);
 		Builder<Entity> builder = ImmutableList.<Entity> builder();
 		try
 		{
-			org.molgenis.data.annotator.tabix.TabixReader.Iterator iterator = reader.query(queryString);
-			if (iterator != null)
+			for (String line : tabixCursors.getUnchecked(Thread.currentThread()).getLines(chrom, pos))
 			{
-				String line = iterator.next();
-				while (line != null)
+				Entity entity = toEntity(line);
+				if (entity.getLong(positionAttributeName) == pos)
 				{
-					Entity entity = toEntity(line);
-					if (entity.getLong(positionAttributeName) == pos)
-					{
-						builder.add(entity);
-					}
-					else
-					{
-						LOG.warn("TabixReader returns entity that does not match the query!");
-					}
-					line = iterator.next();
+					builder.add(entity);
+				}
+				else
+				{
+					LOG.warn("TabixReader returns entity that does not match the query!");
 				}
-			}
-			else
-			{
-				return ImmutableList.of(); // empty list
 			}
 		}
 		catch (IOException e)
@@ -187,6 +191,7 @@ public class TabixRepository extends AbstractRepository
 
 	private class TabixRepositoryIterator implements Iterator<Entity>
 	{
+		private BgzfReader lineReader;
 		private String nextLine = null;
 
 		@Override
@@ -198,7 +203,11 @@ public class TabixRepository extends AbstractRepository
 			}
 			try
 			{
-				nextLine = reader.readLine();
+				if (lineReader == null)
+				{
+					lineReader = reader.createLineReader();
+				}
+				nextLine = lineReader.readLine();
 				return nextLine != null;
 			}
 			catch (IOException e)
@@ -234,4 +243,11 @@ public class TabixRepository extends AbstractRepository
 	{
 		return new TabixRepositoryIterator();
 	}
+
+	@Override
+	public void close() throws IOException
+	{
+		tabixCursors.invalidateAll();
+		super.close();
+	}
 }
\ No newline at end of file
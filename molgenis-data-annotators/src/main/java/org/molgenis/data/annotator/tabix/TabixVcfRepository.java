@@ -22,27 +22,45 @@ import org.molgenis.data.vcf.VcfRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableList.Builder;
 
 /**
- * An indexed VCF Repository
+ * An indexed VCF Repository. Annotation resources are only queried for their INFO fields, so the sample columns are
+ * never parsed.
  */
 public class TabixVcfRepository extends VcfRepository
 {
 	private static final Logger LOG = LoggerFactory.getLogger(TabixVcfRepository.class);
 	private final TabixReader tabixReader;
 
+	/**
+	 * Cursor of each querying thread. Unlike thread-local cursors, the cursors are owned by the repository: they are
+	 * discarded when the repository is closed and don't outlive it in pooled threads.
+	 */
+	private final LoadingCache<Thread, TabixCursor> tabixCursors;
+
 	public TabixVcfRepository(File file, String entityName) throws IOException
 	{
-		super(file, entityName);
+		super(file, entityName, false);
 		tabixReader = new TabixReader(file.getCanonicalPath());
+		tabixCursors = createTabixCursors(tabixReader);
 	}
 
 	TabixVcfRepository(VcfReaderFactory readerFactory, TabixReader tabixReader, String entityName)
 	{
-		super(readerFactory, entityName);
+		super(readerFactory, entityName, false);
 		this.tabixReader = tabixReader;
+		this.tabixCursors = createTabixCursors(tabixReader);
+	}
+
+	private static LoadingCache<Thread, TabixCursor> createTabixCursors(TabixReader tabixReader)
+	{
+		return CacheBuilder.newBuilder().weakKeys()
+				.build(CacheLoader.from((Thread thread) -> new TabixCursor(tabixReader)));
 	}
 
 	@Override
@@ -86,7 +104,8 @@ public class TabixVcfRepository extends VcfRepository
 	}
 
 	/**
-	 * Queries the tabix reader.
+	 * Queries the tabix reader. Position-sorted queries for a single position are merge-joined with the tabix file, see
+	 * {@link TabixCursor}. Each thread queries with its own cursor, so that annotators can query concurrently.
 	 * 
 	 * @param chrom
 	 *            Name of chromosome
@@ -96,15 +115,21 @@ public class TabixVcfRepository extends VcfRepository
 	 *            position upper bound (inclusive)
 	 * @return {@link ImmutableList} of entities found
 	 */
-	public synchronized List<Entity> query(String chrom, long posFrom, long posTo)
+	public List<Entity> query(String chrom, long posFrom, long posTo)
 	{
 		String queryString = String.format("%s:%s-%s", checkNotNull(chrom), checkNotNull(posFrom), checkNotNull(posTo));
 		try
 		{
-			Collection<String> lines = getLines(tabixReader.query(queryString));
-			return lines.stream().map(line -> line.split("\t")).map(vcfToEntitySupplier.get()::toEntity)
+			Collection<String> lines = posFrom == posTo
+					? tabixCursors.getUnchecked(Thread.currentThread()).getLines(chrom, posFrom)
+					: getLines(tabixReader.query(queryString));
+			return lines.stream().map(vcfToEntitySupplier.get()::toEntity)
 					.filter(entity -> positionMatches(entity, posFrom, posTo)).collect(Collectors.toList());
 		}
+		catch (IOException e)
+		{
+			LOG.error("Error reading from tabix reader.", e);
+		}
 		catch (NullPointerException e)
 		{
 			LOG.warn("Unable to read from tabix resource for query: " + queryString
@@ -121,6 +146,13 @@ public class TabixVcfRepository extends VcfRepository
 		return Collections.emptyList();
 	}
 
+	@Override
+	public void close() throws IOException
+	{
+		tabixCursors.invalidateAll();
+		super.close();
+	}
+
 	/**
 	 * Tabix is not always so precise. For example, the cmdline query
 	 * 
@@ -0,0 +1,170 @@
+package org.molgenis.data.annotation;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.molgenis.data.EntityMetaData.AttributeRole.ROLE_ID;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import org.mockito.invocation.InvocationOnMock;
+import org.molgenis.MolgenisFieldTypes.FieldTypeEnum;
+import org.molgenis.data.AttributeMetaData;
+import org.molgenis.data.DataService;
+import org.molgenis.data.Entity;
+import org.molgenis.data.meta.MetaDataService;
+import org.molgenis.data.mem.InMemoryRepository;
+import org.molgenis.data.support.DefaultAttributeMetaData;
+import org.molgenis.data.support.DefaultEntityMetaData;
+import org.molgenis.data.support.MapEntity;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class CrudRepositoryAnnotatorTest
+{
+	private CrudRepositoryAnnotator crudRepositoryAnnotator;
+	private InMemoryRepository repository;
+	private RepositoryAnnotator annotatorA;
+	private RepositoryAnnotator annotatorB;
+	private Set<Thread> annotatingThreads;
+
+	@BeforeMethod
+	public void beforeMethod()
+	{
+		DefaultAttributeMetaData chromAttr = new DefaultAttributeMetaData("chrom", FieldTypeEnum.STRING);
+		DefaultAttributeMetaData aAttr = new DefaultAttributeMetaData("a", FieldTypeEnum.STRING);
+		DefaultAttributeMetaData bAttr = new DefaultAttributeMetaData("b", FieldTypeEnum.STRING);
+
+		DefaultEntityMetaData emd = new DefaultEntityMetaData("repo");
+		emd.addAttribute("id", ROLE_ID);
+		emd.addAttributeMetaData(chromAttr);
+		DefaultAttributeMetaData compoundAttrA = new DefaultAttributeMetaData("molgenis_annotated_A",
+				FieldTypeEnum.COMPOUND);
+		compoundAttrA.addAttributePart(aAttr);
+		emd.addAttributeMetaData(compoundAttrA);
+		DefaultAttributeMetaData compoundAttrB = new DefaultAttributeMetaData("molgenis_annotated_B",
+				FieldTypeEnum.COMPOUND);
+		compoundAttrB.addAttributePart(bAttr);
+		emd.addAttributeMetaData(compoundAttrB);
+
+		annotatingThreads = ConcurrentHashMap.newKeySet();
+		// annotator B requires the output of annotator A
+		annotatorA = createAnnotator("A", chromAttr, aAttr);
+		annotatorB = createAnnotator("B", aAttr, bAttr);
+
+		repository = spy(new InMemoryRepository(emd));
+		for (int i = 1; i <= 5; ++i)
+		{
+			MapEntity entity = new MapEntity(emd);
+			entity.set("id", String.valueOf(i));
+			entity.set("chrom", String.valueOf(i));
+			repository.add(entity);
+		}
+
+		DataService dataService = mock(DataService.class);
+		MetaDataService metaDataService = mock(MetaDataService.class);
+		when(dataService.getMeta()).thenReturn(metaDataService);
+		when(metaDataService.getEntityMetaData("repo")).thenReturn(emd);
+
+		crudRepositoryAnnotator = new CrudRepositoryAnnotator(dataService);
+		crudRepositoryAnnotator.setChunkSize(2);
+		crudRepositoryAnnotator.setNumberOfThreads(2);
+	}
+
+	@AfterMethod
+	public void afterMethod()
+	{
+		crudRepositoryAnnotator.shutdown();
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testAnnotateMultipleAnnotators() throws IOException
+	{
+		crudRepositoryAnnotator.annotate(Arrays.asList(annotatorA, annotatorB), repository);
+
+		List<String> bValues = new ArrayList<>();
+		repository.forEach(entity -> bValues.add(entity.getString("b")));
+		assertEquals(bValues, Arrays.asList("1AB", "2AB", "3AB", "4AB", "5AB"));
+
+		// every entity is written once
+		verify(repository, times(3)).update(any(Stream.class));
+		verify(annotatorA, times(3)).annotate(any(Iterable.class));
+		verify(annotatorB, times(3)).annotate(any(Iterable.class));
+	}
+
+	@Test
+	public void testAnnotateNotThreadSafe() throws IOException
+	{
+		when(annotatorA.isThreadSafe()).thenReturn(true);
+		crudRepositoryAnnotator.annotate(Arrays.asList(annotatorA, annotatorB), repository);
+
+		// annotator B is not thread-safe, so all annotators annotate in the transaction of the calling thread
+		assertEquals(annotatingThreads, Collections.singleton(Thread.currentThread()));
+	}
+
+	@Test
+	public void testAnnotateThreadSafe() throws IOException
+	{
+		when(annotatorA.isThreadSafe()).thenReturn(true);
+		when(annotatorB.isThreadSafe()).thenReturn(true);
+		crudRepositoryAnnotator.annotate(Arrays.asList(annotatorA, annotatorB), repository);
+
+		List<String> bValues = new ArrayList<>();
+		repository.forEach(entity -> bValues.add(entity.getString("b")));
+		assertEquals(bValues, Arrays.asList("1AB", "2AB", "3AB", "4AB", "5AB"));
+		assertFalse(annotatingThreads.contains(Thread.currentThread()));
+	}
+
+	@Test
+	public void testAnnotateSingleAnnotator() throws IOException
+	{
+		crudRepositoryAnnotator.annotate(annotatorA, repository);
+
+		List<String> aValues = new ArrayList<>();
+		repository.forEach(entity -> aValues.add(entity.getString("a")));
+		assertEquals(aValues, Arrays.asList("1A", "2A", "3A", "4A", "5A"));
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void testSetChunkSizeInvalid()
+	{
+		crudRepositoryAnnotator.setChunkSize(0);
+	}
+
+	@SuppressWarnings("unchecked")
+	private RepositoryAnnotator createAnnotator(String name, AttributeMetaData requiredAttr,
+			AttributeMetaData outputAttr)
+	{
+		RepositoryAnnotator annotator = mock(RepositoryAnnotator.class);
+		when(annotator.getSimpleName()).thenReturn(name);
+		when(annotator.getFullName()).thenReturn(RepositoryAnnotator.ANNOTATOR_PREFIX + name);
+		when(annotator.getRequiredAttributes()).thenReturn(Collections.singletonList(requiredAttr));
+		when(annotator.getOutputMetaData()).thenReturn(Collections.singletonList(outputAttr));
+		when(annotator.annotate(any(Iterable.class))).thenAnswer((InvocationOnMock invocation) -> {
+			annotatingThreads.add(Thread.currentThread());
+			List<Entity> results = new ArrayList<>();
+			for (Entity entity : (Iterable<Entity>) invocation.getArguments()[0])
+			{
+				MapEntity result = new MapEntity(entity, entity.getEntityMetaData());
+				result.set(outputAttr.getName(), entity.getString(requiredAttr.getName()) + name);
+				results.add(result);
+			}
+			return results.iterator();
+		});
+		return annotator;
+	}
+}
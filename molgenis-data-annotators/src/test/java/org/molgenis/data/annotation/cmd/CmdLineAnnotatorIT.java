@@ -1,6 +1,8 @@
 package org.molgenis.data.annotation.cmd;
 
+import static java.util.stream.Collectors.toList;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
 
 import java.io.File;
 import java.io.IOException;
@@ -10,8 +12,11 @@ import java.util.Collections;
 import java.util.List;
 
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.testng.annotations.Test;
 
+import net.sf.samtools.util.BlockCompressedInputStream;
+
 /**
  * Annotator integration tests
  * 
@@ -44,6 +49,52 @@ public class CmdLineAnnotatorIT
 		testAnnotator("fitcon", "src/test/resources/fitcon/fitcon_test_set.tsv.gz", "test.vcf", "test-out-expected.vcf");
 	}
 
+	@Test
+	public void gonlAndFitconBlockGzippedMultiThreaded() throws Exception
+	{
+		// more records than fit in one chunk, alternating between records annotated by gonl and by fitcon
+		String[][] records =
+		{
+				{ "1", "249239510", "C", "G", "GoNL_AF=0.010040160642570281" },
+				{ "1", "10054", "C", "G", "FITCON_SCORE=0.069834" },
+				{ "17", "10025653", "T", "A", "FITCON_SCORE=0.119763" } };
+		int nrRecords = 2500;
+
+		List<String> inputLines = new ArrayList<>(Arrays.asList("##fileformat=VCFv4.1",
+				"#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO"));
+		for (int i = 0; i < nrRecords; ++i)
+		{
+			String[] record = records[i % records.length];
+			inputLines.add(String.join("\t", record[0], record[1], "record" + i, record[2], record[3], ".", ".", "."));
+		}
+		File inputFile = new File("target/in-gonl-fitcon-test.vcf");
+		FileUtils.writeLines(inputFile, inputLines);
+
+		String outputFile = "target/out-gonl-fitcon-test.vcf.gz";
+		CmdLineAnnotator.main(new String[]
+		{ "-a", "gonl,fitcon", "-s", "src/test/resources/gonl,src/test/resources/fitcon/fitcon_test_set.tsv.gz", "-i",
+				inputFile.getPath(), "-o", outputFile, "-n", "4" });
+
+		try (BlockCompressedInputStream inputStream = new BlockCompressedInputStream(new File(outputFile)))
+		{
+			List<String> outputLines = IOUtils.readLines(inputStream, "UTF-8").stream()
+					.filter(line -> !line.startsWith("#")).collect(toList());
+			assertEquals(outputLines.size(), nrRecords);
+			for (int i = 0; i < nrRecords; ++i)
+			{
+				String[] columns = outputLines.get(i).split("\t");
+				assertEquals(columns[2], "record" + i);
+				assertTrue(columns[7].contains(records[i % records.length][4]), columns[7]);
+			}
+		}
+		finally
+		{
+			inputFile.delete();
+			File output = new File(outputFile);
+			if (output.exists()) output.delete();
+		}
+	}
+
 	private void testAnnotator(String name, String resourceLocation, String inputFileName, String expectedOutputFileName)
 			throws Exception
 	{
@@ -0,0 +1,66 @@
+package org.molgenis.data.annotation.entity;
+
+import static org.molgenis.data.EntityMetaData.AttributeRole.ROLE_ID;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.molgenis.data.Entity;
+import org.molgenis.data.EntityMetaData;
+import org.molgenis.data.support.DefaultAttributeMetaData;
+import org.molgenis.data.support.DefaultEntityMetaData;
+import org.molgenis.data.support.MapEntity;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Lists;
+
+public class AnnotatedEntityFactoryTest
+{
+	private AnnotatedEntityFactory annotatedEntityFactory;
+	private DefaultEntityMetaData entityMetaData;
+
+	@BeforeMethod
+	public void beforeMethod()
+	{
+		annotatedEntityFactory = new AnnotatedEntityFactory(
+				Collections.singletonList(new DefaultAttributeMetaData("score")));
+
+		entityMetaData = new DefaultEntityMetaData("test");
+		entityMetaData.addAttribute("id", ROLE_ID);
+		entityMetaData.addAttribute("gene");
+	}
+
+	@Test
+	public void getEntityMetaData()
+	{
+		EntityMetaData annotatedEntityMetaData = annotatedEntityFactory.getEntityMetaData(entityMetaData);
+		assertEquals(Lists.newArrayList(annotatedEntityMetaData.getAtomicAttributes()).size(), 3);
+		assertEquals(annotatedEntityMetaData.getAttribute("score").getName(), "score");
+		assertNull(entityMetaData.getAttribute("score"));
+		assertSame(annotatedEntityFactory.getEntityMetaData(entityMetaData), annotatedEntityMetaData);
+	}
+
+	@Test
+	public void create()
+	{
+		MapEntity entity = new MapEntity(entityMetaData);
+		entity.set("id", "1");
+		entity.set("gene", "BRCA1");
+
+		Entity annotatedEntity = annotatedEntityFactory.create(entity);
+		annotatedEntity.set("score", 5);
+		annotatedEntity.set("gene", "BRCA2");
+
+		assertSame(annotatedEntity.getEntityMetaData(), annotatedEntityFactory.create(entity).getEntityMetaData());
+		assertEquals(annotatedEntity.getIdValue(), "1");
+		assertEquals(annotatedEntity.getInt("score"), Integer.valueOf(5));
+		assertEquals(annotatedEntity.getString("gene"), "BRCA2");
+		assertEquals(Lists.newArrayList(annotatedEntity.getAttributeNames()), Arrays.asList("id", "gene", "score"));
+		assertEquals(entity.getString("gene"), "BRCA1");
+		assertNull(entity.get("score"));
+	}
+}
@@ -0,0 +1,136 @@
+package org.molgenis.data.annotation.entity.impl;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.molgenis.data.EntityMetaData.AttributeRole.ROLE_ID;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.molgenis.data.DataService;
+import org.molgenis.data.Entity;
+import org.molgenis.data.Query;
+import org.molgenis.data.annotation.entity.AnnotatorInfo;
+import org.molgenis.data.annotation.entity.AnnotatorInfo.Status;
+import org.molgenis.data.annotation.entity.AnnotatorInfo.Type;
+import org.molgenis.data.annotation.entity.ResultFilter;
+import org.molgenis.data.annotation.query.AttributeEqualsQueryCreator;
+import org.molgenis.data.annotation.resources.Resources;
+import org.molgenis.data.support.DefaultAttributeMetaData;
+import org.molgenis.data.support.DefaultEntityMetaData;
+import org.molgenis.data.support.MapEntity;
+import org.molgenis.data.support.QueryImpl;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.Iterables;
+
+public class AnnotatorImplTest
+{
+	private DataService dataService;
+	private Resources resources;
+	private AnnotatorImpl annotator;
+	private DefaultEntityMetaData emd;
+	private int nrEntities;
+
+	@SuppressWarnings("unchecked")
+	@BeforeMethod
+	public void beforeMethod()
+	{
+		dataService = mock(DataService.class);
+		resources = mock(Resources.class);
+
+		DefaultAttributeMetaData geneAttr = new DefaultAttributeMetaData("gene");
+		DefaultAttributeMetaData scoreAttr = new DefaultAttributeMetaData("score");
+		AnnotatorInfo info = AnnotatorInfo.create(Status.READY, Type.UNUSED, "gene", "description",
+				Collections.singletonList(scoreAttr));
+
+		// use the first source row with the same gene
+		ResultFilter resultFilter = mock(ResultFilter.class);
+		when(resultFilter.filterResults(any(Iterable.class), any(Entity.class))).thenAnswer(invocation -> {
+			Iterable<Entity> sourceEntities = (Iterable<Entity>) invocation.getArguments()[0];
+			return Optional.fromNullable(Iterables.getFirst(sourceEntities, null));
+		});
+		annotator = new AnnotatorImpl("genes", info, new AttributeEqualsQueryCreator(geneAttr), resultFilter,
+				dataService, resources, null);
+
+		emd = new DefaultEntityMetaData("test");
+		emd.addAttribute("id", ROLE_ID);
+		emd.addAttributeMetaData(geneAttr);
+	}
+
+	@Test
+	public void testAnnotateEntitiesBatch()
+	{
+		when(dataService.hasRepository("genes")).thenReturn(true);
+		when(dataService.findAll("genes", QueryImpl.IN("gene", Arrays.asList("A", "B", "C")))).thenReturn(
+				Stream.of(createSourceEntity("B", "2"), createSourceEntity("A", "1")));
+
+		List<Iterable<Entity>> results = annotator.annotateEntities(Arrays.asList(createEntity("A"),
+				createEntity("B"), createEntity("A"), createEntity("C")));
+
+		assertEquals(results.size(), 4);
+		assertEquals(Iterables.getOnlyElement(results.get(0)).getString("score"), "1");
+		assertEquals(Iterables.getOnlyElement(results.get(1)).getString("score"), "2");
+		assertEquals(Iterables.getOnlyElement(results.get(2)).getString("score"), "1");
+		assertEquals(Iterables.getOnlyElement(results.get(3)).getString("score"), null);
+		verify(dataService, times(1)).findAll(any(String.class), any(Query.class));
+	}
+
+	@Test
+	public void testAnnotateEntitiesResource()
+	{
+		when(resources.hasRepository("genes")).thenReturn(true);
+		when(resources.getResourcesNames()).thenReturn(Collections.singleton("genes"));
+		when(resources.findAll("genes", QueryImpl.EQ("gene", "A"))).thenReturn(
+				Collections.singletonList(createSourceEntity("A", "1")));
+		when(resources.findAll("genes", QueryImpl.EQ("gene", "B"))).thenReturn(Collections.emptyList());
+
+		List<Iterable<Entity>> results = annotator.annotateEntities(Arrays.asList(createEntity("A"),
+				createEntity("B")));
+
+		assertEquals(Iterables.getOnlyElement(results.get(0)).getString("score"), "1");
+		assertEquals(Iterables.getOnlyElement(results.get(1)).getString("score"), null);
+		verify(resources, times(2)).findAll(any(String.class), any(Query.class));
+	}
+
+	@Test
+	public void testIsThreadSafeResource()
+	{
+		when(resources.getResourcesNames()).thenReturn(Collections.singleton("genes"));
+		assertTrue(annotator.isThreadSafe());
+	}
+
+	@Test
+	public void testIsThreadSafeDataService()
+	{
+		when(resources.getResourcesNames()).thenReturn(Collections.emptySet());
+		when(dataService.hasRepository("genes")).thenReturn(true);
+		assertFalse(annotator.isThreadSafe());
+	}
+
+	private Entity createEntity(String gene)
+	{
+		MapEntity entity = new MapEntity(emd);
+		entity.set("id", gene + ++nrEntities);
+		entity.set("gene", gene);
+		return entity;
+	}
+
+	private static Entity createSourceEntity(String gene, String score)
+	{
+		MapEntity entity = new MapEntity();
+		entity.set("gene", gene);
+		entity.set("score", score);
+		return entity;
+	}
+}
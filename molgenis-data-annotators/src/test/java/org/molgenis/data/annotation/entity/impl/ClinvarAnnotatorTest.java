@@ -222,16 +222,16 @@ public class ClinvarAnnotatorTest extends AbstractTestNGSpringContextTests
 		Iterator<Entity> target7 = clinvarAnnotator.annotate(Collections.singletonList(source7));
 		Iterator<Entity> target8 = clinvarAnnotator.annotate(Collections.singletonList(source8));
 		Iterator<Entity> target9 = clinvarAnnotator.annotate(Collections.singletonList(source9));
-		assertEquals(target0.next(), expectedTarget0);
-		assertEquals(target1.next(), expectedTarget1);
-		assertEquals(target2.next(), expectedTarget2);
-		assertEquals(target3.next(), expectedTarget3);
-		assertEquals(target4.next(), expectedTarget4);
-		assertEquals(target5.next(), expectedTarget5);
-		assertEquals(target6.next(), expectedTarget6);
-		assertEquals(target7.next(), expectedTarget7);
-		assertEquals(target8.next(), expectedTarget8);
-		assertEquals(target9.next(), expectedTarget9);
+		assertEquals(new MapEntity(target0.next(), annotatedSourceMeta), expectedTarget0);
+		assertEquals(new MapEntity(target1.next(), annotatedSourceMeta), expectedTarget1);
+		assertEquals(new MapEntity(target2.next(), annotatedSourceMeta), expectedTarget2);
+		assertEquals(new MapEntity(target3.next(), annotatedSourceMeta), expectedTarget3);
+		assertEquals(new MapEntity(target4.next(), annotatedSourceMeta), expectedTarget4);
+		assertEquals(new MapEntity(target5.next(), annotatedSourceMeta), expectedTarget5);
+		assertEquals(new MapEntity(target6.next(), annotatedSourceMeta), expectedTarget6);
+		assertEquals(new MapEntity(target7.next(), annotatedSourceMeta), expectedTarget7);
+		assertEquals(new MapEntity(target8.next(), annotatedSourceMeta), expectedTarget8);
+		assertEquals(new MapEntity(target9.next(), annotatedSourceMeta), expectedTarget9);
 
 	}
 
@@ -1,13 +1,22 @@
 package org.molgenis.data.annotation.entity.impl;
 
+import static org.molgenis.data.annotation.entity.impl.HPORepository.HPO_GENE_SYMBOL_COL_NAME;
+import static org.molgenis.data.annotation.entity.impl.HPORepository.HPO_ID_COL_NAME;
+
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
+import org.molgenis.data.MolgenisDataException;
+import org.molgenis.data.support.QueryImpl;
 import org.testng.Assert;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
+import com.google.common.io.Files;
+
 public class HPORepositoryTest
 {
 	private HPORepository repo;
@@ -29,4 +38,54 @@ public class HPORepositoryTest
 	{
 		Assert.assertEquals(repo.count(), 24);
 	}
+
+	@Test
+	public void findAllGeneName()
+	{
+		Assert.assertEquals(repo.findAll(QueryImpl.EQ(SnpEffAnnotator.GENE_NAME, "MATR3")).count(), 21);
+		Assert.assertEquals(repo.findAll(QueryImpl.EQ(SnpEffAnnotator.GENE_NAME, "UNKNOWN")).count(), 0);
+	}
+
+	@Test
+	public void findAllHpoId()
+	{
+		Assert.assertEquals(repo.findAll(QueryImpl.EQ(HPO_ID_COL_NAME, "HP:0000037")).findFirst().get()
+				.getString(HPO_GENE_SYMBOL_COL_NAME), "HSD3B2");
+	}
+
+	@Test
+	public void findAllIn()
+	{
+		Assert.assertEquals(
+				repo.findAll(QueryImpl.IN(HPO_GENE_SYMBOL_COL_NAME, Arrays.asList("HSD3B2", "MATR3", "HSD3B2")))
+						.count(), 24);
+	}
+
+	@Test(expectedExceptions = MolgenisDataException.class)
+	public void findAllUnsupportedQuery()
+	{
+		repo.findAll(QueryImpl.EQ("HPO-term-name", "Hypospadias"));
+	}
+
+	@Test
+	public void reloadModifiedFile() throws IOException
+	{
+		File file = File.createTempFile("hpo", ".txt");
+		try
+		{
+			Files.copy(new File("src/test/resources/hpo/hpo.txt"), file);
+			file.setLastModified(1000000L);
+			HPORepository hpoRepository = new HPORepository(file);
+			Assert.assertEquals(hpoRepository.count(), 24);
+
+			Files.append("\nOMIM:000000\tNEWGENE\t1\tHP:0000001\tAll", file, StandardCharsets.UTF_8);
+			file.setLastModified(2000000L);
+			Assert.assertEquals(hpoRepository.count(), 25);
+			Assert.assertEquals(hpoRepository.findAll(QueryImpl.EQ(SnpEffAnnotator.GENE_NAME, "NEWGENE")).count(), 1);
+		}
+		finally
+		{
+			file.delete();
+		}
+	}
 }
@@ -1,26 +1,37 @@
 package org.molgenis.data.annotation.entity.impl;
 
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.molgenis.data.EntityMetaData.AttributeRole.ROLE_ID;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.fail;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.SequenceInputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import org.molgenis.MolgenisFieldTypes;
 import org.molgenis.data.AttributeMetaData;
 import org.molgenis.data.DataService;
 import org.molgenis.data.Entity;
+import org.molgenis.data.MolgenisDataException;
 import org.molgenis.data.annotation.utils.JarRunner;
+import org.molgenis.data.annotator.websettings.SnpEffAnnotatorSettings;
 import org.molgenis.data.support.DefaultAttributeMetaData;
 import org.molgenis.data.support.DefaultEntityMetaData;
 import org.molgenis.data.support.MapEntity;
@@ -32,6 +43,8 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
+import com.google.common.io.Files;
 
 @ContextConfiguration(classes =
 { SnpEffAnnotatorTest.Config.class, SnpEffAnnotator.class })
@@ -275,6 +288,89 @@ public class SnpEffAnnotatorTest extends AbstractTestNGSpringContextTests
 
 	}
 
+	@Test
+	public void annotateStreamingTest() throws IOException
+	{
+		Process process = mock(Process.class);
+		ByteArrayOutputStream processInput = new ByteArrayOutputStream();
+		when(process.getOutputStream()).thenReturn(processInput);
+		// SnpEff prints the header once and writes the annotated variants of both runs to the same stdout
+		when(process.getInputStream()).thenReturn(new SequenceInputStream(
+				new FileInputStream("src/test/resources/snpEffOutputCount.vcf"),
+				new ByteArrayInputStream(Files.toByteArray(new File("src/test/resources/snpEffOutput.vcf")))));
+		when(process.isAlive()).thenReturn(true);
+		String snpEffPath = "src/test/resources/test-snpeff.vcf";
+		List<String> params = Arrays.asList("-Xmx2g", snpEffPath, "hg19", "-noStats", "-noLog", "-lof", "-canon",
+				"-ud", "0", "-spliceSiteSize", "5");
+		when(jarRunner.startJar(params)).thenReturn(process);
+
+		MapEntity pluginSettings = new MapEntity();
+		pluginSettings.set(SnpEffAnnotatorSettings.Meta.SNPEFF_JAR_LOCATION, snpEffPath);
+		SnpEffAnnotator.SnpEffRepositoryAnnotator annotator = new SnpEffAnnotator.SnpEffRepositoryAnnotator(
+				pluginSettings, jarRunner);
+		try
+		{
+			List<Entity> results = Lists.newArrayList(annotator.annotate(entities));
+			assertEquals(results.size(), 14);
+			assertEquals(results.get(0).getString(SnpEffAnnotator.GENE_NAME), "DDX11L1");
+			assertEquals(results.get(0).getString(VcfRepository.POS), "13380");
+			assertEquals(processInput.toString("UTF-8").split("\n")[0], "1\t13380\t.\tC\tG");
+
+			// the second run reuses the running process
+			assertEquals(Iterators.size(annotator.annotate(entities)), 14);
+			verify(jarRunner, times(1)).startJar(params);
+		}
+		finally
+		{
+			annotator.shutdown();
+		}
+		verify(process).destroy();
+	}
+
+	@Test
+	public void annotateTimeoutTest() throws IOException
+	{
+		Process process = mock(Process.class);
+		when(process.getOutputStream()).thenReturn(new ByteArrayOutputStream());
+		// SnpEff doesn't write any output
+		when(process.getInputStream()).thenAnswer(invocation -> new PipedInputStream(new PipedOutputStream()));
+		when(process.isAlive()).thenReturn(true);
+		String snpEffPath = "src/test/resources/test-snpeff.vcf";
+		List<String> params = Arrays.asList("-Xmx2g", snpEffPath, "hg19", "-noStats", "-noLog", "-lof", "-canon",
+				"-ud", "0", "-spliceSiteSize", "5");
+		when(jarRunner.startJar(params)).thenReturn(process);
+
+		MapEntity pluginSettings = new MapEntity();
+		pluginSettings.set(SnpEffAnnotatorSettings.Meta.SNPEFF_JAR_LOCATION, snpEffPath);
+		SnpEffAnnotator.SnpEffRepositoryAnnotator annotator = new SnpEffAnnotator.SnpEffRepositoryAnnotator(
+				pluginSettings, jarRunner);
+		annotator.setTimeout(100, TimeUnit.MILLISECONDS);
+		try
+		{
+			annotator.annotate(entities).next();
+			fail("expected timeout");
+		}
+		catch (MolgenisDataException e)
+		{
+			verify(process).destroyForcibly();
+		}
+
+		// the timed out process is replaced by a new one
+		try
+		{
+			annotator.annotate(entities).next();
+			fail("expected timeout");
+		}
+		catch (MolgenisDataException e)
+		{
+			verify(jarRunner, times(2)).startJar(params);
+		}
+		finally
+		{
+			annotator.shutdown();
+		}
+	}
+
 	@Test
 	public void parseOutputLineToEntityTest()
 	{
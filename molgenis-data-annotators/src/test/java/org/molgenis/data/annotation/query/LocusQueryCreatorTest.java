@@ -29,6 +29,26 @@ public class LocusQueryCreatorTest
 		assertEquals(q, new LocusQueryCreator().createQuery(entity));
 	}
 
+	@Test
+	public void createQueryKeys()
+	{
+		Query q = new QueryImpl().nest().eq(VcfRepository.CHROM, "3").and()
+				.in(VcfRepository.POS, Arrays.asList(3276424L, 3276425L)).unnest().or().nest()
+				.eq(VcfRepository.CHROM, "X").and().in(VcfRepository.POS, Arrays.asList(1L)).unnest();
+		assertEquals(new LocusQueryCreator().createQuery(Arrays.<Object> asList(Arrays.asList("3", 3276424L),
+				Arrays.asList("X", 1L), Arrays.asList("3", 3276425L))), q);
+	}
+
+	@Test
+	public void getKey()
+	{
+		Map<String, Object> map = new LinkedHashMap<String, Object>();
+		map.put(VcfRepository.CHROM, "3");
+		map.put(VcfRepository.POS, 3276424L);
+
+		assertEquals(new LocusQueryCreator().getKey(new MapEntity(map)), Arrays.asList("3", 3276424L));
+	}
+
 	@Test
 	public void getRequiredAttributes()
 	{
@@ -0,0 +1,136 @@
+package org.molgenis.data.annotator.tabix;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+
+import net.sf.samtools.util.BlockCompressedInputStream;
+import net.sf.samtools.util.BlockCompressedOutputStream;
+
+import org.molgenis.util.ResourceUtils;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class BgzfReaderTest
+{
+	private File file;
+
+	@BeforeMethod
+	public void beforeMethod() throws IOException
+	{
+		file = ResourceUtils.getFile(getClass(), "/exac/exacIT_set.vcf.gz");
+	}
+
+	@Test
+	public void testReadLine() throws IOException
+	{
+		BlockCompressedInputStream inputStream = new BlockCompressedInputStream(file);
+		BgzfReader bgzfReader = new BgzfReader(BgzfFile.get(file));
+		bgzfReader.seek(0);
+		try
+		{
+			for (String line = TabixReader.readLine(inputStream); line != null; line = TabixReader
+					.readLine(inputStream))
+			{
+				assertEquals(bgzfReader.readLine(), line);
+				assertEquals(bgzfReader.getFilePointer(), inputStream.getFilePointer());
+			}
+			assertNull(bgzfReader.readLine());
+		}
+		finally
+		{
+			inputStream.close();
+		}
+	}
+
+	@Test
+	public void testSeek() throws IOException
+	{
+		BlockCompressedInputStream inputStream = new BlockCompressedInputStream(file);
+		BgzfReader bgzfReader = new BgzfReader(BgzfFile.get(file));
+		try
+		{
+			TabixReader.readLine(inputStream);
+			TabixReader.readLine(inputStream);
+			long filePointer = inputStream.getFilePointer();
+			String line = TabixReader.readLine(inputStream);
+
+			bgzfReader.seek(filePointer);
+			assertEquals(bgzfReader.getFilePointer(), filePointer);
+			assertEquals(bgzfReader.readLine(), line);
+		}
+		finally
+		{
+			inputStream.close();
+		}
+	}
+
+	@Test
+	public void testReadLineWithoutTrailingNewline() throws IOException
+	{
+		File bgzfFile = createBgzfFile("first\nlast");
+		try
+		{
+			BgzfReader bgzfReader = new BgzfReader(BgzfFile.get(bgzfFile));
+			bgzfReader.seek(0);
+			assertEquals(bgzfReader.readLine(), "first");
+			assertEquals(bgzfReader.readLine(), "last");
+			assertNull(bgzfReader.readLine());
+		}
+		finally
+		{
+			bgzfFile.delete();
+		}
+	}
+
+	@Test
+	public void testGetModifiedFile() throws IOException
+	{
+		File bgzfFile = createBgzfFile("before\n");
+		try
+		{
+			BgzfFile before = BgzfFile.get(bgzfFile);
+			writeBgzfFile(bgzfFile, "after modification\n");
+
+			BgzfFile after = BgzfFile.get(bgzfFile);
+			assertNotSame(after, before);
+			BgzfReader bgzfReader = new BgzfReader(after);
+			bgzfReader.seek(0);
+			assertEquals(bgzfReader.readLine(), "after modification");
+		}
+		finally
+		{
+			bgzfFile.delete();
+		}
+	}
+
+	@Test(expectedExceptions = IOException.class)
+	public void testSeekInvalidOffset() throws IOException
+	{
+		new BgzfReader(BgzfFile.get(file)).seek(0xffff);
+	}
+
+	private static File createBgzfFile(String content) throws IOException
+	{
+		File bgzfFile = File.createTempFile("bgzf", ".gz");
+		writeBgzfFile(bgzfFile, content);
+		return bgzfFile;
+	}
+
+	private static void writeBgzfFile(File bgzfFile, String content) throws IOException
+	{
+		BlockCompressedOutputStream outputStream = new BlockCompressedOutputStream(bgzfFile);
+		try
+		{
+			outputStream.write(content.getBytes(UTF_8));
+		}
+		finally
+		{
+			outputStream.close();
+		}
+	}
+}
@@ -0,0 +1,150 @@
+package org.molgenis.data.annotator.tabix;
+
+import static java.util.stream.Collectors.toList;
+import static org.testng.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.molgenis.util.ResourceUtils;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class TabixCursorTest
+{
+	private File file;
+
+	@BeforeMethod
+	public void beforeMethod() throws IOException
+	{
+		file = ResourceUtils.getFile(getClass(), "/exac/exacIT_set.vcf.gz");
+	}
+
+	@Test
+	public void testGetLinesMergeJoin() throws IOException
+	{
+		// sorted lookups before and after switching to merge-joining, including misses and repeated positions
+		List<String[]> lookups = new ArrayList<>();
+		for (int i = 1; i <= TabixCursor.SORTED_LOOKUPS_BEFORE_MERGE_JOIN; ++i)
+		{
+			lookups.add(new String[]
+			{ "1", String.valueOf(i) });
+		}
+		for (String[] record : readRecords(file))
+		{
+			long pos = Long.parseLong(record[1]);
+			lookups.add(new String[]
+			{ record[0], String.valueOf(pos - 1) });
+			lookups.add(record);
+			lookups.add(record);
+			lookups.add(new String[]
+			{ record[0], String.valueOf(pos + 1) });
+		}
+
+		TabixReader queryReader = new TabixReader(file.getAbsolutePath());
+		TabixReader cursorReader = new TabixReader(file.getAbsolutePath());
+		TabixCursor tabixCursor = new TabixCursor(cursorReader);
+		for (String[] lookup : lookups)
+		{
+			long pos = Long.parseLong(lookup[1]);
+			List<String> expected = getLinesAt(queryReader, query(queryReader, lookup[0], pos), pos);
+			List<String> actual = getLinesAt(cursorReader, tabixCursor.getLines(lookup[0], pos), pos);
+			assertEquals(actual, expected, lookup[0] + ":" + pos);
+		}
+	}
+
+	@Test
+	public void testGetLinesMergeJoinUnknownChromosome() throws IOException
+	{
+		TabixCursor tabixCursor = new TabixCursor(new TabixReader(file.getAbsolutePath()));
+		for (int i = 1; i <= TabixCursor.SORTED_LOOKUPS_BEFORE_MERGE_JOIN; ++i)
+		{
+			tabixCursor.getLines("1", i);
+		}
+		assertEquals(tabixCursor.getLines("MT", 100), new ArrayList<>());
+		assertEquals(tabixCursor.getLines("1", 13380).size(), 1);
+	}
+
+	@Test
+	public void testGetLinesConcurrent() throws IOException, InterruptedException, ExecutionException
+	{
+		List<String[]> records = readRecords(file);
+		TabixReader queryReader = new TabixReader(file.getAbsolutePath());
+		List<List<String>> expected = new ArrayList<>();
+		for (String[] record : records)
+		{
+			long pos = Long.parseLong(record[1]);
+			expected.add(getLinesAt(queryReader, query(queryReader, record[0], pos), pos));
+		}
+
+		// iterators of a shared reader on different threads
+		TabixReader sharedReader = new TabixReader(file.getAbsolutePath());
+		ExecutorService executorService = Executors.newFixedThreadPool(4);
+		try
+		{
+			List<Future<List<List<String>>>> futures = new ArrayList<>();
+			for (int i = 0; i < 4; ++i)
+			{
+				futures.add(executorService.submit(() -> {
+					TabixCursor tabixCursor = new TabixCursor(sharedReader);
+					List<List<String>> lines = new ArrayList<>();
+					for (String[] record : records)
+					{
+						long pos = Long.parseLong(record[1]);
+						lines.add(getLinesAt(sharedReader, tabixCursor.getLines(record[0], pos), pos));
+					}
+					return lines;
+				}));
+			}
+			for (Future<List<List<String>>> future : futures)
+			{
+				assertEquals(future.get(), expected);
+			}
+		}
+		finally
+		{
+			executorService.shutdownNow();
+		}
+	}
+
+	private static List<String[]> readRecords(File file) throws IOException
+	{
+		BgzfReader reader = new TabixReader(file.getAbsolutePath()).createLineReader();
+		List<String[]> records = new ArrayList<>();
+		for (String line = reader.readLine(); line != null; line = reader.readLine())
+		{
+			if (!line.startsWith("#"))
+			{
+				String[] columns = line.split("\t", 3);
+				records.add(new String[]
+				{ columns[0], columns[1] });
+			}
+		}
+		return records;
+	}
+
+	private static List<String> query(TabixReader reader, String chrom, long pos) throws IOException
+	{
+		List<String> lines = new ArrayList<>();
+		TabixReader.Iterator iterator = reader.query(chrom + ":" + pos + "-" + pos);
+		if (iterator != null)
+		{
+			for (String line = iterator.next(); line != null; line = iterator.next())
+			{
+				lines.add(line);
+			}
+		}
+		return lines;
+	}
+
+	private static List<String> getLinesAt(TabixReader reader, List<String> lines, long pos)
+	{
+		return lines.stream().filter(line -> reader.getBeginPosition(line) == pos).collect(toList());
+	}
+}
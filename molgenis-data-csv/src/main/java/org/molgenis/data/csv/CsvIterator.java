@@ -7,7 +7,6 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.nio.charset.Charset;
-import java.util.Arrays;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.LinkedHashMap;
@@ -27,16 +26,17 @@ import org.molgenis.data.support.MapEntity;
 import org.molgenis.util.CloseableIterator;
 import org.springframework.util.StringUtils;
 
-import au.com.bytecode.opencsv.CSVReader;
+import au.com.bytecode.opencsv.CSVParser;
 
 public class CsvIterator implements CloseableIterator<Entity>
 {
 	private static final Charset CHARSET = Charset.forName("UTF-8");
 	private final String repositoryName;
 	private ZipFile zipFile;
-	private CSVReader csvReader;
+	private CsvTokenizer tokenizer;
 	private final List<CellProcessor> cellProcessors;
 	private final Map<String, Integer> colNamesMap; // column names index
+	private final CsvRowValues.Header header;
 	private MapEntity next;
 	private boolean getNext = true;
 	private Character separator = null;
@@ -58,7 +58,7 @@ public class CsvIterator implements CloseableIterator<Entity>
 					ZipEntry entry = e.nextElement();
 					if (StringUtils.stripFilenameExtension(entry.getName()).equalsIgnoreCase(repositoryName))
 					{
-						csvReader = createCSVReader(entry.getName(), zipFile.getInputStream(entry));
+						tokenizer = createTokenizer(entry.getName(), zipFile.getInputStream(entry));
 						break;
 					}
 				}
@@ -66,15 +66,16 @@ public class CsvIterator implements CloseableIterator<Entity>
 			}
 			else if (file.getName().toLowerCase().startsWith(repositoryName.toLowerCase()))
 			{
-				csvReader = createCSVReader(file.getName(), new FileInputStream(file));
+				tokenizer = createTokenizer(file.getName(), new FileInputStream(file));
 			}
 
-			if (csvReader == null)
+			if (tokenizer == null)
 			{
 				throw new UnknownEntityException("Unknown entity [" + repositoryName + "] ");
 			}
 
-			colNamesMap = toColNamesMap(csvReader.readNext());
+			colNamesMap = toColNamesMap(tokenizer.readRecord());
+			header = new CsvRowValues.Header(colNamesMap);
 		}
 		catch (IOException e)
 		{
@@ -82,7 +83,6 @@ public class CsvIterator implements CloseableIterator<Entity>
 		}
 	}
 
-
 	public Map<String, Integer> getColNamesMap()
 	{
 		return colNamesMap;
@@ -114,26 +114,24 @@ public class CsvIterator implements CloseableIterator<Entity>
 		{
 			try
 			{
-				String[] values = csvReader.readNext();
+				List<String> fields = tokenizer.readRecord();
 
-				if ((values != null) && (values.length >= colNamesMap.size()))
+				if ((fields != null) && (fields.size() >= colNamesMap.size()))
 				{
-					List<String> valueList = Arrays.asList(values);
+					// values are stored by the index of their attribute in the header
+					Object[] values = new Object[header.size()];
 					for (int i = 0; i < values.length; ++i)
 					{
+						int column = header.getColumn(i);
+						String value = column < fields.size() ? fields.get(column) : null;
+
 						// subsequent separators indicate
 						// null
 						// values instead of empty strings
-						String value = values[i].isEmpty() ? null : values[i];
-						values[i] = processCell(value, false);
+						values[i] = processCell(value != null && !value.isEmpty() ? value : null, false);
 					}
 
-					next = new MapEntity();
-
-					for (String name : colNamesMap.keySet())
-					{
-						next.set(name, valueList.get(colNamesMap.get(name)));
-					}
+					next = new MapEntity(new CsvRowValues(header, values));
 				}
 				else
 				{
@@ -151,6 +149,31 @@ public class CsvIterator implements CloseableIterator<Entity>
 		return next;
 	}
 
+	/**
+	 * Counts the rows that were not returned yet without creating entities and closes the iterator
+	 */
+	long count()
+	{
+		try
+		{
+			long count = !getNext && next != null ? 1 : 0;
+			for (int nrFields = tokenizer.skipRecord(); nrFields >= colNamesMap.size(); nrFields = tokenizer
+					.skipRecord())
+			{
+				++count;
+			}
+			return count;
+		}
+		catch (IOException e)
+		{
+			throw new MolgenisDataException("Exception reading line of csv file [" + repositoryName + "]", e);
+		}
+		finally
+		{
+			close();
+		}
+	}
+
 	@Override
 	public void remove()
 	{
@@ -160,7 +183,7 @@ public class CsvIterator implements CloseableIterator<Entity>
 	@Override
 	public void close()
 	{
-		IOUtils.closeQuietly(csvReader);
+		IOUtils.closeQuietly(tokenizer);
 
 		if (zipFile != null)
 		{
@@ -168,7 +191,7 @@ public class CsvIterator implements CloseableIterator<Entity>
 		}
 	}
 
-	private CSVReader createCSVReader(String fileName, InputStream in)
+	private CsvTokenizer createTokenizer(String fileName, InputStream in)
 	{
 		Reader reader = new InputStreamReader(in, CHARSET);
 
@@ -177,29 +200,29 @@ public class CsvIterator implements CloseableIterator<Entity>
 			if (fileName.toLowerCase().endsWith("." + GenericImporterExtensions.CSV.toString())
 					|| fileName.toLowerCase().endsWith("." + GenericImporterExtensions.TXT.toString()))
 			{
-				return new CSVReader(reader);
+				return new CsvTokenizer(reader, CSVParser.DEFAULT_SEPARATOR);
 			}
 
 			if (fileName.toLowerCase().endsWith("." + GenericImporterExtensions.TSV.toString()))
 			{
-				return new CSVReader(reader, '\t');
+				return new CsvTokenizer(reader, '\t');
 			}
 
 			throw new MolgenisDataException("Unknown file type: [" + fileName + "] for csv repository");
 		}
 
-		return new CSVReader(reader, this.separator);
+		return new CsvTokenizer(reader, this.separator);
 	}
 
-	private Map<String, Integer> toColNamesMap(String[] headers)
+	private Map<String, Integer> toColNamesMap(List<String> headers)
 	{
-		if ((headers == null) || (headers.length == 0)) return Collections.emptyMap();
+		if ((headers == null) || (headers.isEmpty())) return Collections.emptyMap();
 
-		int capacity = (int) (headers.length / 0.75) + 1;
+		int capacity = (int) (headers.size() / 0.75) + 1;
 		Map<String, Integer> columnIdx = new LinkedHashMap<String, Integer>(capacity);
-		for (int i = 0; i < headers.length; ++i)
+		for (int i = 0; i < headers.size(); ++i)
 		{
-			String header = processCell(headers[i], true);
+			String header = processCell(headers.get(i), true);
 			columnIdx.put(header, i);
 		}
 
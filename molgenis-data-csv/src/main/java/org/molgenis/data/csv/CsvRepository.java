@@ -21,8 +21,6 @@ import org.molgenis.data.support.DefaultEntityMetaData;
 import org.molgenis.data.support.MapEntity;
 import org.springframework.util.StringUtils;
 
-import com.google.common.collect.Iterables;
-
 /**
  * Repository implementation for csv files.
  * 
@@ -72,10 +70,19 @@ public class CsvRepository extends AbstractRepository
 		{
 			entityMetaData = new DefaultEntityMetaData(sheetName, MapEntity.class);
 
-			for (String attrName : new CsvIterator(file, sheetName, null, separator).getColNamesMap().keySet())
+			CsvIterator it = new CsvIterator(file, sheetName, null, separator);
+			try
+			{
+				for (String attrName : it.getColNamesMap().keySet())
+				{
+					AttributeMetaData attr = new DefaultAttributeMetaData(attrName,
+							MolgenisFieldTypes.FieldTypeEnum.STRING);
+					entityMetaData.addAttributeMetaData(attr);
+				}
+			}
+			finally
 			{
-				AttributeMetaData attr = new DefaultAttributeMetaData(attrName, MolgenisFieldTypes.FieldTypeEnum.STRING);
-				entityMetaData.addAttributeMetaData(attr);
+				it.close();
 			}
 		}
 
@@ -94,10 +101,13 @@ public class CsvRepository extends AbstractRepository
 		return Collections.emptySet();
 	}
 
+	/**
+	 * Counts the rows by scanning the file for record boundaries without creating entities
+	 */
 	@Override
 	public long count()
 	{
-		return Iterables.size(this);
+		return new CsvIterator(file, sheetName, cellProcessors, separator).count();
 	}
 
 }
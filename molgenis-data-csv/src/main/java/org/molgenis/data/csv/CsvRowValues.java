@@ -0,0 +1,183 @@
+package org.molgenis.data.csv;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.springframework.util.LinkedCaseInsensitiveMap;
+
+import com.google.common.collect.Iterators;
+
+/**
+ * Attribute values of a csv row stored by the position of the attribute in the header of the file. The header index is
+ * shared by all rows of a file, so that rows do not need a hash map of their own. Attribute names are case
+ * insensitive, values of attributes that are not in the header are stored in a separate map.
+ *
+ * Attributes of the header can not be removed.
+ */
+class CsvRowValues extends AbstractMap<String, Object> implements Serializable
+{
+	private static final long serialVersionUID = 1L;
+
+	private final Header header;
+	private final Object[] values;
+	private Map<String, Object> otherValues;
+
+	/**
+	 * @param values
+	 *            values in the order of the attributes of the header
+	 */
+	CsvRowValues(Header header, Object[] values)
+	{
+		if (values.length != header.size()) throw new IllegalArgumentException("values do not match header");
+		this.header = header;
+		this.values = values;
+	}
+
+	@Override
+	public Object get(Object key)
+	{
+		int index = header.indexOf(key);
+		if (index != -1) return values[index];
+		return otherValues != null ? otherValues.get(key) : null;
+	}
+
+	@Override
+	public boolean containsKey(Object key)
+	{
+		return header.indexOf(key) != -1 || (otherValues != null && otherValues.containsKey(key));
+	}
+
+	@Override
+	public Object put(String key, Object value)
+	{
+		int index = header.indexOf(key);
+		if (index != -1)
+		{
+			Object previousValue = values[index];
+			values[index] = value;
+			return previousValue;
+		}
+		if (otherValues == null) otherValues = new LinkedCaseInsensitiveMap<>();
+		return otherValues.put(key, value);
+	}
+
+	@Override
+	public int size()
+	{
+		return values.length + (otherValues != null ? otherValues.size() : 0);
+	}
+
+	@Override
+	public Set<Entry<String, Object>> entrySet()
+	{
+		return new AbstractSet<Entry<String, Object>>()
+		{
+			@Override
+			public Iterator<Entry<String, Object>> iterator()
+			{
+				Iterator<Entry<String, Object>> headerEntries = new Iterator<Entry<String, Object>>()
+				{
+					private int index = 0;
+
+					@Override
+					public boolean hasNext()
+					{
+						return index < values.length;
+					}
+
+					@Override
+					public Entry<String, Object> next()
+					{
+						if (!hasNext()) throw new NoSuchElementException();
+						Entry<String, Object> entry = new SimpleImmutableEntry<>(header.getName(index), values[index]);
+						++index;
+						return entry;
+					}
+				};
+				return otherValues != null ? Iterators.concat(headerEntries, otherValues.entrySet().iterator())
+						: headerEntries;
+			}
+
+			@Override
+			public int size()
+			{
+				return CsvRowValues.this.size();
+			}
+		};
+	}
+
+	/**
+	 * Attribute names of a csv file and the columns in which they are stored
+	 */
+	static class Header implements Serializable
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final List<String> names;
+		private final int[] columns;
+		private final Map<String, Integer> indexes;
+		private final Map<String, Integer> caseInsensitiveIndexes;
+
+		/**
+		 * @param colNamesMap
+		 *            attribute names mapped on their column
+		 */
+		Header(Map<String, Integer> colNamesMap)
+		{
+			// attribute names that only differ in case share a value, the last one wins
+			Map<String, Integer> caseInsensitiveColNamesMap = new LinkedCaseInsensitiveMap<>();
+			colNamesMap.forEach((name, column) -> {
+				if (name != null) caseInsensitiveColNamesMap.put(name, column);
+			});
+
+			this.names = new ArrayList<>(caseInsensitiveColNamesMap.keySet());
+			this.columns = new int[names.size()];
+			this.indexes = new HashMap<>();
+			this.caseInsensitiveIndexes = new LinkedCaseInsensitiveMap<>();
+			for (int i = 0; i < names.size(); ++i)
+			{
+				String name = names.get(i);
+				columns[i] = caseInsensitiveColNamesMap.get(name);
+				indexes.put(name, i);
+				caseInsensitiveIndexes.put(name, i);
+			}
+		}
+
+		int size()
+		{
+			return names.size();
+		}
+
+		String getName(int index)
+		{
+			return names.get(index);
+		}
+
+		/**
+		 * Returns the column of the attribute at the given index
+		 */
+		int getColumn(int index)
+		{
+			return columns[index];
+		}
+
+		/**
+		 * Returns the index of the attribute or -1 if the header does not contain the attribute
+		 */
+		int indexOf(Object name)
+		{
+			if (!(name instanceof String)) return -1;
+			Integer index = indexes.get(name);
+			if (index == null) index = caseInsensitiveIndexes.get(name);
+			return index != null ? index : -1;
+		}
+	}
+}
@@ -0,0 +1,179 @@
+package org.molgenis.data.csv;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Splits csv records into fields, reading the input in large blocks instead of line by line.
+ *
+ * Fields are parsed with the same rules as the opencsv CSVReader: fields can be quoted with double quotes, quoted
+ * fields can contain separators and line breaks, a doubled quote in a quoted field is a quote and a backslash escapes a
+ * following quote or backslash. Line breaks in quoted fields are returned as \n.
+ */
+class CsvTokenizer implements Closeable
+{
+	private static final int BUFFER_SIZE = 1 << 16;
+	private static final char QUOTE = '"';
+	private static final char ESCAPE = '\\';
+
+	private final Reader reader;
+	private final char separator;
+	private final char[] buffer = new char[BUFFER_SIZE];
+	private int position;
+	private int limit;
+
+	/** reused between records */
+	private final StringBuilder field = new StringBuilder();
+	private final List<String> fields = new ArrayList<>();
+	private final List<String> unmodifiableFields = Collections.unmodifiableList(fields);
+
+	CsvTokenizer(Reader reader, char separator)
+	{
+		this.reader = requireNonNull(reader);
+		this.separator = separator;
+	}
+
+	/**
+	 * Reads the fields of the next record
+	 *
+	 * @return fields of the record or null at the end of the input, the list is reused for the next record
+	 */
+	List<String> readRecord() throws IOException
+	{
+		return parseRecord(true) != -1 ? unmodifiableFields : null;
+	}
+
+	/**
+	 * Skips the next record without creating its fields
+	 *
+	 * @return number of fields of the record or -1 at the end of the input
+	 */
+	int skipRecord() throws IOException
+	{
+		return parseRecord(false);
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		reader.close();
+	}
+
+	private int parseRecord(boolean keepFields) throws IOException
+	{
+		if (!fill()) return -1;
+
+		fields.clear();
+		field.setLength(0);
+		int nrFields = 0;
+		boolean inQuotes = false;
+		boolean inField = false;
+		// index of the character in the current line and the previous character on the line, used to detect quotes in
+		// the middle of a field
+		int lineIndex = 0;
+		int previous = -1;
+
+		while (fill())
+		{
+			char c = buffer[position++];
+			if (c == ESCAPE || c == QUOTE)
+			{
+				int next = peek();
+				if ((inQuotes || inField) && (next == QUOTE || (c == ESCAPE && next == ESCAPE)))
+				{
+					// escaped quote or escape character
+					if (keepFields) field.append((char) next);
+					++position;
+					if (c == QUOTE) inField = !inField;
+					previous = next;
+					lineIndex += 2;
+					continue;
+				}
+				if (c == QUOTE)
+				{
+					// a quote in the middle of a field is part of the value
+					if (lineIndex > 2 && previous != separator && next != -1 && next != '\n' && next != '\r'
+							&& next != separator && keepFields)
+					{
+						if (field.length() > 0 && isAllWhitespace(field)) field.setLength(0);
+						else field.append(c);
+					}
+					inQuotes = !inQuotes;
+					inField = !inField;
+				}
+				// escape characters that do not escape anything are dropped
+			}
+			else if (c == separator && !inQuotes)
+			{
+				nrFields = endField(keepFields, nrFields);
+				inField = false;
+			}
+			else if (c == '\n' || c == '\r')
+			{
+				if (c == '\r' && peek() == '\n') ++position;
+				if (!inQuotes) return endField(keepFields, nrFields);
+
+				if (keepFields) field.append('\n');
+				inField = false;
+				lineIndex = 0;
+				previous = -1;
+				continue;
+			}
+			else
+			{
+				if (keepFields) field.append(c);
+				inField = true;
+			}
+			previous = c;
+			++lineIndex;
+		}
+		return endField(keepFields, nrFields);
+	}
+
+	private int endField(boolean keepFields, int nrFields)
+	{
+		if (keepFields)
+		{
+			fields.add(field.toString());
+			field.setLength(0);
+		}
+		return nrFields + 1;
+	}
+
+	private int peek() throws IOException
+	{
+		return fill() ? buffer[position] : -1;
+	}
+
+	/**
+	 * Reads the next block of the input if all buffered characters were consumed
+	 *
+	 * @return false at the end of the input
+	 */
+	private boolean fill() throws IOException
+	{
+		while (position == limit)
+		{
+			int nrChars = reader.read(buffer);
+			if (nrChars == -1) return false;
+			position = 0;
+			limit = nrChars;
+		}
+		return true;
+	}
+
+	private static boolean isAllWhitespace(CharSequence charSequence)
+	{
+		for (int i = 0; i < charSequence.length(); ++i)
+		{
+			if (!Character.isWhitespace(charSequence.charAt(i))) return false;
+		}
+		return true;
+	}
+}
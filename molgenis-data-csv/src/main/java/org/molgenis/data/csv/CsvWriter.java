@@ -97,6 +97,16 @@ public class CsvWriter extends AbstractWritable
 
 	@Override
 	public void add(Entity entity)
+	{
+		csvWriter.writeNext(toValues(entity));
+		if (csvWriter.checkError()) throw new MolgenisDataException("An exception occured writing the csv file");
+	}
+
+	/**
+	 * Converts an entity to the values of a row without writing it. Once the attribute names are written this method
+	 * can be called from multiple threads, to convert entities while other rows are being written.
+	 */
+	public String[] toValues(Entity entity)
 	{
 		if (cachedAttributeNames == null) throw new MolgenisDataException(
 				"No attribute names defined call writeAttributeNames first");
@@ -107,8 +117,16 @@ public class CsvWriter extends AbstractWritable
 		{
 			values[i++] = toValue(entity.get(colName));
 		}
+		return values;
+	}
 
-		csvWriter.writeNext(values);
+	/**
+	 * Writes rows of values that were converted with {@link #toValues(Entity)}. Write errors are checked once per call
+	 * instead of once per row, checking flushes the underlying writer.
+	 */
+	public void addValues(List<String[]> rows)
+	{
+		csvWriter.writeAll(rows);
 		if (csvWriter.checkError()) throw new MolgenisDataException("An exception occured writing the csv file");
 	}
 
@@ -13,6 +13,7 @@ import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
 import java.util.Iterator;
 
 import org.apache.commons.io.FileUtils;
@@ -24,6 +25,8 @@ import org.springframework.util.FileCopyUtils;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
+import com.google.common.collect.Lists;
+
 public class CsvRepositoryTest
 {
 
@@ -181,6 +184,42 @@ public class CsvRepositoryTest
 		}
 	}
 
+	@Test
+	public void count() throws IOException
+	{
+		try (CsvRepository csvRepository = new CsvRepository(testdata, null))
+		{
+			assertEquals(csvRepository.count(), 5);
+		}
+		try (CsvRepository csvRepository = new CsvRepository(novalues, null))
+		{
+			assertEquals(csvRepository.count(), 0);
+		}
+		try (CsvRepository csvRepository = new CsvRepository(emptylines, null))
+		{
+			assertEquals(csvRepository.count(), 1);
+		}
+		try (CsvRepository csvRepository = new CsvRepository(emptylinessinglecol, null))
+		{
+			assertEquals(csvRepository.count(), 2);
+		}
+	}
+
+	@Test
+	public void iterator_setValues() throws IOException
+	{
+		try (CsvRepository csvRepository = new CsvRepository(test, null))
+		{
+			Entity entity = csvRepository.iterator().next();
+			assertEquals(entity.get("COL1"), "val1");
+			entity.set("Col2", "updated");
+			entity.set("col3", "val3");
+			assertEquals(entity.get("col2"), "updated");
+			assertEquals(entity.get("col3"), "val3");
+			assertEquals(Lists.newArrayList(entity.getAttributeNames()), Arrays.asList("col1", "col2", "col3"));
+		}
+	}
+
 	@Test
 	public void iterator_noValues() throws IOException
 	{
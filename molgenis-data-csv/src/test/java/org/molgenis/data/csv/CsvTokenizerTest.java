@@ -0,0 +1,79 @@
+package org.molgenis.data.csv;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+
+import org.testng.annotations.Test;
+
+public class CsvTokenizerTest
+{
+	@Test
+	public void readRecord() throws IOException
+	{
+		try (CsvTokenizer tokenizer = new CsvTokenizer(new StringReader("col1,col2\nval1,val2\n"), ','))
+		{
+			assertEquals(tokenizer.readRecord(), Arrays.asList("col1", "col2"));
+			assertEquals(tokenizer.readRecord(), Arrays.asList("val1", "val2"));
+			assertNull(tokenizer.readRecord());
+		}
+	}
+
+	@Test
+	public void readRecordQuotes() throws IOException
+	{
+		String csv = "\"a,a\",b\r\n\"\\\"\",\"\\\"\\\"\"\r\n\"\\,\",\"\\,\\,\"\r\n\"x\"\"y\",\"\"";
+		try (CsvTokenizer tokenizer = new CsvTokenizer(new StringReader(csv), ','))
+		{
+			assertEquals(tokenizer.readRecord(), Arrays.asList("a,a", "b"));
+			assertEquals(tokenizer.readRecord(), Arrays.asList("\"", "\"\""));
+			assertEquals(tokenizer.readRecord(), Arrays.asList(",", ",,"));
+			assertEquals(tokenizer.readRecord(), Arrays.asList("x\"y", ""));
+			assertNull(tokenizer.readRecord());
+		}
+	}
+
+	@Test
+	public void readRecordMultiline() throws IOException
+	{
+		try (CsvTokenizer tokenizer = new CsvTokenizer(new StringReader("\"line1\r\nline2\"\tb\n\nc"), '\t'))
+		{
+			assertEquals(tokenizer.readRecord(), Arrays.asList("line1\nline2", "b"));
+			assertEquals(tokenizer.readRecord(), Arrays.asList(""));
+			assertEquals(tokenizer.readRecord(), Arrays.asList("c"));
+			assertNull(tokenizer.readRecord());
+		}
+	}
+
+	@Test
+	public void readRecordLargerThanBuffer() throws IOException
+	{
+		StringBuilder value = new StringBuilder();
+		for (int i = 0; i < 100000; ++i)
+		{
+			value.append((char) ('a' + i % 26));
+		}
+		String csv = value + ",\"" + value + "\"\n" + value;
+		try (CsvTokenizer tokenizer = new CsvTokenizer(new StringReader(csv), ','))
+		{
+			assertEquals(tokenizer.readRecord(), Arrays.asList(value.toString(), value.toString()));
+			assertEquals(tokenizer.readRecord(), Arrays.asList(value.toString()));
+			assertNull(tokenizer.readRecord());
+		}
+	}
+
+	@Test
+	public void skipRecord() throws IOException
+	{
+		try (CsvTokenizer tokenizer = new CsvTokenizer(new StringReader("a,b,c\n\"d\ne,f\",g\n\n"), ','))
+		{
+			assertEquals(tokenizer.skipRecord(), 3);
+			assertEquals(tokenizer.skipRecord(), 2);
+			assertEquals(tokenizer.skipRecord(), 1);
+			assertEquals(tokenizer.skipRecord(), -1);
+		}
+	}
+}
@@ -88,6 +88,28 @@ public class CsvWriterTest
 		}
 	}
 
+	@Test
+	public void addValues() throws IOException
+	{
+		StringWriter strWriter = new StringWriter();
+		CsvWriter csvWriter = new CsvWriter(strWriter);
+		try
+		{
+			csvWriter.writeAttributeNames(Arrays.asList("col1", "col2"));
+			Entity entity0 = new MapEntity();
+			entity0.set("col1", "val1");
+			entity0.set("col2", "val2");
+			Entity entity1 = new MapEntity();
+			entity1.set("col2", "val4");
+			csvWriter.addValues(Arrays.asList(csvWriter.toValues(entity0), csvWriter.toValues(entity1)));
+			assertEquals(strWriter.toString(), "\"col1\",\"col2\"\n\"val1\",\"val2\"\n,\"val4\"\n");
+		}
+		finally
+		{
+			csvWriter.close();
+		}
+	}
+
 	@Test
 	public void testLabels() throws IOException
 	{
@@ -7,6 +7,7 @@ import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.Row;
 import org.molgenis.data.Entity;
 import org.molgenis.data.EntityMetaData;
+import org.molgenis.data.processor.AbstractCellProcessor;
 import org.molgenis.data.processor.CellProcessor;
 import org.molgenis.data.support.AbstractMetaDataEntity;
 import org.springframework.util.LinkedCaseInsensitiveMap;
@@ -21,6 +22,7 @@ public class ExcelEntity extends AbstractMetaDataEntity
 {
 	private static final long serialVersionUID = 8928375571009145452L;
 	private final transient Row row;
+	private final List<String> cellValues;
 	private final Map<String, Integer> colNamesMap;
 	private final List<CellProcessor> cellProcessors;
 
@@ -35,6 +37,27 @@ public class ExcelEntity extends AbstractMetaDataEntity
 		if (colNamesMap == null) throw new IllegalArgumentException("column names map is null");
 
 		this.row = row;
+		this.cellValues = null;
+		this.colNamesMap = colNamesMap;
+		this.cellProcessors = cellProcessors;
+	}
+
+	/**
+	 * Creates an entity for a row of which the cell values were read by a streaming reader
+	 * 
+	 * @param cellValues
+	 *            cell values indexed by column, missing cells are null
+	 */
+	ExcelEntity(List<String> cellValues, Map<String, Integer> colNamesMap, List<CellProcessor> cellProcessors,
+			EntityMetaData entityMetaData)
+	{
+		super(entityMetaData);
+
+		if (cellValues == null) throw new IllegalArgumentException("cell values is null");
+		if (colNamesMap == null) throw new IllegalArgumentException("column names map is null");
+
+		this.row = null;
+		this.cellValues = cellValues;
 		this.colNamesMap = colNamesMap;
 		this.cellProcessors = cellProcessors;
 	}
@@ -60,7 +83,12 @@ public class ExcelEntity extends AbstractMetaDataEntity
 		else
 		{
 			Integer col = colNamesMap.get(attributeName);
-			if (col != null)
+			if (col != null && cellValues != null)
+			{
+				String cellValue = col < cellValues.size() ? cellValues.get(col) : null;
+				value = cellValue != null ? AbstractCellProcessor.processCell(cellValue, false, cellProcessors) : null;
+			}
+			else if (col != null)
 			{
 				Cell cell = row.getCell(col);
 				if (cell != null)
@@ -3,12 +3,14 @@ package org.molgenis.data.excel;
 import static java.lang.String.format;
 import static java.util.Objects.requireNonNull;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.poi.ss.usermodel.Cell;
@@ -29,6 +31,7 @@ import org.molgenis.data.support.DefaultEntityMetaData;
 import org.springframework.util.LinkedCaseInsensitiveMap;
 
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Iterators;
 
 /**
  * ExcelSheet {@link org.molgenis.data.Repository} implementation
@@ -42,6 +45,9 @@ import com.google.common.collect.Iterables;
 public class ExcelRepository extends AbstractRepository
 {
 	private final Sheet sheet;
+	/** streamed xlsx sheet, used instead of the POI sheet for large workbooks */
+	private final XlsxSheet xlsxSheet;
+	private final Set<XlsxSheet.RowIterator> rowIterators = Collections.newSetFromMap(new ConcurrentHashMap<>());
 
 	/** process cells after reading */
 	private List<CellProcessor> cellProcessors;
@@ -62,25 +68,58 @@ public class ExcelRepository extends AbstractRepository
 			throw new MolgenisDataException(
 					format("Sheet [%s] contains merged regions which is not supported", sheet.getSheetName()));
 		}
+		this.xlsxSheet = null;
+		this.cellProcessors = cellProcessors;
+	}
+
+	/**
+	 * Creates a repository that streams the rows of the sheet, merged regions are only detected after the last row of
+	 * the sheet was read.
+	 */
+	ExcelRepository(String fileName, XlsxSheet xlsxSheet, List<CellProcessor> cellProcessors)
+	{
+		this.sheet = null;
+		this.xlsxSheet = requireNonNull(xlsxSheet);
 		this.cellProcessors = cellProcessors;
 	}
 
 	public int getNrRows()
 	{
+		if (xlsxSheet != null) return xlsxSheet.getNrRows();
 		return sheet.getLastRowNum() + 1; // getLastRowNum is 0-based
 	}
 
 	@Override
 	public Iterator<Entity> iterator()
 	{
-		final Iterator<Row> it = sheet.iterator();
-		if (!it.hasNext()) return Collections.<Entity> emptyList().iterator();
+		final Iterator<ExcelEntity> it;
+		if (xlsxSheet != null)
+		{
+			XlsxSheet.RowIterator rowIt = openRowIterator();
+			if (!rowIt.hasNext()) return Collections.<Entity> emptyList().iterator();
 
-		// create column header index once and reuse
-		Row headerRow = it.next();
-		if (colNamesMap == null)
+			// create column header index once and reuse
+			List<String> headerValues = rowIt.next();
+			if (colNamesMap == null)
+			{
+				colNamesMap = toColNamesMap(headerValues);
+			}
+			it = Iterators.transform(rowIt,
+					cellValues -> new ExcelEntity(cellValues, colNamesMap, cellProcessors, getEntityMetaData()));
+		}
+		else
 		{
-			colNamesMap = toColNamesMap(headerRow);
+			Iterator<Row> rowIt = sheet.iterator();
+			if (!rowIt.hasNext()) return Collections.<Entity> emptyList().iterator();
+
+			// create column header index once and reuse
+			Row headerRow = rowIt.next();
+			if (colNamesMap == null)
+			{
+				colNamesMap = toColNamesMap(headerRow);
+			}
+			it = Iterators.transform(rowIt,
+					row -> new ExcelEntity(row, colNamesMap, cellProcessors, getEntityMetaData()));
 		}
 
 		if (!it.hasNext()) return Collections.<Entity> emptyList().iterator();
@@ -95,7 +134,7 @@ public class ExcelRepository extends AbstractRepository
 				// iterator skips empty lines.
 				if (it.hasNext() && next == null)
 				{
-					ExcelEntity entity = new ExcelEntity(it.next(), colNamesMap, cellProcessors, getEntityMetaData());
+					ExcelEntity entity = it.next();
 
 					// check if there is any column containing a value
 					for (String name : entity.getAttributeNames())
@@ -143,16 +182,30 @@ public class ExcelRepository extends AbstractRepository
 	{
 		if (entityMetaData == null)
 		{
-			EditableEntityMetaData editableEntityMetaData = new DefaultEntityMetaData(sheet.getSheetName(),
+			EditableEntityMetaData editableEntityMetaData = new DefaultEntityMetaData(getSheetName(),
 					ExcelEntity.class);
 
 			if (colNamesMap == null)
 			{
-				Iterator<Row> it = sheet.iterator();
-				if (it.hasNext())
+				if (xlsxSheet != null)
+				{
+					try (XlsxSheet.RowIterator it = xlsxSheet.iterator())
+					{
+						if (it.hasNext())
+						{
+							// First row contains the headers
+							colNamesMap = toColNamesMap(it.next());
+						}
+					}
+				}
+				else
 				{
-					// First row contains the headers
-					colNamesMap = toColNamesMap(it.next());
+					Iterator<Row> it = sheet.iterator();
+					if (it.hasNext())
+					{
+						// First row contains the headers
+						colNamesMap = toColNamesMap(it.next());
+					}
 				}
 			}
 
@@ -194,6 +247,31 @@ public class ExcelRepository extends AbstractRepository
 		return columnIdx;
 	}
 
+	private Map<String, Integer> toColNamesMap(List<String> headerValues)
+	{
+		Map<String, Integer> columnIdx = new LinkedCaseInsensitiveMap<>();
+		int i = 0;
+		for (String headerValue : headerValues)
+		{
+			String header = AbstractCellProcessor.processCell(headerValue, true, cellProcessors);
+			if (null != header) columnIdx.put(header, i++);
+		}
+		return columnIdx;
+	}
+
+	private String getSheetName()
+	{
+		return xlsxSheet != null ? xlsxSheet.getName() : sheet.getSheetName();
+	}
+
+	private XlsxSheet.RowIterator openRowIterator()
+	{
+		rowIterators.removeIf(XlsxSheet.RowIterator::isClosed);
+		XlsxSheet.RowIterator rowIterator = xlsxSheet.iterator();
+		rowIterators.add(rowIterator);
+		return rowIterator;
+	}
+
 	@Override
 	public Set<RepositoryCapability> getCapabilities()
 	{
@@ -205,4 +283,11 @@ public class ExcelRepository extends AbstractRepository
 	{
 		return Iterables.size(this);
 	}
+
+	@Override
+	public void close() throws IOException
+	{
+		rowIterators.forEach(XlsxSheet.RowIterator::close);
+		rowIterators.clear();
+	}
 }
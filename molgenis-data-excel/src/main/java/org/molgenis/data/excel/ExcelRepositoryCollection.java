@@ -5,6 +5,7 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.Iterator;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -15,6 +16,7 @@ import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.ss.usermodel.WorkbookFactory;
 import org.molgenis.data.AttributeMetaData;
 import org.molgenis.data.EntityMetaData;
+import org.molgenis.data.MolgenisDataException;
 import org.molgenis.data.MolgenisInvalidFormatException;
 import org.molgenis.data.Repository;
 import org.molgenis.data.processor.CellProcessor;
@@ -30,13 +32,18 @@ import com.google.common.collect.Lists;
  * Read an excel file and iterate through the sheets.
  * 
  * A sheet is exposed as a {@link org.molgenis.data.Repository} with the sheetname as the Repository name
+ * 
+ * The rows of xlsx files are streamed from the file, xls files and input streams are read into memory. The whole
+ * workbook is only loaded for an xlsx file when a sheet is added.
  */
 public class ExcelRepositoryCollection extends FileRepositoryCollection
 {
 	public static final String NAME = "EXCEL";
 
 	private final String name;
-	private final Workbook workbook;
+	private final File file;
+	private final XlsxWorkbook xlsxWorkbook;
+	private Workbook workbook;
 
 	public ExcelRepositoryCollection(File file) throws IOException, MolgenisInvalidFormatException
 	{
@@ -46,7 +53,21 @@ public class ExcelRepositoryCollection extends FileRepositoryCollection
 	public ExcelRepositoryCollection(File file, CellProcessor... cellProcessors) throws IOException,
 			MolgenisInvalidFormatException
 	{
-		this(file.getName(), new FileInputStream(file), cellProcessors);
+		super(GenericImporterExtensions.getExcel(), cellProcessors);
+		this.name = file.getName();
+		this.file = file;
+		if (XlsxWorkbook.isXlsx(file))
+		{
+			xlsxWorkbook = new XlsxWorkbook(file);
+		}
+		else
+		{
+			xlsxWorkbook = null;
+			try (InputStream in = new FileInputStream(file))
+			{
+				workbook = createWorkbook(in);
+			}
+		}
 	}
 
 	public ExcelRepositoryCollection(String name, InputStream in, CellProcessor... cellProcessors) throws IOException,
@@ -54,9 +75,16 @@ public class ExcelRepositoryCollection extends FileRepositoryCollection
 	{
 		super(GenericImporterExtensions.getExcel(), cellProcessors);
 		this.name = name;
+		this.file = null;
+		this.xlsxWorkbook = null;
+		this.workbook = createWorkbook(in);
+	}
+
+	private static Workbook createWorkbook(InputStream in) throws IOException, MolgenisInvalidFormatException
+	{
 		try
 		{
-			workbook = WorkbookFactory.create(in);
+			return WorkbookFactory.create(in);
 		}
 		catch (InvalidFormatException e)
 		{
@@ -64,6 +92,29 @@ public class ExcelRepositoryCollection extends FileRepositoryCollection
 		}
 	}
 
+	/**
+	 * Returns the workbook, loads an xlsx workbook that was streamed so far into memory
+	 */
+	private Workbook getWorkbook()
+	{
+		if (workbook == null)
+		{
+			try (InputStream in = new FileInputStream(file))
+			{
+				workbook = createWorkbook(in);
+			}
+			catch (IOException e)
+			{
+				throw new UncheckedIOException(e);
+			}
+			catch (MolgenisInvalidFormatException e)
+			{
+				throw new MolgenisDataException(e);
+			}
+		}
+		return workbook;
+	}
+
 	@Override
 	public Iterable<String> getEntityNames()
 	{
@@ -81,6 +132,12 @@ public class ExcelRepositoryCollection extends FileRepositoryCollection
 	@Override
 	public Repository getRepository(String name)
 	{
+		if (workbook == null)
+		{
+			XlsxSheet xlsxSheet = xlsxWorkbook.getSheet(name);
+			return xlsxSheet != null ? new ExcelRepository(this.name, xlsxSheet, cellProcessors) : null;
+		}
+
 		Sheet poiSheet = workbook.getSheet(name);
 		if (poiSheet == null)
 		{
@@ -92,16 +149,23 @@ public class ExcelRepositoryCollection extends FileRepositoryCollection
 
 	public int getNumberOfSheets()
 	{
+		if (workbook == null) return xlsxWorkbook.getSheetNames().size();
 		return workbook.getNumberOfSheets();
 	}
 
 	public String getSheetName(int i)
 	{
+		if (workbook == null) return xlsxWorkbook.getSheetNames().get(i);
 		return workbook.getSheetName(i);
 	}
 
 	public ExcelRepository getSheet(int i)
 	{
+		if (workbook == null)
+		{
+			return new ExcelRepository(name, xlsxWorkbook.getSheet(getSheetName(i)), cellProcessors);
+		}
+
 		Sheet poiSheet = workbook.getSheetAt(i);
 		if (poiSheet == null)
 		{
@@ -114,7 +178,7 @@ public class ExcelRepositoryCollection extends FileRepositoryCollection
 	public ExcelSheetWriter createWritable(String entityName, List<AttributeMetaData> attributes,
 			AttributeWriteMode attributeWriteMode)
 	{
-		Sheet sheet = workbook.createSheet(entityName);
+		Sheet sheet = getWorkbook().createSheet(entityName);
 		return new ExcelSheetWriter(sheet, attributes, attributeWriteMode, cellProcessors);
 	}
 
@@ -128,7 +192,7 @@ public class ExcelRepositoryCollection extends FileRepositoryCollection
 
 	public void save(OutputStream out) throws IOException
 	{
-		workbook.write(out);
+		getWorkbook().write(out);
 	}
 
 	@Override
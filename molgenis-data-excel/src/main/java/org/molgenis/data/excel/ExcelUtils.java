@@ -37,12 +37,7 @@ public class ExcelUtils
 				}
 				else
 				{
-					// excel stores integer values as double values
-					// read an integer if the double value equals the
-					// integer value
-					double x = cell.getNumericCellValue();
-					if (x == Math.rint(x) && !Double.isNaN(x) && !Double.isInfinite(x)) value = String.valueOf((int) x);
-					else value = String.valueOf(x);
+					value = toValue(cell.getNumericCellValue());
 				}
 				break;
 			case Cell.CELL_TYPE_BOOLEAN:
@@ -64,13 +59,7 @@ public class ExcelUtils
 						}
 						else
 						{
-							// excel stores integer values as double values
-							// read an integer if the double value equals the
-							// integer value
-							double x = cellValue.getNumberValue();
-							if (x == Math.rint(x) && !Double.isNaN(x) && !Double.isInfinite(x)) value = String
-									.valueOf((int) x);
-							else value = String.valueOf(x);
+							value = toValue(cellValue.getNumberValue());
 						}
 						break;
 					case Cell.CELL_TYPE_STRING:
@@ -89,4 +78,14 @@ public class ExcelUtils
 
 		return AbstractCellProcessor.processCell(value, false, cellProcessors);
 	}
+
+	// Gets a numeric cell value as String
+	static String toValue(double x)
+	{
+		// excel stores integer values as double values
+		// read an integer if the double value equals the
+		// integer value
+		if (x == Math.rint(x) && !Double.isNaN(x) && !Double.isInfinite(x)) return String.valueOf((int) x);
+		else return String.valueOf(x);
+	}
 }
\ No newline at end of file
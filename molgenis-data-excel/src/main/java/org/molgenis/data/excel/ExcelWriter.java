@@ -12,6 +12,7 @@ import java.util.stream.Collectors;
 import org.apache.poi.hssf.usermodel.HSSFWorkbook;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.molgenis.data.AttributeMetaData;
 import org.molgenis.data.MolgenisDataException;
@@ -22,9 +23,15 @@ import org.molgenis.data.support.DefaultAttributeMetaData;
 
 /**
  * Creates new Excel sheets
+ * 
+ * XLSX workbooks are written with a streaming workbook that only keeps a window of rows of each sheet in memory, older
+ * rows are flushed to compressed temporary files that are deleted when the writer is closed.
  */
 public class ExcelWriter implements WritableFactory
 {
+	/** default number of rows per sheet that is kept in memory when writing XLSX workbooks */
+	public static final int DEFAULT_ROW_ACCESS_WINDOW_SIZE = 100;
+
 	private final Workbook workbook;
 	private final OutputStream os;
 	private List<CellProcessor> cellProcessors;
@@ -40,11 +47,22 @@ public class ExcelWriter implements WritableFactory
 	}
 
 	public ExcelWriter(OutputStream os, FileFormat format)
+	{
+		this(os, format, DEFAULT_ROW_ACCESS_WINDOW_SIZE);
+	}
+
+	/**
+	 * @param rowAccessWindowSize
+	 *            number of rows per sheet that is kept in memory when writing XLSX workbooks, ignored for XLS
+	 */
+	public ExcelWriter(OutputStream os, FileFormat format, int rowAccessWindowSize)
 	{
 		if (os == null) throw new IllegalArgumentException("output stream is null");
 		if (format == null) throw new IllegalArgumentException("format is null");
+		if (rowAccessWindowSize <= 0) throw new IllegalArgumentException("row access window size must be positive");
 		this.os = os;
-		this.workbook = format == FileFormat.XLS ? new HSSFWorkbook() : new XSSFWorkbook();
+		this.workbook = format == FileFormat.XLS ? new HSSFWorkbook() : new SXSSFWorkbook(new XSSFWorkbook(),
+				rowAccessWindowSize, true);
 	}
 
 	public ExcelWriter(File file) throws FileNotFoundException
@@ -82,6 +100,11 @@ public class ExcelWriter implements WritableFactory
 		{
 			throw new MolgenisDataException("Exception writing to excel file", e);
 		}
+		finally
+		{
+			// delete the temporary files of the flushed rows
+			if (workbook instanceof SXSSFWorkbook) ((SXSSFWorkbook) workbook).dispose();
+		}
 		os.close();
 	}
 
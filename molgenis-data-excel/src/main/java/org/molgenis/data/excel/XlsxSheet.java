@@ -0,0 +1,325 @@
+package org.molgenis.data.excel;
+
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.molgenis.data.DataConverter;
+import org.molgenis.data.MolgenisDataException;
+
+/**
+ * Sheet of a {@link XlsxWorkbook} that is parsed row by row, only the row that is being read is kept in memory.
+ *
+ * Rows are returned as lists of cell values indexed by column, missing and blank cells are null. Cell values are
+ * converted to strings in the same way as {@link ExcelUtils#toValue(Cell)}, formula cells are read from their cached
+ * values.
+ */
+class XlsxSheet
+{
+	private final XlsxWorkbook workbook;
+	private final String name;
+	private final String relId;
+
+	XlsxSheet(XlsxWorkbook workbook, String name, String relId)
+	{
+		this.workbook = requireNonNull(workbook);
+		this.name = requireNonNull(name);
+		this.relId = requireNonNull(relId);
+	}
+
+	String getName()
+	{
+		return name;
+	}
+
+	/**
+	 * Opens an iterator over the rows of the sheet, the iterator is closed when the last row was read.
+	 *
+	 * @throws MolgenisDataException
+	 *             when the sheet contains merged regions, which is detected after the last row was read
+	 */
+	RowIterator iterator()
+	{
+		return new RowIterator();
+	}
+
+	int getNrRows()
+	{
+		try (RowIterator it = iterator())
+		{
+			int nrRows = 0;
+			while (it.hasNext())
+			{
+				it.next();
+				nrRows = it.getRowNum() + 1;
+			}
+			return nrRows;
+		}
+	}
+
+	class RowIterator implements Iterator<List<String>>, Closeable
+	{
+		private final OPCPackage opcPackage;
+		private final InputStream in;
+		private final XMLStreamReader reader;
+		private List<String> next;
+		/** 0-based index of the last parsed row */
+		private int parsedRowNum = -1;
+		/** 0-based index of the last returned row */
+		private int rowNum = -1;
+		private boolean closed;
+
+		private RowIterator()
+		{
+			try
+			{
+				opcPackage = workbook.openPackage();
+			}
+			catch (OpenXML4JException e)
+			{
+				throw new MolgenisDataException(e);
+			}
+
+			InputStream in = null;
+			try
+			{
+				in = new XSSFReader(opcPackage).getSheet(relId);
+				reader = XlsxWorkbook.createXmlStreamReader(in);
+			}
+			catch (IOException | OpenXML4JException | XMLStreamException e)
+			{
+				try
+				{
+					if (in != null) in.close();
+				}
+				catch (IOException closeException)
+				{
+					e.addSuppressed(closeException);
+				}
+				opcPackage.revert();
+				throw e instanceof IOException ? new UncheckedIOException((IOException) e) : new MolgenisDataException(
+						e);
+			}
+			this.in = in;
+		}
+
+		@Override
+		public boolean hasNext()
+		{
+			if (next == null && !closed)
+			{
+				try
+				{
+					next = readRow();
+				}
+				catch (XMLStreamException | RuntimeException e)
+				{
+					close();
+					throw e instanceof RuntimeException ? (RuntimeException) e : new MolgenisDataException(e);
+				}
+				if (next == null) close();
+			}
+			return next != null;
+		}
+
+		@Override
+		public List<String> next()
+		{
+			if (!hasNext()) throw new NoSuchElementException();
+			List<String> row = next;
+			next = null;
+			rowNum = parsedRowNum;
+			return row;
+		}
+
+		/**
+		 * Returns the 0-based index of the last returned row in the sheet
+		 */
+		int getRowNum()
+		{
+			return rowNum;
+		}
+
+		boolean isClosed()
+		{
+			return closed;
+		}
+
+		@Override
+		public void close()
+		{
+			if (closed) return;
+			closed = true;
+			try
+			{
+				reader.close();
+				in.close();
+			}
+			catch (XMLStreamException e)
+			{
+				throw new MolgenisDataException(e);
+			}
+			catch (IOException e)
+			{
+				throw new UncheckedIOException(e);
+			}
+			finally
+			{
+				opcPackage.revert();
+			}
+		}
+
+		private List<String> readRow() throws XMLStreamException
+		{
+			while (reader.hasNext())
+			{
+				if (reader.next() != XMLStreamConstants.START_ELEMENT) continue;
+				switch (reader.getLocalName())
+				{
+					case "row":
+						String ref = reader.getAttributeValue(null, "r");
+						parsedRowNum = ref != null ? Integer.parseInt(ref) - 1 : parsedRowNum + 1;
+						return readCells();
+					case "mergeCell":
+						throw new MolgenisDataException(format(
+								"Sheet [%s] contains merged regions which is not supported", name));
+					default:
+						break;
+				}
+			}
+			return null;
+		}
+
+		private List<String> readCells() throws XMLStreamException
+		{
+			List<String> values = new ArrayList<>();
+			int column = -1;
+			String type = null;
+			String style = null;
+			String value = null;
+			StringBuilder inlineString = null;
+
+			while (reader.hasNext())
+			{
+				int event = reader.next();
+				if (event == XMLStreamConstants.START_ELEMENT)
+				{
+					switch (reader.getLocalName())
+					{
+						case "c":
+							String ref = reader.getAttributeValue(null, "r");
+							column = ref != null ? toColumnIndex(ref) : column + 1;
+							type = reader.getAttributeValue(null, "t");
+							style = reader.getAttributeValue(null, "s");
+							value = null;
+							inlineString = null;
+							break;
+						case "v":
+							value = reader.getElementText();
+							break;
+						case "is":
+							inlineString = new StringBuilder();
+							break;
+						case "t":
+							if (inlineString != null) inlineString.append(reader.getElementText());
+							break;
+						case "rPh":
+							// phonetic runs of inline strings are not part of the value
+							skipElement();
+							break;
+						default:
+							break;
+					}
+				}
+				else if (event == XMLStreamConstants.END_ELEMENT)
+				{
+					switch (reader.getLocalName())
+					{
+						case "c":
+							while (values.size() <= column)
+							{
+								values.add(null);
+							}
+							values.set(column, toValue(type, style, value, inlineString));
+							break;
+						case "row":
+							return values;
+						default:
+							break;
+					}
+				}
+			}
+			throw new MolgenisDataException(format("Sheet [%s] ends in row %d", name, parsedRowNum + 1));
+		}
+
+		private void skipElement() throws XMLStreamException
+		{
+			for (int depth = 1; depth > 0;)
+			{
+				int event = reader.next();
+				if (event == XMLStreamConstants.START_ELEMENT) ++depth;
+				else if (event == XMLStreamConstants.END_ELEMENT) --depth;
+			}
+		}
+
+		private String toValue(String type, String style, String value, StringBuilder inlineString)
+		{
+			switch (type != null ? type : "n")
+			{
+				case "n":
+					// blank cells and formula cells without a cached value have no value
+					if (value == null || value.isEmpty()) return null;
+					double x = Double.parseDouble(value);
+					if (style != null && workbook.isDateFormatted(Integer.parseInt(style))
+							&& DateUtil.isValidExcelDate(x))
+					{
+						return DataConverter.toString(DateUtil.getJavaDate(x, workbook.isDate1904()));
+					}
+					return ExcelUtils.toValue(x);
+				case "s":
+					return value != null ? workbook.getSharedString(Integer.parseInt(value)) : null;
+				case "inlineStr":
+					return inlineString != null ? inlineString.toString() : null;
+				case "b":
+					return value != null ? String.valueOf("1".equals(value) || "true".equals(value)) : null;
+				case "e":
+					throw new MolgenisDataException("unsupported cell type: " + Cell.CELL_TYPE_ERROR);
+				default:
+					// formula strings (str) and ISO 8601 dates (d)
+					return value;
+			}
+		}
+	}
+
+	/**
+	 * Returns the 0-based column index of a cell reference such as AB12
+	 */
+	private static int toColumnIndex(String cellRef)
+	{
+		int column = 0;
+		for (int i = 0; i < cellRef.length(); ++i)
+		{
+			char c = cellRef.charAt(i);
+			if (c < 'A' || c > 'Z') break;
+			column = column * 26 + (c - 'A' + 1);
+		}
+		return column - 1;
+	}
+}
@@ -0,0 +1,204 @@
+package org.molgenis.data.excel;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.poi.POIXMLDocument;
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.molgenis.data.MolgenisDataException;
+import org.molgenis.data.MolgenisInvalidFormatException;
+import org.xml.sax.SAXException;
+
+/**
+ * Office Open XML (xlsx) workbook of which the sheets are read as a stream of rows instead of building the POI object
+ * model of the whole workbook. Only the sheet names, the shared strings table and the cell styles are kept in memory.
+ */
+class XlsxWorkbook
+{
+	private static final String RELATIONSHIPS_NAMESPACE = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+
+	private static final XMLInputFactory XML_INPUT_FACTORY;
+
+	static
+	{
+		XML_INPUT_FACTORY = XMLInputFactory.newInstance();
+		XML_INPUT_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+	}
+
+	private final File file;
+	/** sheet names in workbook order mapped on the relationship ids of the sheet parts */
+	private final Map<String, String> sheetRelIds;
+	private final boolean date1904;
+	/** date formatted flags by cell style index */
+	private final Map<Integer, Boolean> dateFormattedStyles = new ConcurrentHashMap<>();
+
+	private ReadOnlySharedStringsTable sharedStringsTable;
+	private StylesTable stylesTable;
+
+	XlsxWorkbook(File file) throws IOException, MolgenisInvalidFormatException
+	{
+		this.file = requireNonNull(file);
+
+		Map<String, String> sheetRelIds = new LinkedHashMap<>();
+		boolean date1904 = false;
+		try
+		{
+			OPCPackage opcPackage = openPackage();
+			try (InputStream in = new XSSFReader(opcPackage).getWorkbookData())
+			{
+				XMLStreamReader reader = createXmlStreamReader(in);
+				try
+				{
+					while (reader.hasNext())
+					{
+						if (reader.next() != XMLStreamConstants.START_ELEMENT) continue;
+						switch (reader.getLocalName())
+						{
+							case "workbookPr":
+								String date1904Value = reader.getAttributeValue(null, "date1904");
+								date1904 = "1".equals(date1904Value) || "true".equals(date1904Value);
+								break;
+							case "sheet":
+								sheetRelIds.put(reader.getAttributeValue(null, "name"),
+										reader.getAttributeValue(RELATIONSHIPS_NAMESPACE, "id"));
+								break;
+							default:
+								break;
+						}
+					}
+				}
+				finally
+				{
+					reader.close();
+				}
+			}
+			finally
+			{
+				opcPackage.revert();
+			}
+		}
+		catch (OpenXML4JException | XMLStreamException e)
+		{
+			throw new MolgenisInvalidFormatException(e.getMessage());
+		}
+		this.sheetRelIds = sheetRelIds;
+		this.date1904 = date1904;
+	}
+
+	/**
+	 * Returns whether the file is an Office Open XML document instead of an Excel 97-2003 (xls) workbook
+	 */
+	static boolean isXlsx(File file) throws IOException
+	{
+		try (InputStream in = new BufferedInputStream(new FileInputStream(file)))
+		{
+			return POIXMLDocument.hasOOXMLHeader(in);
+		}
+	}
+
+	List<String> getSheetNames()
+	{
+		return new ArrayList<>(sheetRelIds.keySet());
+	}
+
+	/**
+	 * Returns the sheet with the given name or null if the workbook does not contain the sheet
+	 */
+	XlsxSheet getSheet(String name)
+	{
+		String relId = sheetRelIds.get(name);
+		return relId != null ? new XlsxSheet(this, name, relId) : null;
+	}
+
+	boolean isDate1904()
+	{
+		return date1904;
+	}
+
+	String getSharedString(int index)
+	{
+		loadTables();
+		return sharedStringsTable.getEntryAt(index);
+	}
+
+	/**
+	 * Returns whether cells with the given style contain dates
+	 */
+	boolean isDateFormatted(int styleIndex)
+	{
+		return dateFormattedStyles.computeIfAbsent(styleIndex, index -> {
+			loadTables();
+			if (stylesTable == null) return false;
+			XSSFCellStyle style = stylesTable.getStyleAt(index);
+			return style != null && DateUtil.isADateFormat(style.getDataFormat(), style.getDataFormatString());
+		});
+	}
+
+	/**
+	 * Opens the package of the workbook read-only, the package must be closed with {@link OPCPackage#revert()}
+	 */
+	OPCPackage openPackage() throws InvalidFormatException
+	{
+		return OPCPackage.open(file.getPath(), PackageAccess.READ);
+	}
+
+	static XMLStreamReader createXmlStreamReader(InputStream in) throws XMLStreamException
+	{
+		return XML_INPUT_FACTORY.createXMLStreamReader(in);
+	}
+
+	/**
+	 * Loads the shared strings and styles tables which are shared by all sheets
+	 */
+	private synchronized void loadTables()
+	{
+		if (sharedStringsTable != null) return;
+
+		try
+		{
+			OPCPackage opcPackage = openPackage();
+			try
+			{
+				stylesTable = new XSSFReader(opcPackage).getStylesTable();
+				sharedStringsTable = new ReadOnlySharedStringsTable(opcPackage);
+			}
+			finally
+			{
+				opcPackage.revert();
+			}
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+		catch (OpenXML4JException | SAXException e)
+		{
+			throw new MolgenisDataException(e);
+		}
+	}
+}
@@ -0,0 +1,105 @@
+package org.molgenis.data.excel;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.Arrays;
+import java.util.Iterator;
+
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.molgenis.data.DataConverter;
+import org.molgenis.data.Entity;
+import org.molgenis.data.MolgenisDataException;
+import org.molgenis.data.MolgenisInvalidFormatException;
+import org.molgenis.data.Repository;
+import org.molgenis.data.processor.TrimProcessor;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Lists;
+
+public class ExcelRepositoryXlsxTest
+{
+	private ExcelRepositoryCollection excelRepositoryCollection;
+
+	@BeforeMethod
+	public void beforeMethod() throws IOException, MolgenisInvalidFormatException, URISyntaxException
+	{
+		File file = new File(getClass().getResource("/test.xlsx").toURI());
+		excelRepositoryCollection = new ExcelRepositoryCollection(file, new TrimProcessor());
+	}
+
+	@Test
+	public void getEntityNames()
+	{
+		assertEquals(excelRepositoryCollection.getNumberOfSheets(), 3);
+		assertEquals(Lists.newArrayList(excelRepositoryCollection.getEntityNames()),
+				Arrays.asList("test", "test_mergedcells", "Blad2"));
+		assertNull(excelRepositoryCollection.getRepository("unknown"));
+	}
+
+	@Test
+	public void getAttributes()
+	{
+		Repository repo = excelRepositoryCollection.getRepository("test");
+		assertEquals(repo.getName(), "test");
+		assertEquals(Lists.newArrayList(repo.getEntityMetaData().getAtomicAttributes()).size(), 2);
+		assertEquals(repo.getEntityMetaData().getAttribute("col1").getName(), "col1");
+		assertEquals(repo.getEntityMetaData().getAttribute("col2").getName(), "col2");
+	}
+
+	@Test
+	public void iterator() throws IOException
+	{
+		try (ExcelRepository repo = excelRepositoryCollection.getSheet(0))
+		{
+			assertEquals(repo.getNrRows(), 6);
+			assertEquals(repo.count(), 4);
+
+			Iterator<Entity> it = repo.iterator();
+			assertTrue(it.hasNext());
+
+			Entity row1 = it.next();
+			assertEquals(row1.get("col1"), "val1");
+			assertEquals(row1.get("col2"), "val2");
+
+			// inline string
+			Entity row2 = it.next();
+			assertEquals(row2.get("col1"), "val3");
+			assertEquals(row2.get("col2"), "val4");
+
+			// empty row is skipped
+			Entity row3 = it.next();
+			assertEquals(row3.get("col1"), "XXX");
+			assertEquals(row3.get("col2"), "val6");
+
+			// number cell (col1) and formula cell with cached value (col2)
+			Entity row4 = it.next();
+			assertEquals(row4.get("col1"), "1.2");
+			assertEquals(row4.get("col2"), "2.4");
+			assertFalse(it.hasNext());
+		}
+	}
+
+	@Test
+	public void iteratorDateAndBoolean()
+	{
+		Iterator<Entity> it = excelRepositoryCollection.getRepository("Blad2").iterator();
+		Entity entity = it.next();
+		assertEquals(entity.get("date"), DataConverter.toString(DateUtil.getJavaDate(42005, false)));
+		assertEquals(entity.get("bool"), "true");
+		assertFalse(it.hasNext());
+	}
+
+	@Test(expectedExceptions = MolgenisDataException.class)
+	public void iteratorMergedCells()
+	{
+		excelRepositoryCollection.getRepository("test_mergedcells").forEach(entity -> {
+		});
+	}
+}
@@ -6,11 +6,16 @@ import static org.mockito.Mockito.when;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotNull;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.Arrays;
 
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
 import org.molgenis.data.Entity;
 import org.molgenis.data.Writable;
 import org.molgenis.data.excel.ExcelWriter.FileFormat;
@@ -63,6 +68,43 @@ public class ExcelWriterTest
 		assertEquals(b[3] & 0xff, 0x04);
 	}
 
+	@Test
+	public void ExcelWriterFileFormat_XLSX_rowAccessWindowSize() throws IOException, InvalidFormatException
+	{
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		ExcelWriter excelWriter = new ExcelWriter(bos, FileFormat.XLSX, 10);
+		try
+		{
+			Writable writable = excelWriter.createWritable("sheet", Arrays.asList("col1", "col2"));
+			for (int i = 0; i < 1000; ++i)
+			{
+				Entity entity = new MapEntity();
+				entity.set("col1", "val" + i);
+				entity.set("col2", i);
+				writable.add(entity);
+			}
+		}
+		finally
+		{
+			excelWriter.close();
+		}
+
+		Workbook workbook = WorkbookFactory.create(new ByteArrayInputStream(bos.toByteArray()));
+		Sheet sheet = workbook.getSheet("sheet");
+		assertEquals(sheet.getLastRowNum(), 1000);
+		assertEquals(sheet.getRow(0).getCell(0).getStringCellValue(), "col1");
+		assertEquals(sheet.getRow(1).getCell(0).getStringCellValue(), "val0");
+		assertEquals(sheet.getRow(1000).getCell(0).getStringCellValue(), "val999");
+		assertEquals(sheet.getRow(1000).getCell(1).getStringCellValue(), "999");
+	}
+
+	@SuppressWarnings("resource")
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void ExcelWriterRowAccessWindowSize()
+	{
+		new ExcelWriter(new ByteArrayOutputStream(), FileFormat.XLSX, 0);
+	}
+
 	@Test
 	public void addCellProcessor_header() throws IOException
 	{
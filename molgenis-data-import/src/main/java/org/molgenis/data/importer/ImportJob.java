@@ -48,7 +48,8 @@ public class ImportJob implements Runnable
 
 			SecurityContextHolder.setContext(securityContext);
 
-			EntityImportReport importReport = importService.doImport(source, databaseAction, defaultPackage);
+			EntityImportReport importReport = importService.doImport(source, databaseAction, defaultPackage,
+					new ImportRunProgress(importRunId, importRunService));
 
 			session.setAttribute("SPRING_SECURITY_CONTEXT", securityContext);
 
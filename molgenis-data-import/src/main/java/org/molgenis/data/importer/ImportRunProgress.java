@@ -0,0 +1,72 @@
+package org.molgenis.data.importer;
+
+import static java.util.Objects.requireNonNull;
+
+import org.molgenis.data.jobs.Progress;
+
+/**
+ * Reports the progress of an import to its {@link org.molgenis.data.system.ImportRun}. The start and end of the import
+ * run are reported by the {@link ImportJob}.
+ */
+class ImportRunProgress implements Progress
+{
+	private final String importRunId;
+	private final ImportRunService importRunService;
+	private final long startTime = System.currentTimeMillis();
+	private int progress;
+
+	ImportRunProgress(String importRunId, ImportRunService importRunService)
+	{
+		this.importRunId = requireNonNull(importRunId);
+		this.importRunService = requireNonNull(importRunService);
+	}
+
+	@Override
+	public void start()
+	{
+		// noop
+	}
+
+	@Override
+	public void setProgressMax(int max)
+	{
+		// noop
+	}
+
+	@Override
+	public void progress(int progress, String message)
+	{
+		this.progress = progress;
+		importRunService.updateImportRunProgress(importRunId, progress, message);
+	}
+
+	@Override
+	public void status(String message)
+	{
+		importRunService.updateImportRunProgress(importRunId, progress, message);
+	}
+
+	@Override
+	public void failed(Exception ex)
+	{
+		// noop
+	}
+
+	@Override
+	public void canceled()
+	{
+		// noop
+	}
+
+	@Override
+	public void success()
+	{
+		// noop
+	}
+
+	@Override
+	public Long timeRunning()
+	{
+		return System.currentTimeMillis() - startTime;
+	}
+}
@@ -96,6 +96,25 @@ public class ImportRunService
 		return "importRun " + importRun.getStatus();
 	}
 
+	@RunAsSystem
+	public void updateImportRunProgress(String importRunId, int progress, String message)
+	{
+		ImportRun importRun = dataService.findOne(ImportRun.ENTITY_NAME, importRunId, ImportRun.class);
+		try
+		{
+			if (importRun != null)
+			{
+				importRun.setProgress(progress);
+				importRun.setMessage(message);
+				dataService.update(ImportRun.ENTITY_NAME, importRun);
+			}
+		}
+		catch (Exception e)
+		{
+			LOG.error("Error updating run progress", e);
+		}
+	}
+
 	@RunAsSystem
 	public void failImportRun(String importRunId, String message)
 	{
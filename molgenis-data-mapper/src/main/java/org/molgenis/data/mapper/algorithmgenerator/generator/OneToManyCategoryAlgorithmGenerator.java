@@ -126,7 +126,7 @@ public class OneToManyCategoryAlgorithmGenerator extends AbstractCategoryAlgorit
 				double estimatedValue = amountWrapper.getAmount().getEstimatedValue();
 
 				stringBuilder.append("\"").append(sourceCategory.getCode()).append("\":")
-						.append(DECIMAL_FORMAT.format(estimatedValue)).append(",");
+						.append(formatDecimal(estimatedValue)).append(",");
 			}
 		}
 
@@ -256,13 +256,22 @@ public class OneToManyCategoryAlgorithmGenerator extends AbstractCategoryAlgorit
 
 	int parseAmountMinimumValue(Category category)
 	{
-		return (int) Double
-				.parseDouble(DECIMAL_FORMAT.format(category.getAmountWrapper().getAmount().getMinimumValue()));
+		return (int) Double.parseDouble(formatDecimal(category.getAmountWrapper().getAmount().getMinimumValue()));
 	}
 
 	int parseAmountMaximumValue(Category category)
 	{
-		return (int) Double
-				.parseDouble(DECIMAL_FORMAT.format(category.getAmountWrapper().getAmount().getMaximumValue()));
+		return (int) Double.parseDouble(formatDecimal(category.getAmountWrapper().getAmount().getMaximumValue()));
+	}
+
+	/**
+	 * Formats a decimal, {@link DecimalFormat} is not thread-safe
+	 */
+	private static String formatDecimal(double value)
+	{
+		synchronized (DECIMAL_FORMAT)
+		{
+			return DECIMAL_FORMAT.format(value);
+		}
 	}
 }
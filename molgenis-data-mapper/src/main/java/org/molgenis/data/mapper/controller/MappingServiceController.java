@@ -34,6 +34,8 @@ import org.molgenis.data.Repository;
 import org.molgenis.data.RepositoryCapability;
 import org.molgenis.data.UnknownAttributeException;
 import org.molgenis.data.importer.ImportWizardController;
+import org.molgenis.data.jobs.LoggingProgress;
+import org.molgenis.data.jobs.Progress;
 import org.molgenis.data.mapper.data.request.GenerateAlgorithmRequest;
 import org.molgenis.data.mapper.data.request.MappingServiceRequest;
 import org.molgenis.data.mapper.mapping.model.AlgorithmResult;
@@ -581,7 +583,19 @@ public class MappingServiceController extends MolgenisPluginController
 		try
 		{
 			MappingTarget mappingTarget = mappingService.getMappingProject(mappingProjectId).getMappingTarget(target);
-			String name = mappingService.applyMappings(mappingTarget, newEntityName);
+			Progress progress = new LoggingProgress(LOG, "Create integrated entity [" + newEntityName + "]");
+			progress.start();
+			String name;
+			try
+			{
+				name = mappingService.applyMappings(mappingTarget, newEntityName, progress);
+			}
+			catch (RuntimeException ex)
+			{
+				progress.failed(ex);
+				throw ex;
+			}
+			progress.success();
 			return "redirect:" + menuReaderService.getMenu().findMenuItemPath(DataExplorerController.ID) + "?entity="
 					+ name;
 		}
@@ -947,8 +961,7 @@ public class MappingServiceController extends MolgenisPluginController
 	private void autoGenerateAlgorithms(EntityMapping mapping, String target, EntityMetaData sourceEntityMetaData,
 			EntityMetaData targetEntityMetaData, Iterable<AttributeMetaData> attributes, MappingProject project)
 	{
-		attributes.forEach(attribute -> algorithmService.autoGenerateAlgorithm(sourceEntityMetaData,
-				targetEntityMetaData, mapping, attribute));
+		algorithmService.autoGenerateAlgorithms(sourceEntityMetaData, targetEntityMetaData, mapping, attributes);
 		mappingService.updateMappingProject(project);
 	}
 
@@ -34,6 +34,47 @@ public interface AlgorithmService
 	 */
 	Object apply(AttributeMapping attributeMapping, Entity sourceEntity, EntityMetaData sourceEntityMetaData);
 
+	/**
+	 * Applies {@link AttributeMapping}s to a batch of source {@link Entity}s
+	 * 
+	 * @param attributeMappings
+	 *            {@link AttributeMapping}s to apply
+	 * @param sourceEntities
+	 *            {@link Entity}s to apply the mappings to
+	 * @return for each attribute mapping a List with the mapped value of each source entity
+	 */
+	List<List<Object>> apply(List<AttributeMapping> attributeMappings, List<Entity> sourceEntities,
+			EntityMetaData sourceEntityMetaData);
+
+	/**
+	 * Evaluates the algorithms of {@link AttributeMapping}s for a batch of source {@link Entity}s without converting
+	 * the results to the target attribute data types. Does not access data, source entities should not load data
+	 * lazily if this method is called outside of the transaction.
+	 * 
+	 * @param attributeMappings
+	 *            {@link AttributeMapping}s to evaluate
+	 * @param sourceEntities
+	 *            {@link Entity}s to evaluate the algorithms for
+	 * @return for each attribute mapping a List with the algorithm result of each source entity, or the
+	 *         {@link RuntimeException} if one was thrown
+	 */
+	List<List<Object>> evaluate(List<AttributeMapping> attributeMappings, List<Entity> sourceEntities,
+			EntityMetaData sourceEntityMetaData);
+
+	/**
+	 * Converts algorithm results returned by {@link #evaluate(List, List, EntityMetaData)} to the target attribute data
+	 * types, referenced entities are retrieved with one query for each attribute mapping.
+	 * 
+	 * @param attributeMappings
+	 *            evaluated {@link AttributeMapping}s
+	 * @param algorithmValues
+	 *            for each attribute mapping a List with the algorithm results
+	 * @return for each attribute mapping a List with the mapped values
+	 * @throws RuntimeException
+	 *             if one of the algorithm results is an error
+	 */
+	List<List<Object>> convert(List<AttributeMapping> attributeMappings, List<List<Object>> algorithmValues);
+
 	/**
 	 * Retrieves the names of the source attributes in an algorithm
 	 * 
@@ -54,6 +95,18 @@ public interface AlgorithmService
 	void autoGenerateAlgorithm(EntityMetaData sourceEntityMetaData, EntityMetaData targetEntityMetaData,
 			EntityMapping mapping, AttributeMetaData targetAttribute);
 
+	/**
+	 * Creates attribute mappings for all target attributes for which the semantic search service finds one. The
+	 * relevant source attributes for the target attributes are searched in parallel.
+	 * 
+	 * @param sourceEntityMetaData
+	 * @param targetEntityMetaData
+	 * @param mapping
+	 * @param targetAttributes
+	 */
+	void autoGenerateAlgorithms(EntityMetaData sourceEntityMetaData, EntityMetaData targetEntityMetaData,
+			EntityMapping mapping, Iterable<AttributeMetaData> targetAttributes);
+
 	/**
 	 * Generates the algorithm based on the given targetAttribute and sourceAttribute
 	 * 
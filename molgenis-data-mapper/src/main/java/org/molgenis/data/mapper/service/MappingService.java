@@ -3,6 +3,7 @@ package org.molgenis.data.mapper.service;
 import java.util.List;
 
 import org.molgenis.auth.MolgenisUser;
+import org.molgenis.data.jobs.Progress;
 import org.molgenis.data.mapper.mapping.model.AttributeMapping;
 import org.molgenis.data.mapper.mapping.model.EntityMapping;
 import org.molgenis.data.mapper.mapping.model.MappingProject;
@@ -55,6 +56,19 @@ public interface MappingService
 	 */
 	String applyMappings(MappingTarget mappingTarget, String entityName);
 
+	/**
+	 * Applies all mappings in a {@link MappingTarget} and reports the progress
+	 * 
+	 * @param mappingTarget
+	 *            the MappingTarget whose mappings are applied
+	 * @param newEntityName
+	 *            the name of the entity to map to
+	 * @param progress
+	 *            {@link Progress} to report the number of mapped source entities to, may be null
+	 * @return fully qualified name of the generated entity
+	 */
+	String applyMappings(MappingTarget mappingTarget, String entityName, Progress progress);
+
 	/**
 	 * Deletes a {@link MappingProject}
 	 * 
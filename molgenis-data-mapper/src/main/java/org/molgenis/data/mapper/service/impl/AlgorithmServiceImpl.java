@@ -3,21 +3,33 @@ package org.molgenis.data.mapper.service.impl;
 import static java.util.Objects.requireNonNull;
 import static java.util.stream.Collectors.toList;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import javax.annotation.PreDestroy;
+
 import org.apache.commons.lang3.StringUtils;
 import org.molgenis.MolgenisFieldTypes.FieldTypeEnum;
 import org.molgenis.data.AttributeMetaData;
 import org.molgenis.data.DataService;
 import org.molgenis.data.Entity;
 import org.molgenis.data.EntityMetaData;
+import org.molgenis.data.MolgenisDataException;
 import org.molgenis.data.mapper.algorithmgenerator.bean.GeneratedAlgorithm;
 import org.molgenis.data.mapper.algorithmgenerator.service.AlgorithmGeneratorService;
 import org.molgenis.data.mapper.mapping.model.AttributeMapping;
@@ -28,6 +40,7 @@ import org.molgenis.data.semanticsearch.explain.bean.ExplainedAttributeMetaData;
 import org.molgenis.data.semanticsearch.service.OntologyTagService;
 import org.molgenis.data.semanticsearch.service.SemanticSearchService;
 import org.molgenis.data.support.MapEntity;
+import org.molgenis.fieldtypes.FieldType;
 import org.molgenis.js.RhinoConfig;
 import org.molgenis.js.ScriptEvaluator;
 import org.molgenis.ontology.core.model.OntologyTerm;
@@ -37,10 +50,13 @@ import org.mozilla.javascript.NativeArray;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
 
 import com.google.common.base.Function;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Multimap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 public class AlgorithmServiceImpl implements AlgorithmService
 {
@@ -51,6 +67,13 @@ public class AlgorithmServiceImpl implements AlgorithmService
 	private final SemanticSearchService semanticSearchService;
 	private final AlgorithmGeneratorService algorithmGeneratorService;
 
+	/**
+	 * Bounded executor, shared by all calls, that generates the algorithms for target attributes
+	 */
+	private final ThreadPoolExecutor executorService = (ThreadPoolExecutor) Executors.newFixedThreadPool(
+			Runtime.getRuntime().availableProcessors(),
+			new ThreadFactoryBuilder().setNameFormat("algorithm-generator-%d").setDaemon(true).build());
+
 	@Autowired
 	public AlgorithmServiceImpl(DataService dataService, OntologyTagService ontologyTagService,
 			SemanticSearchService semanticSearchService, AlgorithmGeneratorService algorithmGeneratorService)
@@ -75,17 +98,126 @@ public class AlgorithmServiceImpl implements AlgorithmService
 	@RunAsSystem
 	public void autoGenerateAlgorithm(EntityMetaData sourceEntityMetaData, EntityMetaData targetEntityMetaData,
 			EntityMapping mapping, AttributeMetaData targetAttribute)
+	{
+		GeneratedAlgorithm generatedAlgorithm = autoGenerateAlgorithm(sourceEntityMetaData, targetEntityMetaData,
+				targetAttribute);
+		addAttributeMapping(mapping, targetAttribute, generatedAlgorithm);
+	}
+
+	@Override
+	@RunAsSystem
+	public void autoGenerateAlgorithms(EntityMetaData sourceEntityMetaData, EntityMetaData targetEntityMetaData,
+			EntityMapping mapping, Iterable<AttributeMetaData> targetAttributes)
+	{
+		// search the relevant source attributes on the calling thread, only generate the algorithms in parallel
+		SecurityContext securityContext = SecurityContextHolder.getContext();
+		Map<AttributeMetaData, Future<GeneratedAlgorithm>> generatedAlgorithms = new LinkedHashMap<>();
+		try
+		{
+			for (AttributeMetaData targetAttribute : targetAttributes)
+			{
+				Map<AttributeMetaData, ExplainedAttributeMetaData> relevantAttributes = findRelevantAttributes(
+						sourceEntityMetaData, targetEntityMetaData, targetAttribute);
+				generatedAlgorithms.put(targetAttribute, executorService.submit(() -> {
+					SecurityContext originalContext = SecurityContextHolder.getContext();
+					try
+					{
+						SecurityContextHolder.setContext(securityContext);
+						return algorithmGeneratorService.generate(targetAttribute, relevantAttributes,
+								targetEntityMetaData, sourceEntityMetaData);
+					}
+					finally
+					{
+						SecurityContextHolder.setContext(originalContext);
+					}
+				}));
+			}
+
+			// add the attribute mappings in target order
+			for (Map.Entry<AttributeMetaData, Future<GeneratedAlgorithm>> entry : generatedAlgorithms.entrySet())
+			{
+				addAttributeMapping(mapping, entry.getKey(), getGeneratedAlgorithm(entry.getValue()));
+			}
+		}
+		finally
+		{
+			// don't leave work for this mapping behind on the shared executor
+			generatedAlgorithms.values().forEach(generatedAlgorithm -> generatedAlgorithm.cancel(true));
+		}
+	}
+
+	/**
+	 * Sets the number of threads that generate algorithms, defaults to the number of available processors
+	 */
+	public synchronized void setNumberOfThreads(int numberOfThreads)
+	{
+		if (numberOfThreads < 1)
+		{
+			throw new IllegalArgumentException("Number of threads must be at least 1");
+		}
+		// the core pool size may not exceed the maximum pool size
+		if (numberOfThreads > executorService.getMaximumPoolSize())
+		{
+			executorService.setMaximumPoolSize(numberOfThreads);
+			executorService.setCorePoolSize(numberOfThreads);
+		}
+		else
+		{
+			executorService.setCorePoolSize(numberOfThreads);
+			executorService.setMaximumPoolSize(numberOfThreads);
+		}
+	}
+
+	@PreDestroy
+	public void shutdown()
+	{
+		executorService.shutdownNow();
+	}
+
+	private GeneratedAlgorithm autoGenerateAlgorithm(EntityMetaData sourceEntityMetaData,
+			EntityMetaData targetEntityMetaData, AttributeMetaData targetAttribute)
+	{
+		Map<AttributeMetaData, ExplainedAttributeMetaData> relevantAttributes = findRelevantAttributes(
+				sourceEntityMetaData, targetEntityMetaData, targetAttribute);
+		return algorithmGeneratorService.generate(targetAttribute, relevantAttributes, targetEntityMetaData,
+				sourceEntityMetaData);
+	}
+
+	private Map<AttributeMetaData, ExplainedAttributeMetaData> findRelevantAttributes(
+			EntityMetaData sourceEntityMetaData, EntityMetaData targetEntityMetaData, AttributeMetaData targetAttribute)
 	{
 		LOG.debug("createAttributeMappingIfOnlyOneMatch: target= " + targetAttribute.getName());
 		Multimap<Relation, OntologyTerm> tagsForAttribute = ontologyTagService.getTagsForAttribute(targetEntityMetaData,
 				targetAttribute);
 
-		Map<AttributeMetaData, ExplainedAttributeMetaData> relevantAttributes = semanticSearchService
-				.decisionTreeToFindRelevantAttributes(sourceEntityMetaData, targetAttribute, tagsForAttribute.values(),
-						null);
-		GeneratedAlgorithm generatedAlgorithm = algorithmGeneratorService.generate(targetAttribute, relevantAttributes,
-				targetEntityMetaData, sourceEntityMetaData);
+		return semanticSearchService.decisionTreeToFindRelevantAttributes(sourceEntityMetaData, targetAttribute,
+				tagsForAttribute.values(), null);
+	}
+
+	private static GeneratedAlgorithm getGeneratedAlgorithm(Future<GeneratedAlgorithm> generatedAlgorithm)
+	{
+		try
+		{
+			return generatedAlgorithm.get();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new MolgenisDataException(e);
+		}
+		catch (ExecutionException e)
+		{
+			if (e.getCause() instanceof RuntimeException)
+			{
+				throw (RuntimeException) e.getCause();
+			}
+			throw new MolgenisDataException(e.getCause());
+		}
+	}
 
+	private static void addAttributeMapping(EntityMapping mapping, AttributeMetaData targetAttribute,
+			GeneratedAlgorithm generatedAlgorithm)
+	{
 		if (StringUtils.isNotBlank(generatedAlgorithm.getAlgorithm()))
 		{
 			AttributeMapping attributeMapping = mapping.addAttributeMapping(targetAttribute.getName());
@@ -156,6 +288,122 @@ public class AlgorithmServiceImpl implements AlgorithmService
 		return convert(value, attributeMapping.getTargetAttributeMetaData());
 	}
 
+	@Override
+	public List<List<Object>> apply(List<AttributeMapping> attributeMappings, List<Entity> sourceEntities,
+			EntityMetaData sourceEntityMetaData)
+	{
+		return convert(attributeMappings, evaluate(attributeMappings, sourceEntities, sourceEntityMetaData));
+	}
+
+	@Override
+	public List<List<Object>> evaluate(List<AttributeMapping> attributeMappings, List<Entity> sourceEntities,
+			EntityMetaData sourceEntityMetaData)
+	{
+		// evaluate all algorithms of the attribute mappings in one go
+		List<AttributeMapping> algorithmMappings = attributeMappings.stream()
+				.filter(attributeMapping -> !StringUtils.isEmpty(attributeMapping.getAlgorithm())).collect(toList());
+		List<List<Object>> algorithmValues;
+		if (!algorithmMappings.isEmpty())
+		{
+			Collection<String> attributeNames = new LinkedHashSet<>();
+			algorithmMappings.forEach(attributeMapping -> attributeNames
+					.addAll(getSourceAttributeNames(attributeMapping.getAlgorithm())));
+			List<Entity> entities = sourceEntities.stream()
+					.map(sourceEntity -> createMapEntity(attributeNames, sourceEntity)).collect(toList());
+			List<String> algorithms = algorithmMappings.stream().map(AttributeMapping::getAlgorithm)
+					.collect(toList());
+			algorithmValues = ScriptEvaluator.evalBatch(algorithms, entities, sourceEntityMetaData);
+		}
+		else
+		{
+			algorithmValues = Collections.emptyList();
+		}
+
+		List<List<Object>> values = new ArrayList<>(attributeMappings.size());
+		Iterator<List<Object>> algorithmValuesIterator = algorithmValues.iterator();
+		for (AttributeMapping attributeMapping : attributeMappings)
+		{
+			if (StringUtils.isEmpty(attributeMapping.getAlgorithm()))
+			{
+				values.add(Collections.nCopies(sourceEntities.size(), null));
+			}
+			else
+			{
+				values.add(algorithmValuesIterator.next());
+			}
+		}
+		return values;
+	}
+
+	@Override
+	public List<List<Object>> convert(List<AttributeMapping> attributeMappings, List<List<Object>> algorithmValues)
+	{
+		List<List<Object>> mappedValues = new ArrayList<>(attributeMappings.size());
+		for (int i = 0; i < attributeMappings.size(); ++i)
+		{
+			AttributeMapping attributeMapping = attributeMappings.get(i);
+			if (StringUtils.isEmpty(attributeMapping.getAlgorithm()))
+			{
+				mappedValues.add(algorithmValues.get(i));
+			}
+			else
+			{
+				AttributeMetaData targetAttribute = attributeMapping.getTargetAttributeMetaData();
+				mappedValues.add(convertColumn(algorithmValues.get(i), targetAttribute));
+			}
+		}
+		return mappedValues;
+	}
+
+	/**
+	 * Converts a column of values, referenced entities are retrieved with one query for the whole column.
+	 * 
+	 * @throws RuntimeException
+	 *             if one of the values is an error
+	 */
+	private List<Object> convertColumn(List<Object> values, AttributeMetaData attributeMetaData)
+	{
+		for (Object value : values)
+		{
+			if (value instanceof RuntimeException)
+			{
+				throw (RuntimeException) value;
+			}
+		}
+
+		FieldTypeEnum targetDataType = attributeMetaData.getDataType().getEnumType();
+		if (targetDataType == FieldTypeEnum.XREF || targetDataType == FieldTypeEnum.CATEGORICAL)
+		{
+			EntityMetaData refEntityMeta = attributeMetaData.getRefEntity();
+			FieldType idDataType = refEntityMeta.getIdAttribute().getDataType();
+			List<Object> ids = new ArrayList<>(values.size());
+			for (Object value : values)
+			{
+				Object id;
+				try
+				{
+					id = value != null ? idDataType.convert(Context.toString(value)) : null;
+				}
+				catch (RuntimeException e)
+				{
+					throw new RuntimeException(
+							"Error converting value [" + value.toString() + "] to " + targetDataType.toString(), e);
+				}
+				ids.add(id);
+			}
+
+			List<Object> distinctIds = ids.stream().filter(Objects::nonNull).distinct().collect(toList());
+			Map<Object, Entity> refEntities = new HashMap<>();
+			if (!distinctIds.isEmpty())
+			{
+				dataService.findAll(refEntityMeta.getName(), distinctIds.stream()).forEach(
+						refEntity -> refEntities.put(idDataType.convert(refEntity.getIdValue()), refEntity));
+			}
+			return ids.stream().map(id -> id != null ? refEntities.get(id) : null).collect(toList());
+		}
+		return values.stream().map(value -> convert(value, attributeMetaData)).collect(toList());
+	}
+
 	@SuppressWarnings("unchecked")
 	private Object convert(Object value, AttributeMetaData attributeMetaData)
 	{
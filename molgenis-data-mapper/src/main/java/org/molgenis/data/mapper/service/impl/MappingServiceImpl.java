@@ -1,26 +1,42 @@
 package org.molgenis.data.mapper.service.impl;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Objects.requireNonNull;
 import static org.molgenis.data.mapper.meta.MappingProjectMetaData.NAME;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Date;
+import java.util.Deque;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.stream.Collectors;
 
-import org.elasticsearch.common.collect.Lists;
+import javax.annotation.PreDestroy;
+
+import org.apache.commons.io.IOUtils;
 import org.molgenis.MolgenisFieldTypes;
 import org.molgenis.auth.MolgenisUser;
 import org.molgenis.data.AttributeMetaData;
 import org.molgenis.data.DataService;
 import org.molgenis.data.Entity;
 import org.molgenis.data.EntityMetaData;
+import org.molgenis.data.Fetch;
 import org.molgenis.data.IdGenerator;
 import org.molgenis.data.MolgenisDataException;
 import org.molgenis.data.Repository;
 import org.molgenis.data.UnknownEntityException;
+import org.molgenis.data.jobs.Progress;
 import org.molgenis.data.mapper.mapping.model.AttributeMapping;
 import org.molgenis.data.mapper.mapping.model.EntityMapping;
 import org.molgenis.data.mapper.mapping.model.MappingProject;
@@ -35,6 +51,8 @@ import org.molgenis.data.support.QueryImpl;
 import org.molgenis.fieldtypes.FieldType;
 import org.molgenis.security.core.runas.RunAsSystem;
 import org.molgenis.security.permission.PermissionSystemService;
+import org.molgenis.util.HugeMap;
+import org.molgenis.util.HugeSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -42,7 +60,12 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 public class MappingServiceImpl implements MappingService
 {
@@ -50,6 +73,19 @@ public class MappingServiceImpl implements MappingService
 
 	private static final int BATCH_SIZE = 1000;
 
+	/**
+	 * Name of the hidden target attribute that stores the hash of the source entity id, the algorithms and the source
+	 * values that produced the target entity. Target entities created by {@link #applyMappings} include this
+	 * attribute in their meta data. Targets created before it was introduced don't have it and are mapped completely
+	 * on each run. If the hash of a source entity changed, all attributes of its target entity are mapped again.
+	 */
+	static final String MAPPING_HASH = "mappingHash";
+
+	/**
+	 * Maximum number of mapped chunks per thread that are waiting to be added to the target repository
+	 */
+	private static final int MAX_CHUNKS_IN_FLIGHT_PER_THREAD = 2;
+
 	private final DataService dataService;
 
 	private final AlgorithmService algorithmService;
@@ -60,6 +96,14 @@ public class MappingServiceImpl implements MappingService
 
 	private final PermissionSystemService permissionSystemService;
 
+	private volatile int numberOfThreads = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * Bounded executor shared by all mappings that evaluates algorithms on chunks of source entities
+	 */
+	private final ThreadPoolExecutor executorService = (ThreadPoolExecutor) Executors.newFixedThreadPool(
+			numberOfThreads, new ThreadFactoryBuilder().setNameFormat("mapping-%d").setDaemon(true).build());
+
 	@Autowired
 	public MappingServiceImpl(DataService dataService, AlgorithmService algorithmService, IdGenerator idGenerator,
 			MappingProjectRepository mappingProjectRepository, PermissionSystemService permissionSystemService)
@@ -71,6 +115,36 @@ public class MappingServiceImpl implements MappingService
 		this.permissionSystemService = requireNonNull(permissionSystemService);
 	}
 
+	/**
+	 * Sets the number of threads that apply mappings to source entities, defaults to the number of available
+	 * processors
+	 */
+	public synchronized void setNumberOfThreads(int numberOfThreads)
+	{
+		if (numberOfThreads < 1)
+		{
+			throw new IllegalArgumentException("Number of threads must be at least 1");
+		}
+		// the core pool size may not exceed the maximum pool size
+		if (numberOfThreads > executorService.getMaximumPoolSize())
+		{
+			executorService.setMaximumPoolSize(numberOfThreads);
+			executorService.setCorePoolSize(numberOfThreads);
+		}
+		else
+		{
+			executorService.setCorePoolSize(numberOfThreads);
+			executorService.setMaximumPoolSize(numberOfThreads);
+		}
+		this.numberOfThreads = numberOfThreads;
+	}
+
+	@PreDestroy
+	public void shutdown()
+	{
+		executorService.shutdownNow();
+	}
+
 	@Override
 	@RunAsSystem
 	public MappingProject addMappingProject(String projectName, MolgenisUser owner, String target)
@@ -168,11 +242,18 @@ public class MappingServiceImpl implements MappingService
 
 	@Override
 	public String applyMappings(MappingTarget mappingTarget, String entityName)
+	{
+		return applyMappings(mappingTarget, entityName, null);
+	}
+
+	@Override
+	public String applyMappings(MappingTarget mappingTarget, String entityName, Progress progress)
 	{
 		DefaultEntityMetaData targetMetaData = new DefaultEntityMetaData(entityName, mappingTarget.getTarget());
 		targetMetaData.setPackage(PackageImpl.defaultPackage);
 		targetMetaData.setLabel(entityName);
 		targetMetaData.addAttribute("source");
+		targetMetaData.addAttribute(MAPPING_HASH).setVisible(false);
 
 		// add a new repository if the target repo doesn't exist, or check if the target repository is compatible with
 		// the result of the mappings
@@ -186,6 +267,11 @@ public class MappingServiceImpl implements MappingService
 		else
 		{
 			targetRepo = dataService.getRepository(entityName);
+			if (targetRepo.getEntityMetaData().getAttribute(MAPPING_HASH) == null)
+			{
+				// target created before mapping hashes were recorded, apply all mappings to all source entities
+				targetMetaData.removeAttributeMetaData(targetMetaData.getAttribute(MAPPING_HASH));
+			}
 
 			if (!isTargetMetaCompatible(targetRepo, targetMetaData))
 			{
@@ -197,7 +283,7 @@ public class MappingServiceImpl implements MappingService
 		try
 		{
 			LOG.info("Applying mappings to repository [" + targetMetaData.getName() + "]");
-			applyMappingsToRepositories(mappingTarget, targetRepo);
+			applyMappingsToRepositories(mappingTarget, targetRepo, progress);
 			LOG.info("Done applying mappings to repository [" + targetMetaData.getName() + "]");
 			return targetMetaData.getName();
 		}
@@ -241,50 +327,375 @@ public class MappingServiceImpl implements MappingService
 		return true;
 	}
 
-	private void applyMappingsToRepositories(MappingTarget mappingTarget, Repository targetRepo)
+	private void applyMappingsToRepositories(MappingTarget mappingTarget, Repository targetRepo, Progress progress)
 	{
+		if (progress != null)
+		{
+			long total = mappingTarget.getEntityMappings().stream()
+					.mapToLong(sourceMapping -> dataService.count(sourceMapping.getName(), new QueryImpl())).sum();
+			progress.setProgressMax((int) Math.min(total, Integer.MAX_VALUE));
+		}
+
+		int nrMappedEntities = 0;
 		for (EntityMapping sourceMapping : mappingTarget.getEntityMappings())
 		{
-			applyMappingToRepo(sourceMapping, targetRepo);
+			if (progress != null)
+			{
+				progress.status("Applying mapping for source [" + sourceMapping.getName() + "]");
+			}
+			nrMappedEntities = applyMappingToRepo(sourceMapping, targetRepo, progress, nrMappedEntities);
 		}
 	}
 
-	private void applyMappingToRepo(EntityMapping sourceMapping, Repository targetRepo)
+	/**
+	 * Applies an entity mapping to chunks of source entities and writes the mapped entities to the target repository
+	 * in source order. Source entities are read and algorithm results are converted and written on the calling thread,
+	 * only the algorithms are evaluated on the worker threads so that all data access stays in the transaction of the
+	 * calling thread.
+	 * 
+	 * If the target repository records mapping hashes, only source entities for which the algorithms or the values of
+	 * the source attributes used by the algorithms changed are mapped again.
+	 * 
+	 * @return total number of mapped entities
+	 */
+	private int applyMappingToRepo(EntityMapping sourceMapping, Repository targetRepo, Progress progress,
+			int nrMappedEntities)
 	{
 		EntityMetaData targetMetaData = targetRepo.getEntityMetaData();
 		Repository sourceRepo = dataService.getRepository(sourceMapping.getName());
+		boolean incremental = targetMetaData.getAttribute(MAPPING_HASH) != null;
+
+		List<AttributeMapping> attributeMappings = new ArrayList<>(sourceMapping.getAttributeMappings());
+		List<Collection<String>> sourceAttributeNames = attributeMappings.stream()
+				.map(attributeMapping -> getHashedAttributeNames(attributeMapping, sourceRepo.getEntityMetaData()))
+				.collect(Collectors.toList());
+		String sourceIdAttributeName = sourceRepo.getEntityMetaData().getIdAttribute().getName();
+		Set<String> snapshotAttributeNames = new LinkedHashSet<>();
+		snapshotAttributeNames.add(sourceIdAttributeName);
+		sourceAttributeNames.forEach(snapshotAttributeNames::addAll);
+
+		// ids of the target entities from this source that are not reproduced (yet) by this mapping
+		HugeSet<Object> staleIds = new HugeSet<>();
+		HugeMap<String, Object> existingMappingHashes = incremental ? new HugeMap<>() : null;
+		try
+		{
+			// collect the existing target entities from this source, not all repositories support deleting entities
+			// while iterating over them
+			Fetch fetch = new Fetch().field(targetMetaData.getIdAttribute().getName());
+			if (incremental)
+			{
+				fetch.field(MAPPING_HASH);
+			}
+			targetRepo.findAll(new QueryImpl().eq("source", sourceRepo.getName()).fetch(fetch))
+					.filter(Objects::nonNull).forEach(targetEntity -> {
+						staleIds.add(targetEntity.getIdValue());
+						String mappingHash = targetEntity.getString(MAPPING_HASH);
+						if (incremental && mappingHash != null)
+						{
+							existingMappingHashes.put(mappingHash, targetEntity.getIdValue());
+						}
+					});
+
+			if (!incremental)
+			{
+				// delete all target entities from this source
+				targetRepo.deleteById(staleIds.stream());
+				staleIds.clear();
+			}
+
+			// evaluate the algorithms for chunks of source entities in parallel with a bounded number of chunks in
+			// flight, the workers only get snapshots of the source entities that don't load data lazily
+			int maxChunksInFlight = MAX_CHUNKS_IN_FLIGHT_PER_THREAD * numberOfThreads;
+			Deque<Future<MappedChunk>> mappedChunks = new ArrayDeque<>();
+			try
+			{
+				Iterator<List<Entity>> sourceChunks = Iterators.partition(sourceRepo.iterator(), BATCH_SIZE);
+				while (sourceChunks.hasNext())
+				{
+					List<Entity> sourceEntities = createSnapshots(sourceChunks.next(), sourceIdAttributeName,
+							snapshotAttributeNames);
+					mappedChunks.add(executorService.submit(() -> mapChunk(sourceMapping, attributeMappings,
+							sourceAttributeNames, sourceEntities, existingMappingHashes)));
+
+					if (mappedChunks.size() >= maxChunksInFlight)
+					{
+						nrMappedEntities = writeMappedChunk(mappedChunks.poll(), sourceMapping, attributeMappings,
+								targetRepo, staleIds, progress, nrMappedEntities);
+					}
+				}
+
+				while (!mappedChunks.isEmpty())
+				{
+					nrMappedEntities = writeMappedChunk(mappedChunks.poll(), sourceMapping, attributeMappings,
+							targetRepo, staleIds, progress, nrMappedEntities);
+				}
+			}
+			finally
+			{
+				mappedChunks.forEach(mappedChunk -> mappedChunk.cancel(true));
+			}
+
+			// delete target entities that are no longer produced by this mapping
+			targetRepo.deleteById(staleIds.stream());
+		}
+		finally
+		{
+			IOUtils.closeQuietly(staleIds);
+			IOUtils.closeQuietly(existingMappingHashes);
+		}
+		return nrMappedEntities;
+	}
+
+	/**
+	 * Creates snapshots of source entities that contain the given attributes, referenced entities are replaced by their
+	 * ids so that the snapshots don't load data lazily.
+	 */
+	private static List<Entity> createSnapshots(List<Entity> sourceEntities, String idAttributeName,
+			Collection<String> attributeNames)
+	{
+		List<Entity> snapshots = new ArrayList<>(sourceEntities.size());
+		for (Entity sourceEntity : sourceEntities)
+		{
+			MapEntity snapshot = new MapEntity(idAttributeName);
+			for (String attributeName : attributeNames)
+			{
+				snapshot.set(attributeName, getSnapshotValue(sourceEntity.get(attributeName)));
+			}
+			snapshots.add(snapshot);
+		}
+		return snapshots;
+	}
+
+	private static Object getSnapshotValue(Object value)
+	{
+		if (value instanceof Entity)
+		{
+			return ((Entity) value).getIdValue();
+		}
+		if (value instanceof Iterable<?>)
+		{
+			List<Object> values = new ArrayList<>();
+			((Iterable<?>) value).forEach(element -> values.add(getSnapshotValue(element)));
+			return values;
+		}
+		return value;
+	}
+
+	/**
+	 * Evaluates the algorithms for a chunk of source entity snapshots, source entities with a known mapping hash are
+	 * skipped if existingMappingHashes is not null. Does not access data.
+	 */
+	private MappedChunk mapChunk(EntityMapping sourceMapping, List<AttributeMapping> attributeMappings,
+			List<Collection<String>> sourceAttributeNames, List<Entity> sourceEntities,
+			Map<String, Object> existingMappingHashes)
+	{
+		if (existingMappingHashes == null)
+		{
+			return new MappedChunk(Collections.emptyList(), sourceEntities.size(), algorithmService
+					.evaluate(attributeMappings, sourceEntities, sourceMapping.getSourceEntityMetaData()), null);
+		}
+
+		List<Object> unchangedIds = new ArrayList<>();
+		List<Entity> changedSourceEntities = new ArrayList<>();
+		List<String> changedMappingHashes = new ArrayList<>();
+		for (Entity sourceEntity : sourceEntities)
+		{
+			String mappingHash = getMappingHash(attributeMappings, sourceAttributeNames, sourceEntity);
+			Object targetId = existingMappingHashes.get(mappingHash);
+			if (targetId != null)
+			{
+				unchangedIds.add(targetId);
+			}
+			else
+			{
+				changedSourceEntities.add(sourceEntity);
+				changedMappingHashes.add(mappingHash);
+			}
+		}
+
+		List<List<Object>> algorithmValues;
+		if (!changedSourceEntities.isEmpty())
+		{
+			algorithmValues = algorithmService.evaluate(attributeMappings, changedSourceEntities,
+					sourceMapping.getSourceEntityMetaData());
+		}
+		else
+		{
+			algorithmValues = null;
+		}
+		return new MappedChunk(unchangedIds, changedSourceEntities.size(), algorithmValues, changedMappingHashes);
+	}
 
-		// delete all target entities from this source
-		List<Entity> deleteEntities = targetRepo.findAll(new QueryImpl().eq("source", sourceRepo.getName()))
-				.filter(Objects::nonNull).collect(Collectors.toList());
-		targetRepo.delete(deleteEntities.stream());
+	/**
+	 * Converts the algorithm results of a mapped chunk and writes the chunk to the target repository: target entities
+	 * that were mapped before are updated, others are added.
+	 * 
+	 * @return total number of mapped entities
+	 */
+	private int writeMappedChunk(Future<MappedChunk> mappedChunkFuture, EntityMapping sourceMapping,
+			List<AttributeMapping> attributeMappings, Repository targetRepo, Set<Object> staleIds, Progress progress,
+			int nrMappedEntities)
+	{
+		MappedChunk mappedChunk;
+		try
+		{
+			mappedChunk = mappedChunkFuture.get();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new MolgenisDataException(e);
+		}
+		catch (ExecutionException e)
+		{
+			if (e.getCause() instanceof RuntimeException)
+			{
+				throw (RuntimeException) e.getCause();
+			}
+			throw new MolgenisDataException(e.getCause());
+		}
+
+		mappedChunk.getUnchangedIds().forEach(staleIds::remove);
 
-		Iterator<Entity> sourceEntities = sourceRepo.iterator();
-		List<MapEntity> mappedEntities = Lists.newArrayList();
-		while (sourceEntities.hasNext())
+		List<MapEntity> mappedEntities = createTargetEntities(sourceMapping, attributeMappings, mappedChunk,
+				targetRepo.getEntityMetaData());
+		List<MapEntity> updatedEntities = new ArrayList<>();
+		List<MapEntity> addedEntities = new ArrayList<>();
+		for (MapEntity mappedEntity : mappedEntities)
 		{
-			Entity sourceEntity = sourceEntities.next();
-			MapEntity mappedEntity = applyMappingToEntity(sourceMapping, sourceEntity, targetMetaData,
-					sourceMapping.getSourceEntityMetaData(), targetRepo);
-			mappedEntities.add(mappedEntity);
+			if (staleIds.remove(mappedEntity.getIdValue()))
+			{
+				updatedEntities.add(mappedEntity);
+			}
+			else
+			{
+				addedEntities.add(mappedEntity);
+			}
+		}
+		if (!updatedEntities.isEmpty())
+		{
+			targetRepo.update(updatedEntities.stream());
+		}
+		if (!addedEntities.isEmpty())
+		{
+			targetRepo.add(addedEntities.stream());
+		}
+
+		int totalMappedEntities = nrMappedEntities + mappedChunk.getUnchangedIds().size() + mappedEntities.size();
+		if (progress != null)
+		{
+			progress.progress(totalMappedEntities,
+					"Mapped " + totalMappedEntities + " entities, source [" + sourceMapping.getName() + "]");
+		}
+		return totalMappedEntities;
+	}
+
+	/**
+	 * Returns the names of the source attributes whose values are included in the mapping hash. Falls back to all
+	 * source attributes if the algorithm refers to attributes that can't be determined up front.
+	 */
+	private Collection<String> getHashedAttributeNames(AttributeMapping attributeMapping,
+			EntityMetaData sourceEntityMetaData)
+	{
+		Collection<String> attributeNames = algorithmService.getSourceAttributeNames(attributeMapping.getAlgorithm());
+		if (attributeNames.stream().allMatch(attributeName -> sourceEntityMetaData.getAttribute(attributeName) != null))
+		{
+			return attributeNames;
+		}
+		List<String> allAttributeNames = new ArrayList<>();
+		sourceEntityMetaData.getAtomicAttributes().forEach(attr -> allAttributeNames.add(attr.getName()));
+		return allAttributeNames;
+	}
 
-			if (mappedEntities.size() == BATCH_SIZE || !sourceEntities.hasNext())
+	/**
+	 * Computes a hash of the source entity id, the algorithms of the attribute mappings and the values of the source
+	 * attributes that they use. The id distinguishes source entities with identical values, so that each of them keeps
+	 * its own target entity.
+	 */
+	private static String getMappingHash(List<AttributeMapping> attributeMappings,
+			List<Collection<String>> sourceAttributeNames, Entity sourceEntity)
+	{
+		Hasher hasher = Hashing.murmur3_128().newHasher();
+		putValue(hasher, sourceEntity.getIdValue());
+		for (int i = 0; i < attributeMappings.size(); ++i)
+		{
+			AttributeMapping attributeMapping = attributeMappings.get(i);
+			putString(hasher, attributeMapping.getTargetAttributeMetaData().getName());
+			putString(hasher, attributeMapping.getAlgorithm());
+			for (String sourceAttributeName : sourceAttributeNames.get(i))
 			{
-				targetRepo.add(mappedEntities.stream());
-				mappedEntities = Lists.newArrayList();
+				putString(hasher, sourceAttributeName);
+				putValue(hasher, sourceEntity.get(sourceAttributeName));
 			}
 		}
+		return hasher.hash().toString();
+	}
+
+	private static void putValue(Hasher hasher, Object value)
+	{
+		if (value instanceof Entity)
+		{
+			putValue(hasher, ((Entity) value).getIdValue());
+		}
+		else if (value instanceof Iterable<?>)
+		{
+			List<Object> values = Lists.newArrayList((Iterable<?>) value);
+			hasher.putInt(values.size());
+			values.forEach(element -> putValue(hasher, element));
+		}
+		else if (value instanceof Date)
+		{
+			hasher.putLong(((Date) value).getTime());
+		}
+		else
+		{
+			putString(hasher, value != null ? value.toString() : null);
+		}
 	}
 
-	private MapEntity applyMappingToEntity(EntityMapping sourceMapping, Entity sourceEntity,
-			EntityMetaData targetMetaData, EntityMetaData sourceEntityMetaData, Repository targetRepository)
+	private static void putString(Hasher hasher, String value)
 	{
-		MapEntity target = new MapEntity(targetMetaData);
-		target.set("source", sourceMapping.getName());
+		if (value != null)
+		{
+			hasher.putInt(value.length()).putString(value, UTF_8);
+		}
+		else
+		{
+			hasher.putInt(-1);
+		}
+	}
 
-		sourceMapping.getAttributeMappings().forEach(attributeMapping -> applyMappingToAttribute(attributeMapping,
-				sourceEntity, target, sourceEntityMetaData));
-		return target;
+	/**
+	 * Creates the target entities of a mapped chunk, converting the algorithm results looks up referenced entities
+	 */
+	private List<MapEntity> createTargetEntities(EntityMapping sourceMapping,
+			List<AttributeMapping> attributeMappings, MappedChunk mappedChunk, EntityMetaData targetMetaData)
+	{
+		int nrEntities = mappedChunk.getNrMappedEntities();
+		if (nrEntities == 0)
+		{
+			return Collections.emptyList();
+		}
+
+		List<List<Object>> mappedValues = algorithmService.convert(attributeMappings,
+				mappedChunk.getAlgorithmValues());
+		List<MapEntity> mappedEntities = new ArrayList<>(nrEntities);
+		for (int i = 0; i < nrEntities; ++i)
+		{
+			MapEntity target = new MapEntity(targetMetaData);
+			target.set("source", sourceMapping.getName());
+			for (int j = 0; j < attributeMappings.size(); ++j)
+			{
+				target.set(attributeMappings.get(j).getTargetAttributeMetaData().getName(),
+						mappedValues.get(j).get(i));
+			}
+			if (mappedChunk.getMappingHashes() != null)
+			{
+				target.set(MAPPING_HASH, mappedChunk.getMappingHashes().get(i));
+			}
+			mappedEntities.add(target);
+		}
+		return mappedEntities;
 	}
 
 	@Override
@@ -303,10 +714,56 @@ public class MappingServiceImpl implements MappingService
 		return id.toString();
 	}
 
-	private void applyMappingToAttribute(AttributeMapping attributeMapping, Entity sourceEntity, MapEntity target,
-			EntityMetaData entityMetaData)
+	/**
+	 * Result of evaluating the algorithms for a chunk of source entities
+	 */
+	private static class MappedChunk
 	{
-		target.set(attributeMapping.getTargetAttributeMetaData().getName(),
-				algorithmService.apply(attributeMapping, sourceEntity, entityMetaData));
+		private final List<Object> unchangedIds;
+		private final int nrMappedEntities;
+		private final List<List<Object>> algorithmValues;
+		private final List<String> mappingHashes;
+
+		MappedChunk(List<Object> unchangedIds, int nrMappedEntities, List<List<Object>> algorithmValues,
+				List<String> mappingHashes)
+		{
+			this.unchangedIds = unchangedIds;
+			this.nrMappedEntities = nrMappedEntities;
+			this.algorithmValues = algorithmValues;
+			this.mappingHashes = mappingHashes;
+		}
+
+		/**
+		 * Returns the ids of target entities whose source entity didn't change
+		 */
+		List<Object> getUnchangedIds()
+		{
+			return unchangedIds;
+		}
+
+		/**
+		 * Returns the number of source entities for which the algorithms were evaluated
+		 */
+		int getNrMappedEntities()
+		{
+			return nrMappedEntities;
+		}
+
+		/**
+		 * Returns for each attribute mapping the algorithm results of the changed source entities, or null if no
+		 * source entity changed
+		 */
+		List<List<Object>> getAlgorithmValues()
+		{
+			return algorithmValues;
+		}
+
+		/**
+		 * Returns the mapping hashes of the changed source entities, or null if mapping hashes are not recorded
+		 */
+		List<String> getMappingHashes()
+		{
+			return mappingHashes;
+		}
 	}
 }
@@ -20,6 +20,7 @@ import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.stream.Stream;
 
@@ -88,6 +89,12 @@ public class AlgorithmServiceImplTest extends AbstractTestNGSpringContextTests
 				.thenReturn(Stream.empty());
 	}
 
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void testSetNumberOfThreadsInvalid()
+	{
+		((AlgorithmServiceImpl) algorithmService).setNumberOfThreads(0);
+	}
+
 	@Test
 	public void testGetSourceAttributeNames()
 	{
@@ -175,6 +182,117 @@ public class AlgorithmServiceImplTest extends AbstractTestNGSpringContextTests
 		assertEquals(result.get("field1"), xref2a.get("field2"));
 	}
 
+	@Test
+	public void testApplyBatch()
+	{
+		// xref entities
+		DefaultEntityMetaData refEntityMeta = new DefaultEntityMetaData("refEntity");
+		refEntityMeta.addAttribute("id", ROLE_ID);
+		Entity refEntity0 = new MapEntity(refEntityMeta);
+		refEntity0.set("id", "0");
+		Entity refEntity1 = new MapEntity(refEntityMeta);
+		refEntity1.set("id", "1");
+		when(dataService.findAll(eq("refEntity"), argThat(new ArgumentMatcher<Stream<Object>>()
+		{
+			@SuppressWarnings("unchecked")
+			@Override
+			public boolean matches(Object argument)
+			{
+				return ((Stream<Object>) argument).collect(toList()).equals(Arrays.asList("1", "0"));
+			}
+		}))).thenAnswer(new Answer<Stream<Entity>>()
+		{
+			@Override
+			public Stream<Entity> answer(InvocationOnMock invocation) throws Throwable
+			{
+				return Stream.of(refEntity0, refEntity1);
+			}
+		});
+
+		// source entities
+		DefaultEntityMetaData sourceEntityMeta = new DefaultEntityMetaData("source");
+		sourceEntityMeta.addAttribute("id", ROLE_ID);
+		sourceEntityMeta.addAttribute("height").setDataType(INT);
+		Entity source0 = new MapEntity(sourceEntityMeta);
+		source0.set("id", "0");
+		source0.set("height", 180);
+		Entity source1 = new MapEntity(sourceEntityMeta);
+		source1.set("id", "1");
+		source1.set("height", 165);
+
+		// mappings
+		AttributeMapping intMapping = new AttributeMapping(new DefaultAttributeMetaData("int").setDataType(INT));
+		intMapping.setAlgorithm("$('height').plus(0.4).value()");
+		AttributeMapping emptyMapping = new AttributeMapping(new DefaultAttributeMetaData("empty").setDataType(STRING));
+		AttributeMapping xrefMapping = new AttributeMapping(
+				new DefaultAttributeMetaData("xref").setDataType(XREF).setRefEntity(refEntityMeta));
+		xrefMapping.setAlgorithm("$('height').value() > 170 ? '1' : '0'");
+
+		List<List<Object>> result = algorithmService.apply(Arrays.asList(intMapping, emptyMapping, xrefMapping),
+				Arrays.asList(source0, source1), sourceEntityMeta);
+		assertEquals(result.size(), 3);
+		assertEquals(result.get(0), Arrays.asList(180L, 165L));
+		assertEquals(result.get(1), Arrays.asList(null, null));
+		assertEquals(result.get(2), Arrays.asList(refEntity1, refEntity0));
+	}
+
+	@Test
+	public void testApplyBatchXrefIntId()
+	{
+		DefaultEntityMetaData refEntityMeta = new DefaultEntityMetaData("refEntity");
+		refEntityMeta.addAttribute("id", ROLE_ID).setDataType(INT);
+		Entity refEntity1 = new MapEntity(refEntityMeta);
+		refEntity1.set("id", 1);
+		when(dataService.findAll(eq("refEntity"), argThat(new ArgumentMatcher<Stream<Object>>()
+		{
+			@SuppressWarnings("unchecked")
+			@Override
+			public boolean matches(Object argument)
+			{
+				return ((Stream<Object>) argument).collect(toList()).equals(Arrays.asList(1));
+			}
+		}))).thenAnswer(new Answer<Stream<Entity>>()
+		{
+			@Override
+			public Stream<Entity> answer(InvocationOnMock invocation) throws Throwable
+			{
+				return Stream.of(refEntity1);
+			}
+		});
+
+		DefaultEntityMetaData sourceEntityMeta = new DefaultEntityMetaData("source");
+		sourceEntityMeta.addAttribute("id", ROLE_ID);
+		Entity source0 = new MapEntity(sourceEntityMeta);
+		source0.set("id", "0");
+
+		AttributeMapping xrefMapping = new AttributeMapping(
+				new DefaultAttributeMetaData("xref").setDataType(XREF).setRefEntity(refEntityMeta));
+		xrefMapping.setAlgorithm("1");
+
+		List<List<Object>> result = algorithmService.apply(Arrays.asList(xrefMapping), Arrays.asList(source0),
+				sourceEntityMeta);
+		assertEquals(result, Arrays.asList(Arrays.asList(refEntity1)));
+	}
+
+	@Test(expectedExceptions = RuntimeException.class,
+			expectedExceptionsMessageRegExp = "Error converting value \\[abc\\] to XREF")
+	public void testApplyBatchXrefConversionError()
+	{
+		DefaultEntityMetaData refEntityMeta = new DefaultEntityMetaData("refEntity");
+		refEntityMeta.addAttribute("id", ROLE_ID).setDataType(INT);
+
+		DefaultEntityMetaData sourceEntityMeta = new DefaultEntityMetaData("source");
+		sourceEntityMeta.addAttribute("id", ROLE_ID);
+		Entity source0 = new MapEntity(sourceEntityMeta);
+		source0.set("id", "0");
+
+		AttributeMapping xrefMapping = new AttributeMapping(
+				new DefaultAttributeMetaData("xref").setDataType(XREF).setRefEntity(refEntityMeta));
+		xrefMapping.setAlgorithm("'abc'");
+
+		algorithmService.apply(Arrays.asList(xrefMapping), Arrays.asList(source0), sourceEntityMeta);
+	}
+
 	@Test
 	public void testApplyMref() throws ParseException
 	{
@@ -316,6 +434,57 @@ public class AlgorithmServiceImplTest extends AbstractTestNGSpringContextTests
 		assertEquals(mapping.getAttributeMapping("targetHeight").getAlgorithm(), "$('sourceHeight').value();");
 	}
 
+	@Test
+	public void testAutoGenerateAlgorithms()
+	{
+		DefaultEntityMetaData targetEntityMetaData = new DefaultEntityMetaData("target");
+		DefaultAttributeMetaData targetHeight = new DefaultAttributeMetaData("targetHeight");
+		targetHeight.setDescription("height");
+		targetEntityMetaData.addAttributeMetaData(targetHeight);
+		DefaultAttributeMetaData targetWeight = new DefaultAttributeMetaData("targetWeight");
+		targetWeight.setDescription("weight");
+		targetEntityMetaData.addAttributeMetaData(targetWeight);
+
+		DefaultEntityMetaData sourceEntityMetaData = new DefaultEntityMetaData("source");
+		DefaultAttributeMetaData sourceAttribute = new DefaultAttributeMetaData("sourceHeight");
+		sourceAttribute.setDescription("height");
+		sourceEntityMetaData.addAttributeMetaData(sourceAttribute);
+
+		MolgenisUser owner = new MolgenisUser();
+		owner.setUsername("flup");
+		owner.setPassword("geheim");
+		owner.setId("12345");
+		owner.setActive(true);
+		owner.setEmail("flup@blah.com");
+		owner.setFirstName("Flup");
+		owner.setLastName("de Flap");
+
+		MappingProject project = new MappingProject("project", owner);
+		project.addTarget(targetEntityMetaData);
+
+		EntityMapping mapping = project.getMappingTarget("target").addSource(sourceEntityMetaData);
+
+		Map<AttributeMetaData, ExplainedAttributeMetaData> matches = ImmutableMap.of(sourceAttribute,
+				ExplainedAttributeMetaData.create(sourceAttribute,
+						Arrays.asList(ExplainedQueryString.create("height", "height", "height", 100)), true));
+
+		LinkedHashMultimap<Relation, OntologyTerm> ontologyTermTags = LinkedHashMultimap.create();
+
+		when(semanticSearchService.decisionTreeToFindRelevantAttributes(sourceEntityMetaData, targetHeight,
+				ontologyTermTags.values(), null)).thenReturn(matches);
+		when(semanticSearchService.decisionTreeToFindRelevantAttributes(sourceEntityMetaData, targetWeight,
+				ontologyTermTags.values(), null)).thenReturn(emptyMap());
+
+		when(ontologyTagService.getTagsForAttribute(targetEntityMetaData, targetHeight)).thenReturn(ontologyTermTags);
+		when(ontologyTagService.getTagsForAttribute(targetEntityMetaData, targetWeight)).thenReturn(ontologyTermTags);
+
+		algorithmService.autoGenerateAlgorithms(sourceEntityMetaData, targetEntityMetaData, mapping,
+				targetEntityMetaData.getAtomicAttributes());
+
+		assertEquals(mapping.getAttributeMapping("targetHeight").getAlgorithm(), "$('sourceHeight').value();");
+		Assert.assertNull(mapping.getAttributeMapping("targetWeight"));
+	}
+
 	@Test
 	public void testWhenSourceDoesNotMatchThenNoMappingGetsCreated()
 	{
@@ -9,6 +9,8 @@ import static org.molgenis.data.EntityMetaData.AttributeRole.ROLE_ID;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotEquals;
 import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
 import static org.testng.Assert.fail;
 
 import java.util.Arrays;
@@ -21,12 +23,14 @@ import org.elasticsearch.common.collect.Lists;
 import org.molgenis.MolgenisFieldTypes;
 import org.molgenis.auth.MolgenisUser;
 import org.molgenis.auth.MolgenisUserMetaData;
+import org.molgenis.data.DataService;
 import org.molgenis.data.Entity;
 import org.molgenis.data.IdGenerator;
 import org.molgenis.data.ManageableRepositoryCollection;
 import org.molgenis.data.MolgenisDataException;
 import org.molgenis.data.Repository;
 import org.molgenis.data.i18n.LanguageService;
+import org.molgenis.data.jobs.Progress;
 import org.molgenis.data.mapper.config.MappingConfig;
 import org.molgenis.data.mapper.mapping.model.AttributeMapping;
 import org.molgenis.data.mapper.mapping.model.EntityMapping;
@@ -37,6 +41,7 @@ import org.molgenis.data.mapper.repository.impl.AttributeMappingRepositoryImpl;
 import org.molgenis.data.mapper.repository.impl.EntityMappingRepositoryImpl;
 import org.molgenis.data.mapper.repository.impl.MappingProjectRepositoryImpl;
 import org.molgenis.data.mapper.repository.impl.MappingTargetRepositoryImpl;
+import org.molgenis.data.mapper.service.AlgorithmService;
 import org.molgenis.data.mapper.service.MappingService;
 import org.molgenis.data.mem.InMemoryRepositoryCollection;
 import org.molgenis.data.meta.MetaDataService;
@@ -47,6 +52,7 @@ import org.molgenis.data.semanticsearch.service.SemanticSearchService;
 import org.molgenis.data.support.DataServiceImpl;
 import org.molgenis.data.support.DefaultEntityMetaData;
 import org.molgenis.data.support.MapEntity;
+import org.molgenis.data.support.QueryImpl;
 import org.molgenis.data.support.UuidGenerator;
 import org.molgenis.security.permission.PermissionSystemService;
 import org.molgenis.security.user.MolgenisUserService;
@@ -306,8 +312,9 @@ public class MappingServiceImplTest extends AbstractTestNGSpringContextTests
 		Repository actual = dataService.getRepository(entityName);
 		DefaultEntityMetaData expectedMetadata = new DefaultEntityMetaData(entityName, hopMetaData);
 		expectedMetadata.addAttribute("source");
+		expectedMetadata.addAttribute(MappingServiceImpl.MAPPING_HASH).setVisible(false);
 		assertEquals(actual.getEntityMetaData(), expectedMetadata);
-		Set<Entity> created = Sets.newHashSet(actual.iterator());
+		Set<Entity> created = getMappedEntities(actual);
 
 		MapEntity koetje1 = new MapEntity(expectedMetadata);
 		koetje1.set("identifier", "1");
@@ -327,6 +334,23 @@ public class MappingServiceImplTest extends AbstractTestNGSpringContextTests
 				Arrays.asList(entityName));
 	}
 
+	@Test
+	public void testApplyMappingsProgress()
+	{
+		String entityName = "progressEntity";
+		when(idGenerator.generateId()).thenReturn(uuidGenerator.generateId());
+
+		MappingProject project = createMappingProjectWithMappings(entityName);
+
+		Progress progress = mock(Progress.class);
+		mappingService.applyMappings(project.getMappingTarget("HopEntity"), entityName, progress);
+
+		verify(progress).setProgressMax(3);
+		verify(progress).status("Applying mapping for source [Gene]");
+		verify(progress).progress(3, "Mapped 3 entities, source [Gene]");
+		assertEquals(dataService.count(entityName, new QueryImpl()), 3);
+	}
+
 	/**
 	 * New entities in the source should be added to the target when a new mapping to the same target is performed.
 	 */
@@ -351,8 +375,9 @@ public class MappingServiceImplTest extends AbstractTestNGSpringContextTests
 		Repository actual = dataService.getRepository(entityName);
 		DefaultEntityMetaData expectedMetadata = new DefaultEntityMetaData(entityName, hopMetaData);
 		expectedMetadata.addAttribute("source");
+		expectedMetadata.addAttribute(MappingServiceImpl.MAPPING_HASH).setVisible(false);
 		assertEquals(actual.getEntityMetaData(), expectedMetadata);
-		Set<Entity> created = Sets.newHashSet(actual.iterator());
+		Set<Entity> created = getMappedEntities(actual);
 
 		MapEntity expected1 = new MapEntity(expectedMetadata);
 		expected1.set("identifier", "1");
@@ -397,8 +422,9 @@ public class MappingServiceImplTest extends AbstractTestNGSpringContextTests
 		Repository actual = dataService.getRepository(entityName);
 		DefaultEntityMetaData expectedMetadata = new DefaultEntityMetaData(entityName, hopMetaData);
 		expectedMetadata.addAttribute("source");
+		expectedMetadata.addAttribute(MappingServiceImpl.MAPPING_HASH).setVisible(false);
 		assertEquals(actual.getEntityMetaData(), expectedMetadata);
-		Set<Entity> created = Sets.newHashSet(actual.iterator());
+		Set<Entity> created = getMappedEntities(actual);
 
 		MapEntity expected1 = new MapEntity(expectedMetadata);
 		expected1.set("identifier", "1");
@@ -437,8 +463,9 @@ public class MappingServiceImplTest extends AbstractTestNGSpringContextTests
 		Repository actual = dataService.getRepository(entityName);
 		DefaultEntityMetaData expectedMetadata = new DefaultEntityMetaData(entityName, hopMetaData);
 		expectedMetadata.addAttribute("source");
+		expectedMetadata.addAttribute(MappingServiceImpl.MAPPING_HASH).setVisible(false);
 		assertEquals(actual.getEntityMetaData(), expectedMetadata);
-		Set<Entity> created = Sets.newHashSet(actual.iterator());
+		Set<Entity> created = getMappedEntities(actual);
 
 		MapEntity expected1 = new MapEntity(expectedMetadata);
 		expected1.set("identifier", "1");
@@ -456,6 +483,86 @@ public class MappingServiceImplTest extends AbstractTestNGSpringContextTests
 		assertEquals(created, ImmutableSet.<Entity> of(expected1, expected3, expected4));
 	}
 
+	/**
+	 * Applying a mapping again should only map the source entities that changed since the previous run.
+	 */
+	@Test
+	public void testApplyMappingsIncremental()
+	{
+		String entityName = "incrementalEntity";
+		when(idGenerator.generateId()).thenReturn(uuidGenerator.generateId());
+
+		// make project and apply mappings once
+		MappingProject project = createMappingProjectWithMappings(entityName);
+		Entity mapped1 = dataService.findOne(entityName, "1");
+		Entity mapped2 = dataService.findOne(entityName, "2");
+		assertNotNull(mapped1.getString(MappingServiceImpl.MAPPING_HASH));
+
+		// update an entity in the source
+		Entity geneEntity = dataService.findOne(geneMetaData.getName(), "2");
+		geneEntity.set("length", 5.678);
+		dataService.update(geneMetaData.getName(), geneEntity);
+
+		// apply mapping again, only the updated source entity is mapped again
+		mappingService.applyMappings(project.getMappingTarget("HopEntity"), entityName);
+
+		assertSame(dataService.findOne(entityName, "1"), mapped1);
+		Entity remapped2 = dataService.findOne(entityName, "2");
+		assertNotSame(remapped2, mapped2);
+		assertEquals(remapped2.getDouble("height"), Double.valueOf(5.678));
+		assertNotEquals(remapped2.getString(MappingServiceImpl.MAPPING_HASH),
+				mapped2.getString(MappingServiceImpl.MAPPING_HASH));
+		assertEquals(dataService.count(entityName, new QueryImpl()), 3);
+	}
+
+	/**
+	 * Source entities with identical values should each keep their own target entity when a mapping is applied again,
+	 * also if the target ids are not derived from the source values.
+	 */
+	@Test
+	public void testApplyMappingsIncrementalIdenticalSourceEntities()
+	{
+		String entityName = "identicalEntity";
+		when(idGenerator.generateId()).thenReturn(uuidGenerator.generateId());
+
+		// gene 3 gets the same length as gene 1
+		Entity geneEntity = dataService.findOne(geneMetaData.getName(), "3");
+		geneEntity.set("length", 2.0);
+		dataService.update(geneMetaData.getName(), geneEntity);
+
+		MappingProject mappingProject = mappingService.addMappingProject("TestRun", user, "HopEntity");
+		MappingTarget target = mappingProject.getMappingTarget("HopEntity");
+		EntityMapping mapping = target.addSource(geneMetaData);
+		AttributeMapping idMapping = mapping.addAttributeMapping("identifier");
+		idMapping.setAlgorithm("Math.random().toString()");
+		AttributeMapping attrMapping = mapping.addAttributeMapping("height");
+		attrMapping.setAlgorithm("$('length').value()");
+
+		mappingService.applyMappings(target, entityName);
+		Set<Entity> mapped = Sets.newHashSet(dataService.getRepository(entityName));
+		assertEquals(mapped.size(), 3);
+
+		// apply mapping again, no source entity changed
+		mappingService.applyMappings(target, entityName);
+		assertEquals(Sets.newHashSet(dataService.getRepository(entityName)), mapped);
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void testSetNumberOfThreadsInvalid()
+	{
+		MappingServiceImpl mappingServiceImpl = new MappingServiceImpl(mock(DataService.class),
+				mock(AlgorithmService.class), mock(IdGenerator.class), mock(MappingProjectRepository.class),
+				mock(PermissionSystemService.class));
+		try
+		{
+			mappingServiceImpl.setNumberOfThreads(0);
+		}
+		finally
+		{
+			mappingServiceImpl.shutdown();
+		}
+	}
+
 	@Test(expectedExceptions = MolgenisDataException.class)
 	public void testTargetMetaNotCompatible()
 	{
@@ -466,6 +573,27 @@ public class MappingServiceImplTest extends AbstractTestNGSpringContextTests
 		mappingService.applyMappings(target, geneMetaData.getName());
 	}
 
+	/**
+	 * Returns the entities in the repository without the mapping hash attribute
+	 */
+	private static Set<Entity> getMappedEntities(Repository repository)
+	{
+		Set<Entity> mappedEntities = Sets.newHashSet();
+		for (Entity entity : repository)
+		{
+			MapEntity mappedEntity = new MapEntity(entity.getEntityMetaData());
+			for (String attributeName : entity.getAttributeNames())
+			{
+				if (!attributeName.equals(MappingServiceImpl.MAPPING_HASH))
+				{
+					mappedEntity.set(attributeName, entity.get(attributeName));
+				}
+			}
+			mappedEntities.add(mappedEntity);
+		}
+		return mappedEntities;
+	}
+
 	private MappingProject createMappingProjectWithMappings(String newEntityName)
 	{
 		MappingProject mappingProject = mappingService.addMappingProject("TestRun", user, "HopEntity");
@@ -2,6 +2,7 @@ package org.molgenis.data.semanticsearch.service.impl;
 
 import static java.util.Objects.requireNonNull;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
@@ -13,6 +14,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -47,9 +50,14 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import com.google.common.base.Equivalence;
 import com.google.common.base.Splitter;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.Ordering;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 
 import autovalue.shaded.com.google.common.common.collect.Sets;
 
@@ -72,6 +80,16 @@ public class SemanticSearchServiceImpl implements SemanticSearchService
 	// We only explain the top 10 suggested attributes because beyond that the attributes are not high quliaty anymore
 	private static final int MAX_NUMBER_EXPLAINED_ATTRIBUTES = 10;
 
+	private static final int MAX_CACHED_ATTRIBUTE_IDENTIFIERS = 100;
+
+	/**
+	 * Identifiers of the attributes of source entities keyed by the entity name followed by the identities of the
+	 * entity meta data and its attributes. Meta data is created again when attributes are added, removed or recreated,
+	 * so that the identifiers are looked up again when the attributes of a source entity change.
+	 */
+	private final Cache<List<Object>, List<String>> attributeIdentifiersCache = CacheBuilder.newBuilder()
+			.maximumSize(MAX_CACHED_ATTRIBUTE_IDENTIFIERS).expireAfterWrite(10, TimeUnit.MINUTES).build();
+
 	@Autowired
 	public SemanticSearchServiceImpl(DataService dataService, OntologyService ontologyService,
 			MetaDataService metaDataService, SemanticSearchServiceHelper semanticSearchServiceHelper,
@@ -88,8 +106,7 @@ public class SemanticSearchServiceImpl implements SemanticSearchService
 	public Map<AttributeMetaData, ExplainedAttributeMetaData> findAttributes(EntityMetaData sourceEntityMetaData,
 			Set<String> queryTerms, Collection<OntologyTerm> ontologyTerms)
 	{
-		Iterable<String> attributeIdentifiers = semanticSearchServiceHelper
-				.getAttributeIdentifiers(sourceEntityMetaData);
+		Iterable<String> attributeIdentifiers = getAttributeIdentifiers(sourceEntityMetaData);
 
 		QueryRule disMaxQueryRule = semanticSearchServiceHelper.createDisMaxQueryRuleForAttribute(queryTerms,
 				ontologyTerms);
@@ -137,6 +154,28 @@ public class SemanticSearchServiceImpl implements SemanticSearchService
 		return explainedAttributes;
 	}
 
+	/**
+	 * Returns the identifiers of the attributes of the source entity, the identifiers are cached because they are
+	 * requested for every target attribute when generating mappings for a source entity.
+	 */
+	private List<String> getAttributeIdentifiers(EntityMetaData sourceEntityMetaData)
+	{
+		List<Object> cacheKey = new ArrayList<>();
+		cacheKey.add(sourceEntityMetaData.getName());
+		cacheKey.add(Equivalence.identity().wrap(sourceEntityMetaData));
+		sourceEntityMetaData.getAtomicAttributes()
+				.forEach(attribute -> cacheKey.add(Equivalence.identity().wrap(attribute)));
+		try
+		{
+			return attributeIdentifiersCache.get(cacheKey,
+					() -> semanticSearchServiceHelper.getAttributeIdentifiers(sourceEntityMetaData));
+		}
+		catch (ExecutionException | UncheckedExecutionException e)
+		{
+			throw Throwables.propagate(e.getCause());
+		}
+	}
+
 	boolean isSingleMatchHighQuality(Collection<String> queryTerms, Collection<String> ontologyTermQueries,
 			Iterable<ExplainedQueryString> explanations)
 	{
@@ -1,7 +1,11 @@
 package org.molgenis.data.semanticsearch.service.impl;
 
 import static java.util.Arrays.asList;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
@@ -20,6 +24,7 @@ import org.elasticsearch.common.collect.Sets;
 import org.mockito.Mockito;
 import org.molgenis.data.AttributeMetaData;
 import org.molgenis.data.DataService;
+import org.molgenis.data.Query;
 import org.molgenis.data.QueryRule;
 import org.molgenis.data.QueryRule.Operator;
 import org.molgenis.data.meta.AttributeMetaDataMetaData;
@@ -204,6 +209,36 @@ public class SemanticSearchServiceImplTest extends AbstractTestNGSpringContextTe
 		assertTrue(semanticSearchService.isGoodMatch(matchedTags2, "fasting glucose"));
 	}
 
+	@Test
+	public void testFindAttributesRecreatedAttributes()
+	{
+		Mockito.reset(semanticSearchServiceHelper, dataService);
+		when(semanticSearchServiceHelper.createDisMaxQueryRuleForAttribute(Sets.newHashSet("targetAttribute"),
+				Collections.emptyList())).thenReturn(new QueryRule(new ArrayList<>()));
+		when(dataService.findAll(eq(AttributeMetaDataMetaData.ENTITY_NAME), any(Query.class)))
+				.thenAnswer(invocation -> Stream.empty());
+
+		DefaultEntityMetaData sourceEntityMetaData = new DefaultEntityMetaData("recreatedEntity");
+		sourceEntityMetaData.addAttribute("height");
+		when(semanticSearchServiceHelper.getAttributeIdentifiers(sourceEntityMetaData)).thenReturn(asList("1"));
+
+		semanticSearchService.findAttributes(sourceEntityMetaData, Sets.newHashSet("targetAttribute"),
+				Collections.emptyList());
+		semanticSearchService.findAttributes(sourceEntityMetaData, Sets.newHashSet("targetAttribute"),
+				Collections.emptyList());
+		verify(semanticSearchServiceHelper, times(1)).getAttributeIdentifiers(sourceEntityMetaData);
+
+		// the attribute is recreated with the same name and gets a new identifier
+		DefaultEntityMetaData recreatedEntityMetaData = new DefaultEntityMetaData("recreatedEntity");
+		recreatedEntityMetaData.addAttribute("height");
+		when(semanticSearchServiceHelper.getAttributeIdentifiers(recreatedEntityMetaData)).thenReturn(asList("2"));
+
+		semanticSearchService.findAttributes(recreatedEntityMetaData, Sets.newHashSet("targetAttribute"),
+				Collections.emptyList());
+		verify(dataService).findAll(AttributeMetaDataMetaData.ENTITY_NAME, new QueryImpl(
+				Lists.newArrayList(new QueryRule(AttributeMetaDataMetaData.IDENTIFIER, Operator.IN, asList("2")))));
+	}
+
 	@Test
 	public void testFindAttributes()
 	{
@@ -0,0 +1,38 @@
+package org.molgenis.data.validation;
+
+import java.util.Set;
+
+import org.molgenis.data.Entity;
+
+/**
+ * Attribute data type validator for entities of one entity meta data, see
+ * {@link EntityAttributesValidator#compile(org.molgenis.data.EntityMetaData)}
+ * 
+ * Validation can be split in two steps: {@link #validateValueTypes(Entity)} only checks the values of the entity itself
+ * and can run on any thread, {@link #validate(Entity, ConstraintViolation[])} completes the validation with checks
+ * that might look up data, such as reference and validation expression checks, and must run on the calling thread.
+ */
+@FunctionalInterface
+public interface CompiledAttributesValidator
+{
+	Set<ConstraintViolation> validate(Entity entity);
+
+	/**
+	 * Validates the attribute values that can be checked without looking up data. Thread-safe.
+	 * 
+	 * @return intermediate result for {@link #validate(Entity, ConstraintViolation[])}
+	 */
+	default ConstraintViolation[] validateValueTypes(Entity entity)
+	{
+		return null;
+	}
+
+	/**
+	 * Completes the validation of an entity of which the value types were validated with
+	 * {@link #validateValueTypes(Entity)}
+	 */
+	default Set<ConstraintViolation> validate(Entity entity, ConstraintViolation[] valueTypeViolations)
+	{
+		return validate(entity);
+	}
+}
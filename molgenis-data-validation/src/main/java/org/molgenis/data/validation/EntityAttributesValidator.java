@@ -3,9 +3,11 @@ package org.molgenis.data.validation;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Function;
 
 import org.apache.commons.lang3.StringUtils;
 import org.hibernate.validator.constraints.impl.EmailValidator;
@@ -25,88 +27,169 @@ import org.springframework.stereotype.Component;
 @Component
 public class EntityAttributesValidator
 {
-	private EmailValidator emailValidator;
+	private final EmailValidator emailValidator = new EmailValidator();
 
 	public Set<ConstraintViolation> validate(Entity entity, EntityMetaData meta)
 	{
-		Set<ConstraintViolation> violations = checkValidationExpressions(entity, meta);
+		return compile(meta).validate(entity);
+	}
+
+	/**
+	 * Creates a validator for entities of the given entity meta data. Attribute checks, enum options and validation
+	 * expressions are resolved once instead of for each validated entity. The returned validator is thread-safe.
+	 * 
+	 * @param meta
+	 *            entity meta data of the entities to validate
+	 * @return validator that returns the constraint violations of an entity
+	 */
+	public CompiledAttributesValidator compile(EntityMetaData meta)
+	{
+		List<String> validationExpressions = new ArrayList<>();
+		List<AttributeMetaData> expressionAttributes = new ArrayList<>();
+		List<Function<Entity, ConstraintViolation>> attributeChecks = new ArrayList<>();
+		List<Boolean> valueTypeChecks = new ArrayList<>();
 
 		for (AttributeMetaData attr : meta.getAtomicAttributes())
 		{
-			ConstraintViolation violation = null;
+			if (StringUtils.isNotBlank(attr.getValidationExpression()))
+			{
+				expressionAttributes.add(attr);
+				validationExpressions.add(attr.getValidationExpression());
+			}
 
-			switch (attr.getDataType().getEnumType())
+			Function<Entity, ConstraintViolation> attributeCheck = createAttributeCheck(attr, meta);
+			if (attributeCheck != null)
 			{
-				case EMAIL:
-					violation = checkEmail(entity, attr, meta);
-					break;
-				case BOOL:
-					violation = checkBoolean(entity, attr, meta);
-					break;
-				case DATE:
-					violation = checkDate(entity, attr, meta);
-					break;
-				case DATE_TIME:
-					violation = checkDateTime(entity, attr, meta);
-					break;
-				case DECIMAL:
-					violation = checkDecimal(entity, attr, meta);
-					break;
-				case HYPERLINK:
-					violation = checkHyperlink(entity, attr, meta);
-					break;
-				case INT:
-					violation = checkInt(entity, attr, meta);
-					if ((violation == null) && (attr.getRange() != null))
-					{
-						violation = checkRange(entity, attr, meta);
-					}
-					break;
-				case LONG:
-					violation = checkLong(entity, attr, meta);
-					if ((violation == null) && (attr.getRange() != null))
+				attributeChecks.add(attributeCheck);
+				valueTypeChecks.add(!isReferenceCheck(attr));
+			}
+		}
+
+		return new CompiledAttributesValidator()
+		{
+			@Override
+			public Set<ConstraintViolation> validate(Entity entity)
+			{
+				return validate(entity, validateValueTypes(entity));
+			}
+
+			@Override
+			public ConstraintViolation[] validateValueTypes(Entity entity)
+			{
+				ConstraintViolation[] violations = new ConstraintViolation[attributeChecks.size()];
+				for (int i = 0; i < attributeChecks.size(); ++i)
+				{
+					if (valueTypeChecks.get(i))
 					{
-						violation = checkRange(entity, attr, meta);
+						violations[i] = attributeChecks.get(i).apply(entity);
 					}
-					break;
-				case ENUM:
-					violation = checkEnum(entity, attr, meta);
-					break;
-				case HTML:
-					violation = checkText(entity, attr, meta, MolgenisFieldTypes.HTML);
-					break;
-				case SCRIPT:
-					violation = checkText(entity, attr, meta, MolgenisFieldTypes.SCRIPT);
-					break;
-				case TEXT:
-					violation = checkText(entity, attr, meta, MolgenisFieldTypes.TEXT);
-					break;
-				case STRING:
-					violation = checkText(entity, attr, meta, MolgenisFieldTypes.STRING);
-					break;
-				case CATEGORICAL:
-				case XREF:
-					violation = checkXref(entity, attr, meta);
-					break;
-				case CATEGORICAL_MREF:
-				case FILE:
-				case MREF:
-					violation = checkMref(entity, attr, meta);
-					break;
-				case COMPOUND:
-					// no op
-					break;
-				default:
-					break;
+				}
+				return violations;
 			}
 
-			if (violation != null)
+			@Override
+			public Set<ConstraintViolation> validate(Entity entity, ConstraintViolation[] valueTypeViolations)
 			{
-				violations.add(violation);
+				// validation expressions and referenced entities might look up data
+				Set<ConstraintViolation> violations = checkValidationExpressions(entity, meta,
+						validationExpressions, expressionAttributes);
+
+				for (int i = 0; i < attributeChecks.size(); ++i)
+				{
+					ConstraintViolation violation = valueTypeChecks.get(i) ? valueTypeViolations[i]
+							: attributeChecks.get(i).apply(entity);
+					if (violation != null)
+					{
+						violations.add(violation);
+					}
+				}
+				return violations;
 			}
+		};
+	}
+
+	/**
+	 * Returns whether the check of the attribute gets the referenced entities, which might look up data
+	 */
+	private static boolean isReferenceCheck(AttributeMetaData attr)
+	{
+		switch (attr.getDataType().getEnumType())
+		{
+			case CATEGORICAL:
+			case XREF:
+			case CATEGORICAL_MREF:
+			case FILE:
+			case MREF:
+				return true;
+			default:
+				return false;
 		}
+	}
 
-		return violations;
+	private Function<Entity, ConstraintViolation> createAttributeCheck(AttributeMetaData attr, EntityMetaData meta)
+	{
+		switch (attr.getDataType().getEnumType())
+		{
+			case EMAIL:
+				return entity -> checkEmail(entity, attr, meta);
+			case BOOL:
+				return entity -> checkBoolean(entity, attr, meta);
+			case DATE:
+				return entity -> checkDate(entity, attr, meta);
+			case DATE_TIME:
+				return entity -> checkDateTime(entity, attr, meta);
+			case DECIMAL:
+				return entity -> checkDecimal(entity, attr, meta);
+			case HYPERLINK:
+				return entity -> checkHyperlink(entity, attr, meta);
+			case INT:
+				if (attr.getRange() != null)
+				{
+					return entity -> {
+						ConstraintViolation violation = checkInt(entity, attr, meta);
+						return violation == null ? checkRange(entity, attr, meta) : violation;
+					};
+				}
+				return entity -> checkInt(entity, attr, meta);
+			case LONG:
+				if (attr.getRange() != null)
+				{
+					return entity -> {
+						ConstraintViolation violation = checkLong(entity, attr, meta);
+						return violation == null ? checkRange(entity, attr, meta) : violation;
+					};
+				}
+				return entity -> checkLong(entity, attr, meta);
+			case ENUM:
+				// Keep OMX/JPA happy
+				List<String> enumOptions = attr.getEnumOptions();
+				if (enumOptions == null)
+				{
+					return null;
+				}
+				Set<String> enumOptionsSet = new HashSet<>(enumOptions);
+				return entity -> checkEnum(entity, attr, meta, enumOptions, enumOptionsSet);
+			case HTML:
+				return entity -> checkText(entity, attr, meta, MolgenisFieldTypes.HTML);
+			case SCRIPT:
+				return entity -> checkText(entity, attr, meta, MolgenisFieldTypes.SCRIPT);
+			case TEXT:
+				return entity -> checkText(entity, attr, meta, MolgenisFieldTypes.TEXT);
+			case STRING:
+				return entity -> checkText(entity, attr, meta, MolgenisFieldTypes.STRING);
+			case CATEGORICAL:
+			case XREF:
+				return entity -> checkXref(entity, attr, meta);
+			case CATEGORICAL_MREF:
+			case FILE:
+			case MREF:
+				return entity -> checkMref(entity, attr, meta);
+			case COMPOUND:
+				// no op
+				return null;
+			default:
+				return null;
+		}
 	}
 
 	private ConstraintViolation checkMref(Entity entity, AttributeMetaData attr, EntityMetaData meta)
@@ -161,21 +244,9 @@ public class EntityAttributesValidator
 		return null;
 	}
 
-	private Set<ConstraintViolation> checkValidationExpressions(Entity entity, EntityMetaData meta)
+	private Set<ConstraintViolation> checkValidationExpressions(Entity entity, EntityMetaData meta,
+			List<String> validationExpressions, List<AttributeMetaData> expressionAttributes)
 	{
-		List<String> validationExpressions = new ArrayList<>();
-		List<AttributeMetaData> expressionAttributes = new ArrayList<>();
-
-		for (AttributeMetaData attribute : meta.getAtomicAttributes())
-		{
-			if (StringUtils.isNotBlank(attribute.getValidationExpression()))
-			{
-				expressionAttributes.add(attribute);
-				validationExpressions.add(attribute.getValidationExpression());
-			}
-
-		}
-
 		Set<ConstraintViolation> violations = new LinkedHashSet<>();
 
 		if (!validationExpressions.isEmpty())
@@ -201,11 +272,6 @@ public class EntityAttributesValidator
 			return null;
 		}
 
-		if (emailValidator == null)
-		{
-			emailValidator = new EmailValidator();
-		}
-
 		if (!emailValidator.isValid(email, null))
 		{
 			return createConstraintViolation(entity, attribute, meta, "Not a valid e-mail address.");
@@ -352,24 +418,14 @@ public class EntityAttributesValidator
 		return null;
 	}
 
-	private ConstraintViolation checkEnum(Entity entity, AttributeMetaData attribute, EntityMetaData meta)
+	private ConstraintViolation checkEnum(Entity entity, AttributeMetaData attribute, EntityMetaData meta,
+			List<String> enumOptions, Set<String> enumOptionsSet)
 	{
 		String value = entity.getString(attribute.getName());
-		if (value != null)
+		if (value != null && !enumOptionsSet.contains(value))
 		{
-			List<String> enumOptions = attribute.getEnumOptions();
-
-			// Keep OMX/JPA happy
-			if (enumOptions == null)
-			{
-				return null;
-			}
-
-			if (!enumOptions.contains(value))
-			{
-				return createConstraintViolation(entity, attribute, meta,
-						"Value must be one of " + enumOptions.toString());
-			}
+			return createConstraintViolation(entity, attribute, meta,
+					"Value must be one of " + enumOptions.toString());
 		}
 
 		return null;
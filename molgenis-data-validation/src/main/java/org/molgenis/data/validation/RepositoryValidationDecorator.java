@@ -14,13 +14,17 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
@@ -45,11 +49,30 @@ import org.molgenis.util.EntityUtils;
 import org.molgenis.util.HugeMap;
 import org.molgenis.util.HugeSet;
 
+import com.google.common.collect.AbstractIterator;
+
 public class RepositoryValidationDecorator implements Repository
 {
 	private static List<String> ENTITIES_THAT_DO_NOT_NEED_VALIDATION = Arrays
 			.asList(MolgenisTransactionLogMetaData.ENTITY_NAME, MolgenisTransactionLogEntryMetaData.ENTITY_NAME);
 
+	/**
+	 * Number of entities for which referenced entity ids and existing unique values are looked up at once when
+	 * validating using batched lookups
+	 */
+	private static final int BATCH_SIZE = 1000;
+
+	/**
+	 * Queryable repositories with more entities than this threshold are validated using batched lookups instead of
+	 * loading all referenced entity ids or existing unique values before validation
+	 */
+	private static final long BATCHED_LOOKUP_THRESHOLD = 100L * BATCH_SIZE;
+
+	/**
+	 * Minimum number of entities in a chunk for which attribute value types are validated in parallel
+	 */
+	private static final int PARALLEL_VALIDATION_THRESHOLD = 100;
+
 	private enum ValidationMode
 	{
 		ADD, UPDATE
@@ -289,40 +312,92 @@ public class RepositoryValidationDecorator implements Repository
 		// prepare validation
 		initValidation(validationResource, validationMode);
 
-		// add validation operation to stream
-		return entities.filter(entity -> {
-			validationResource.incrementRow();
+		// add validation operation to stream: validate chunks of entities, attribute value types are validated in
+		// parallel while the other validation steps depend on the preceding entities and are applied in order
+		Iterator<List<Entity>> chunks = partition(entities.<Entity> map(entity -> entity).iterator(),
+				validationResource.hasBatchedLookups());
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(chunks, Spliterator.ORDERED), false)
+				.flatMap(chunk -> {
+					if (validationResource.hasBatchedLookups())
+					{
+						// lookup referenced entity ids and existing unique values for this chunk of entities
+						initBatchValidation(chunk, validationResource);
+					}
 
-			validateEntityValueTypes(entity, validationResource);
+					List<Set<ConstraintViolation>> chunkAttrViolations = validateEntityValueTypes(chunk,
+							validationResource);
+					return IntStream.range(0, chunk.size()).mapToObj(i -> {
+						Entity entity = chunk.get(i);
+						validateEntity(entity, chunkAttrViolations.get(i), validationResource, validationMode);
+						return entity;
+					});
+				});
+	}
+
+	/**
+	 * Splits entities in chunks to validate. Batched lookups require chunks of {@link #BATCH_SIZE} entities. Otherwise
+	 * the first {@link #BATCH_SIZE} entities are validated one by one so that small writes are not buffered, after that
+	 * chunks of {@link #BATCH_SIZE} entities are validated so that their value types can be validated in parallel.
+	 */
+	private static Iterator<List<Entity>> partition(Iterator<Entity> entities, boolean batchedLookups)
+	{
+		return new AbstractIterator<List<Entity>>()
+		{
+			private int nrEntities = 0;
 
-			// other validation steps might not be able to handle invalid data types, stop here
-			if (validationResource.hasViolations())
+			@Override
+			protected List<Entity> computeNext()
 			{
-				throw new MolgenisValidationException(validationResource.getViolations());
+				if (!entities.hasNext())
+				{
+					return endOfData();
+				}
+
+				int chunkSize = batchedLookups || nrEntities >= BATCH_SIZE ? BATCH_SIZE : 1;
+				List<Entity> chunk = new ArrayList<>(chunkSize);
+				while (chunk.size() < chunkSize && entities.hasNext())
+				{
+					chunk.add(entities.next());
+				}
+				nrEntities += chunk.size();
+				return chunk;
 			}
+		};
+	}
+
+	private void validateEntity(Entity entity, Set<ConstraintViolation> attrViolations,
+			ValidationResource validationResource, ValidationMode validationMode)
+	{
+		validationResource.incrementRow();
 
-			validateEntityValueRequired(entity, validationResource);
+		attrViolations.forEach(validationResource::addViolation);
 
-			validateEntityValueUniqueness(entity, validationResource, validationMode);
+		// other validation steps might not be able to handle invalid data types, stop here
+		if (validationResource.hasViolations())
+		{
+			throw new MolgenisValidationException(validationResource.getViolations());
+		}
 
-			validateEntityValueReferences(entity, validationResource);
+		validateEntityValueRequired(entity, validationResource);
 
-			if (validationMode == ValidationMode.UPDATE)
-			{
-				validateEntityValueReadOnly(entity, validationResource);
-			}
+		validateEntityValueUniqueness(entity, validationResource, validationMode);
 
-			if (validationResource.hasViolations())
-			{
-				throw new MolgenisValidationException(validationResource.getViolations());
-			}
+		validateEntityValueReferences(entity, validationResource);
 
-			return true;
-		});
+		if (validationMode == ValidationMode.UPDATE)
+		{
+			validateEntityValueReadOnly(entity, validationResource);
+		}
+
+		if (validationResource.hasViolations())
+		{
+			throw new MolgenisValidationException(validationResource.getViolations());
+		}
 	}
 
 	private void initValidation(ValidationResource validationResource, ValidationMode validationMode)
 	{
+		validationResource.setAttributesValidator(entityAttributesValidator.compile(getEntityMetaData()));
 		initRequiredValueValidation(validationResource);
 		initReferenceValidation(validationResource);
 		initUniqueValidation(validationResource);
@@ -363,10 +438,18 @@ public class RepositoryValidationDecorator implements Repository
 					refEntityIds = new HugeSet<>();
 					refEntitiesIds.put(refEntityName, refEntityIds);
 
-					Query q = new QueryImpl().fetch(new Fetch().field(refEntityMeta.getIdAttribute().getName()));
-					for (Iterator<Entity> it = dataService.findAll(refEntityName, q).iterator(); it.hasNext();)
+					if (isBatchedLookupRepository(dataService.getRepository(refEntityName)))
 					{
-						refEntityIds.add(it.next().getIdValue());
+						// referenced entity ids are looked up per chunk of validated entities
+						validationResource.addBatchedRefEntity(refEntityMeta);
+					}
+					else
+					{
+						Query q = new QueryImpl().fetch(new Fetch().field(refEntityMeta.getIdAttribute().getName()));
+						for (Iterator<Entity> it = dataService.findAll(refEntityName, q).iterator(); it.hasNext();)
+						{
+							refEntityIds.add(it.next().getIdValue());
+						}
 					}
 				}
 			});
@@ -397,21 +480,25 @@ public class RepositoryValidationDecorator implements Repository
 				fetch.field(uniqueAttr.getName());
 			});
 
-			Query q = new QueryImpl().fetch(fetch);
-			decoratedRepository.findAll(q).forEach(entity -> {
-				uniqueAttrs.forEach(uniqueAttr -> {
-					HugeMap<Object, Object> uniqueAttrValues = uniqueAttrsValues.get(uniqueAttr.getName());
-					Object attrValue = entity.get(uniqueAttr.getName());
-					if (attrValue != null)
-					{
-						if (uniqueAttr.getDataType() instanceof XrefField)
+			if (isBatchedLookupRepository(decoratedRepository))
+			{
+				// existing unique values are looked up per chunk of validated entities
+				validationResource.setBatchedUniqueValidation(true);
+			}
+			else
+			{
+				Query q = new QueryImpl().fetch(fetch);
+				decoratedRepository.findAll(q).forEach(entity -> {
+					uniqueAttrs.forEach(uniqueAttr -> {
+						HugeMap<Object, Object> uniqueAttrValues = uniqueAttrsValues.get(uniqueAttr.getName());
+						Object attrValue = getUniqueAttrValue(entity, uniqueAttr);
+						if (attrValue != null)
 						{
-							attrValue = ((Entity) attrValue).getIdValue();
+							uniqueAttrValues.put(attrValue, entity.getIdValue());
 						}
-						uniqueAttrValues.put(attrValue, entity.getIdValue());
-					}
+					});
 				});
-			});
+			}
 
 			validationResource.setUniqueAttrsValues(uniqueAttrsValues);
 		}
@@ -420,6 +507,113 @@ public class RepositoryValidationDecorator implements Repository
 
 	}
 
+	/**
+	 * Returns whether it is cheaper to lookup values in the given repository for each chunk of validated entities
+	 * instead of loading all values of the repository before validation.
+	 */
+	private static boolean isBatchedLookupRepository(Repository repository)
+	{
+		return repository != null && repository.getCapabilities().contains(RepositoryCapability.QUERYABLE)
+				&& repository.count() > BATCHED_LOOKUP_THRESHOLD;
+	}
+
+	/**
+	 * Looks up the referenced entity ids and existing unique values of a chunk of entities that are not known yet
+	 */
+	private void initBatchValidation(List<Entity> entities, ValidationResource validationResource)
+	{
+		// referenced entity ids
+		Map<String, EntityMetaData> batchedRefEntities = validationResource.getBatchedRefEntities();
+		if (!batchedRefEntities.isEmpty())
+		{
+			Map<String, Set<Object>> unknownRefEntitiesIds = new HashMap<>();
+			validationResource.getRefAttrs().forEach(refAttr -> {
+				String refEntityName = refAttr.getRefEntity().getName();
+				if (batchedRefEntities.containsKey(refEntityName))
+				{
+					HugeSet<Object> refEntityIds = validationResource.getRefEntitiesIds().get(refEntityName);
+					Set<Object> unknownRefEntityIds = unknownRefEntitiesIds.computeIfAbsent(refEntityName,
+							key -> new HashSet<>());
+					entities.forEach(entity -> getRefEntities(entity, refAttr).forEach(refEntity -> {
+						Object refEntityId = refEntity.getIdValue();
+						if (!refEntityIds.contains(refEntityId))
+						{
+							unknownRefEntityIds.add(refEntityId);
+						}
+					}));
+				}
+			});
+
+			unknownRefEntitiesIds.forEach((refEntityName, unknownRefEntityIds) -> {
+				if (!unknownRefEntityIds.isEmpty())
+				{
+					HugeSet<Object> refEntityIds = validationResource.getRefEntitiesIds().get(refEntityName);
+					String refIdAttrName = batchedRefEntities.get(refEntityName).getIdAttribute().getName();
+					Query q = new QueryImpl().in(refIdAttrName, unknownRefEntityIds)
+							.fetch(new Fetch().field(refIdAttrName));
+					dataService.findAll(refEntityName, q)
+							.forEach(refEntity -> refEntityIds.add(refEntity.getIdValue()));
+				}
+			});
+		}
+
+		// existing unique values
+		if (validationResource.isBatchedUniqueValidation())
+		{
+			String idAttrName = getEntityMetaData().getIdAttribute().getName();
+			validationResource.getUniqueAttrs().forEach(uniqueAttr -> {
+				HugeMap<Object, Object> uniqueAttrValues = validationResource.getUniqueAttrsValues()
+						.get(uniqueAttr.getName());
+
+				Set<Object> unknownValues = new HashSet<>();
+				entities.forEach(entity -> {
+					Object attrValue = getUniqueAttrValue(entity, uniqueAttr);
+					if (attrValue != null && !uniqueAttrValues.containsKey(attrValue))
+					{
+						unknownValues.add(attrValue);
+					}
+				});
+
+				if (!unknownValues.isEmpty())
+				{
+					Query q = new QueryImpl().in(uniqueAttr.getName(), unknownValues)
+							.fetch(new Fetch().field(idAttrName).field(uniqueAttr.getName()));
+					decoratedRepository.findAll(q).forEach(existingEntity -> {
+						Object attrValue = getUniqueAttrValue(existingEntity, uniqueAttr);
+						if (attrValue != null)
+						{
+							uniqueAttrValues.put(attrValue, existingEntity.getIdValue());
+						}
+					});
+				}
+			});
+		}
+	}
+
+	private static Object getUniqueAttrValue(Entity entity, AttributeMetaData uniqueAttr)
+	{
+		Object attrValue = entity.get(uniqueAttr.getName());
+		if (attrValue != null && uniqueAttr.getDataType() instanceof XrefField)
+		{
+			attrValue = ((Entity) attrValue).getIdValue();
+		}
+		return attrValue;
+	}
+
+	private static Iterable<Entity> getRefEntities(Entity entity, AttributeMetaData refAttr)
+	{
+		if (refAttr.getDataType() instanceof XrefField)
+		{
+			Entity refEntity = entity.getEntity(refAttr.getName());
+			return refEntity != null ? singleton(refEntity) : emptyList();
+		}
+		else
+		{
+			Iterable<Entity> refEntities = entity.getEntities(refAttr.getName());
+			return refEntities != null ? refEntities : emptyList();
+		}
+	}
+
 	private void initReadonlyValidation(ValidationResource validationResource)
 	{
 		List<AttributeMetaData> readonlyAttrs = StreamSupport
@@ -466,30 +660,36 @@ public class RepositoryValidationDecorator implements Repository
 		});
 	}
 
-	private void validateEntityValueTypes(Entity entity, ValidationResource validationResource)
+	/**
+	 * Validates the attribute data types of a chunk of entities. For large chunks the checks that only depend on the
+	 * entity values are applied in parallel, reference and validation expression checks might look up data and are
+	 * applied on the calling thread.
+	 * 
+	 * @return attribute constraint violations for each entity in the chunk, in chunk order
+	 */
+	private List<Set<ConstraintViolation>> validateEntityValueTypes(List<Entity> chunk,
+			ValidationResource validationResource)
 	{
-		// entity attributes validation
-		Set<ConstraintViolation> attrViolations = entityAttributesValidator.validate(entity, getEntityMetaData());
-		if (attrViolations != null && !attrViolations.isEmpty())
+		CompiledAttributesValidator attributesValidator = validationResource.getAttributesValidator();
+		if (chunk.size() < PARALLEL_VALIDATION_THRESHOLD)
 		{
-			attrViolations.forEach(attrViolation -> {
-				validationResource.addViolation(attrViolation);
-			});
+			return chunk.stream().map(attributesValidator::validate).collect(Collectors.toList());
 		}
+
+		List<ConstraintViolation[]> valueTypeViolations = chunk.parallelStream()
+				.map(attributesValidator::validateValueTypes).collect(Collectors.toList());
+		return IntStream.range(0, chunk.size())
+				.mapToObj(i -> attributesValidator.validate(chunk.get(i), valueTypeViolations.get(i)))
+				.collect(Collectors.toList());
 	}
 
 	private void validateEntityValueUniqueness(Entity entity, ValidationResource validationResource,
 			ValidationMode validationMode)
 	{
 		validationResource.getUniqueAttrs().forEach(uniqueAttr -> {
-			Object attrValue = entity.get(uniqueAttr.getName());
+			Object attrValue = getUniqueAttrValue(entity, uniqueAttr);
 			if (attrValue != null)
 			{
-				if (uniqueAttr.getDataType() instanceof XrefField)
-				{
-					attrValue = ((Entity) attrValue).getIdValue();
-				}
-
 				HugeMap<Object, Object> uniqueAttrValues = validationResource.getUniqueAttrsValues()
 						.get(uniqueAttr.getName());
 				Object existingEntityId = uniqueAttrValues.get(attrValue);
@@ -516,25 +716,7 @@ public class RepositoryValidationDecorator implements Repository
 		validationResource.getRefAttrs().forEach(refAttr -> {
 			HugeSet<Object> refEntityIds = validationResource.getRefEntitiesIds().get(refAttr.getRefEntity().getName());
 
-			Iterable<Entity> refEntities;
-			if (refAttr.getDataType() instanceof XrefField)
-			{
-				Entity refEntity = entity.getEntity(refAttr.getName());
-				if (refEntity != null)
-				{
-					refEntities = singleton(refEntity);
-				}
-				else
-				{
-					refEntities = emptyList();
-				}
-			}
-			else
-			{
-				refEntities = entity.getEntities(refAttr.getName());
-			}
-
-			for (Entity refEntity : refEntities)
+			for (Entity refEntity : getRefEntities(entity, refAttr))
 			{
 				if (!refEntityIds.contains(refEntity.getIdValue()))
 				{
@@ -615,11 +797,14 @@ public class RepositoryValidationDecorator implements Repository
 		private List<AttributeMetaData> requiredValueAttrs;
 		private List<AttributeMetaData> refAttrs;
 		private Map<String, HugeSet<Object>> refEntitiesIds;
+		private Map<String, EntityMetaData> batchedRefEntities;
+		private boolean batchedUniqueValidation;
 		private List<AttributeMetaData> uniqueAttrs;
 		private Map<String, HugeMap<Object, Object>> uniqueAttrsValues;
 		private List<AttributeMetaData> readonlyAttrs;
 		private boolean selfReferencing;
 		private Set<ConstraintViolation> violations;
+		private CompiledAttributesValidator attributesValidator;
 
 		public ValidationResource()
 		{
@@ -636,6 +821,16 @@ public class RepositoryValidationDecorator implements Repository
 			rowNr.incrementAndGet();
 		}
 
+		public CompiledAttributesValidator getAttributesValidator()
+		{
+			return attributesValidator;
+		}
+
+		public void setAttributesValidator(CompiledAttributesValidator attributesValidator)
+		{
+			this.attributesValidator = attributesValidator;
+		}
+
 		public List<AttributeMetaData> getRequiredValueAttrs()
 		{
 			return requiredValueAttrs != null ? unmodifiableList(requiredValueAttrs) : emptyList();
@@ -676,6 +871,35 @@ public class RepositoryValidationDecorator implements Repository
 			}
 		}
 
+		public Map<String, EntityMetaData> getBatchedRefEntities()
+		{
+			return batchedRefEntities != null ? unmodifiableMap(batchedRefEntities) : emptyMap();
+		}
+
+		public void addBatchedRefEntity(EntityMetaData refEntityMeta)
+		{
+			if (batchedRefEntities == null)
+			{
+				batchedRefEntities = new HashMap<>();
+			}
+			batchedRefEntities.put(refEntityMeta.getName(), refEntityMeta);
+		}
+
+		public boolean isBatchedUniqueValidation()
+		{
+			return batchedUniqueValidation;
+		}
+
+		public void setBatchedUniqueValidation(boolean batchedUniqueValidation)
+		{
+			this.batchedUniqueValidation = batchedUniqueValidation;
+		}
+
+		public boolean hasBatchedLookups()
+		{
+			return batchedUniqueValidation || (batchedRefEntities != null && !batchedRefEntities.isEmpty());
+		}
+
 		public List<AttributeMetaData> getUniqueAttrs()
 		{
 			return uniqueAttrs != null ? unmodifiableList(uniqueAttrs) : emptyList();
@@ -1,6 +1,8 @@
 package org.molgenis.data.validation;
 
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.molgenis.MolgenisFieldTypes.MREF;
 import static org.molgenis.MolgenisFieldTypes.STRING;
@@ -19,6 +21,7 @@ import org.molgenis.data.EntityMetaData;
 import org.molgenis.data.Range;
 import org.molgenis.data.support.DefaultEntity;
 import org.molgenis.data.support.DefaultEntityMetaData;
+import org.molgenis.fieldtypes.EnumField;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
@@ -290,4 +293,47 @@ public class EntityAttributesValidatorTest
 		Set<ConstraintViolation> constraints = entityAttributesValidator.validate(entity0, entity0.getEntityMetaData());
 		assertEquals(constraints.size(), 1);
 	}
+
+	@Test
+	public void compileEnum()
+	{
+		DefaultEntityMetaData meta = new DefaultEntityMetaData("entity");
+		meta.addAttribute("id", ROLE_ID);
+		meta.addAttribute("enum").setDataType(new EnumField()).setEnumOptions(Arrays.asList("a", "b"));
+		CompiledAttributesValidator compiledValidator = entityAttributesValidator.compile(meta);
+
+		DefaultEntity validEntity = new DefaultEntity(meta, null);
+		validEntity.set("id", "0");
+		validEntity.set("enum", "b");
+		assertTrue(compiledValidator.validate(validEntity).isEmpty());
+
+		DefaultEntity invalidEntity = new DefaultEntity(meta, null);
+		invalidEntity.set("id", "1");
+		invalidEntity.set("enum", "c");
+		Set<ConstraintViolation> constraints = compiledValidator.validate(invalidEntity);
+		assertEquals(constraints.size(), 1);
+		assertEquals(constraints.iterator().next().getMessage(),
+				"Invalid enum value 'c' for attribute 'enum' of entity 'entity'. Value must be one of [a, b]");
+	}
+
+	@Test
+	public void compileValidateValueTypesSkipsReferences()
+	{
+		DefaultEntityMetaData refMeta = new DefaultEntityMetaData("refEntity");
+		refMeta.addAttribute("refId", ROLE_ID);
+
+		DefaultEntityMetaData meta = new DefaultEntityMetaData("entity");
+		meta.addAttribute("id", ROLE_ID);
+		meta.addAttribute("xref").setDataType(XREF).setRefEntity(refMeta);
+		CompiledAttributesValidator compiledValidator = entityAttributesValidator.compile(meta);
+
+		Entity entity = mock(Entity.class);
+		when(entity.getEntityMetaData()).thenReturn(meta);
+		when(entity.getString("id")).thenReturn("0");
+		ConstraintViolation[] valueTypeViolations = compiledValidator.validateValueTypes(entity);
+		verify(entity, never()).getEntity("xref");
+
+		compiledValidator.validate(entity, valueTypeViolations);
+		verify(entity).getEntity("xref");
+	}
 }
@@ -9,9 +9,11 @@ import static org.mockito.Mockito.when;
 import static org.molgenis.MolgenisFieldTypes.MREF;
 import static org.molgenis.MolgenisFieldTypes.STRING;
 import static org.molgenis.MolgenisFieldTypes.XREF;
+import static org.molgenis.data.RepositoryCapability.QUERYABLE;
 import static org.testng.Assert.assertEquals;
 
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -181,6 +183,8 @@ public class RepositoryValidationDecoratorTest
 
 		expressionValidator = mock(ExpressionValidator.class);
 		entityAttributesValidator = mock(EntityAttributesValidator.class);
+		when(entityAttributesValidator.compile(entityMeta))
+				.thenReturn(entity -> entityAttributesValidator.validate(entity, entityMeta));
 		repositoryValidationDecorator = new RepositoryValidationDecorator(dataService, decoratedRepo,
 				entityAttributesValidator, expressionValidator);
 	}
@@ -937,6 +941,169 @@ public class RepositoryValidationDecoratorTest
 		verify(entityAttributesValidator, times(1)).validate(entity0, entityMeta);
 	}
 
+	@SuppressWarnings(
+	{ "rawtypes", "unchecked" })
+	@Test
+	public void addStreamBatchedLookups()
+	{
+		initBatchedLookups();
+		when(dataService.findAll(refEntityName,
+				new QueryImpl().in(refAttrIdName, singleton("idref0")).fetch(new Fetch().field(refAttrIdName))))
+						.thenReturn(Stream.of(refEntity0));
+
+		// entities
+		Entity entity0 = mock(Entity.class);
+		when(entity0.getEntityMetaData()).thenReturn(entityMeta);
+
+		when(entity0.getIdValue()).thenReturn("id0");
+		when(entity0.getEntity(attrXrefName)).thenReturn(refEntity0);
+		when(entity0.getEntity(attrNillableXrefName)).thenReturn(null);
+		when(entity0.getEntities(attrMrefName)).thenReturn(Arrays.asList(refEntity0));
+		when(entity0.getEntities(attrNillableMrefName)).thenReturn(emptyList());
+		when(entity0.getString(attrUniqueStringName)).thenReturn("unique0");
+		when(entity0.getEntity(attrUniqueXrefName)).thenReturn(refEntity0);
+
+		when(entity0.get(attrIdName)).thenReturn("id0");
+		when(entity0.get(attrXrefName)).thenReturn(refEntity0);
+		when(entity0.get(attrNillableXrefName)).thenReturn(null);
+		when(entity0.get(attrMrefName)).thenReturn(Arrays.asList(refEntity0));
+		when(entity0.get(attrNillableMrefName)).thenReturn(emptyList());
+		when(entity0.get(attrUniqueStringName)).thenReturn("unique0");
+		when(entity0.get(attrUniqueXrefName)).thenReturn(refEntity0);
+
+		// actual tests
+		List<Entity> entities = Arrays.asList(entity0);
+		repositoryValidationDecorator.add(entities.stream());
+
+		ArgumentCaptor<Stream<Entity>> captor = ArgumentCaptor.forClass((Class) Stream.class);
+		verify(decoratedRepo, times(1)).add(captor.capture());
+		Stream<Entity> stream = captor.getValue();
+		stream.collect(Collectors.toList()); // process stream to enable validation
+
+		verify(entityAttributesValidator, times(1)).validate(entity0, entityMeta);
+		verify(dataService, times(0)).findAll(refEntityName,
+				new QueryImpl().fetch(new Fetch().field(refAttrIdName)));
+	}
+
+	@SuppressWarnings(
+	{ "rawtypes", "unchecked" })
+	@Test
+	public void addStreamBatchedLookupsReferenceValidationError()
+	{
+		initBatchedLookups();
+		when(dataService.findAll(refEntityName,
+				new QueryImpl().in(refAttrIdName, new HashSet<>(Arrays.asList("idref0", "idref1")))
+						.fetch(new Fetch().field(refAttrIdName)))).thenReturn(Stream.of(refEntity0));
+
+		// entities
+		Entity entity0 = mock(Entity.class);
+		when(entity0.getEntityMetaData()).thenReturn(entityMeta);
+
+		when(entity0.getIdValue()).thenReturn("id0");
+		when(entity0.getEntity(attrXrefName)).thenReturn(refEntity1); // not in backend
+		when(entity0.getEntity(attrNillableXrefName)).thenReturn(null);
+		when(entity0.getEntities(attrMrefName)).thenReturn(Arrays.asList(refEntity0));
+		when(entity0.getEntities(attrNillableMrefName)).thenReturn(emptyList());
+		when(entity0.getString(attrUniqueStringName)).thenReturn("unique0");
+		when(entity0.getEntity(attrUniqueXrefName)).thenReturn(refEntity0);
+
+		when(entity0.get(attrIdName)).thenReturn("id0");
+		when(entity0.get(attrXrefName)).thenReturn(refEntity1); // not in backend
+		when(entity0.get(attrNillableXrefName)).thenReturn(null);
+		when(entity0.get(attrMrefName)).thenReturn(Arrays.asList(refEntity0));
+		when(entity0.get(attrNillableMrefName)).thenReturn(emptyList());
+		when(entity0.get(attrUniqueStringName)).thenReturn("unique0");
+		when(entity0.get(attrUniqueXrefName)).thenReturn(refEntity0);
+
+		// actual tests
+		List<Entity> entities = Arrays.asList(entity0);
+		repositoryValidationDecorator.add(entities.stream());
+
+		ArgumentCaptor<Stream<Entity>> captor = ArgumentCaptor.forClass((Class) Stream.class);
+		verify(decoratedRepo, times(1)).add(captor.capture());
+		Stream<Entity> stream = captor.getValue();
+		try
+		{
+			stream.collect(Collectors.toList()); // process stream to enable validation
+			throw new RuntimeException("Expected MolgenisValidationException instead of no exception");
+		}
+		catch (MolgenisValidationException e)
+		{
+			verify(entityAttributesValidator, times(1)).validate(entity0, entityMeta);
+			assertEquals(e.getMessage(),
+					"Unknown xref value 'idref1' for attribute 'xrefAttr' of entity 'entity'. (entity 1)");
+		}
+	}
+
+	@SuppressWarnings(
+	{ "rawtypes", "unchecked" })
+	@Test
+	public void addStreamBatchedLookupsUniqueValueExistsInBackendValidationError()
+	{
+		initBatchedLookups();
+		when(dataService.findAll(refEntityName,
+				new QueryImpl().in(refAttrIdName, singleton("idref0")).fetch(new Fetch().field(refAttrIdName))))
+						.thenReturn(Stream.of(refEntity0));
+
+		Entity entityInBackend0 = mock(Entity.class);
+		when(entityInBackend0.getIdValue()).thenReturn("idbackend0");
+		when(entityInBackend0.get(attrUniqueStringName)).thenReturn("unique0");
+		when(decoratedRepo.findAll(new QueryImpl().in(attrUniqueStringName, singleton("unique0"))
+				.fetch(new Fetch().field(attrIdName).field(attrUniqueStringName))))
+						.thenReturn(Stream.of(entityInBackend0));
+
+		// entities
+		Entity entity0 = mock(Entity.class);
+		when(entity0.getEntityMetaData()).thenReturn(entityMeta);
+
+		when(entity0.getIdValue()).thenReturn("id0");
+		when(entity0.getEntity(attrXrefName)).thenReturn(refEntity0);
+		when(entity0.getEntity(attrNillableXrefName)).thenReturn(null);
+		when(entity0.getEntities(attrMrefName)).thenReturn(Arrays.asList(refEntity0));
+		when(entity0.getEntities(attrNillableMrefName)).thenReturn(emptyList());
+		when(entity0.getString(attrUniqueStringName)).thenReturn("unique0");
+		when(entity0.getEntity(attrUniqueXrefName)).thenReturn(refEntity0);
+
+		when(entity0.get(attrIdName)).thenReturn("id0");
+		when(entity0.get(attrXrefName)).thenReturn(refEntity0);
+		when(entity0.get(attrNillableXrefName)).thenReturn(null);
+		when(entity0.get(attrMrefName)).thenReturn(Arrays.asList(refEntity0));
+		when(entity0.get(attrNillableMrefName)).thenReturn(emptyList());
+		when(entity0.get(attrUniqueStringName)).thenReturn("unique0");
+		when(entity0.get(attrUniqueXrefName)).thenReturn(refEntity0);
+
+		// actual tests
+		List<Entity> entities = Arrays.asList(entity0);
+		repositoryValidationDecorator.add(entities.stream());
+
+		ArgumentCaptor<Stream<Entity>> captor = ArgumentCaptor.forClass((Class) Stream.class);
+		verify(decoratedRepo, times(1)).add(captor.capture());
+		Stream<Entity> stream = captor.getValue();
+		try
+		{
+			stream.collect(Collectors.toList()); // process stream to enable validation
+			throw new RuntimeException("Expected MolgenisValidationException instead of no exception");
+		}
+		catch (MolgenisValidationException e)
+		{
+			verify(entityAttributesValidator, times(1)).validate(entity0, entityMeta);
+			assertEquals(e.getMessage(),
+					"Duplicate value 'unique0' for unique attribute 'uniqueStringAttr' from entity 'entity' (entity 1)");
+		}
+	}
+
+	private void initBatchedLookups()
+	{
+		when(refRepo.getCapabilities()).thenReturn(singleton(QUERYABLE));
+		when(refRepo.count()).thenReturn(1000000l);
+		when(decoratedRepo.getCapabilities()).thenReturn(singleton(QUERYABLE));
+		when(decoratedRepo.count()).thenReturn(1000000l);
+		when(decoratedRepo.findAll(new QueryImpl().in(attrUniqueStringName, singleton("unique0"))
+				.fetch(new Fetch().field(attrIdName).field(attrUniqueStringName)))).thenReturn(Stream.empty());
+		when(decoratedRepo.findAll(new QueryImpl().in(attrUniqueXrefName, singleton("idref0"))
+				.fetch(new Fetch().field(attrIdName).field(attrUniqueXrefName)))).thenReturn(Stream.empty());
+	}
+
 	@SuppressWarnings(
 	{ "rawtypes", "unchecked" })
 	@Test
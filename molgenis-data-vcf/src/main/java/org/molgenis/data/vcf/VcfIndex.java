@@ -0,0 +1,364 @@
+package org.molgenis.data.vcf;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.zip.GZIPInputStream;
+
+import org.molgenis.data.MolgenisDataException;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+/**
+ * Lightweight index of a VCF file that is built with a single scan over the #CHROM and POS columns of the records. It
+ * stores the number of records and, for files that are sorted by chromosome and position, the byte offsets of every
+ * {@value #CHECKPOINT_INTERVAL}th record and of the first record of each chromosome, so that region queries can seek
+ * instead of reading the whole file.
+ *
+ * Indexes are cached per file and rebuilt when the modification time or the length of the file changes.
+ */
+class VcfIndex
+{
+	private static final int CHECKPOINT_INTERVAL = 1024;
+	private static final int MAX_CACHED_INDEXES = 100;
+
+	private static final Cache<File, VcfIndex> INDEXES = CacheBuilder.newBuilder().maximumSize(MAX_CACHED_INDEXES)
+			.build();
+
+	private final File file;
+	private final long lastModified;
+	private final long length;
+	private final boolean compressed;
+	private final long headerLength;
+	private final long count;
+	private final boolean sorted;
+	private final Map<String, List<Checkpoint>> checkpoints;
+
+	private VcfIndex(File file, long lastModified, long length, boolean compressed, long headerLength, long count,
+			boolean sorted, Map<String, List<Checkpoint>> checkpoints)
+	{
+		this.file = file;
+		this.lastModified = lastModified;
+		this.length = length;
+		this.compressed = compressed;
+		this.headerLength = headerLength;
+		this.count = count;
+		this.sorted = sorted;
+		this.checkpoints = checkpoints;
+	}
+
+	/**
+	 * Returns the index of the file, builds it if the file was not indexed before or changed since it was indexed.
+	 */
+	static VcfIndex get(File file)
+	{
+		File key = file.getAbsoluteFile();
+		while (true)
+		{
+			VcfIndex index;
+			try
+			{
+				index = INDEXES.get(key, () -> create(key));
+			}
+			catch (ExecutionException | UncheckedExecutionException e)
+			{
+				if (e.getCause() instanceof RuntimeException)
+				{
+					throw (RuntimeException) e.getCause();
+				}
+				throw new MolgenisDataException(e.getCause());
+			}
+			if (index.isUpToDate()) return index;
+			INDEXES.asMap().remove(key, index);
+		}
+	}
+
+	long getCount()
+	{
+		return count;
+	}
+
+	/**
+	 * Returns whether records of the same chromosome are stored together, ordered by position
+	 */
+	boolean isSorted()
+	{
+		return sorted;
+	}
+
+	boolean hasChromosome(String chrom)
+	{
+		return checkpoints.containsKey(chrom);
+	}
+
+	/**
+	 * Opens a reader over the record lines of the file. If possible the reader is positioned before the first record
+	 * of the chromosome with a position of at least posFrom, otherwise at the first record of the file.
+	 */
+	BufferedReader openRecordReader(String chrom, long posFrom) throws IOException
+	{
+		if (compressed || !sorted)
+		{
+			return openRecordReader(file);
+		}
+
+		long offset = headerLength;
+		List<Checkpoint> chromCheckpoints = checkpoints.get(chrom);
+		if (chromCheckpoints != null)
+		{
+			// the last checkpoint before the region, records at posFrom can start before a checkpoint at posFrom
+			offset = chromCheckpoints.get(0).offset;
+			for (Checkpoint checkpoint : chromCheckpoints)
+			{
+				if (checkpoint.pos >= posFrom) break;
+				offset = checkpoint.offset;
+			}
+		}
+
+		FileChannel channel = new FileInputStream(file).getChannel();
+		try
+		{
+			channel.position(offset);
+		}
+		catch (IOException e)
+		{
+			channel.close();
+			throw e;
+		}
+		return new BufferedReader(new InputStreamReader(Channels.newInputStream(channel), UTF_8));
+	}
+
+	/**
+	 * Opens a reader over the record lines of a file without indexing it
+	 */
+	static BufferedReader openRecordReader(File file) throws IOException
+	{
+		BufferedReader reader = new BufferedReader(new InputStreamReader(openInputStream(file), UTF_8));
+		try
+		{
+			skipHeader(reader);
+		}
+		catch (IOException e)
+		{
+			reader.close();
+			throw e;
+		}
+		return reader;
+	}
+
+	private boolean isUpToDate()
+	{
+		return file.lastModified() == lastModified && file.length() == length;
+	}
+
+	private static VcfIndex create(File file)
+	{
+		long lastModified = file.lastModified();
+		long length = file.length();
+		boolean compressed = file.getName().endsWith(".gz");
+
+		try (InputStream inputStream = openInputStream(file))
+		{
+			LineScanner scanner = new LineScanner(inputStream);
+			long offset = 0;
+			long headerLength = 0;
+			long count = 0;
+			boolean sorted = true;
+			Map<String, List<Checkpoint>> checkpoints = new HashMap<>();
+			String previousChrom = null;
+			long previousPos = Long.MIN_VALUE;
+
+			for (int lineLength; (lineLength = scanner.next()) != -1; offset += lineLength)
+			{
+				if (scanner.startsWith('#'))
+				{
+					if (count == 0) headerLength = offset + lineLength;
+					continue;
+				}
+				if (scanner.isEmpty()) continue;
+
+				String chrom = scanner.getChrom();
+				long pos = scanner.getPos();
+				if (!chrom.equals(previousChrom))
+				{
+					if (checkpoints.containsKey(chrom)) sorted = false;
+					checkpoints.computeIfAbsent(chrom, key -> new ArrayList<>()).add(new Checkpoint(pos, offset));
+				}
+				else
+				{
+					if (pos < previousPos) sorted = false;
+					if (count % CHECKPOINT_INTERVAL == 0)
+					{
+						checkpoints.get(chrom).add(new Checkpoint(pos, offset));
+					}
+				}
+				previousChrom = chrom;
+				previousPos = pos;
+				++count;
+			}
+
+			checkpoints.replaceAll((chrom, chromCheckpoints) -> Collections.unmodifiableList(chromCheckpoints));
+			return new VcfIndex(file, lastModified, length, compressed, headerLength, count, sorted,
+					Collections.unmodifiableMap(checkpoints));
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static InputStream openInputStream(File file) throws IOException
+	{
+		InputStream inputStream = new FileInputStream(file);
+		if (file.getName().endsWith(".gz"))
+		{
+			inputStream = new GZIPInputStream(inputStream);
+		}
+		return inputStream;
+	}
+
+	private static void skipHeader(BufferedReader reader) throws IOException
+	{
+		reader.mark(1);
+		int c = reader.read();
+		while (c == '#')
+		{
+			reader.readLine();
+			reader.mark(1);
+			c = reader.read();
+		}
+		if (c != -1) reader.reset();
+	}
+
+	/**
+	 * Position and byte offset of a record
+	 */
+	private static class Checkpoint
+	{
+		final long pos;
+		final long offset;
+
+		Checkpoint(long pos, long offset)
+		{
+			this.pos = pos;
+			this.offset = offset;
+		}
+	}
+
+	/**
+	 * Reads the lines of a stream as bytes and only decodes the #CHROM and POS columns
+	 */
+	private static class LineScanner
+	{
+		private final InputStream inputStream;
+		private final byte[] buffer = new byte[65536];
+		private int bufferPosition;
+		private int bufferLength;
+		private byte[] line = new byte[1024];
+		private int lineLength;
+
+		LineScanner(InputStream inputStream)
+		{
+			this.inputStream = inputStream;
+		}
+
+		/**
+		 * Reads the next line
+		 *
+		 * @return number of bytes of the line including the line terminator, -1 at the end of the stream
+		 */
+		int next() throws IOException
+		{
+			lineLength = 0;
+			int nrBytes = 0;
+			while (true)
+			{
+				if (bufferPosition == bufferLength)
+				{
+					bufferLength = inputStream.read(buffer);
+					bufferPosition = 0;
+					if (bufferLength == -1)
+					{
+						bufferLength = 0;
+						break;
+					}
+				}
+
+				byte b = buffer[bufferPosition++];
+				++nrBytes;
+				if (b == '\n') break;
+				if (lineLength == line.length)
+				{
+					line = Arrays.copyOf(line, line.length * 2);
+				}
+				line[lineLength++] = b;
+			}
+			if (lineLength > 0 && line[lineLength - 1] == '\r') --lineLength;
+			return nrBytes > 0 ? nrBytes : -1;
+		}
+
+		boolean startsWith(char c)
+		{
+			return lineLength > 0 && line[0] == c;
+		}
+
+		boolean isEmpty()
+		{
+			return lineLength == 0;
+		}
+
+		String getChrom()
+		{
+			int end = indexOfTab(0);
+			return new String(line, 0, end, UTF_8);
+		}
+
+		long getPos()
+		{
+			int start = indexOfTab(0) + 1;
+			long pos = 0;
+			for (int i = start; i < lineLength && line[i] != '\t'; ++i)
+			{
+				int digit = line[i] - '0';
+				if (digit < 0 || digit > 9)
+				{
+					throw new MolgenisDataException("Invalid POS value in VCF record [" + toString() + "]");
+				}
+				pos = pos * 10 + digit;
+			}
+			return pos;
+		}
+
+		private int indexOfTab(int from)
+		{
+			for (int i = from; i < lineLength; ++i)
+			{
+				if (line[i] == '\t') return i;
+			}
+			return lineLength;
+		}
+
+		@Override
+		public String toString()
+		{
+			return new String(line, 0, lineLength, UTF_8);
+		}
+	}
+}
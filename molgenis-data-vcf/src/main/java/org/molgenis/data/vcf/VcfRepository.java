@@ -1,17 +1,32 @@
 package org.molgenis.data.vcf;
 
 import static java.util.Objects.requireNonNull;
+import static java.util.Spliterator.ORDERED;
+import static java.util.Spliterators.spliteratorUnknownSize;
+import static java.util.stream.StreamSupport.stream;
 
+import java.io.BufferedReader;
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
 
+import org.apache.commons.io.IOUtils;
 import org.molgenis.MolgenisFieldTypes;
 import org.molgenis.data.AttributeMetaData;
 import org.molgenis.data.Entity;
 import org.molgenis.data.EntityMetaData;
+import org.molgenis.data.MolgenisDataException;
+import org.molgenis.data.Query;
+import org.molgenis.data.QueryRule;
+import org.molgenis.data.QueryRule.Operator;
 import org.molgenis.data.RepositoryCapability;
 import org.molgenis.data.support.AbstractRepository;
 import org.molgenis.data.support.DefaultAttributeMetaData;
@@ -24,6 +39,7 @@ import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Supplier;
 import com.google.common.base.Suppliers;
+import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Iterators;
 
@@ -76,18 +92,46 @@ public class VcfRepository extends AbstractRepository
 			MolgenisFieldTypes.FieldTypeEnum.STRING).setNillable(true).setDescription(DEFAULT_ATTRIBUTE_DESCRIPTION);
 
 	private final String entityName;
+	private final boolean includeSamples;
 	protected Supplier<VcfToEntity> vcfToEntitySupplier;
 	private VcfReaderFactory vcfReaderFactory;
+	private final File file;
+	private final Set<RecordIterator> openRecordIterators = Collections.newSetFromMap(new ConcurrentHashMap<>());
 
 	public VcfRepository(File file, String entityName) throws IOException
 	{
-		this(new VcfReaderFactoryImpl(file), entityName);
+		this(file, entityName, true);
+	}
+
+	/**
+	 * @param file
+	 *            the VCF file
+	 * @param entityName
+	 *            name of the entity
+	 * @param includeSamples
+	 *            whether the sample columns are read, if not the entities have no {@link #SAMPLES} attribute
+	 */
+	public VcfRepository(File file, String entityName, boolean includeSamples) throws IOException
+	{
+		this(new VcfReaderFactoryImpl(file), file, entityName, includeSamples);
 	}
 
 	protected VcfRepository(VcfReaderFactory vcfReaderFactory, String entityName)
+	{
+		this(vcfReaderFactory, entityName, true);
+	}
+
+	protected VcfRepository(VcfReaderFactory vcfReaderFactory, String entityName, boolean includeSamples)
+	{
+		this(vcfReaderFactory, null, entityName, includeSamples);
+	}
+
+	private VcfRepository(VcfReaderFactory vcfReaderFactory, File file, String entityName, boolean includeSamples)
 	{
 		this.entityName = requireNonNull(entityName);
+		this.includeSamples = includeSamples;
 		this.vcfReaderFactory = vcfReaderFactory;
+		this.file = file;
 		this.vcfToEntitySupplier = Suppliers.<VcfToEntity> memoize(this::parseVcfMeta);
 	}
 
@@ -97,7 +141,7 @@ public class VcfRepository extends AbstractRepository
 		try
 		{
 			VcfMeta vcfMeta = reader.getVcfMeta();
-			return new VcfToEntity(entityName, vcfMeta);
+			return new VcfToEntity(entityName, vcfMeta, includeSamples);
 		}
 		catch (Exception e)
 		{
@@ -117,9 +161,15 @@ public class VcfRepository extends AbstractRepository
 		}
 	}
 
+	/**
+	 * Iterates over the records, records of a file are converted to entities that parse their INFO and sample columns
+	 * when these are read
+	 */
 	@Override
 	public Iterator<Entity> iterator()
 	{
+		if (file != null) return new RecordIterator(null, null);
+
 		Iterator<VcfRecord> vcfRecordIterator = Iterators.unmodifiableIterator(vcfReaderFactory.get().iterator());
 		VcfToEntity vcfToEntity = vcfToEntitySupplier.get();
 		return Iterators.transform(vcfRecordIterator, vcfToEntity::toEntity);
@@ -135,18 +185,212 @@ public class VcfRepository extends AbstractRepository
 	public void close() throws IOException
 	{
 		vcfReaderFactory.close();
+		openRecordIterators.forEach(RecordIterator::close);
 	}
 
+	/**
+	 * Repositories of a file can be queried on {@link #CHROM} and {@link #POS}, see {@link #findAll(Query)}
+	 */
 	@Override
 	public Set<RepositoryCapability> getCapabilities()
 	{
-		return Collections.emptySet();
+		return file != null ? EnumSet.of(RepositoryCapability.QUERYABLE) : Collections.emptySet();
 	}
 
+	/**
+	 * Returns the number of records, which is cached until the file changes
+	 */
 	@Override
 	public long count()
 	{
-		return Iterables.size(this);
+		return file != null ? VcfIndex.get(file).getCount() : Iterables.size(this);
+	}
+
+	@Override
+	public long count(Query q)
+	{
+		if (q.getRules().isEmpty()) return count();
+		return findAll(q).count();
+	}
+
+	/**
+	 * Finds the records in a region. Supported queries are {@link #CHROM} EQUALS, optionally combined with AND rules on
+	 * {@link #POS} with operator EQUALS, RANGE, GREATER_EQUAL or LESS_EQUAL. Region queries on files that are sorted by
+	 * chromosome and position seek to the region instead of reading the file from the start.
+	 */
+	@Override
+	public Stream<Entity> findAll(Query q)
+	{
+		if (file == null) return super.findAll(q);
+
+		Stream<Entity> entities;
+		if (q.getRules().isEmpty())
+		{
+			entities = stream(spliteratorUnknownSize(iterator(), ORDERED), false);
+		}
+		else
+		{
+			Region region = toRegion(q.getRules());
+			VcfIndex vcfIndex = VcfIndex.get(file);
+			if (!vcfIndex.hasChromosome(region.chrom) || region.posFrom > region.posTo) return Stream.empty();
+
+			RecordIterator recordIterator = new RecordIterator(vcfIndex, region);
+			entities = stream(spliteratorUnknownSize(recordIterator, ORDERED), false).onClose(recordIterator::close);
+		}
+
+		if (q.getOffset() > 0) entities = entities.skip(q.getOffset());
+		if (q.getPageSize() > 0) entities = entities.limit(q.getPageSize());
+		return entities;
 	}
 
+	private static Region toRegion(List<QueryRule> rules)
+	{
+		String chrom = null;
+		long posFrom = Long.MIN_VALUE;
+		long posTo = Long.MAX_VALUE;
+		for (QueryRule rule : rules)
+		{
+			Operator operator = rule.getOperator();
+			if (operator == Operator.AND) continue;
+
+			if (CHROM.equals(rule.getField()) && operator == Operator.EQUALS && rule.getValue() != null)
+			{
+				chrom = rule.getValue().toString();
+			}
+			else if (POS.equals(rule.getField()) && operator == Operator.EQUALS && rule.getValue() != null)
+			{
+				posFrom = Math.max(posFrom, toPos(rule.getValue()));
+				posTo = Math.min(posTo, toPos(rule.getValue()));
+			}
+			else if (POS.equals(rule.getField()) && operator == Operator.RANGE && rule.getValue() != null)
+			{
+				Iterator<?> range = ((Iterable<?>) rule.getValue()).iterator();
+				posFrom = Math.max(posFrom, toPos(range.next()));
+				posTo = Math.min(posTo, toPos(range.next()));
+			}
+			else if (POS.equals(rule.getField()) && operator == Operator.GREATER_EQUAL && rule.getValue() != null)
+			{
+				posFrom = Math.max(posFrom, toPos(rule.getValue()));
+			}
+			else if (POS.equals(rule.getField()) && operator == Operator.LESS_EQUAL && rule.getValue() != null)
+			{
+				posTo = Math.min(posTo, toPos(rule.getValue()));
+			}
+			else
+			{
+				chrom = null;
+				break;
+			}
+		}
+
+		if (chrom == null)
+		{
+			throw new MolgenisDataException("The only queries allowed on this Repository are " + CHROM
+					+ " EQUALS, optionally with " + POS + " EQUALS, RANGE, GREATER_EQUAL or LESS_EQUAL");
+		}
+		return new Region(chrom, posFrom, posTo);
+	}
+
+	private static long toPos(Object value)
+	{
+		return value instanceof Number ? ((Number) value).longValue() : Long.parseLong(value.toString());
+	}
+
+	/**
+	 * Chromosome with an inclusive position range
+	 */
+	private static class Region
+	{
+		final String chrom;
+		final long posFrom;
+		final long posTo;
+
+		Region(String chrom, long posFrom, long posTo)
+		{
+			this.chrom = chrom;
+			this.posFrom = posFrom;
+			this.posTo = posTo;
+		}
+	}
+
+	/**
+	 * Reads the records of the file or of a region, only records in the region are converted to entities. Reading stops
+	 * after the region if the file is sorted. Iterators that are not read to the end are closed when the repository is
+	 * closed.
+	 */
+	private class RecordIterator extends AbstractIterator<Entity> implements Closeable
+	{
+		private final VcfIndex vcfIndex;
+		private final Region region;
+		private BufferedReader reader;
+		private boolean inChromosome;
+
+		/**
+		 * @param vcfIndex
+		 *            index of the file, null to read all records
+		 * @param region
+		 *            region to read, null to read all records
+		 */
+		RecordIterator(VcfIndex vcfIndex, Region region)
+		{
+			this.vcfIndex = vcfIndex;
+			this.region = region;
+		}
+
+		@Override
+		protected Entity computeNext()
+		{
+			try
+			{
+				if (reader == null)
+				{
+					reader = region != null ? vcfIndex.openRecordReader(region.chrom, region.posFrom)
+							: VcfIndex.openRecordReader(file);
+					openRecordIterators.add(this);
+				}
+
+				for (String line = reader.readLine(); line != null; line = reader.readLine())
+				{
+					if (region == null)
+					{
+						if (line.isEmpty()) continue;
+						return vcfToEntitySupplier.get().toEntity(line);
+					}
+
+					int chromEnd = line.indexOf('\t');
+					if (chromEnd == -1) continue;
+					boolean chromMatches = line.regionMatches(0, region.chrom, 0, chromEnd)
+							&& chromEnd == region.chrom.length();
+					if (!chromMatches)
+					{
+						if (inChromosome && vcfIndex.isSorted()) break;
+						continue;
+					}
+					inChromosome = true;
+
+					int posEnd = line.indexOf('\t', chromEnd + 1);
+					long pos = Long.parseLong(line.substring(chromEnd + 1, posEnd != -1 ? posEnd : line.length()));
+					if (pos > region.posTo && vcfIndex.isSorted()) break;
+					if (pos >= region.posFrom && pos <= region.posTo)
+					{
+						return vcfToEntitySupplier.get().toEntity(line);
+					}
+				}
+			}
+			catch (IOException e)
+			{
+				close();
+				throw new UncheckedIOException(e);
+			}
+			close();
+			return endOfData();
+		}
+
+		@Override
+		public void close()
+		{
+			IOUtils.closeQuietly(reader);
+			openRecordIterators.remove(this);
+		}
+	}
 }
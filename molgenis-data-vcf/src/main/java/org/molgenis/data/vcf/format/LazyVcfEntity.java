@@ -0,0 +1,189 @@
+package org.molgenis.data.vcf.format;
+
+import static java.util.Objects.requireNonNull;
+import static org.molgenis.data.vcf.VcfRepository.ALT;
+import static org.molgenis.data.vcf.VcfRepository.CHROM;
+import static org.molgenis.data.vcf.VcfRepository.FILTER;
+import static org.molgenis.data.vcf.VcfRepository.ID;
+import static org.molgenis.data.vcf.VcfRepository.INTERNAL_ID;
+import static org.molgenis.data.vcf.VcfRepository.POS;
+import static org.molgenis.data.vcf.VcfRepository.QUAL;
+import static org.molgenis.data.vcf.VcfRepository.REF;
+import static org.molgenis.data.vcf.VcfRepository.SAMPLES;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.molgenis.data.AttributeMetaData;
+import org.molgenis.data.Entity;
+import org.molgenis.data.EntityMetaData;
+import org.molgenis.data.MolgenisDataException;
+import org.molgenis.data.support.AbstractEntity;
+import org.molgenis.data.support.MapEntity;
+import org.molgenis.vcf.VcfRecord;
+
+import com.google.common.collect.Iterables;
+
+/**
+ * Entity of a VCF record line that is decoded when its attributes are read. The line is only scanned for the offsets
+ * of the fixed columns when the entity is created. The fixed columns are decoded on first access, the INFO column when
+ * an INFO attribute is read and the sample columns only when the samples are read.
+ */
+class LazyVcfEntity extends AbstractEntity
+{
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Number of columns up to and including INFO
+	 */
+	private static final int NR_FIXED_COLUMNS = 8;
+
+	private static final Set<String> FIXED_ATTRIBUTE_NAMES = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+
+	static
+	{
+		FIXED_ATTRIBUTE_NAMES.addAll(Arrays.asList(CHROM, ALT, POS, REF, FILTER, QUAL, ID, INTERNAL_ID));
+	}
+
+	private final VcfToEntity vcfToEntity;
+	private final String line;
+	private final int[] columnEnds;
+	private final MapEntity values;
+	private VcfRecord fixedColumnsRecord;
+	private boolean fixedColumnsDecoded;
+	private boolean infoDecoded;
+	private boolean samplesDecoded;
+
+	/**
+	 * @param vcfToEntity
+	 *            converter of the records of the VCF file
+	 * @param line
+	 *            tab separated record line
+	 * @param includeSamples
+	 *            whether the sample columns are kept, if not the line is truncated after the INFO column
+	 */
+	LazyVcfEntity(VcfToEntity vcfToEntity, String line, boolean includeSamples)
+	{
+		this.vcfToEntity = requireNonNull(vcfToEntity);
+		this.columnEnds = new int[NR_FIXED_COLUMNS];
+		int columnStart = 0;
+		for (int i = 0; i < NR_FIXED_COLUMNS; ++i)
+		{
+			if (columnStart > line.length())
+			{
+				throw new MolgenisDataException(
+						"Invalid VCF record, expected at least " + NR_FIXED_COLUMNS + " columns [" + line + "]");
+			}
+			int columnEnd = line.indexOf('\t', columnStart);
+			columnEnds[i] = columnEnd != -1 ? columnEnd : line.length();
+			columnStart = columnEnds[i] + 1;
+		}
+		this.line = includeSamples || columnEnds[NR_FIXED_COLUMNS - 1] == line.length() ? line
+				: line.substring(0, columnEnds[NR_FIXED_COLUMNS - 1]);
+		this.values = new MapEntity(vcfToEntity.getEntityMetaData());
+	}
+
+	@Override
+	public EntityMetaData getEntityMetaData()
+	{
+		return vcfToEntity.getEntityMetaData();
+	}
+
+	@Override
+	public Iterable<String> getAttributeNames()
+	{
+		return Iterables.transform(getEntityMetaData().getAttributes(), AttributeMetaData::getName);
+	}
+
+	@Override
+	public Object getIdValue()
+	{
+		return get(INTERNAL_ID);
+	}
+
+	@Override
+	public Object get(String attributeName)
+	{
+		decode(attributeName);
+		return values.get(attributeName);
+	}
+
+	@Override
+	public void set(String attributeName, Object value)
+	{
+		// decode first so that the value is not overwritten when the rest of its column is decoded
+		decode(attributeName);
+		values.set(attributeName, value);
+	}
+
+	@Override
+	public void set(Entity other)
+	{
+		for (String attributeName : other.getAttributeNames())
+		{
+			set(attributeName, other.get(attributeName));
+		}
+	}
+
+	private void decode(String attributeName)
+	{
+		if (FIXED_ATTRIBUTE_NAMES.contains(attributeName))
+		{
+			decodeFixedColumns();
+		}
+		else if (SAMPLES.equalsIgnoreCase(attributeName))
+		{
+			decodeSamples();
+		}
+		else
+		{
+			decodeInfo();
+		}
+	}
+
+	private void decodeFixedColumns()
+	{
+		if (fixedColumnsDecoded) return;
+		vcfToEntity.writeFixedFieldsToEntity(getFixedColumnsRecord(), values);
+		fixedColumnsDecoded = true;
+	}
+
+	private void decodeInfo()
+	{
+		if (infoDecoded) return;
+		vcfToEntity.writeInfoFieldsToEntity(getFixedColumnsRecord(), values);
+		infoDecoded = true;
+	}
+
+	private void decodeSamples()
+	{
+		if (samplesDecoded) return;
+		if (vcfToEntity.hasSamples())
+		{
+			decodeFixedColumns();
+			VcfRecord vcfRecord = new VcfRecord(vcfToEntity.getVcfMeta(), line.split("\t"));
+			values.set(SAMPLES, vcfToEntity.createSampleEntities(vcfRecord, values.get(POS) + "_" + values.get(ALT),
+					values.getString(INTERNAL_ID)));
+		}
+		samplesDecoded = true;
+	}
+
+	/**
+	 * Returns a record of the columns up to and including INFO, the sample columns are not split
+	 */
+	private VcfRecord getFixedColumnsRecord()
+	{
+		if (fixedColumnsRecord == null)
+		{
+			String[] tokens = new String[NR_FIXED_COLUMNS];
+			for (int i = 0; i < NR_FIXED_COLUMNS; ++i)
+			{
+				int columnStart = i == 0 ? 0 : columnEnds[i - 1] + 1;
+				tokens[i] = line.substring(columnStart, columnEnds[i]);
+			}
+			fixedColumnsRecord = new VcfRecord(vcfToEntity.getVcfMeta(), tokens);
+		}
+		return fixedColumnsRecord;
+	}
+}
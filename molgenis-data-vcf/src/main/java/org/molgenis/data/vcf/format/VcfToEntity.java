@@ -59,11 +59,25 @@ public class VcfToEntity
 	private final VcfMeta vcfMeta;
 
 	public VcfToEntity(String entityName, VcfMeta vcfMeta)
+	{
+		this(entityName, vcfMeta, true);
+	}
+
+	/**
+	 * @param entityName
+	 *            name of the entity
+	 * @param vcfMeta
+	 *            metadata of the VCF file
+	 * @param includeSamples
+	 *            whether the sample columns are converted, if not the entities have no samples attribute and the
+	 *            sample columns are never parsed
+	 */
+	public VcfToEntity(String entityName, VcfMeta vcfMeta, boolean includeSamples)
 	{
 		this.vcfMeta = checkNotNull(vcfMeta);
-		sampleEntityMetaData = createSampleEntityMetaData(checkNotNull(entityName),
-				checkNotNull(vcfMeta.getFormatMeta()));
-		entityMetaData = createEntityMetaData(entityName, vcfMeta);
+		sampleEntityMetaData = includeSamples
+				? createSampleEntityMetaData(checkNotNull(entityName), checkNotNull(vcfMeta.getFormatMeta())) : null;
+		entityMetaData = createEntityMetaData(checkNotNull(entityName), vcfMeta);
 	}
 
 	private EntityMetaData createSampleEntityMetaData(String entityName, Iterable<VcfMetaFormat> formatMetaData)
@@ -249,6 +263,15 @@ public class VcfToEntity
 		}
 	}
 
+	/**
+	 * Converts a tab separated record line to an entity whose columns are decoded when its attributes are read. The
+	 * INFO column is only parsed when an INFO attribute is read and the sample columns when the samples are read.
+	 */
+	public Entity toEntity(String line)
+	{
+		return new LazyVcfEntity(this, line, hasSamples());
+	}
+
 	public Entity toEntity(String[] tokens)
 	{
 		return toEntity(new VcfRecord(vcfMeta, tokens));
@@ -257,26 +280,30 @@ public class VcfToEntity
 	public Entity toEntity(VcfRecord vcfRecord)
 	{
 		Entity entity = new MapEntity(entityMetaData);
-		entity.set(CHROM, vcfRecord.getChromosome());
-		entity.set(ALT, StringUtils.join(Lists.transform(vcfRecord.getAlternateAlleles(), Allele::toString), ','));
-		entity.set(POS, vcfRecord.getPosition());
-		entity.set(REF, vcfRecord.getReferenceAllele().toString());
-		entity.set(FILTER, vcfRecord.getFilterStatus());
-		entity.set(QUAL, vcfRecord.getQuality());
-		entity.set(ID, StringUtils.join(vcfRecord.getIdentifiers(), ','));
-
-		String id = VcfUtils.createId(entity);
-		entity.set(INTERNAL_ID, id);
+		writeFixedFieldsToEntity(vcfRecord, entity);
 
 		writeInfoFieldsToEntity(vcfRecord, entity);
 		if (sampleEntityMetaData != null)
 		{
-			List<Entity> samples = createSampleEntities(vcfRecord, entity.get(POS) + "_" + entity.get(ALT), id);
+			List<Entity> samples = createSampleEntities(vcfRecord, entity.get(POS) + "_" + entity.get(ALT),
+					entity.getString(INTERNAL_ID));
 			entity.set(SAMPLES, samples);
 		}
 		return entity;
 	}
 
+	protected void writeFixedFieldsToEntity(VcfRecord vcfRecord, Entity entity)
+	{
+		entity.set(CHROM, vcfRecord.getChromosome());
+		entity.set(ALT, StringUtils.join(Lists.transform(vcfRecord.getAlternateAlleles(), Allele::toString), ','));
+		entity.set(POS, vcfRecord.getPosition());
+		entity.set(REF, vcfRecord.getReferenceAllele().toString());
+		entity.set(FILTER, vcfRecord.getFilterStatus());
+		entity.set(QUAL, vcfRecord.getQuality());
+		entity.set(ID, StringUtils.join(vcfRecord.getIdentifiers(), ','));
+		entity.set(INTERNAL_ID, VcfUtils.createId(entity));
+	}
+
 	protected List<Entity> createSampleEntities(VcfRecord vcfRecord, String entityPosAlt, String entityId)
 	{
 		List<Entity> samples = new ArrayList<Entity>();
@@ -379,4 +406,14 @@ public class VcfToEntity
 	{
 		return entityMetaData;
 	}
+
+	VcfMeta getVcfMeta()
+	{
+		return vcfMeta;
+	}
+
+	boolean hasSamples()
+	{
+		return sampleEntityMetaData != null;
+	}
 }
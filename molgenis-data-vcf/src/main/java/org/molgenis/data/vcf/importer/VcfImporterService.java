@@ -10,7 +10,19 @@ import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.molgenis.data.AttributeMetaData;
 import org.molgenis.data.DataService;
@@ -23,6 +35,7 @@ import org.molgenis.data.RepositoryCollection;
 import org.molgenis.data.elasticsearch.ElasticsearchRepositoryCollection;
 import org.molgenis.data.importer.EntitiesValidationReportImpl;
 import org.molgenis.data.importer.ImportService;
+import org.molgenis.data.jobs.Progress;
 import org.molgenis.data.meta.MetaDataService;
 import org.molgenis.data.support.DefaultEntityMetaData;
 import org.molgenis.data.support.GenericImporterExtensions;
@@ -33,18 +46,30 @@ import org.molgenis.security.permission.PermissionSystemService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Iterators;
 import com.google.common.collect.Lists;
+import com.google.common.primitives.Ints;
 
 @Service
 public class VcfImporterService implements ImportService
 {
 	private static final Logger LOG = LoggerFactory.getLogger(VcfImporterService.class);
 	private static final int BATCH_SIZE = 10000;
+	private static final int VARIANT_BATCH_SIZE = 100;
+	private static final int QUEUE_CAPACITY = 8;
+	private static final long PROGRESS_INTERVAL_MILLIS = 5000;
 	private static final String BACKEND = ElasticsearchRepositoryCollection.NAME;
 
+	/**
+	 * Marks the end of the batches in a queue
+	 */
+	private static final List<Entity> END_OF_ROWS = Collections.unmodifiableList(new ArrayList<>());
+
 	private final DataService dataService;
 	private final PermissionSystemService permissionSystemService;
 
@@ -59,6 +84,17 @@ public class VcfImporterService implements ImportService
 	@Override
 	public EntityImportReport doImport(RepositoryCollection source, DatabaseAction databaseAction,
 			String defaultPackage)
+	{
+		return doImport(source, databaseAction, defaultPackage, null);
+	}
+
+	/**
+	 * Imports the VCF and reports the number of imported rows and the rows per second to the progress, which may be
+	 * null
+	 */
+	@Override
+	public EntityImportReport doImport(RepositoryCollection source, DatabaseAction databaseAction,
+			String defaultPackage, Progress progress)
 	{
 		if (databaseAction != DatabaseAction.ADD) throw new IllegalArgumentException("Only ADD is supported");
 
@@ -71,7 +107,7 @@ public class VcfImporterService implements ImportService
 			{
 				try (Repository repo = source.getRepository(it.next());)
 				{
-					report = importVcf(repo, addedEntities);
+					report = importVcf(repo, addedEntities, progress);
 				}
 			}
 			else
@@ -155,7 +191,8 @@ public class VcfImporterService implements ImportService
 		return false;
 	}
 
-	private EntityImportReport importVcf(Repository inRepository, List<EntityMetaData> addedEntities) throws IOException
+	private EntityImportReport importVcf(Repository inRepository, List<EntityMetaData> addedEntities,
+			Progress progress) throws IOException
 	{
 		EntityImportReport report = new EntityImportReport();
 		Repository sampleRepository = null;
@@ -180,9 +217,8 @@ public class VcfImporterService implements ImportService
 			addedEntities.add(sampleAttribute.getRefEntity());
 		}
 
-		Iterator<Entity> inIterator = inRepository.iterator();
-		int sampleEntityCount = 0;
-		List<Entity> sampleEntities = new ArrayList<>();
+		AtomicLong vcfEntityCount = new AtomicLong();
+		AtomicLong sampleEntityCount = new AtomicLong();
 		try (Repository outRepository = dataService.getMeta().addEntityMeta(entityMetaData))
 		{
 			permissionSystemService.giveUserEntityPermissions(SecurityContextHolder.getContext(),
@@ -190,60 +226,218 @@ public class VcfImporterService implements ImportService
 
 			addedEntities.add(entityMetaData);
 
+			importRows(inRepository.iterator(), outRepository, sampleRepository, vcfEntityCount, sampleEntityCount,
+					progress);
+
 			if (sampleRepository != null)
 			{
-				while (inIterator.hasNext())
+				report.addNewEntity(sampleRepository.getName());
+				if (sampleEntityCount.get() > 0)
 				{
-					Entity entity = inIterator.next();
+					report.addEntityCount(sampleRepository.getName(), Ints.checkedCast(sampleEntityCount.get()));
+				}
+			}
+			if (vcfEntityCount.get() > 0)
+			{
+				report.addEntityCount(entityName, Ints.checkedCast(vcfEntityCount.get()));
+			}
+		}
+
+		report.addNewEntity(entityName);
+
+		return report;
+	}
+
+	/**
+	 * Imports the variants and their samples in a pipeline: the calling thread parses the variants, a sample thread
+	 * generates the sample rows of the parsed variants and a writer thread per repository adds the rows. Batches are
+	 * passed through bounded queues, so that parsing doesn't run further ahead of the writers than the queue capacity.
+	 * Each repository adds all rows in a single call, so that the index is refreshed once after the load instead of
+	 * after every batch.
+	 */
+	private void importRows(Iterator<Entity> inIterator, Repository outRepository, Repository sampleRepository,
+			AtomicLong vcfEntityCount, AtomicLong sampleEntityCount, Progress progress)
+	{
+		SecurityContext securityContext = SecurityContextHolder.getContext();
+		ExecutorService executorService = Executors.newFixedThreadPool(sampleRepository != null ? 3 : 1);
+		List<Future<?>> tasks = new ArrayList<>();
+		try
+		{
+			BlockingQueue<List<Entity>> variantRows = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+			tasks.add(executorService.submit(withSecurityContext(securityContext,
+					() -> outRepository.add(toStream(variantRows).peek(entity -> vcfEntityCount.incrementAndGet())))));
+
+			BlockingQueue<List<Entity>> parsedVariants = variantRows;
+			if (sampleRepository != null)
+			{
+				BlockingQueue<List<Entity>> sampleRows = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+				BlockingQueue<List<Entity>> variantsWithSamples = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+				tasks.add(executorService.submit(withSecurityContext(securityContext, () -> {
+					createSampleRows(variantsWithSamples, sampleRows, variantRows, sampleEntityCount);
+					return null;
+				})));
+				tasks.add(executorService.submit(withSecurityContext(securityContext, () -> {
+					sampleRepository.add(toStream(sampleRows));
+					sampleRepository.flush();
+					return null;
+				})));
+				parsedVariants = variantsWithSamples;
+			}
+
+			long startTime = System.currentTimeMillis();
+			long progressTime = startTime;
+			Iterator<List<Entity>> batches = Iterators.partition(inIterator, VARIANT_BATCH_SIZE);
+			while (batches.hasNext())
+			{
+				put(parsedVariants, batches.next(), tasks);
+
+				long time = System.currentTimeMillis();
+				if (time - progressTime >= PROGRESS_INTERVAL_MILLIS)
+				{
+					reportProgress(progress, vcfEntityCount.get(), sampleEntityCount.get(), time - startTime);
+					progressTime = time;
+				}
+			}
+			put(parsedVariants, END_OF_ROWS, tasks);
+
+			for (Future<?> task : tasks)
+			{
+				task.get();
+			}
+			reportProgress(progress, vcfEntityCount.get(), sampleEntityCount.get(),
+					System.currentTimeMillis() - startTime);
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new MolgenisDataException(e);
+		}
+		catch (ExecutionException e)
+		{
+			if (e.getCause() instanceof RuntimeException)
+			{
+				throw (RuntimeException) e.getCause();
+			}
+			throw new MolgenisDataException(e.getCause());
+		}
+		finally
+		{
+			tasks.forEach(task -> task.cancel(true));
+			executorService.shutdownNow();
+		}
+	}
 
-					Iterable<Entity> samples = entity.getEntities(VcfRepository.SAMPLES);
-					if (samples != null)
+	/**
+	 * Takes batches of parsed variants, puts their samples in batches of {@link #BATCH_SIZE} rows on the sample queue
+	 * and passes the variants on to the variant queue once their samples have been read
+	 */
+	private static void createSampleRows(BlockingQueue<List<Entity>> parsedVariants,
+			BlockingQueue<List<Entity>> sampleRows, BlockingQueue<List<Entity>> variantRows,
+			AtomicLong sampleEntityCount) throws InterruptedException
+	{
+		List<Entity> sampleEntities = new ArrayList<>(BATCH_SIZE);
+		for (List<Entity> variants = parsedVariants.take(); variants != END_OF_ROWS; variants = parsedVariants.take())
+		{
+			for (Entity variant : variants)
+			{
+				Iterable<Entity> samples = variant.getEntities(VcfRepository.SAMPLES);
+				if (samples != null)
+				{
+					for (Entity sample : samples)
 					{
-						Iterator<Entity> sampleIterator = samples.iterator();
-						while (sampleIterator.hasNext())
+						sampleEntities.add(sample);
+						if (sampleEntities.size() == BATCH_SIZE)
 						{
-							sampleEntities.add(sampleIterator.next());
-
-							if (sampleEntities.size() == BATCH_SIZE)
-							{
-								sampleRepository.add(sampleEntities.stream());
-								sampleEntityCount += sampleEntities.size();
-								sampleEntities.clear();
-							}
+							sampleRows.put(sampleEntities);
+							sampleEntityCount.addAndGet(sampleEntities.size());
+							sampleEntities = new ArrayList<>(BATCH_SIZE);
 						}
 					}
-
 				}
+			}
+			variantRows.put(variants);
+		}
 
-				if (!sampleEntities.isEmpty())
+		if (!sampleEntities.isEmpty())
+		{
+			sampleRows.put(sampleEntities);
+			sampleEntityCount.addAndGet(sampleEntities.size());
+		}
+		sampleRows.put(END_OF_ROWS);
+		variantRows.put(END_OF_ROWS);
+	}
+
+	/**
+	 * Puts a batch on a queue, fails if one of the tasks that drain the queues failed while waiting for capacity
+	 */
+	private static void put(BlockingQueue<List<Entity>> queue, List<Entity> batch, List<Future<?>> tasks)
+			throws InterruptedException, ExecutionException
+	{
+		while (!queue.offer(batch, 1, TimeUnit.SECONDS))
+		{
+			for (Future<?> task : tasks)
+			{
+				if (task.isDone())
 				{
-					sampleRepository.add(sampleEntities.stream());
-					sampleEntityCount += sampleEntities.size();
+					task.get();
+					throw new MolgenisDataException("Import task stopped before all rows were imported");
 				}
+			}
+		}
+	}
 
-				sampleRepository.flush();
-
-				report.addNewEntity(sampleRepository.getName());
-				if (sampleEntityCount > 0)
+	/**
+	 * Returns a stream of the rows of the batches on a queue, up to {@link #END_OF_ROWS}
+	 */
+	private static Stream<Entity> toStream(BlockingQueue<List<Entity>> queue)
+	{
+		Iterator<List<Entity>> batches = new AbstractIterator<List<Entity>>()
+		{
+			@Override
+			protected List<Entity> computeNext()
+			{
+				try
+				{
+					List<Entity> batch = queue.take();
+					return batch != END_OF_ROWS ? batch : endOfData();
+				}
+				catch (InterruptedException e)
 				{
-					report.addEntityCount(sampleRepository.getName(), sampleEntityCount);
+					Thread.currentThread().interrupt();
+					throw new MolgenisDataException(e);
 				}
 			}
+		};
+		Iterator<Entity> rows = Iterators.concat(Iterators.transform(batches, List::iterator));
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(rows, Spliterator.ORDERED), false);
+	}
 
-			AtomicInteger vcfEntityCount = new AtomicInteger();
-			outRepository.add(inRepository.stream().filter(entity -> {
-				vcfEntityCount.incrementAndGet();
-				return true;
-			}));
-			if (vcfEntityCount.get() > 0)
+	private static <T> Callable<T> withSecurityContext(SecurityContext securityContext, Callable<T> callable)
+	{
+		return () -> {
+			SecurityContext originalContext = SecurityContextHolder.getContext();
+			try
 			{
-				report.addEntityCount(entityName, vcfEntityCount.get());
+				SecurityContextHolder.setContext(securityContext);
+				return callable.call();
 			}
-		}
-
-		report.addNewEntity(entityName);
+			finally
+			{
+				SecurityContextHolder.setContext(originalContext);
+			}
+		};
+	}
 
-		return report;
+	private static void reportProgress(Progress progress, long vcfEntityCount, long sampleEntityCount, long millis)
+	{
+		long rowsPerSecond = millis > 0 ? (vcfEntityCount + sampleEntityCount) * 1000 / millis : 0;
+		String message = String.format("Imported %d variants and %d samples (%d rows/s)", vcfEntityCount,
+				sampleEntityCount, rowsPerSecond);
+		LOG.info(message);
+		if (progress != null)
+		{
+			progress.progress(Ints.saturatedCast(vcfEntityCount), message);
+		}
 	}
 
 	@Override
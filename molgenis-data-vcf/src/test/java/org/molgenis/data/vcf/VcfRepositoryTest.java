@@ -9,14 +9,22 @@ import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.molgenis.MolgenisFieldTypes;
 import org.molgenis.data.AttributeMetaData;
 import org.molgenis.data.Entity;
+import org.molgenis.data.MolgenisDataException;
+import org.molgenis.data.Query;
+import org.molgenis.data.RepositoryCapability;
 import org.molgenis.data.RepositoryCollection;
+import org.molgenis.data.support.QueryImpl;
 import org.molgenis.fieldtypes.FieldType;
 import org.springframework.util.FileCopyUtils;
 import org.testng.annotations.BeforeClass;
@@ -155,4 +163,81 @@ public class VcfRepositoryTest
 		}
 	}
 
+	@Test
+	public void count() throws IOException
+	{
+		try (VcfRepository vcfRepository = new VcfRepository(testdata, "testdata"))
+		{
+			assertEquals(vcfRepository.count(), 7);
+			assertTrue(vcfRepository.getCapabilities().contains(RepositoryCapability.QUERYABLE));
+		}
+		try (VcfRepository vcfRepository = new VcfRepository(testnodata, "testnodata"))
+		{
+			assertEquals(vcfRepository.count(), 0);
+		}
+	}
+
+	@Test
+	public void findAllRegion() throws IOException
+	{
+		try (VcfRepository vcfRepository = new VcfRepository(testdata, "testdata"))
+		{
+			Query query = new QueryImpl().eq(VcfRepository.CHROM, "1").and().rng(VcfRepository.POS, 3000000, 6100000);
+			assertEquals(vcfRepository.findAll(query).map(entity -> entity.get(VcfRepository.POS))
+					.collect(Collectors.toList()), Arrays.asList(3171929, 3172062, 3172273, 6097450));
+			assertEquals(vcfRepository.count(query), 4);
+			assertEquals(vcfRepository.count(new QueryImpl().eq(VcfRepository.CHROM, "2")), 0);
+			assertEquals(vcfRepository.count(new QueryImpl().eq(VcfRepository.CHROM, "1")), 7);
+		}
+	}
+
+	@Test(expectedExceptions = MolgenisDataException.class)
+	public void findAllUnsupportedQuery() throws IOException
+	{
+		try (VcfRepository vcfRepository = new VcfRepository(testdata, "testdata"))
+		{
+			vcfRepository.findAll(new QueryImpl().eq(VcfRepository.REF, "G"));
+		}
+	}
+
+	@Test
+	public void findAllSeekAndCountModifiedFile() throws IOException
+	{
+		File file = File.createTempFile("testseek", ".vcf");
+		try
+		{
+			List<String> lines = FileUtils.readLines(testdata, "UTF-8");
+			List<String> header = lines.stream().filter(line -> line.startsWith("#")).collect(Collectors.toList());
+			String[] record = lines.get(header.size()).split("\t", 3);
+			List<String> records = new ArrayList<>();
+			for (String chrom : Arrays.asList("1", "2"))
+			{
+				for (int pos = 1; pos <= 3000; ++pos)
+				{
+					records.add(chrom + '\t' + pos + '\t' + record[2]);
+				}
+			}
+			FileUtils.writeLines(file, "UTF-8", header);
+			FileUtils.writeLines(file, "UTF-8", records, true);
+			file.setLastModified(1000000L);
+
+			try (VcfRepository vcfRepository = new VcfRepository(file, "testseek"))
+			{
+				assertEquals(vcfRepository.count(), 6000);
+				Query query = new QueryImpl().eq(VcfRepository.CHROM, "2").and().eq(VcfRepository.POS, 2500);
+				List<Entity> entities = vcfRepository.findAll(query).collect(Collectors.toList());
+				assertEquals(entities.size(), 1);
+				assertEquals(entities.get(0).get(VcfRepository.CHROM), "2");
+				assertEquals(entities.get(0).get(VcfRepository.POS), 2500);
+
+				FileUtils.writeLines(file, "UTF-8", Arrays.asList("2\t3001\t" + record[2]), true);
+				file.setLastModified(2000000L);
+				assertEquals(vcfRepository.count(), 6001);
+			}
+		}
+		finally
+		{
+			file.delete();
+		}
+	}
 }
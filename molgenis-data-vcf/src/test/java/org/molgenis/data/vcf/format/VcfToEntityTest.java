@@ -7,15 +7,20 @@ import static org.molgenis.data.vcf.VcfRepository.FILTER_META;
 import static org.molgenis.data.vcf.VcfRepository.ID_META;
 import static org.molgenis.data.vcf.VcfRepository.INFO;
 import static org.molgenis.data.vcf.VcfRepository.INTERNAL_ID;
+import static org.molgenis.data.vcf.VcfRepository.POS;
 import static org.molgenis.data.vcf.VcfRepository.POS_META;
 import static org.molgenis.data.vcf.VcfRepository.QUAL_META;
 import static org.molgenis.data.vcf.VcfRepository.REF_META;
+import static org.molgenis.data.vcf.VcfRepository.SAMPLES;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
 
 import java.io.IOException;
 import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 import org.molgenis.MolgenisFieldTypes;
 import org.molgenis.data.AttributeMetaData;
@@ -133,4 +138,54 @@ public class VcfToEntityTest
 		expected.set("DF2", true);
 		assertEquals(entity, expected);
 	}
+
+	@Test
+	public void testToEntityLine() throws IOException
+	{
+		String[] tokens = new String[]
+		{ "10", "12345", "id3", "A", "C", "7.9123", "pass", "NS=3;DF" };
+		Entity expected = vcfToEntitySmall.toEntity(new VcfRecord(vcfMetaSmall, tokens));
+		Entity entity = vcfToEntitySmall.toEntity(String.join("\t", tokens));
+		for (AttributeMetaData attr : vcfToEntitySmall.getEntityMetaData().getAtomicAttributes())
+		{
+			assertEquals(entity.get(attr.getName()), expected.get(attr.getName()), attr.getName());
+		}
+		assertEquals(entity.getIdValue(), expected.getIdValue());
+	}
+
+	@Test
+	public void testToEntityLineSamples() throws IOException
+	{
+		VcfMeta vcfMeta = parseHeaders("##fileformat=VCFv4.1\n"
+				+ "##INFO=<ID=NS,Number=1,Type=Integer,Description=\"Number of Samples With Data\">\n"
+				+ "##FORMAT=<ID=GT,Number=1,Type=String,Description=\"Genotype\">\n"
+				+ "#CHROM	POS	ID	REF	ALT	QUAL	FILTER	INFO	FORMAT	sample1	sample2\n");
+		String line = "1\t100\trs1\tA\tC\t.\tPASS\tNS=2\tGT\t0|1\t1|1";
+
+		Entity entity = new VcfToEntity("EntityName", vcfMeta).toEntity(line);
+		assertEquals(entity.get("NS"), 2);
+		@SuppressWarnings("unchecked")
+		List<Entity> samples = (List<Entity>) entity.get(SAMPLES);
+		assertEquals(samples.size(), 2);
+		assertEquals(samples.get(0).get("GT"), "0|1");
+		assertEquals(samples.get(1).get("GT"), "1|1");
+		assertEquals(samples.get(1).get("ORIGINAL_NAME"), "sample2");
+	}
+
+	@Test
+	public void testToEntityLineExcludeSamples() throws IOException
+	{
+		VcfMeta vcfMeta = parseHeaders("##fileformat=VCFv4.1\n"
+				+ "##INFO=<ID=NS,Number=1,Type=Integer,Description=\"Number of Samples With Data\">\n"
+				+ "##FORMAT=<ID=GT,Number=1,Type=String,Description=\"Genotype\">\n"
+				+ "#CHROM	POS	ID	REF	ALT	QUAL	FILTER	INFO	FORMAT	sample1	sample2\n");
+		VcfToEntity vcfToEntity = new VcfToEntity("EntityName", vcfMeta, false);
+		assertNull(vcfToEntity.getEntityMetaData().getAttribute(SAMPLES));
+
+		Entity entity = vcfToEntity.toEntity("1\t100\trs1\tA\tC\t.\tPASS\tNS=2\tGT\t0|1\t1|1");
+		assertEquals(entity.get("NS"), 2);
+		assertEquals(entity.get(POS), 100);
+		assertNotNull(entity.getIdValue());
+		assertNull(entity.get(SAMPLES));
+	}
 }
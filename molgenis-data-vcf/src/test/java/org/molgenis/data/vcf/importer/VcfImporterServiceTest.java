@@ -7,6 +7,8 @@ import static java.util.Collections.singletonList;
 import static java.util.Collections.singletonMap;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.argThat;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.startsWith;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -37,6 +39,7 @@ import org.molgenis.data.EntityMetaData;
 import org.molgenis.data.MolgenisDataException;
 import org.molgenis.data.Repository;
 import org.molgenis.data.RepositoryCollection;
+import org.molgenis.data.jobs.Progress;
 import org.molgenis.data.meta.MetaDataService;
 import org.molgenis.data.vcf.VcfRepository;
 import org.molgenis.framework.db.EntitiesValidationReport;
@@ -197,6 +200,42 @@ public class VcfImporterServiceTest
 				singletonList(sampleEntityName0));
 	}
 
+	@SuppressWarnings("unchecked")
+	@Test
+	public void doImportVcfProgress()
+	{
+		String entityName0 = "entity0";
+		EntityMetaData entityMeta0 = mock(EntityMetaData.class);
+		when(entityMeta0.getName()).thenReturn(entityName0);
+		when(entityMeta0.getSimpleName()).thenReturn(entityName0);
+		when(entityMeta0.getOwnAttributes()).thenReturn(emptyList());
+		when(entityMeta0.getOwnLookupAttributes()).thenReturn(emptyList());
+		List<Entity> entities = Stream.generate(() -> mock(Entity.class)).limit(250).collect(Collectors.toList());
+		Repository repo0 = mock(Repository.class);
+		when(repo0.getName()).thenReturn(entityName0);
+		when(repo0.getEntityMetaData()).thenReturn(entityMeta0);
+		when(repo0.iterator()).thenReturn(entities.iterator());
+		Repository outRepo0 = mock(Repository.class);
+		when(metaDataService.addEntityMeta(argThat(eqName(entityMeta0)))).thenReturn(outRepo0);
+		when(outRepo0.add(any(Stream.class))).thenAnswer(new Answer<Integer>()
+		{
+			@Override
+			public Integer answer(InvocationOnMock invocation) throws Throwable
+			{
+				return (int) ((Stream<Entity>) invocation.getArguments()[0]).count();
+			}
+		});
+		RepositoryCollection source = mock(RepositoryCollection.class);
+		when(source.getEntityNames()).thenReturn(singletonList(entityName0));
+		when(source.getRepository(entityName0)).thenReturn(repo0);
+		Progress progress = mock(Progress.class);
+
+		EntityImportReport entityImportReport = vcfImporterService.doImport(source, DatabaseAction.ADD, "package",
+				progress);
+		assertEquals(entityImportReport.getNrImportedEntitiesMap().get(entityName0), Integer.valueOf(250));
+		verify(progress).progress(eq(250), startsWith("Imported 250 variants and 0 samples"));
+	}
+
 	@Test(expectedExceptions = MolgenisDataException.class)
 	public void doImportAlreadyExists()
 	{
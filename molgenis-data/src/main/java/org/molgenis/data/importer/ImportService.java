@@ -7,6 +7,7 @@ import java.util.Set;
 
 import org.molgenis.data.DatabaseAction;
 import org.molgenis.data.RepositoryCollection;
+import org.molgenis.data.jobs.Progress;
 import org.molgenis.data.meta.MetaDataService;
 import org.molgenis.framework.db.EntitiesValidationReport;
 import org.molgenis.framework.db.EntityImportReport;
@@ -16,6 +17,15 @@ public interface ImportService extends Ordered
 {
 	EntityImportReport doImport(RepositoryCollection source, DatabaseAction databaseAction, String defaultPackage);
 
+	/**
+	 * Imports the source and reports its progress, import services that don't report progress ignore the progress
+	 */
+	default EntityImportReport doImport(RepositoryCollection source, DatabaseAction databaseAction,
+			String defaultPackage, Progress progress)
+	{
+		return doImport(source, databaseAction, defaultPackage);
+	}
+
 	EntitiesValidationReport validateImport(File file, RepositoryCollection source);
 
 	boolean canImport(File file, RepositoryCollection source);
@@ -0,0 +1,75 @@
+package org.molgenis.data.jobs;
+
+import org.slf4j.Logger;
+
+/**
+ * Tracks progress by logging it, for long running operations that are not executed as a {@link Job}.
+ */
+public class LoggingProgress implements Progress
+{
+	private final Logger logger;
+	private final String name;
+	private Long startTime;
+	private int progressMax;
+
+	/**
+	 * @param logger
+	 *            logger to log the progress to
+	 * @param name
+	 *            name of the tracked operation, prefixes all log messages
+	 */
+	public LoggingProgress(Logger logger, String name)
+	{
+		this.logger = logger;
+		this.name = name;
+	}
+
+	@Override
+	public void start()
+	{
+		startTime = System.currentTimeMillis();
+		logger.info("{} started", name);
+	}
+
+	@Override
+	public void setProgressMax(int max)
+	{
+		progressMax = max;
+	}
+
+	@Override
+	public void progress(int progress, String message)
+	{
+		logger.debug("{} progress ({}/{}): {}", name, progress, progressMax, message);
+	}
+
+	@Override
+	public void status(String message)
+	{
+		logger.info("{}: {}", name, message);
+	}
+
+	@Override
+	public void failed(Exception ex)
+	{
+		logger.error(name + " failed", ex);
+	}
+
+	@Override
+	public void canceled()
+	{
+		logger.warn("{} canceled", name);
+	}
+
+	@Override
+	public void success()
+	{
+		logger.info("{} succeeded in {} ms", name, timeRunning());
+	}
+
+	@Override
+	public Long timeRunning()
+	{
+		return startTime != null ? System.currentTimeMillis() - startTime : null;
+	}
+}
@@ -1,6 +1,7 @@
 package org.molgenis.dataexplorer.controller;
 
 import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.joining;
 
 import java.util.List;
 
@@ -40,28 +41,20 @@ public class AnnotationJob extends Job<Void>
 	@Override
 	public Void call(Progress progress) throws Exception
 	{
-		progress.setProgressMax(annotators.size());
-		int i = 0;
-
-		for (RepositoryAnnotator annotator : annotators)
+		progress.setProgressMax(1);
+		progress.progress(0, getStartMessage());
+		try
+		{
+			// all annotators annotate the repository in a single pass
+			crudRepositoryAnnotator.annotate(annotators, repository);
+			annotators.forEach(annotator -> successfulAnnotators.add(annotator.getSimpleName()));
+		}
+		catch (Exception ex)
 		{
-			progress.progress(i, getMessage(i, annotator));
-			try
-			{
-				crudRepositoryAnnotator.annotate(annotator, repository);
-				successfulAnnotators.add(annotator.getSimpleName());
-			}
-			catch (Exception ex)
-			{
-				if (firstException == null)
-				{
-					firstException = ex;
-				}
-				failedAnnotators.add(annotator.getSimpleName());
-			}
-			i++;
+			firstException = ex;
+			annotators.forEach(annotator -> failedAnnotators.add(annotator.getSimpleName()));
 		}
-		progress.progress(annotators.size(), getMessage());
+		progress.progress(1, getMessage());
 		try
 		{
 			// TODO: Workaround to make sure that the progress bar gets loaded
@@ -85,10 +78,10 @@ public class AnnotationJob extends Job<Void>
 				StringUtils.join(successfulAnnotators, ","), username);
 	}
 
-	private String getMessage(int i, RepositoryAnnotator annotator)
+	private String getStartMessage()
 	{
-		return String.format("Annotating \"%s\" with %s (annotator %d of %d, started by \"%s\")",
-				repository.getEntityMetaData().getLabel(), annotator.getSimpleName(), i + 1, annotators.size(),
+		return String.format("Annotating \"%s\" with %s (started by \"%s\")", repository.getEntityMetaData()
+				.getLabel(), annotators.stream().map(RepositoryAnnotator::getSimpleName).collect(joining(",")),
 				username);
 	}
 }
@@ -43,12 +43,13 @@ import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.SessionAttributes;
 import org.springframework.web.servlet.view.freemarker.FreeMarkerConfigurer;
 
-import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.net.URLDecoder;
 import java.text.SimpleDateFormat;
 import java.util.Collections;
@@ -58,6 +59,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.ResourceBundle;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
 import static org.molgenis.dataexplorer.controller.DataExplorerController.ATTR_GALAXY_API_KEY;
 import static org.molgenis.dataexplorer.controller.DataExplorerController.ATTR_GALAXY_URL;
@@ -85,6 +87,8 @@ public class DataExplorerController extends MolgenisPluginController
 	public static final String MOD_ENTITIESREPORT = "entitiesreport";
 	public static final String MOD_DATA = "data";
 
+	private static final int GZIP_BUFFER_SIZE = 65536;
+
 	@Autowired
 	private AppSettings appSettings;
 
@@ -112,6 +116,9 @@ public class DataExplorerController extends MolgenisPluginController
 	@Autowired
 	private LanguageService languageService;
 
+	@Autowired
+	private DataExplorerDownloadHandler dataExplorerDownloadHandler;
+
 	public DataExplorerController()
 	{
 		super(URI);
@@ -317,11 +324,9 @@ public class DataExplorerController extends MolgenisPluginController
 	}
 
 	@RequestMapping(value = "/download", method = POST)
-	public void download(@RequestParam("dataRequest") String dataRequestStr, HttpServletResponse response)
-			throws IOException
+	public void download(@RequestParam("dataRequest") String dataRequestStr, HttpServletRequest request,
+			HttpServletResponse response) throws IOException
 	{
-		DataExplorerDownloadHandler download = new DataExplorerDownloadHandler(dataService);
-
 		// Workaround because binding with @RequestBody is not possible:
 		// http://stackoverflow.com/a/9970672
 		dataRequestStr = URLDecoder.decode(dataRequestStr, "UTF-8");
@@ -329,7 +334,7 @@ public class DataExplorerController extends MolgenisPluginController
 		DataRequest dataRequest = gson.fromJson(dataRequestStr, DataRequest.class);
 
 		String fileName = "";
-		ServletOutputStream outputStream = null;
+		OutputStream outputStream = null;
 
 		switch (dataRequest.getDownloadType())
 		{
@@ -339,8 +344,16 @@ public class DataExplorerController extends MolgenisPluginController
 						+ new SimpleDateFormat("yyyy-MM-dd_hh:mm:ss").format(new Date()) + ".csv";
 				response.addHeader("Content-Disposition", "attachment; filename=\"" + fileName + "\"");
 
+				// the content coding of the response depends on the Accept-Encoding request header
+				response.addHeader("Vary", "Accept-Encoding");
 				outputStream = response.getOutputStream();
-				download.writeToCsv(dataRequest, outputStream, ',');
+				if (DataExplorerDownloadHandler.acceptsGzip(request.getHeader("Accept-Encoding")))
+				{
+					// text compresses well, the response is finished when the csv writer closes the stream
+					response.addHeader("Content-Encoding", "gzip");
+					outputStream = new GZIPOutputStream(outputStream, GZIP_BUFFER_SIZE);
+				}
+				dataExplorerDownloadHandler.writeToCsv(dataRequest, outputStream, ',');
 				break;
 			case DOWNLOAD_TYPE_XLSX:
 				response.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
@@ -349,7 +362,7 @@ public class DataExplorerController extends MolgenisPluginController
 				response.addHeader("Content-Disposition", "attachment; filename=\"" + fileName + "\"");
 
 				outputStream = response.getOutputStream();
-				download.writeToExcel(dataRequest, outputStream);
+				dataExplorerDownloadHandler.writeToExcel(dataRequest, outputStream);
 				break;
 		}
 	}
@@ -362,8 +375,6 @@ public class DataExplorerController extends MolgenisPluginController
 		boolean galaxyEnabled = dataExplorerSettings.getGalaxyExport();
 		if (!galaxyEnabled) throw new MolgenisDataAccessException("Galaxy export disabled");
 
-		DataExplorerDownloadHandler download = new DataExplorerDownloadHandler(dataService);
-
 		String galaxyUrl = galaxyDataExportRequest.getGalaxyUrl();
 		String galaxyApiKey = galaxyDataExportRequest.getGalaxyApiKey();
 		GalaxyDataExporter galaxyDataSetExporter = new GalaxyDataExporter(galaxyUrl, galaxyApiKey);
@@ -373,7 +384,7 @@ public class DataExplorerController extends MolgenisPluginController
 		File csvFile = File.createTempFile("galaxydata_" + System.currentTimeMillis(), ".tsv");
 		try
 		{
-			download.writeToCsv(dataRequest, new FileOutputStream(csvFile), '\t', true);
+			dataExplorerDownloadHandler.writeToCsv(dataRequest, new FileOutputStream(csvFile), '\t', true);
 			galaxyDataSetExporter.export(dataRequest.getEntityName(), csvFile);
 		}
 		finally
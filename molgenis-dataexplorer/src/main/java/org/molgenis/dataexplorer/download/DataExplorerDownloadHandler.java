@@ -5,13 +5,30 @@ import static com.google.common.collect.Iterables.transform;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.annotation.PreDestroy;
 
 import org.molgenis.data.AttributeMetaData;
 import org.molgenis.data.DataService;
+import org.molgenis.data.Entity;
 import org.molgenis.data.EntityMetaData;
+import org.molgenis.data.MolgenisDataException;
 import org.molgenis.data.csv.CsvWriter;
 import org.molgenis.data.excel.ExcelSheetWriter;
 import org.molgenis.data.excel.ExcelWriter;
@@ -20,18 +37,93 @@ import org.molgenis.data.support.AbstractWritable.AttributeWriteMode;
 import org.molgenis.data.support.AbstractWritable.EntityWriteMode;
 import org.molgenis.data.support.QueryImpl;
 import org.molgenis.dataexplorer.controller.DataRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import com.google.common.collect.Iterators;
+import com.google.common.io.CountingOutputStream;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
+@Component
 public class DataExplorerDownloadHandler
 {
+	private static final Logger LOG = LoggerFactory.getLogger(DataExplorerDownloadHandler.class);
+
+	private static final int BATCH_SIZE = 1000;
+	/** maximum number of batches that are read ahead of the batch that is being written */
+	private static final int QUEUE_CAPACITY = 16;
+	private static final int NR_THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+
 	private final DataService dataService;
 
+	/** reads batches of entities and converts them to rows for all downloads */
+	private final ExecutorService executorService = Executors.newFixedThreadPool(NR_THREADS,
+			new ThreadFactoryBuilder().setNameFormat("download-%d").setDaemon(true).build());
+
 	@Autowired
 	public DataExplorerDownloadHandler(DataService dataService)
 	{
 		this.dataService = dataService;
 	}
 
+	@PreDestroy
+	public void shutdown()
+	{
+		executorService.shutdownNow();
+	}
+
+	/**
+	 * Returns whether an Accept-Encoding request header accepts gzip content coding, taking quality values into
+	 * account: "gzip;q=0" refuses gzip and an explicit gzip entry overrides the "*" wildcard.
+	 *
+	 * @param acceptEncoding
+	 *            value of the Accept-Encoding header, may be null
+	 */
+	public static boolean acceptsGzip(String acceptEncoding)
+	{
+		if (acceptEncoding == null) return false;
+
+		Double gzipQuality = null;
+		Double wildcardQuality = null;
+		for (String element : acceptEncoding.split(","))
+		{
+			String[] parts = element.split(";");
+			String coding = parts[0].trim();
+			double quality = 1;
+			for (int i = 1; i < parts.length; ++i)
+			{
+				String parameter = parts[i].trim();
+				if (parameter.startsWith("q=") || parameter.startsWith("Q="))
+				{
+					try
+					{
+						quality = Double.parseDouble(parameter.substring(2).trim());
+					}
+					catch (NumberFormatException e)
+					{
+						quality = 0;
+					}
+				}
+			}
+
+			if (coding.equalsIgnoreCase("gzip") || coding.equalsIgnoreCase("x-gzip"))
+			{
+				gzipQuality = quality;
+			}
+			else if (coding.equals("*"))
+			{
+				wildcardQuality = quality;
+			}
+		}
+
+		if (gzipQuality != null) return gzipQuality > 0;
+		return wildcardQuality != null && wildcardQuality > 0;
+	}
+
 	public void writeToExcel(DataRequest dataRequest, OutputStream outputStream) throws IOException
 	{
 		ExcelWriter excelWriter = new ExcelWriter(outputStream, FileFormat.XLSX);
@@ -86,7 +178,9 @@ public class DataExplorerDownloadHandler
 	public void writeToCsv(DataRequest dataRequest, OutputStream outputStream, char separator, boolean noQuotes)
 			throws IOException
 	{
-		CsvWriter csvWriter = new CsvWriter(outputStream, separator, noQuotes);
+		long startTime = System.currentTimeMillis();
+		CountingOutputStream countingOutputStream = new CountingOutputStream(outputStream);
+		CsvWriter csvWriter = new CsvWriter(countingOutputStream, separator, noQuotes);
 		switch (dataRequest.getEntityValues())
 		{
 			case ENTITY_IDS:
@@ -100,6 +194,7 @@ public class DataExplorerDownloadHandler
 		}
 		String entityName = dataRequest.getEntityName();
 
+		long nrRows;
 		try
 		{
 			EntityMetaData entityMetaData = dataService.getEntityMetaData(entityName);
@@ -118,11 +213,140 @@ public class DataExplorerDownloadHandler
 			}
 
 			QueryImpl query = dataRequest.getQuery();
-			csvWriter.add(dataService.findAll(entityName, query));
+			nrRows = writeRows(csvWriter, entityName, query);
 		}
 		finally
 		{
 			csvWriter.close();
 		}
+
+		long millis = System.currentTimeMillis() - startTime;
+		LOG.info("Downloaded {} rows ({} bytes) of [{}] in {} ms ({} rows/s, {} bytes/s)", nrRows,
+				countingOutputStream.getCount(), entityName, millis, millis > 0 ? nrRows * 1000 / millis : 0,
+				millis > 0 ? countingOutputStream.getCount() * 1000 / millis : 0);
+	}
+
+	/**
+	 * Writes the entities of a query in a pipeline that runs on a small pool of threads shared by all downloads: the
+	 * next batch of entities is read while the current batch is converted to rows, and the calling thread writes the
+	 * converted batches in the order in which they were read. The calling thread opens and closes the entity stream and
+	 * only one batch is read at a time. At most {@link #QUEUE_CAPACITY} batches are read ahead of the batch that is
+	 * being written, so that memory use does not depend on the size of the download.
+	 *
+	 * @return number of written rows
+	 */
+	private long writeRows(CsvWriter csvWriter, String entityName, QueryImpl query)
+	{
+		SecurityContext securityContext = SecurityContextHolder.getContext();
+		Deque<Future<List<String[]>>> rowBatches = new ArrayDeque<>();
+		Future<List<Entity>> nextBatch = null;
+		try (Stream<Entity> entities = dataService.findAll(entityName, query))
+		{
+			Iterator<List<Entity>> batches = Iterators.partition(entities.iterator(), BATCH_SIZE);
+			Callable<List<Entity>> readBatch = withSecurityContext(securityContext,
+					() -> batches.hasNext() ? batches.next() : Collections.<Entity> emptyList());
+			try
+			{
+				long nrRows = 0;
+				nextBatch = executorService.submit(readBatch);
+				while (true)
+				{
+					List<Entity> batch = nextBatch.get();
+					if (batch.isEmpty()) break;
+
+					// read the next batch while this batch is converted and written
+					nextBatch = executorService.submit(readBatch);
+					rowBatches.add(executorService.submit(withSecurityContext(securityContext,
+							() -> batch.stream().map(csvWriter::toValues).collect(Collectors.toList()))));
+					if (rowBatches.size() >= QUEUE_CAPACITY)
+					{
+						nrRows += writeRowBatch(csvWriter, rowBatches.poll());
+					}
+				}
+				while (!rowBatches.isEmpty())
+				{
+					nrRows += writeRowBatch(csvWriter, rowBatches.poll());
+				}
+				return nrRows;
+			}
+			finally
+			{
+				rowBatches.forEach(rowBatch -> rowBatch.cancel(true));
+				// don't close the entity stream while a batch is being read from it
+				awaitQuietly(nextBatch);
+			}
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new MolgenisDataException(e);
+		}
+		catch (ExecutionException e)
+		{
+			if (e.getCause() instanceof RuntimeException)
+			{
+				throw (RuntimeException) e.getCause();
+			}
+			throw new MolgenisDataException(e.getCause());
+		}
+	}
+
+	/**
+	 * Waits for a task to complete, ignoring its result
+	 */
+	private static void awaitQuietly(Future<?> future)
+	{
+		if (future == null) return;
+
+		boolean interrupted = false;
+		while (true)
+		{
+			try
+			{
+				future.get();
+				break;
+			}
+			catch (InterruptedException e)
+			{
+				interrupted = true;
+			}
+			catch (ExecutionException | CancellationException e)
+			{
+				break;
+			}
+		}
+		if (interrupted)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Waits for a batch of rows to be converted and writes it
+	 *
+	 * @return number of written rows
+	 */
+	private static int writeRowBatch(CsvWriter csvWriter, Future<List<String[]>> rowBatch)
+			throws InterruptedException, ExecutionException
+	{
+		List<String[]> rows = rowBatch.get();
+		csvWriter.addValues(rows);
+		return rows.size();
+	}
+
+	private static <T> Callable<T> withSecurityContext(SecurityContext securityContext, Callable<T> callable)
+	{
+		return () -> {
+			SecurityContext originalContext = SecurityContextHolder.getContext();
+			try
+			{
+				SecurityContextHolder.setContext(securityContext);
+				return callable.call();
+			}
+			finally
+			{
+				SecurityContextHolder.setContext(originalContext);
+			}
+		};
 	}
 }
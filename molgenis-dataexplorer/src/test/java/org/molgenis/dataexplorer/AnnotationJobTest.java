@@ -72,26 +72,24 @@ public class AnnotationJobTest
 
 		annotationJob.call();
 
-		Mockito.verify(crudRepositoryAnnotator).annotate(exac, repository);
-		Mockito.verify(crudRepositoryAnnotator).annotate(cadd, repository);
+		// both annotators annotate the repository in a single pass
+		Mockito.verify(crudRepositoryAnnotator).annotate(ImmutableList.of(exac, cadd), repository);
 
 		Mockito.verify(progress).start();
-		Mockito.verify(progress).setProgressMax(2);
-		Mockito.verify(progress).progress(0,
-				"Annotating \"My repo\" with exac (annotator 1 of 2, started by \"fdlk\")");
-		Mockito.verify(progress).progress(1,
-				"Annotating \"My repo\" with cadd (annotator 2 of 2, started by \"fdlk\")");
+		Mockito.verify(progress).setProgressMax(1);
+		Mockito.verify(progress).progress(0, "Annotating \"My repo\" with exac,cadd (started by \"fdlk\")");
+		Mockito.verify(progress).progress(1, "Annotated \"My repo\" with exac,cadd (started by \"fdlk\")");
 		Mockito.verify(progress).success();
 	}
 
 	@Test
-	public void testFirstAnnotatorFails() throws IOException
+	public void testAnnotationFails() throws IOException
 	{
 		Mockito.when(exac.getSimpleName()).thenReturn("exac");
 		Mockito.when(cadd.getSimpleName()).thenReturn("cadd");
 
 		IOException exception = new IOException("error");
-		Mockito.when(crudRepositoryAnnotator.annotate(exac, repository)).thenThrow(exception);
+		Mockito.doThrow(exception).when(crudRepositoryAnnotator).annotate(ImmutableList.of(exac, cadd), repository);
 		try
 		{
 			annotationJob.call();
@@ -103,12 +101,9 @@ public class AnnotationJobTest
 		}
 
 		Mockito.verify(progress).start();
-		Mockito.verify(progress).setProgressMax(2);
-		Mockito.verify(progress).progress(0,
-				"Annotating \"My repo\" with exac (annotator 1 of 2, started by \"fdlk\")");
-		Mockito.verify(progress).progress(1,
-				"Annotating \"My repo\" with cadd (annotator 2 of 2, started by \"fdlk\")");
-		Mockito.verify(progress).status("Failed annotators: exac. Successful annotators: cadd");
+		Mockito.verify(progress).setProgressMax(1);
+		Mockito.verify(progress).progress(0, "Annotating \"My repo\" with exac,cadd (started by \"fdlk\")");
+		Mockito.verify(progress).status("Failed annotators: exac,cadd. Successful annotators: ");
 		Mockito.verify(progress).failed(exception);
 	}
 }
@@ -0,0 +1,152 @@
+package org.molgenis.dataexplorer.download;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.molgenis.data.DataService;
+import org.molgenis.data.Entity;
+import org.molgenis.data.MolgenisDataException;
+import org.molgenis.data.support.DefaultEntityMetaData;
+import org.molgenis.data.support.MapEntity;
+import org.molgenis.data.support.QueryImpl;
+import org.molgenis.dataexplorer.controller.DataRequest;
+import org.molgenis.dataexplorer.controller.DataRequest.ColNames;
+import org.molgenis.dataexplorer.controller.DataRequest.EntityValues;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class DataExplorerDownloadHandlerTest
+{
+	private DataService dataService;
+	private DataExplorerDownloadHandler dataExplorerDownloadHandler;
+	private DataRequest dataRequest;
+
+	@BeforeMethod
+	public void setUp()
+	{
+		dataService = mock(DataService.class);
+		dataExplorerDownloadHandler = new DataExplorerDownloadHandler(dataService);
+
+		DefaultEntityMetaData entityMetaData = new DefaultEntityMetaData("entity");
+		entityMetaData.addAttribute("id");
+		entityMetaData.addAttribute("value");
+		when(dataService.getEntityMetaData("entity")).thenReturn(entityMetaData);
+
+		dataRequest = new DataRequest();
+		dataRequest.setEntityName("entity");
+		dataRequest.setAttributeNames(Arrays.asList("id", "value"));
+		dataRequest.setColNames(ColNames.ATTRIBUTE_NAMES);
+		dataRequest.setEntityValues(EntityValues.ENTITY_IDS);
+		dataRequest.setQuery(new QueryImpl());
+	}
+
+	@AfterMethod
+	public void tearDown()
+	{
+		dataExplorerDownloadHandler.shutdown();
+	}
+
+	@Test
+	public void writeToCsv() throws IOException
+	{
+		// spans multiple batches to check that the row order is preserved
+		int nrRows = 3500;
+		when(dataService.findAll("entity", dataRequest.getQuery())).thenReturn(
+				IntStream.range(0, nrRows).mapToObj(this::createEntity));
+
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		dataExplorerDownloadHandler.writeToCsv(dataRequest, bos, ',');
+
+		StringBuilder expected = new StringBuilder("\"id\",\"value\"\n");
+		for (int i = 0; i < nrRows; ++i)
+		{
+			expected.append("\"id").append(i).append("\",\"value").append(i).append("\"\n");
+		}
+		assertEquals(bos.toString("UTF-8"), expected.toString());
+	}
+
+	@Test
+	public void writeToCsvNoQuotes() throws IOException
+	{
+		when(dataService.findAll("entity", dataRequest.getQuery())).thenReturn(
+				Stream.of(createEntity(0), createEntity(1)));
+
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		dataExplorerDownloadHandler.writeToCsv(dataRequest, bos, '\t', true);
+		assertEquals(bos.toString("UTF-8"), "id\tvalue\nid0\tvalue0\nid1\tvalue1\n");
+	}
+
+	@Test
+	public void writeToCsvNoRows() throws IOException
+	{
+		when(dataService.findAll("entity", dataRequest.getQuery())).thenReturn(Stream.empty());
+
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		dataExplorerDownloadHandler.writeToCsv(dataRequest, bos, ',');
+		assertEquals(bos.toString("UTF-8"), "\"id\",\"value\"\n");
+	}
+
+	@Test(expectedExceptions = MolgenisDataException.class, expectedExceptionsMessageRegExp = "query failed")
+	public void writeToCsvQueryFails() throws IOException
+	{
+		when(dataService.findAll("entity", dataRequest.getQuery())).thenThrow(
+				new MolgenisDataException("query failed"));
+		dataExplorerDownloadHandler.writeToCsv(dataRequest, new ByteArrayOutputStream(), ',');
+	}
+
+	@Test
+	public void writeToCsvReadFails() throws IOException
+	{
+		AtomicBoolean closed = new AtomicBoolean();
+		when(dataService.findAll("entity", dataRequest.getQuery())).thenReturn(
+				IntStream.range(0, 3500).mapToObj(i -> {
+					if (i == 1500) throw new MolgenisDataException("read failed");
+					return createEntity(i);
+				}).onClose(() -> closed.set(true)));
+
+		try
+		{
+			dataExplorerDownloadHandler.writeToCsv(dataRequest, new ByteArrayOutputStream(), ',');
+			fail("expected MolgenisDataException");
+		}
+		catch (MolgenisDataException e)
+		{
+			assertEquals(e.getMessage(), "read failed");
+		}
+		assertTrue(closed.get());
+	}
+
+	@Test
+	public void acceptsGzip()
+	{
+		assertTrue(DataExplorerDownloadHandler.acceptsGzip("gzip, deflate"));
+		assertTrue(DataExplorerDownloadHandler.acceptsGzip("deflate;q=1.0, gzip;q=0.5"));
+		assertTrue(DataExplorerDownloadHandler.acceptsGzip("*"));
+		assertFalse(DataExplorerDownloadHandler.acceptsGzip(null));
+		assertFalse(DataExplorerDownloadHandler.acceptsGzip("identity"));
+		assertFalse(DataExplorerDownloadHandler.acceptsGzip("gzip;q=0"));
+		assertFalse(DataExplorerDownloadHandler.acceptsGzip("gzip; q=0.000, deflate"));
+		assertFalse(DataExplorerDownloadHandler.acceptsGzip("*;q=1, gzip;q=0"));
+		assertFalse(DataExplorerDownloadHandler.acceptsGzip("x-gzipped"));
+	}
+
+	private Entity createEntity(int i)
+	{
+		MapEntity entity = new MapEntity("id");
+		entity.set("id", "id" + i);
+		entity.set("value", "value" + i);
+		return entity;
+	}
+}
@@ -31,6 +31,7 @@ import org.molgenis.mysql.embed.EmbeddedMysqlDatabaseBuilder;
 import org.molgenis.security.core.MolgenisPasswordEncoder;
 import org.molgenis.security.core.runas.RunAsSystemBeanPostProcessor;
 import org.molgenis.security.permission.PermissionSystemService;
+import org.molgenis.security.token.TokenCache;
 import org.molgenis.ui.MolgenisRepositoryDecoratorFactory;
 import org.molgenis.ui.RepositoryDecoratorRegistry;
 import org.molgenis.util.ApplicationContextProvider;
@@ -137,6 +138,12 @@ public abstract class AbstractDataApiTestConfig
 		return new EntityAttributesValidator();
 	}
 
+	@Bean
+	public TokenCache tokenCache()
+	{
+		return new TokenCache();
+	}
+
 	@Bean
 	public RepositoryDecoratorRegistry repositoryDecoratorRegistry()
 	{
@@ -153,7 +160,7 @@ public abstract class AbstractDataApiTestConfig
 			{
 				return new MolgenisRepositoryDecoratorFactory(entityManager(), transactionLogService,
 						entityAttributesValidator(), idGenerator(), appSettings(), dataService(), expressionValidator,
-						repositoryDecoratorRegistry()).createDecoratedRepository(repository);
+						repositoryDecoratorRegistry(), tokenCache()).createDecoratedRepository(repository);
 			}
 		};
 	}
@@ -15,24 +15,56 @@ import org.mozilla.javascript.Context;
 import org.mozilla.javascript.ContextAction;
 import org.mozilla.javascript.ContextFactory;
 import org.mozilla.javascript.EcmaError;
+import org.mozilla.javascript.EvaluatorException;
 import org.mozilla.javascript.Function;
+import org.mozilla.javascript.Script;
 import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.ScriptRuntime;
 import org.mozilla.javascript.ScriptableObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.util.FileCopyUtils;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 
 /**
  * Evaluate a script with molgenis-script-evaluator.js
+ * 
+ * molgenis-script-evaluator.js is loaded once in a sealed scope that is shared by all evaluations. Scripts are compiled
+ * once and each script is evaluated in its own lightweight scope per entity.
  */
 public class ScriptEvaluator
 {
 	private static final Logger LOG = LoggerFactory.getLogger(ScriptEvaluator.class);
 
-	private static String JS_SCRIPT = null;
+	/** Maximum number of compiled scripts kept in memory */
+	private static final int MAX_COMPILED_SCRIPTS = 1000;
+
+	/**
+	 * math.js defines its functions lazily. Resolve them at all depths before sealing the shared scope so that
+	 * evaluating scripts does not modify it. Objects that were already visited are skipped to handle cycles.
+	 */
+	private static final String RESOLVE_MATH_JS = "(function resolve(obj, visited) {"
+			+ "  visited.push(obj);"
+			+ "  for (var name in obj) {"
+			+ "    try {"
+			+ "      var value = obj[name];"
+			+ "      if (value !== null && (typeof value === 'object' || typeof value === 'function')"
+			+ "          && visited.indexOf(value) === -1) resolve(value, visited);"
+			+ "    } catch (e) {}"
+			+ "  }"
+			+ "})(math, []);";
+
+	private static final Cache<String, Script> COMPILED_SCRIPTS = CacheBuilder.newBuilder()
+			.maximumSize(MAX_COMPILED_SCRIPTS).build();
+
+	/**
+	 * Sealed top-level scope containing molgenis-script-evaluator.js, shared by all evaluations
+	 */
+	private static volatile ScriptableObject sharedScope;
 
 	/**
 	 * Evaluates a script for a single entity.
@@ -98,27 +130,13 @@ public class ScriptEvaluator
 	protected static List<Object> eval(final List<String> sources, final Iterable<Entity> entities,
 			final EntityMetaData entityMetaData)
 	{
-		if (JS_SCRIPT == null)
-		{
-			try
-			{
-				JS_SCRIPT = FileCopyUtils.copyToString(new InputStreamReader(ScriptEvaluator.class
-						.getResourceAsStream("/js/molgenis-script-evaluator.js"), "UTF-8"));
-			}
-			catch (IOException e)
-			{
-				throw new UncheckedIOException(e);
-			}
-		}
-
 		Object result = ContextFactory.getGlobal().call(new ContextAction()
 		{
 			@Override
 			public Object run(Context cx)
 			{
-				ScriptableObject scriptableObject = cx.initStandardObjects();
-				cx.evaluateString(scriptableObject, JS_SCRIPT, null, 1, null);
-				Function evalScript = (Function) scriptableObject.get("evalScript", scriptableObject);
+				ScriptableObject scope = getSharedScope(cx);
+				Function createScriptFunctions = (Function) scope.get("createScriptFunctions", scope);
 
 				List<Object> result = Lists.newArrayList();
 
@@ -126,12 +144,12 @@ public class ScriptEvaluator
 				{
 					try
 					{
-						Scriptable scriptableEntity = mapEntity(entity, entityMetaData, cx, scriptableObject);
+						Scriptable scriptableEntity = mapEntity(entity, entityMetaData, cx, scope);
+						Scriptable entityScope = createEntityScope(scriptableEntity, createScriptFunctions, cx, scope);
 
 						for (String source : sources)
 						{
-							result.add(evalScript.call(cx, scriptableObject, scriptableObject, new Object[]
-							{ source, scriptableEntity }));
+							result.add(getCompiledScript(source, cx).exec(cx, createScriptScope(entityScope, cx)));
 						}
 					}
 					catch (EcmaError error)
@@ -152,25 +170,191 @@ public class ScriptEvaluator
 					}
 				}
 
-				scriptableObject.sealObject();
-
 				return result;
 			}
+		});
+		return (List<Object>) result;
+	}
 
-			protected Scriptable mapEntity(final Entity entity, final EntityMetaData entityMetaData, Context cx,
-					ScriptableObject scriptableObject)
+	/**
+	 * Evaluates scripts on a batch of entities in a single context. In contrast to
+	 * {@link #eval(List, Iterable, EntityMetaData)} an error evaluating one script for an entity does not prevent the
+	 * evaluation of the other scripts for that entity. Each script is evaluated in its own scope, variables declared
+	 * by one script are not visible to the other scripts.
+	 * 
+	 * @param sources
+	 *            the sources of the scripts to run
+	 * @param entities
+	 *            {@link List} of {@link Entity}s to evaluate the scripts for
+	 * @param entityMetaData
+	 * @return for each script a {@link List} with for each entity the result of the evaluation, or the
+	 *         {@link RuntimeException} if one was thrown
+	 * @throws EcmaError
+	 *             if there's a syntax error in one of the scripts
+	 */
+	@SuppressWarnings("unchecked")
+	public static List<List<Object>> evalBatch(final List<String> sources, final List<Entity> entities,
+			final EntityMetaData entityMetaData)
+	{
+		Object result = ContextFactory.getGlobal().call(new ContextAction()
+		{
+			@Override
+			public Object run(Context cx)
 			{
-				Scriptable scriptableEntity = cx.newObject(scriptableObject);
-				scriptableEntity.setPrototype(scriptableObject);
-				entityMetaData.getAtomicAttributes().forEach(
-						attr -> {
-							scriptableEntity.put(attr.getName(), scriptableEntity,
-									javaToJS(entity.get(attr.getName()), cx, scriptableObject));
-						});
-				return scriptableEntity;
+				ScriptableObject scope = getSharedScope(cx);
+				Function createScriptFunctions = (Function) scope.get("createScriptFunctions", scope);
+
+				List<Script> scripts = Lists.newArrayListWithCapacity(sources.size());
+				List<List<Object>> results = Lists.newArrayListWithCapacity(sources.size());
+				for (String source : sources)
+				{
+					scripts.add(getCompiledScript(source, cx));
+					results.add(Lists.newArrayListWithCapacity(entities.size()));
+				}
+
+				for (Entity entity : entities)
+				{
+					Scriptable entityScope;
+					try
+					{
+						Scriptable scriptableEntity = mapEntity(entity, entityMetaData, cx, scope);
+						entityScope = createEntityScope(scriptableEntity, createScriptFunctions, cx, scope);
+					}
+					catch (RuntimeException ex)
+					{
+						results.forEach(scriptResults -> scriptResults.add(ex));
+						continue;
+					}
+
+					for (int i = 0; i < scripts.size(); ++i)
+					{
+						Object scriptResult;
+						try
+						{
+							scriptResult = scripts.get(i).exec(cx, createScriptScope(entityScope, cx));
+						}
+						catch (EcmaError error)
+						{
+							LOG.warn("EcmaError evaluating script, but it isn't a syntax error.", error);
+							scriptResult = error;
+						}
+						catch (RuntimeException ex)
+						{
+							scriptResult = ex;
+						}
+						results.get(i).add(scriptResult);
+					}
+				}
+
+				return results;
 			}
 		});
-		return (List<Object>) result;
+		return (List<List<Object>>) result;
+	}
+
+	private static Scriptable mapEntity(final Entity entity, final EntityMetaData entityMetaData, Context cx,
+			ScriptableObject scriptableObject)
+	{
+		Scriptable scriptableEntity = cx.newObject(scriptableObject);
+		scriptableEntity.setPrototype(scriptableObject);
+		entityMetaData.getAtomicAttributes().forEach(attr -> {
+			scriptableEntity.put(attr.getName(), scriptableEntity,
+					javaToJS(entity.get(attr.getName()), cx, scriptableObject));
+		});
+		return scriptableEntity;
+	}
+
+	/**
+	 * Creates a lightweight scope for evaluating scripts on one entity that holds the $ and newValue functions, other
+	 * names are resolved in the shared scope.
+	 */
+	private static Scriptable createEntityScope(Scriptable scriptableEntity, Function createScriptFunctions,
+			Context cx, ScriptableObject scope)
+	{
+		Scriptable entityScope = cx.newObject(scope);
+		entityScope.setPrototype(scope);
+		entityScope.setParentScope(null);
+
+		Scriptable scriptFunctions = (Scriptable) createScriptFunctions.call(cx, scope, scope, new Object[]
+		{ scriptableEntity });
+		entityScope.put("$", entityScope, scriptFunctions.get("$", scriptFunctions));
+		entityScope.put("newValue", entityScope, scriptFunctions.get("newValue", scriptFunctions));
+		return entityScope;
+	}
+
+	/**
+	 * Creates a scope for evaluating one script on one entity. Variables declared by the script are stored in this
+	 * scope so that they are not visible to other scripts, other names are resolved in the entity scope.
+	 */
+	private static Scriptable createScriptScope(Scriptable entityScope, Context cx)
+	{
+		Scriptable scriptScope = cx.newObject(entityScope);
+		scriptScope.setPrototype(entityScope);
+		scriptScope.setParentScope(null);
+		return scriptScope;
+	}
+
+	/**
+	 * Returns the compiled script for the given source, compiles and caches the script if it wasn't compiled before.
+	 * 
+	 * @throws EcmaError
+	 *             if there's a syntax error in the script
+	 */
+	private static Script getCompiledScript(String source, Context cx)
+	{
+		Script script = COMPILED_SCRIPTS.getIfPresent(source);
+		if (script == null)
+		{
+			try
+			{
+				script = cx.compileString(source, null, 1, null);
+			}
+			catch (EvaluatorException e)
+			{
+				throw ScriptRuntime.constructError("SyntaxError", e.details(), e.sourceName(), e.lineNumber(),
+						e.lineSource(), e.columnNumber());
+			}
+			COMPILED_SCRIPTS.put(source, script);
+		}
+		return script;
+	}
+
+	private static ScriptableObject getSharedScope(Context cx)
+	{
+		ScriptableObject scope = sharedScope;
+		if (scope == null)
+		{
+			synchronized (ScriptEvaluator.class)
+			{
+				scope = sharedScope;
+				if (scope == null)
+				{
+					scope = createSharedScope(cx);
+					sharedScope = scope;
+				}
+			}
+		}
+		return scope;
+	}
+
+	private static ScriptableObject createSharedScope(Context cx)
+	{
+		String jsScript;
+		try
+		{
+			jsScript = FileCopyUtils.copyToString(new InputStreamReader(ScriptEvaluator.class
+					.getResourceAsStream("/js/molgenis-script-evaluator.js"), "UTF-8"));
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+
+		ScriptableObject scope = cx.initStandardObjects();
+		cx.evaluateString(scope, jsScript, null, 1, null);
+		cx.evaluateString(scope, RESOLVE_MATH_JS, null, 1, null);
+		scope.sealObject();
+		return scope;
 	}
 
 	private static Object javaToJS(Object value, Context cx, Scriptable scope)
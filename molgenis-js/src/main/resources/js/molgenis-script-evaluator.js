@@ -8,6 +8,20 @@
  * @returns the evaluated script result
  */
 function evalScript(script, entity) {
+	var scriptFunctions = createScriptFunctions(entity);
+	var $ = scriptFunctions.$;
+	var newValue = scriptFunctions.newValue;
+	return eval(script);
+}
+
+/**
+ * Creates the functions that are available to a script evaluated for an entity.
+ * 
+ * @param entity
+ *            the entity
+ * @returns object containing the $ and newValue functions
+ */
+function createScriptFunctions(entity) {
 
 	function attribute(value){
 		
@@ -394,8 +408,10 @@ function evalScript(script, entity) {
 		return new attribute(value);
 	}
 
-	$ = $.bind(entity);
-	return eval(script);
+	return {
+		$ : $.bind(entity),
+		newValue : newValue
+	};
 }
 /**
  * math.js
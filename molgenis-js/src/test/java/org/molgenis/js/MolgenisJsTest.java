@@ -474,6 +474,57 @@ public class MolgenisJsTest
 		assertEquals(bmi, Collections.nCopies(1000, 82.0 / (1.89 * 1.89)));
 	}
 
+	@Test
+	public void testScriptVariablesNotShared()
+	{
+		DefaultEntityMetaData emd = new DefaultEntityMetaData("person");
+		emd.addAttribute("weight").setDataType(MolgenisFieldTypes.INT);
+		String script = "var counter = (typeof counter === 'undefined') ? 1 : counter + 1; total = counter; counter";
+
+		Object result1 = ScriptEvaluator.eval(script, new MapEntity("weight", 82), emd);
+		assertEquals(((Number) result1).intValue(), 1);
+
+		Object result2 = ScriptEvaluator.eval(script, new MapEntity("weight", 83), emd);
+		assertEquals(((Number) result2).intValue(), 1);
+	}
+
+	@Test
+	public void testScriptVariablesNotSharedBetweenScripts()
+	{
+		DefaultEntityMetaData emd = new DefaultEntityMetaData("person");
+		emd.addAttribute("weight").setDataType(MolgenisFieldTypes.INT);
+
+		List<Object> results = ScriptEvaluator.eval(
+				Arrays.asList("var counter = 1; counter", "typeof counter === 'undefined'"),
+				new MapEntity("weight", 82), emd);
+		assertEquals(((Number) results.get(0)).intValue(), 1);
+		assertEquals(results.get(1), true);
+	}
+
+	@Test
+	public void testEvalBatchScriptVariablesNotShared()
+	{
+		DefaultEntityMetaData emd = new DefaultEntityMetaData("person");
+		emd.addAttribute("weight").setDataType(MolgenisFieldTypes.INT);
+
+		List<List<Object>> results = ScriptEvaluator.evalBatch(
+				Arrays.asList("var weight = $('weight').value(); weight", "typeof weight === 'undefined'"),
+				Arrays.<Entity> asList(new MapEntity("weight", 82), new MapEntity("weight", 83)), emd);
+		assertEquals(((Number) results.get(0).get(0)).intValue(), 82);
+		assertEquals(((Number) results.get(0).get(1)).intValue(), 83);
+		assertEquals(results.get(1), Arrays.asList(true, true));
+	}
+
+	@Test
+	public void testNestedMathFunction()
+	{
+		DefaultEntityMetaData emd = new DefaultEntityMetaData("person");
+		emd.addAttribute("weight").setDataType(MolgenisFieldTypes.INT);
+
+		Object result = ScriptEvaluator.eval("new math.type.Complex(1, 2).re", new MapEntity("weight", 82), emd);
+		assertEquals(((Number) result).intValue(), 1);
+	}
+
 	@Test
 	public void testBatchErrors()
 	{
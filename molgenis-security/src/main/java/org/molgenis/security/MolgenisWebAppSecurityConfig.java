@@ -23,6 +23,7 @@ import org.molgenis.security.session.ApiSessionExpirationFilter;
 import org.molgenis.security.token.DataServiceTokenService;
 import org.molgenis.security.token.TokenAuthenticationFilter;
 import org.molgenis.security.token.TokenAuthenticationProvider;
+import org.molgenis.security.token.TokenCache;
 import org.molgenis.security.token.TokenGenerator;
 import org.molgenis.security.user.MolgenisUserDetailsChecker;
 import org.molgenis.security.user.MolgenisUserDetailsService;
@@ -211,10 +212,16 @@ public abstract class MolgenisWebAppSecurityConfig extends WebSecurityConfigurer
 		return new AnonymousAuthenticationProvider(ANONYMOUS_AUTHENTICATION_KEY);
 	}
 
+	@Bean
+	public TokenCache tokenCache()
+	{
+		return new TokenCache();
+	}
+
 	@Bean
 	public TokenService tokenService()
 	{
-		return new DataServiceTokenService(new TokenGenerator(), dataService, userDetailsService());
+		return new DataServiceTokenService(new TokenGenerator(), dataService, userDetailsService(), tokenCache());
 	}
 
 	@Bean
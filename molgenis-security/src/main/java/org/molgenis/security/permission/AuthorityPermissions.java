@@ -0,0 +1,101 @@
+package org.molgenis.security.permission;
+
+import static org.molgenis.security.core.utils.SecurityUtils.AUTHORITY_ENTITY_PREFIX;
+import static org.molgenis.security.core.utils.SecurityUtils.AUTHORITY_PLUGIN_PREFIX;
+import static org.molgenis.security.core.utils.SecurityUtils.AUTHORITY_SU;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.molgenis.security.core.Permission;
+import org.molgenis.security.core.runas.SystemSecurityToken;
+import org.springframework.security.core.GrantedAuthority;
+
+/**
+ * Permission table compiled once from the granted authorities of an authentication. Entity and plugin authorities are
+ * indexed by upper case id so that permission checks do not have to scan the list of granted authorities.
+ */
+final class AuthorityPermissions
+{
+	private static final AuthorityPermissions NO_PERMISSIONS = new AuthorityPermissions(false);
+	private static final AuthorityPermissions ALL_PERMISSIONS = new AuthorityPermissions(true);
+
+	private final boolean superuser;
+	private final Map<String, Set<Permission>> entityPermissions;
+	private final Map<String, Set<Permission>> pluginPermissions;
+
+	private AuthorityPermissions(boolean superuser)
+	{
+		this.superuser = superuser;
+		this.entityPermissions = new HashMap<>();
+		this.pluginPermissions = new HashMap<>();
+	}
+
+	static AuthorityPermissions create(Collection<? extends GrantedAuthority> grantedAuthorities)
+	{
+		if (grantedAuthorities == null || grantedAuthorities.isEmpty()) return NO_PERMISSIONS;
+
+		AuthorityPermissions authorityPermissions = new AuthorityPermissions(false);
+		for (GrantedAuthority grantedAuthority : grantedAuthorities)
+		{
+			String authority = grantedAuthority.getAuthority();
+			if (authority == null) continue;
+
+			if (authority.equals(AUTHORITY_SU) || authority.equals(SystemSecurityToken.ROLE_SYSTEM))
+			{
+				return ALL_PERMISSIONS;
+			}
+			else if (authority.startsWith(AUTHORITY_ENTITY_PREFIX))
+			{
+				put(authority, AUTHORITY_ENTITY_PREFIX.length(), authorityPermissions.entityPermissions);
+			}
+			else if (authority.startsWith(AUTHORITY_PLUGIN_PREFIX))
+			{
+				put(authority, AUTHORITY_PLUGIN_PREFIX.length(), authorityPermissions.pluginPermissions);
+			}
+		}
+		return authorityPermissions;
+	}
+
+	boolean hasPermissionOnEntity(String entityName, Permission permission)
+	{
+		return hasPermission(entityName, permission, entityPermissions);
+	}
+
+	boolean hasPermissionOnPlugin(String pluginId, Permission permission)
+	{
+		return hasPermission(pluginId, permission, pluginPermissions);
+	}
+
+	private boolean hasPermission(String authorityId, Permission permission, Map<String, Set<Permission>> permissions)
+	{
+		if (superuser) return true;
+		Set<Permission> grantedPermissions = permissions.get(authorityId.toUpperCase());
+		return grantedPermissions != null && grantedPermissions.contains(permission);
+	}
+
+	private static void put(String authority, int offset, Map<String, Set<Permission>> permissions)
+	{
+		for (Permission permission : Permission.values())
+		{
+			String permissionName = permission.toString();
+			int idOffset = offset + permissionName.length() + 1;
+			if (authority.length() > idOffset && authority.startsWith(permissionName, offset)
+					&& authority.charAt(idOffset - 1) == '_')
+			{
+				String authorityId = authority.substring(idOffset);
+				Set<Permission> grantedPermissions = permissions.get(authorityId);
+				if (grantedPermissions == null)
+				{
+					grantedPermissions = EnumSet.noneOf(Permission.class);
+					permissions.put(authorityId, grantedPermissions);
+				}
+				grantedPermissions.add(permission);
+				return;
+			}
+		}
+	}
+}
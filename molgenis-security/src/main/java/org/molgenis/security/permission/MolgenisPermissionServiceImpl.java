@@ -1,48 +1,48 @@
 package org.molgenis.security.permission;
 
-import static org.molgenis.security.core.utils.SecurityUtils.AUTHORITY_ENTITY_PREFIX;
-import static org.molgenis.security.core.utils.SecurityUtils.AUTHORITY_PLUGIN_PREFIX;
-import static org.molgenis.security.core.utils.SecurityUtils.AUTHORITY_SU;
-
-import java.util.Collection;
-
 import org.molgenis.security.core.MolgenisPermissionService;
 import org.molgenis.security.core.Permission;
-import org.molgenis.security.core.runas.SystemSecurityToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+
 public class MolgenisPermissionServiceImpl implements MolgenisPermissionService
 {
+	/**
+	 * Authorities compiled per authentication, the authentication objects stored in the session are reused across
+	 * requests and are weakly referenced so that entries disappear together with the session.
+	 */
+	private final LoadingCache<Authentication, AuthorityPermissions> authorityPermissionsCache = CacheBuilder
+			.newBuilder().weakKeys().build(new CacheLoader<Authentication, AuthorityPermissions>()
+			{
+				@Override
+				public AuthorityPermissions load(Authentication authentication)
+				{
+					return AuthorityPermissions.create(authentication.getAuthorities());
+				}
+			});
+
 	@Override
 	public boolean hasPermissionOnPlugin(String pluginId, Permission permission)
 	{
-		return hasPermission(pluginId, permission, AUTHORITY_PLUGIN_PREFIX);
+		AuthorityPermissions authorityPermissions = getAuthorityPermissions();
+		return authorityPermissions != null && authorityPermissions.hasPermissionOnPlugin(pluginId, permission);
 	}
 
 	@Override
 	public boolean hasPermissionOnEntity(String entityName, Permission permission)
 	{
-		return hasPermission(entityName, permission, AUTHORITY_ENTITY_PREFIX);
+		AuthorityPermissions authorityPermissions = getAuthorityPermissions();
+		return authorityPermissions != null && authorityPermissions.hasPermissionOnEntity(entityName, permission);
 	}
 
-	private boolean hasPermission(String authorityId, Permission permission, String authorityPrefix)
+	private AuthorityPermissions getAuthorityPermissions()
 	{
 		Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-		if (authentication == null) return false;
-
-		String pluginAuthority = authorityPrefix + permission.toString() + '_' + authorityId.toUpperCase();
-		Collection<? extends GrantedAuthority> grantedAuthorities = authentication.getAuthorities();
-		if (grantedAuthorities != null)
-		{
-			for (GrantedAuthority grantedAuthority : grantedAuthorities)
-			{
-				String authority = grantedAuthority.getAuthority();
-				if (authority.equals(AUTHORITY_SU) || authority.equals(SystemSecurityToken.ROLE_SYSTEM)
-						|| authority.equals(pluginAuthority)) return true;
-			}
-		}
-		return false;
+		if (authentication == null) return null;
+		return authorityPermissionsCache.getUnchecked(authentication);
 	}
 }
@@ -1,5 +1,7 @@
 package org.molgenis.security.token;
 
+import static java.util.Objects.requireNonNull;
+
 import java.util.Date;
 
 import org.apache.commons.lang3.time.DateUtils;
@@ -22,13 +24,21 @@ public class DataServiceTokenService implements TokenService
 	private final TokenGenerator tokenGenerator;
 	private final DataService dataService;
 	private final UserDetailsService userDetailsService;
+	private final TokenCache tokenCache;
 
 	public DataServiceTokenService(TokenGenerator tokenGenerator, DataService dataService,
 			UserDetailsService userDetailsService)
+	{
+		this(tokenGenerator, dataService, userDetailsService, new TokenCache());
+	}
+
+	public DataServiceTokenService(TokenGenerator tokenGenerator, DataService dataService,
+			UserDetailsService userDetailsService, TokenCache tokenCache)
 	{
 		this.tokenGenerator = tokenGenerator;
 		this.dataService = dataService;
 		this.userDetailsService = userDetailsService;
+		this.tokenCache = requireNonNull(tokenCache);
 	}
 
 	/**
@@ -42,8 +52,14 @@ public class DataServiceTokenService implements TokenService
 	@RunAsSystem
 	public UserDetails findUserByToken(String token) throws UnknownTokenException
 	{
-		MolgenisToken molgenisToken = getMolgenisToken(token);
-		return userDetailsService.loadUserByUsername(molgenisToken.getMolgenisUser().getUsername());
+		UserDetails userDetails = tokenCache.get(token);
+		if (userDetails == null)
+		{
+			MolgenisToken molgenisToken = getMolgenisToken(token);
+			userDetails = userDetailsService.loadUserByUsername(molgenisToken.getMolgenisUser().getUsername());
+			tokenCache.put(token, userDetails, molgenisToken.getExpirationDate());
+		}
+		return userDetails;
 	}
 
 	/**
@@ -84,6 +100,7 @@ public class DataServiceTokenService implements TokenService
 	{
 		MolgenisToken molgenisToken = getMolgenisToken(token);
 		dataService.delete(MolgenisToken.ENTITY_NAME, molgenisToken);
+		tokenCache.invalidate(token);
 	}
 
 	private MolgenisToken getMolgenisToken(String token) throws UnknownTokenException
@@ -0,0 +1,116 @@
+package org.molgenis.security.token;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+/**
+ * Bounded, expiring cache of security token to user details (including granted authorities). Must be invalidated when
+ * tokens, users, groups or authorities change, see {@link TokenCacheInvalidationDecorator}.
+ */
+public class TokenCache
+{
+	private static final Logger LOG = LoggerFactory.getLogger(TokenCache.class);
+
+	private static final int DEFAULT_MAXIMUM_SIZE = 10000;
+	private static final int DEFAULT_EXPIRE_AFTER_WRITE_MINUTES = 5;
+	/** number of lookups after which the cache statistics are logged */
+	private static final int STATS_LOG_INTERVAL = 10000;
+
+	private final Cache<String, CachedUserDetails> cache;
+	private final AtomicLong nrLookups = new AtomicLong();
+
+	public TokenCache()
+	{
+		this(DEFAULT_MAXIMUM_SIZE, DEFAULT_EXPIRE_AFTER_WRITE_MINUTES);
+	}
+
+	public TokenCache(long maximumSize, long expireAfterWriteMinutes)
+	{
+		this.cache = CacheBuilder.newBuilder().maximumSize(maximumSize)
+				.expireAfterWrite(expireAfterWriteMinutes, TimeUnit.MINUTES).recordStats().build();
+	}
+
+	/**
+	 * Returns the cached user details for the given token
+	 * 
+	 * @param token
+	 * @return user details or null if the token is not cached or the token is expired
+	 */
+	public UserDetails get(String token)
+	{
+		if (nrLookups.incrementAndGet() % STATS_LOG_INTERVAL == 0)
+		{
+			LOG.info("Token cache {}", getStats());
+		}
+
+		CachedUserDetails cachedUserDetails = cache.getIfPresent(token);
+		if (cachedUserDetails == null) return null;
+
+		Date expirationDate = cachedUserDetails.getExpirationDate();
+		if (expirationDate != null && new Date().after(expirationDate))
+		{
+			cache.invalidate(token);
+			return null;
+		}
+		return cachedUserDetails.getUserDetails();
+	}
+
+	public void put(String token, UserDetails userDetails, Date expirationDate)
+	{
+		cache.put(token, new CachedUserDetails(userDetails, expirationDate));
+	}
+
+	public void invalidate(String token)
+	{
+		cache.invalidate(token);
+	}
+
+	public void invalidateAll()
+	{
+		if (LOG.isDebugEnabled())
+		{
+			LOG.debug("Invalidating token cache, {}", getStats());
+		}
+		cache.invalidateAll();
+	}
+
+	/**
+	 * Returns cache statistics such as hit rate, miss count and eviction count. The statistics are logged every
+	 * {@value #STATS_LOG_INTERVAL} lookups.
+	 */
+	public CacheStats getStats()
+	{
+		return cache.stats();
+	}
+
+	private static class CachedUserDetails
+	{
+		private final UserDetails userDetails;
+		private final Date expirationDate;
+
+		public CachedUserDetails(UserDetails userDetails, Date expirationDate)
+		{
+			this.userDetails = userDetails;
+			this.expirationDate = expirationDate != null ? new Date(expirationDate.getTime()) : null;
+		}
+
+		public UserDetails getUserDetails()
+		{
+			return userDetails;
+		}
+
+		public Date getExpirationDate()
+		{
+			return expirationDate;
+		}
+	}
+}
@@ -0,0 +1,326 @@
+package org.molgenis.security.token;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.molgenis.auth.GroupAuthorityMetaData;
+import org.molgenis.auth.MolgenisGroupMemberMetaData;
+import org.molgenis.auth.MolgenisGroupMetaData;
+import org.molgenis.auth.MolgenisTokenMetaData;
+import org.molgenis.auth.MolgenisUserMetaData;
+import org.molgenis.auth.UserAuthorityMetaData;
+import org.molgenis.data.AggregateQuery;
+import org.molgenis.data.AggregateResult;
+import org.molgenis.data.Entity;
+import org.molgenis.data.EntityListener;
+import org.molgenis.data.EntityMetaData;
+import org.molgenis.data.Fetch;
+import org.molgenis.data.Query;
+import org.molgenis.data.Repository;
+import org.molgenis.data.RepositoryCapability;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Invalidates the {@link TokenCache} on changes to tokens, users, groups, group members or authorities. Within a
+ * transaction the cache is invalidated after the commit.
+ */
+public class TokenCacheInvalidationDecorator implements Repository
+{
+	private static final Set<String> ENTITY_NAMES = ImmutableSet.of(MolgenisTokenMetaData.ENTITY_NAME,
+			MolgenisUserMetaData.ENTITY_NAME, MolgenisGroupMetaData.ENTITY_NAME,
+			MolgenisGroupMemberMetaData.ENTITY_NAME, UserAuthorityMetaData.ENTITY_NAME,
+			GroupAuthorityMetaData.ENTITY_NAME);
+
+	private final Repository decoratedRepository;
+	private final TokenCache tokenCache;
+
+	public TokenCacheInvalidationDecorator(Repository decoratedRepository, TokenCache tokenCache)
+	{
+		this.decoratedRepository = requireNonNull(decoratedRepository);
+		this.tokenCache = requireNonNull(tokenCache);
+	}
+
+	/**
+	 * Returns whether changes to the repository with the given name affect cached tokens
+	 * 
+	 * @param entityName
+	 * @return
+	 */
+	public static boolean isTokenCacheDependency(String entityName)
+	{
+		return ENTITY_NAMES.contains(entityName);
+	}
+
+	@Override
+	public void add(Entity entity)
+	{
+		decoratedRepository.add(entity);
+		if (!isTokenRepository()) invalidateTokenCache();
+	}
+
+	@Override
+	public Integer add(Stream<? extends Entity> entities)
+	{
+		try
+		{
+			return decoratedRepository.add(entities);
+		}
+		finally
+		{
+			if (!isTokenRepository()) invalidateTokenCache();
+		}
+	}
+
+	@Override
+	public void update(Entity entity)
+	{
+		decoratedRepository.update(entity);
+		invalidateTokenCache();
+	}
+
+	@Override
+	public void update(Stream<? extends Entity> entities)
+	{
+		try
+		{
+			decoratedRepository.update(entities);
+		}
+		finally
+		{
+			invalidateTokenCache();
+		}
+	}
+
+	@Override
+	public void delete(Entity entity)
+	{
+		decoratedRepository.delete(entity);
+		invalidateTokenCache();
+	}
+
+	@Override
+	public void delete(Stream<? extends Entity> entities)
+	{
+		try
+		{
+			decoratedRepository.delete(entities);
+		}
+		finally
+		{
+			invalidateTokenCache();
+		}
+	}
+
+	@Override
+	public void deleteById(Object id)
+	{
+		decoratedRepository.deleteById(id);
+		invalidateTokenCache();
+	}
+
+	@Override
+	public void deleteById(Stream<Object> ids)
+	{
+		try
+		{
+			decoratedRepository.deleteById(ids);
+		}
+		finally
+		{
+			invalidateTokenCache();
+		}
+	}
+
+	@Override
+	public void deleteAll()
+	{
+		decoratedRepository.deleteAll();
+		invalidateTokenCache();
+	}
+
+	@Override
+	public void drop()
+	{
+		decoratedRepository.drop();
+		invalidateTokenCache();
+	}
+
+	/**
+	 * New tokens are not cached yet, so adding tokens does not require invalidation
+	 */
+	private boolean isTokenRepository()
+	{
+		return MolgenisTokenMetaData.ENTITY_NAME.equals(getName());
+	}
+
+	/**
+	 * Invalidates the token cache once the current transaction commits. Invalidating before the commit would allow
+	 * concurrent lookups to cache the uncommitted state until the cache entries expire.
+	 */
+	private void invalidateTokenCache()
+	{
+		if (!TransactionSynchronizationManager.isSynchronizationActive())
+		{
+			tokenCache.invalidateAll();
+		}
+		else if (!TransactionSynchronizationManager.hasResource(tokenCache))
+		{
+			// register once per transaction
+			TransactionSynchronizationManager.bindResource(tokenCache, Boolean.TRUE);
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter()
+			{
+				@Override
+				public void afterCommit()
+				{
+					tokenCache.invalidateAll();
+				}
+
+				@Override
+				public void afterCompletion(int status)
+				{
+					TransactionSynchronizationManager.unbindResourceIfPossible(tokenCache);
+				}
+			});
+		}
+	}
+
+	@Override
+	public String getName()
+	{
+		return decoratedRepository.getName();
+	}
+
+	@Override
+	public EntityMetaData getEntityMetaData()
+	{
+		return decoratedRepository.getEntityMetaData();
+	}
+
+	@Override
+	public Iterator<Entity> iterator()
+	{
+		return decoratedRepository.iterator();
+	}
+
+	@Override
+	public Stream<Entity> stream(Fetch fetch)
+	{
+		return decoratedRepository.stream(fetch);
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		decoratedRepository.close();
+	}
+
+	@Override
+	public void flush()
+	{
+		decoratedRepository.flush();
+	}
+
+	@Override
+	public void clearCache()
+	{
+		decoratedRepository.clearCache();
+		invalidateTokenCache();
+	}
+
+	@Override
+	public long count()
+	{
+		return decoratedRepository.count();
+	}
+
+	@Override
+	public Query query()
+	{
+		return decoratedRepository.query();
+	}
+
+	@Override
+	public long count(Query q)
+	{
+		return decoratedRepository.count(q);
+	}
+
+	@Override
+	public Stream<Entity> findAll(Query q)
+	{
+		return decoratedRepository.findAll(q);
+	}
+
+	@Override
+	public Entity findOne(Query q)
+	{
+		return decoratedRepository.findOne(q);
+	}
+
+	@Override
+	public Entity findOne(Object id)
+	{
+		return decoratedRepository.findOne(id);
+	}
+
+	@Override
+	public Entity findOne(Object id, Fetch fetch)
+	{
+		return decoratedRepository.findOne(id, fetch);
+	}
+
+	@Override
+	public Stream<Entity> findAll(Stream<Object> ids)
+	{
+		return decoratedRepository.findAll(ids);
+	}
+
+	@Override
+	public Stream<Entity> findAll(Stream<Object> ids, Fetch fetch)
+	{
+		return decoratedRepository.findAll(ids, fetch);
+	}
+
+	@Override
+	public AggregateResult aggregate(AggregateQuery aggregateQuery)
+	{
+		return decoratedRepository.aggregate(aggregateQuery);
+	}
+
+	@Override
+	public Set<RepositoryCapability> getCapabilities()
+	{
+		return decoratedRepository.getCapabilities();
+	}
+
+	@Override
+	public void create()
+	{
+		decoratedRepository.create();
+	}
+
+	@Override
+	public void rebuildIndex()
+	{
+		decoratedRepository.rebuildIndex();
+	}
+
+	@Override
+	public void addEntityListener(EntityListener entityListener)
+	{
+		decoratedRepository.addEntityListener(entityListener);
+	}
+
+	@Override
+	public void removeEntityListener(EntityListener entityListener)
+	{
+		decoratedRepository.removeEntityListener(entityListener);
+	}
+}
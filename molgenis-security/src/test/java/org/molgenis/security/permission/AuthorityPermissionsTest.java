@@ -0,0 +1,92 @@
+package org.molgenis.security.permission;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.molgenis.security.core.Permission;
+import org.molgenis.security.core.runas.SystemSecurityToken;
+import org.molgenis.security.core.utils.SecurityUtils;
+import org.springframework.security.core.GrantedAuthority;
+import org.testng.annotations.Test;
+
+public class AuthorityPermissionsTest
+{
+	@Test
+	public void createNoAuthorities()
+	{
+		AuthorityPermissions authorityPermissions = AuthorityPermissions.create(Collections
+				.<GrantedAuthority> emptyList());
+		assertFalse(authorityPermissions.hasPermissionOnEntity("entity", Permission.READ));
+		assertFalse(authorityPermissions.hasPermissionOnPlugin("plugin", Permission.READ));
+	}
+
+	@Test
+	public void createSuperuser()
+	{
+		AuthorityPermissions authorityPermissions = AuthorityPermissions.create(Arrays.asList(
+				createAuthority(SecurityUtils.AUTHORITY_ENTITY_READ_PREFIX + "ENTITY1"),
+				createAuthority(SecurityUtils.AUTHORITY_SU)));
+		assertTrue(authorityPermissions.hasPermissionOnEntity("entity2", Permission.WRITEMETA));
+		assertTrue(authorityPermissions.hasPermissionOnPlugin("plugin", Permission.WRITE));
+	}
+
+	@Test
+	public void createSystem()
+	{
+		AuthorityPermissions authorityPermissions = AuthorityPermissions.create(Arrays
+				.asList(createAuthority(SystemSecurityToken.ROLE_SYSTEM)));
+		assertTrue(authorityPermissions.hasPermissionOnEntity("entity", Permission.WRITE));
+	}
+
+	@Test
+	public void createWriteAndWritemeta()
+	{
+		AuthorityPermissions authorityPermissions = AuthorityPermissions.create(Arrays.asList(
+				createAuthority(SecurityUtils.AUTHORITY_ENTITY_WRITEMETA_PREFIX + "MY_ENTITY"),
+				createAuthority(SecurityUtils.AUTHORITY_ENTITY_READ_PREFIX + "MY_ENTITY")));
+		assertTrue(authorityPermissions.hasPermissionOnEntity("my_entity", Permission.WRITEMETA));
+		assertTrue(authorityPermissions.hasPermissionOnEntity("my_entity", Permission.READ));
+		assertFalse(authorityPermissions.hasPermissionOnEntity("my_entity", Permission.WRITE));
+		assertFalse(authorityPermissions.hasPermissionOnPlugin("my_entity", Permission.READ));
+	}
+
+	@Test
+	public void createManyAuthorities()
+	{
+		List<GrantedAuthority> grantedAuthorities = new ArrayList<>();
+		for (int i = 0; i < 1000; ++i)
+		{
+			grantedAuthorities.add(createAuthority(SecurityUtils.AUTHORITY_ENTITY_COUNT_PREFIX + "ENTITY" + i));
+		}
+		AuthorityPermissions authorityPermissions = AuthorityPermissions.create(grantedAuthorities);
+
+		for (int i = 0; i < 1000; ++i)
+		{
+			assertTrue(authorityPermissions.hasPermissionOnEntity("entity" + i, Permission.COUNT));
+			assertFalse(authorityPermissions.hasPermissionOnEntity("entity" + i, Permission.READ));
+		}
+		assertFalse(authorityPermissions.hasPermissionOnEntity("entity1000", Permission.COUNT));
+
+		// every authority is read once when the table is compiled, lookups don't scan the authorities
+		for (GrantedAuthority grantedAuthority : grantedAuthorities)
+		{
+			verify(grantedAuthority, times(1)).getAuthority();
+		}
+	}
+
+	private static GrantedAuthority createAuthority(String authority)
+	{
+		GrantedAuthority grantedAuthority = mock(GrantedAuthority.class);
+		when(grantedAuthority.getAuthority()).thenReturn(authority);
+		return grantedAuthority;
+	}
+}
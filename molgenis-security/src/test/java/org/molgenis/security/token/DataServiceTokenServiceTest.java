@@ -1,6 +1,7 @@
 package org.molgenis.security.token;
 
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.testng.Assert.assertEquals;
@@ -56,6 +57,29 @@ public class DataServiceTokenServiceTest
 		assertEquals(tokenService.findUserByToken("token"), userDetails);
 	}
 
+	@Test
+	public void findUserByTokenCached()
+	{
+		MolgenisToken molgenisToken = new MolgenisToken();
+		molgenisToken.setToken("token");
+		MolgenisUser user = new MolgenisUser();
+		user.setUsername("admin");
+		molgenisToken.setMolgenisUser(user);
+
+		when(
+				dataService.findOne(MolgenisToken.ENTITY_NAME, new QueryImpl().eq(MolgenisToken.TOKEN, "token"),
+						MolgenisToken.class)).thenReturn(molgenisToken);
+
+		UserDetails userDetails = new User("admin", "admin", Arrays.asList(new SimpleGrantedAuthority("admin")));
+		when(userDetailsService.loadUserByUsername("admin")).thenReturn(userDetails);
+
+		assertEquals(tokenService.findUserByToken("token"), userDetails);
+		assertEquals(tokenService.findUserByToken("token"), userDetails);
+		verify(dataService, times(1)).findOne(MolgenisToken.ENTITY_NAME,
+				new QueryImpl().eq(MolgenisToken.TOKEN, "token"), MolgenisToken.class);
+		verify(userDetailsService, times(1)).loadUserByUsername("admin");
+	}
+
 	@Test(expectedExceptions = UnknownTokenException.class)
 	public void findUserByTokenExpired()
 	{
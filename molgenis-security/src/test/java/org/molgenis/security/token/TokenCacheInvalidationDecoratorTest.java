@@ -0,0 +1,90 @@
+package org.molgenis.security.token;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+import java.util.Arrays;
+
+import org.molgenis.auth.MolgenisTokenMetaData;
+import org.molgenis.auth.MolgenisUserMetaData;
+import org.molgenis.data.Entity;
+import org.molgenis.data.Repository;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class TokenCacheInvalidationDecoratorTest
+{
+	private TokenCache tokenCache;
+	private UserDetails userDetails;
+
+	@BeforeMethod
+	public void beforeMethod()
+	{
+		tokenCache = new TokenCache();
+		userDetails = new User("admin", "admin", Arrays.asList(new SimpleGrantedAuthority("admin")));
+		tokenCache.put("token", userDetails, null);
+	}
+
+	@Test
+	public void addToken()
+	{
+		Repository repository = createRepository(MolgenisTokenMetaData.ENTITY_NAME);
+		Entity entity = mock(Entity.class);
+		new TokenCacheInvalidationDecorator(repository, tokenCache).add(entity);
+		verify(repository).add(entity);
+		assertEquals(tokenCache.get("token"), userDetails);
+	}
+
+	@Test
+	public void update()
+	{
+		Repository repository = createRepository(MolgenisUserMetaData.ENTITY_NAME);
+		Entity entity = mock(Entity.class);
+		new TokenCacheInvalidationDecorator(repository, tokenCache).update(entity);
+		verify(repository).update(entity);
+		assertNull(tokenCache.get("token"));
+	}
+
+	@Test
+	public void updateInTransaction()
+	{
+		Repository repository = createRepository(MolgenisUserMetaData.ENTITY_NAME);
+		TokenCacheInvalidationDecorator decorator = new TokenCacheInvalidationDecorator(repository, tokenCache);
+
+		TransactionSynchronizationManager.initSynchronization();
+		try
+		{
+			decorator.update(mock(Entity.class));
+			decorator.deleteById("id");
+			assertEquals(tokenCache.get("token"), userDetails);
+
+			assertEquals(TransactionSynchronizationManager.getSynchronizations().size(), 1);
+			for (TransactionSynchronization synchronization : TransactionSynchronizationManager
+					.getSynchronizations())
+			{
+				synchronization.afterCommit();
+				synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+			}
+			assertNull(tokenCache.get("token"));
+		}
+		finally
+		{
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	private static Repository createRepository(String entityName)
+	{
+		Repository repository = mock(Repository.class);
+		when(repository.getName()).thenReturn(entityName);
+		return repository;
+	}
+}
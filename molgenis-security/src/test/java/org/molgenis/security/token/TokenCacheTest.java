@@ -0,0 +1,69 @@
+package org.molgenis.security.token;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+import java.util.Arrays;
+import java.util.Date;
+
+import org.apache.commons.lang3.time.DateUtils;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class TokenCacheTest
+{
+	private TokenCache tokenCache;
+	private UserDetails userDetails;
+
+	@BeforeMethod
+	public void beforeMethod()
+	{
+		tokenCache = new TokenCache();
+		userDetails = new User("admin", "admin", Arrays.asList(new SimpleGrantedAuthority("admin")));
+	}
+
+	@Test
+	public void get()
+	{
+		tokenCache.put("token", userDetails, DateUtils.addHours(new Date(), 2));
+		assertEquals(tokenCache.get("token"), userDetails);
+		assertNull(tokenCache.get("unknown"));
+		assertEquals(tokenCache.getStats().hitCount(), 1);
+		assertEquals(tokenCache.getStats().missCount(), 1);
+	}
+
+	@Test
+	public void getNoExpirationDate()
+	{
+		tokenCache.put("token", userDetails, null);
+		assertEquals(tokenCache.get("token"), userDetails);
+	}
+
+	@Test
+	public void getExpired()
+	{
+		tokenCache.put("token", userDetails, DateUtils.addDays(new Date(), -1));
+		assertNull(tokenCache.get("token"));
+	}
+
+	@Test
+	public void invalidate()
+	{
+		tokenCache.put("token", userDetails, null);
+		tokenCache.invalidate("token");
+		assertNull(tokenCache.get("token"));
+	}
+
+	@Test
+	public void invalidateAll()
+	{
+		tokenCache.put("token1", userDetails, null);
+		tokenCache.put("token2", userDetails, null);
+		tokenCache.invalidateAll();
+		assertNull(tokenCache.get("token1"));
+		assertNull(tokenCache.get("token2"));
+	}
+}